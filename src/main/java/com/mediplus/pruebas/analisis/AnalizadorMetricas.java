@@ -1,5 +1,11 @@
 package com.mediplus.pruebas.analisis;
 
+import com.mediplus.pruebas.analisis.jmeter.AgregadorMetricasJTL;
+import com.mediplus.pruebas.analisis.jmeter.BocetoMetricasJTL;
+import com.mediplus.pruebas.analisis.jmeter.CacheColumnarJTL;
+import com.mediplus.pruebas.analisis.jmeter.DesgloseMetricasJTL;
+import com.mediplus.pruebas.analisis.jmeter.LectorJTL;
+import com.mediplus.pruebas.analisis.jmeter.SerieTemporalJTL;
 import com.mediplus.pruebas.analisis.modelo.MetricaRendimiento;
 
 import java.io.*;
@@ -22,119 +28,262 @@ public class AnalizadorMetricas {
     private static final Logger LOGGER = Logger.getLogger(AnalizadorMetricas.class.getName());
     private static final DateTimeFormatter FORMATO_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
 
+    /**
+     * Deriva el intervalo de cada hilo de la propia métrica: en lazo cerrado cada usuario repite su
+     * ciclo (pausa + latencia) cada {@code usuarios / throughput} segundos (ley de Little). Solo
+     * corrige cuando el nombre del JTL trae los usuarios; sin ellos el intervalo no se conoce
+     */
+    public static final long INTERVALO_ESPERADO_AUTOMATICO = 0;
+
+    /** No calcula percentiles corregidos por omisión coordinada */
+    public static final long SIN_CORRECCION_OMISION = -1;
+
+    private final long ventanaSerieMs;
+    private final boolean soloRegimenEstable;
+    private final long intervaloEsperadoMs;
+
+    /** Usuarios supuestos cuando el nombre del archivo no los indica */
+    private static final int USUARIOS_POR_DEFECTO = 10;
+
+    /**
+     * Analizador con ventanas de 1 segundo que reporta la métrica general sobre el régimen estable
+     */
+    public AnalizadorMetricas() {
+        this(SerieTemporalJTL.VENTANA_DEFAULT_MS, true);
+    }
+
+    /**
+     * @param ventanaSerieMs     tamaño de ventana de la serie temporal
+     * @param soloRegimenEstable si es true, la métrica general excluye ramp-up y drenaje cuando se detecta una meseta
+     */
+    public AnalizadorMetricas(long ventanaSerieMs, boolean soloRegimenEstable) {
+        this(ventanaSerieMs, soloRegimenEstable, SIN_CORRECCION_OMISION);
+    }
+
+    /**
+     * Los hilos de JMeter trabajan en lazo cerrado: mientras esperan una respuesta lenta no envían
+     * las peticiones que les tocaban y los percentiles medidos subestiman la cola. Cada métrica
+     * lleva además los percentiles corregidos por omisión coordinada con este intervalo; sin un
+     * intervalo conocido o derivable no se corrige, para no inventar muestras
+     *
+     * @param intervaloEsperadoMs tiempo esperado entre peticiones de un mismo hilo,
+     *                            {@link #INTERVALO_ESPERADO_AUTOMATICO} o {@link #SIN_CORRECCION_OMISION}
+     */
+    public AnalizadorMetricas(long ventanaSerieMs, boolean soloRegimenEstable, long intervaloEsperadoMs) {
+        if (ventanaSerieMs <= 0) {
+            throw new IllegalArgumentException("ventanaSerieMs debe ser positivo");
+        }
+        this.ventanaSerieMs = ventanaSerieMs;
+        this.soloRegimenEstable = soloRegimenEstable;
+        this.intervaloEsperadoMs = intervaloEsperadoMs;
+    }
+
     /**
      * Procesa un archivo JTL y extrae métricas de rendimiento
+     * El archivo se recorre en streaming alimentando acumuladores, sin cargarlo en memoria
      */
     public MetricaRendimiento procesarArchivoJTL(Path archivoJTL) throws IOException {
+        ResultadoAnalisisJTL resultado = procesarArchivoJTLConDesglose(archivoJTL);
+        return resultado != null ? resultado.getGeneral() : null;
+    }
+
+    /**
+     * Procesa un archivo JTL y devuelve, además de la métrica general, una métrica por
+     * etiqueta de sampler y otra por método HTTP, todo en una sola pasada
+     */
+    public ResultadoAnalisisJTL procesarArchivoJTLConDesglose(Path archivoJTL) throws IOException {
         if (!Files.exists(archivoJTL) || Files.size(archivoJTL) == 0) {
             LOGGER.warning("Archivo JTL vacío o no existe: " + archivoJTL);
             return null;
         }
 
-        List<String> lineas = Files.readAllLines(archivoJTL);
-        if (lineas.size() <= 1) { // Solo header o vacío
-            LOGGER.warning("Archivo JTL sin datos: " + archivoJTL);
-            return null;
+        DesgloseMetricasJTL desglose = new DesgloseMetricasJTL(ventanaSerieMs, true);
+        try (LectorJTL lector = LectorJTL.abrir(archivoJTL)) {
+            while (lector.siguiente()) {
+                if (!desglose.registrar(lector)) {
+                    LOGGER.log(Level.FINE, "Línea JTL inválida ignorada en: " + archivoJTL);
+                }
+            }
         }
+        return resumirDesglose(archivoJTL, desglose, consumidor -> {
+            try (LectorJTL lector = LectorJTL.abrir(archivoJTL)) {
+                while (lector.siguiente()) {
+                    long timeStamp = lector.timeStamp();
+                    long elapsed = lector.elapsed();
+                    // Mismas filas que guarda el caché columnar (VALOR_INVALIDO es negativo)
+                    if (timeStamp != LectorJTL.VALOR_INVALIDO && elapsed >= 0 && elapsed <= Integer.MAX_VALUE) {
+                        consumidor.aceptar(timeStamp, (int) elapsed, -1, lector.exito(), 0);
+                    }
+                }
+            }
+        });
+    }
 
-        // Parsear datos del JTL
-        List<RegistroJTL> registros = parsearJTL(lineas);
-        if (registros.isEmpty()) {
+    /**
+     * Igual que {@link #procesarArchivoJTLConDesglose(Path)}, pero lee las filas desde el caché
+     * columnar y solo parsea el texto cuando el JTL no tiene un caché vigente
+     */
+    public ResultadoAnalisisJTL procesarArchivoJTLConDesglose(Path archivoJTL, CacheColumnarJTL cache) throws IOException {
+        if (!Files.exists(archivoJTL) || Files.size(archivoJTL) == 0) {
+            LOGGER.warning("Archivo JTL vacío o no existe: " + archivoJTL);
             return null;
         }
 
-        // Calcular métricas
-        return calcularMetricas(archivoJTL.getFileName().toString(), registros);
+        CacheColumnarJTL.ArchivoColumnar columnas;
+        try {
+            columnas = cache.obtener(archivoJTL);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Caché columnar no disponible, se procesa el texto: " + archivoJTL, e);
+            return procesarArchivoJTLConDesglose(archivoJTL);
+        }
+
+        DesgloseMetricasJTL desglose = new DesgloseMetricasJTL(ventanaSerieMs, true);
+        desglose.registrar(columnas);
+        return resumirDesglose(archivoJTL, desglose, columnas::recorrer);
     }
 
     /**
-     * Parsea las líneas de un archivo JTL
+     * Modo boceto: consolida los resúmenes de varios generadores de carga en una sola métrica
+     * sin leer sus JTL; los percentiles conservan el error relativo del histograma
+     * (ver {@link BocetoMetricasJTL}). Los usuarios se suman a partir del nombre de cada boceto
      */
-    private List<RegistroJTL> parsearJTL(List<String> lineas) {
-        List<RegistroJTL> registros = new ArrayList<>();
-
-        // Saltar header (primera línea)
-        for (int i = 1; i < lineas.size(); i++) {
-            try {
-                String linea = lineas.get(i);
-                String[] campos = linea.split(",");
-
-                if (campos.length >= 3) {
-                    long timestamp = Long.parseLong(campos[0].trim());
-                    long elapsed = Long.parseLong(campos[1].trim());
-                    String label = campos.length > 2 ? campos[2].trim() : "Unknown";
-                    boolean success = campos.length > 7 ? "true".equals(campos[7].trim()) : true;
-
-                    registros.add(new RegistroJTL(timestamp, elapsed, label, success));
-                }
-            } catch (Exception e) {
-                LOGGER.log(Level.FINE, "Error parseando línea JTL: " + lineas.get(i), e);
-            }
+    public MetricaRendimiento procesarBocetos(List<Path> archivosBoceto) throws IOException {
+        if (archivosBoceto.isEmpty()) {
+            return null;
+        }
+        BocetoMetricasJTL global = BocetoMetricasJTL.combinarArchivos(archivosBoceto);
+        AgregadorMetricasJTL general = global.getGeneral();
+        if (general.getTotalMuestras() == 0) {
+            LOGGER.warning("Bocetos sin muestras: " + archivosBoceto);
+            return null;
         }
 
-        return registros;
+        List<OptionalInt> usuariosPorBoceto = archivosBoceto.stream()
+                .map(archivo -> extraerUsuariosDelNombre(archivo.getFileName().toString()))
+                .toList();
+        int usuarios = usuariosPorBoceto.stream().mapToInt(u -> u.orElse(USUARIOS_POR_DEFECTO)).sum();
+        boolean usuariosConocidos = usuariosPorBoceto.stream().allMatch(OptionalInt::isPresent);
+        String escenario = extraerEscenarioDelNombre(archivosBoceto.get(0).getFileName().toString());
+        long duracionMs = general.getDuracionMs();
+        double duracionSeg = duracionMs > 0 ? duracionMs / 1000.0 : 60.0;
+
+        LOGGER.info(String.format("📦 %d bocetos combinados (%s): %d muestras, error de percentiles ≤ %.2f%%",
+                archivosBoceto.size(), String.join(", ", global.getNodos()), general.getTotalMuestras(),
+                global.getErrorRelativoMaximo() * 100));
+        return calcularMetricas(escenario, usuarios, usuariosConocidos, general, duracionSeg);
     }
 
     /**
-     * Calcula métricas a partir de registros JTL
+     * Convierte el desglose de un JTL en métricas: general (del régimen estable si se detecta),
+     * por etiqueta y por método. La meseta solo se conoce al final, así que sus percentiles salen
+     * de una segunda pasada por {@code fuente} restringida a ese tramo, con precisión completa
      */
-    private MetricaRendimiento calcularMetricas(String nombreArchivo, List<RegistroJTL> registros) {
-        if (registros.isEmpty()) return null;
+    private ResultadoAnalisisJTL resumirDesglose(Path archivoJTL, DesgloseMetricasJTL desglose,
+                                                 FuenteMuestras fuente) throws IOException {
+        AgregadorMetricasJTL general = desglose.getGeneral();
+        if (general.getTotalMuestras() == 0) {
+            LOGGER.warning("Archivo JTL sin datos: " + archivoJTL);
+            return null;
+        }
 
         // Extraer información del nombre del archivo
+        String nombreArchivo = archivoJTL.getFileName().toString();
         String escenario = extraerEscenarioDelNombre(nombreArchivo);
-        int usuarios = extraerUsuariosDelNombre(nombreArchivo);
+        OptionalInt usuariosDelNombre = extraerUsuariosDelNombre(nombreArchivo);
+        int usuarios = usuariosDelNombre.orElse(USUARIOS_POR_DEFECTO);
+        boolean usuariosConocidos = usuariosDelNombre.isPresent();
 
-        // Calcular estadísticas
-        List<Long> tiempos = registros.stream()
-                .map(r -> r.elapsed)
-                .sorted()
-                .collect(Collectors.toList());
+        // Todas las métricas del archivo comparten la ventana de la prueba para el throughput
+        long duracionMs = general.getDuracionMs();
+        double duracionSeg = duracionMs > 0 ? duracionMs / 1000.0 : 60.0; // fallback a 60 seg
 
-        double tiempoPromedio = tiempos.stream().mapToLong(Long::longValue).average().orElse(0.0);
-        long tiempoMinimo = tiempos.get(0);
-        long tiempoMaximo = tiempos.get(tiempos.size() - 1);
+        Map<String, MetricaRendimiento> porEtiqueta = new LinkedHashMap<>();
+        desglose.getPorEtiqueta().forEach((etiqueta, agregador) ->
+                porEtiqueta.put(etiqueta, calcularMetricas(etiqueta, usuarios, usuariosConocidos, agregador, duracionSeg)));
+
+        Map<String, MetricaRendimiento> porMetodo = new LinkedHashMap<>();
+        desglose.getPorMetodo().forEach((metodo, agregador) ->
+                porMetodo.put(metodo, calcularMetricas(escenario + " - " + metodo, usuarios, usuariosConocidos, agregador, duracionSeg)));
+
+        // La métrica general describe la meseta: sin ramp-up ni drenaje final
+        SerieTemporalJTL serie = desglose.getSerieTemporal();
+        Optional<SerieTemporalJTL.RegimenEstable> regimen = soloRegimenEstable
+                ? serie.detectarRegimenEstable() : Optional.empty();
+        MetricaRendimiento metricaGeneral;
+        if (regimen.isPresent()) {
+            SerieTemporalJTL.RegimenEstable r = regimen.get();
+            LOGGER.fine(() -> String.format("Régimen estable en %s: %d de %d ventanas, %d de %d muestras",
+                    nombreArchivo, r.ventanas(), serie.getNumeroVentanas(), r.muestras(), general.getTotalMuestras()));
+            metricaGeneral = calcularMetricas(escenario, usuarios, usuariosConocidos, agregarTramo(fuente, r.inicioMs(), r.finMs()),
+                    r.duracionMs() / 1000.0);
+        } else {
+            metricaGeneral = calcularMetricas(escenario, usuarios, usuariosConocidos, general, duracionSeg);
+        }
+        if (serie.getMuestrasDescartadas() > 0) {
+            LOGGER.warning(String.format("%d muestras con timeStamp fuera de rango no entran en la serie de %s",
+                    serie.getMuestrasDescartadas(), nombreArchivo));
+        }
 
-        // Percentiles
-        double percentil90 = calcularPercentil(tiempos, 90);
-        double percentil95 = calcularPercentil(tiempos, 95);
+        return new ResultadoAnalisisJTL(metricaGeneral, porEtiqueta, porMetodo, serie.getVentanas(), regimen);
+    }
 
-        // Tasa de error
-        long errores = registros.stream().mapToLong(r -> r.success ? 0 : 1).sum();
-        double tasaError = (double) errores / registros.size() * 100.0;
+    /**
+     * Agrega con el histograma completo las muestras que terminan dentro de {@code [inicioMs, finMs)},
+     * el mismo criterio con que la serie asigna cada muestra a su ventana
+     */
+    private static AgregadorMetricasJTL agregarTramo(FuenteMuestras fuente, long inicioMs, long finMs) throws IOException {
+        AgregadorMetricasJTL tramo = new AgregadorMetricasJTL();
+        fuente.recorrer((timeStamp, elapsedMs, latencia, exito, codigoEtiqueta) -> {
+            long fin = timeStamp + elapsedMs;
+            if (fin >= inicioMs && fin < finMs) {
+                tramo.registrar(timeStamp, elapsedMs, exito);
+            }
+        });
+        return tramo;
+    }
 
+    /**
+     * Calcula métricas a partir de los acumuladores del JTL
+     *
+     * @param usuariosConocidos si los usuarios salen del nombre del archivo y no del valor por defecto
+     */
+    private MetricaRendimiento calcularMetricas(String nombreEscenario, int usuarios, boolean usuariosConocidos,
+                                                AgregadorMetricasJTL agregador, double duracionSeg) {
         // Throughput (aproximado)
-        long duracionMs = registros.stream()
-                .mapToLong(r -> r.timestamp)
-                .max().orElse(0) - registros.stream().mapToLong(r -> r.timestamp).min().orElse(0);
-        double duracionSeg = duracionMs > 0 ? duracionMs / 1000.0 : 60.0; // fallback a 60 seg
-        double throughput = registros.size() / duracionSeg;
+        double throughput = agregador.getTotalMuestras() / duracionSeg;
 
-        return new MetricaRendimiento.Builder()
-                .nombreEscenario(escenario)
+        MetricaRendimiento.Builder builder = new MetricaRendimiento.Builder()
+                .nombreEscenario(nombreEscenario)
                 .usuariosConcurrentes(usuarios)
-                .tiempoPromedioMs(tiempoPromedio)
-                .percentil90Ms(percentil90)
-                .percentil95Ms(percentil95)
+                .tiempoPromedioMs(agregador.getPromedioMs())
+                .percentil90Ms(agregador.percentilMs(90))
+                .percentil95Ms(agregador.percentilMs(95))
                 .throughputReqSeg(throughput)
-                .tasaErrorPorcentaje(tasaError)
-                .tiempoMinimoMs(tiempoMinimo)
-                .tiempoMaximoMs(tiempoMaximo)
-                .duracionPruebaSegundos((int) duracionSeg)
+                .tasaErrorPorcentaje(agregador.getTasaErrorPorcentaje())
+                .tiempoMinimoMs(agregador.getMinimoMs())
+                .tiempoMaximoMs(agregador.getMaximoMs())
+                .duracionPruebaSegundos(Math.max(1, (int) duracionSeg)) // pruebas de menos de 1 s
                 .fechaEjecucion(LocalDateTime.now())
-                .build();
+                .histograma(agregador.getHistograma());
+        long intervalo = intervaloEsperado(usuariosConocidos ? usuarios : 0, throughput);
+        if (intervalo > 0 && agregador.getHistograma().getTotal() > 0) {
+            builder.correccionOmision(agregador.getHistograma().corregidoPorOmisionCoordinada(intervalo), intervalo);
+        }
+        return builder.build();
     }
 
     /**
-     * Calcula percentil de una lista ordenada
+     * Intervalo con que corregir la omisión coordinada: el configurado o, en modo automático, el
+     * ciclo de cada usuario derivado del throughput. 0 cuando no hay que corregir
      */
-    private double calcularPercentil(List<Long> valoresOrdenados, int percentil) {
-        if (valoresOrdenados.isEmpty()) return 0.0;
-
-        int indice = (int) Math.ceil(percentil / 100.0 * valoresOrdenados.size()) - 1;
-        indice = Math.max(0, Math.min(indice, valoresOrdenados.size() - 1));
-
-        return valoresOrdenados.get(indice);
+    private long intervaloEsperado(int usuarios, double throughput) {
+        if (intervaloEsperadoMs != INTERVALO_ESPERADO_AUTOMATICO) {
+            return Math.max(0, intervaloEsperadoMs);
+        }
+        if (usuarios <= 0 || throughput <= 0) {
+            return 0;
+        }
+        return Math.max(1, Math.round(1000.0 * usuarios / throughput));
     }
 
     /**
@@ -157,23 +306,23 @@ public class AnalizadorMetricas {
     }
 
     /**
-     * Extrae el número de usuarios del nombre del archivo
+     * Extrae el número de usuarios del nombre del archivo, vacío si no lo indica
      */
-    private int extraerUsuariosDelNombre(String nombreArchivo) {
+    private OptionalInt extraerUsuariosDelNombre(String nombreArchivo) {
         // Buscar patrones como "10u", "50u", "100u" en el nombre
         String[] partes = nombreArchivo.split("[_\\-\\.]");
 
         for (String parte : partes) {
             if (parte.matches("\\d+u?")) {
                 try {
-                    return Integer.parseInt(parte.replaceAll("[^\\d]", ""));
+                    return OptionalInt.of(Integer.parseInt(parte.replaceAll("[^\\d]", "")));
                 } catch (NumberFormatException e) {
                     // Continuar buscando
                 }
             }
         }
 
-        return 10; // Valor por defecto
+        return OptionalInt.empty();
     }
 
     /**
@@ -285,6 +434,15 @@ public class AnalizadorMetricas {
                                 writer.write(String.format("   Tiempo promedio: %.0f ms\n", metrica.getTiempoPromedioMs()));
                                 writer.write(String.format("   Percentil 90: %.0f ms\n", metrica.getPercentil90Ms()));
                                 writer.write(String.format("   Percentil 95: %.0f ms\n", metrica.getPercentil95Ms()));
+                                if (metrica.tieneHistograma()) {
+                                    writer.write(String.format("   Percentil 99: %.0f ms\n", metrica.getPercentil99Ms()));
+                                    writer.write(String.format("   Percentil 99.9: %.0f ms\n", metrica.getPercentil999Ms()));
+                                }
+                                if (metrica.tieneCorreccionOmision()) {
+                                    writer.write(String.format("   Corregidos (intervalo %d ms): P95 %.0f | P99 %.0f | P99.9 %.0f ms\n",
+                                            metrica.getIntervaloEsperadoMs(), metrica.getPercentil95CorregidoMs(),
+                                            metrica.getPercentil99CorregidoMs(), metrica.getPercentil999CorregidoMs()));
+                                }
                                 writer.write(String.format("   Throughput: %.1f req/s\n", metrica.getThroughputReqSeg()));
                                 writer.write(String.format("   Tasa de error: %.1f%%\n", metrica.getTasaErrorPorcentaje()));
                                 writer.write(String.format("   Nivel: %s\n", metrica.evaluarNivelRendimiento().getDescripcion()));
@@ -305,19 +463,66 @@ public class AnalizadorMetricas {
     }
 
     /**
-     * Clase para representar un registro de JTL
+     * Recorrido repetible de las filas válidas de un JTL, desde el texto o desde el caché columnar
+     */
+    @FunctionalInterface
+    private interface FuenteMuestras {
+        void recorrer(CacheColumnarJTL.ConsumidorMuestra consumidor) throws IOException;
+    }
+
+    /**
+     * Resultado del análisis de un JTL: métrica general, desglose por sampler y por método HTTP,
+     * serie temporal por ventanas y, si se detectó, el tramo de régimen estable
+     * La métrica general se calcula sobre el régimen estable cuando existe; el desglose cubre todo el archivo
      */
-    private static class RegistroJTL {
-        final long timestamp;
-        final long elapsed;
-        final String label;
-        final boolean success;
-
-        RegistroJTL(long timestamp, long elapsed, String label, boolean success) {
-            this.timestamp = timestamp;
-            this.elapsed = elapsed;
-            this.label = label;
-            this.success = success;
+    public static class ResultadoAnalisisJTL {
+        private final MetricaRendimiento general;
+        private final Map<String, MetricaRendimiento> porEtiqueta;
+        private final Map<String, MetricaRendimiento> porMetodo;
+        private final List<SerieTemporalJTL.Ventana> serieTemporal;
+        private final SerieTemporalJTL.RegimenEstable regimenEstable;
+
+        public ResultadoAnalisisJTL(MetricaRendimiento general,
+                                    Map<String, MetricaRendimiento> porEtiqueta,
+                                    Map<String, MetricaRendimiento> porMetodo,
+                                    List<SerieTemporalJTL.Ventana> serieTemporal,
+                                    Optional<SerieTemporalJTL.RegimenEstable> regimenEstable) {
+            this.general = general;
+            this.porEtiqueta = Collections.unmodifiableMap(new LinkedHashMap<>(porEtiqueta));
+            this.porMetodo = Collections.unmodifiableMap(new LinkedHashMap<>(porMetodo));
+            this.serieTemporal = List.copyOf(serieTemporal);
+            this.regimenEstable = regimenEstable.orElse(null);
+        }
+
+        /**
+         * Ventanas de todo el archivo con throughput, errores y P50/P90/P99 de cada una
+         */
+        public List<SerieTemporalJTL.Ventana> getSerieTemporal() {
+            return serieTemporal;
+        }
+
+        public Optional<SerieTemporalJTL.RegimenEstable> getRegimenEstable() {
+            return Optional.ofNullable(regimenEstable);
+        }
+
+        public MetricaRendimiento getGeneral() {
+            return general;
+        }
+
+        public Map<String, MetricaRendimiento> getPorEtiqueta() {
+            return porEtiqueta;
+        }
+
+        public Map<String, MetricaRendimiento> getPorMetodo() {
+            return porMetodo;
+        }
+
+        /**
+         * Sampler con mayor percentil 95, candidato a cuello de botella
+         */
+        public Optional<MetricaRendimiento> getEtiquetaMasLenta() {
+            return porEtiqueta.values().stream()
+                    .max(Comparator.comparingDouble(MetricaRendimiento::getPercentil95Ms));
         }
     }
 
@@ -0,0 +1,389 @@
+package com.mediplus.pruebas.analisis.carga;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Datos de prueba para los usuarios virtuales, equivalente al CSV Data Set Config de JMeter
+ * Un CSV se lee una sola vez por proceso a un único arreglo de bytes UTF-8 con un índice de
+ * desplazamientos (sin un {@code String} por celda) y lo comparten todos los alimentadores
+ * creados sobre él. Las filas se reparten con un cursor atómico, sin candados, entre los miles
+ * de hilos virtuales que piden datos a la vez
+ *
+ * <ul>
+ *   <li>{@link Modo#SECUENCIAL}: recorre las filas en orden y vuelve a empezar al terminar</li>
+ *   <li>{@link Modo#ALEATORIO}: fila al azar en cada pedido, sin estado compartido</li>
+ *   <li>{@link Modo#UNICO}: cada fila se entrega una sola vez; agotadas, {@link #siguiente()} devuelve {@code null}</li>
+ * </ul>
+ *
+ * <p>{@link #expandir} y {@link #citasSinteticas} generan filas a partir de su índice en cada
+ * lectura: millones de pacientes o citas distintos sin guardarlos en memoria.</p>
+ *
+ * <pre>
+ * AlimentadorDatos pacientes = AlimentadorDatos.desdeCsv(Path.of("datos/pacientes.csv"), Modo.UNICO).expandir(1_000_000);
+ * AlimentadorDatos.Fila fila = pacientes.siguiente();
+ * String email = fila.get("email");
+ * </pre>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class AlimentadorDatos {
+
+    private static final Logger LOGGER = Logger.getLogger(AlimentadorDatos.class.getName());
+
+    /** Tablas CSV ya cargadas, por ruta absoluta */
+    private static final Map<Path, TablaCsv> TABLAS = new ConcurrentHashMap<>();
+
+    private static final String[] MOTIVOS_CITA = {
+            "Control general", "Consulta cardiológica", "Control de presión arterial", "Examen de laboratorio",
+            "Consulta pediátrica", "Control dermatológico", "Consulta traumatológica", "Control de diabetes"
+    };
+
+    /**
+     * Orden en que se entregan las filas
+     */
+    public enum Modo {
+        SECUENCIAL,
+        ALEATORIO,
+        UNICO
+    }
+
+    private final Fuente fuente;
+    private final Modo modo;
+    private final Map<String, Integer> indicesColumnas;
+    private final AtomicLong cursor = new AtomicLong();
+
+    private AlimentadorDatos(Fuente fuente, Modo modo) {
+        if (fuente.filas() <= 0) {
+            throw new IllegalArgumentException("La fuente de datos no tiene filas");
+        }
+        this.fuente = fuente;
+        this.modo = modo;
+        Map<String, Integer> indices = new LinkedHashMap<>();
+        List<String> columnas = fuente.columnas();
+        for (int i = 0; i < columnas.size(); i++) {
+            indices.put(columnas.get(i), i);
+        }
+        this.indicesColumnas = Collections.unmodifiableMap(indices);
+    }
+
+    /**
+     * Alimentador sobre un CSV con cabecera; el archivo se lee solo la primera vez que se pide
+     */
+    public static AlimentadorDatos desdeCsv(Path archivo, Modo modo) throws IOException {
+        Path ruta = archivo.toAbsolutePath().normalize();
+        try {
+            return new AlimentadorDatos(TABLAS.computeIfAbsent(ruta, AlimentadorDatos::leerTabla), modo);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Citas generadas: {@code motivo}, {@code descripcion} y {@code pacienteId} entre 1 y {@code pacientes}
+     */
+    public static AlimentadorDatos citasSinteticas(long cantidad, int pacientes, Modo modo) {
+        if (pacientes <= 0) {
+            throw new IllegalArgumentException("pacientes debe ser positivo");
+        }
+        return new AlimentadorDatos(new CitasSinteticas(cantidad, pacientes), modo);
+    }
+
+    /**
+     * Mismas columnas, {@code cantidad} filas: la fila {@code i} es la fila {@code i % n} de este
+     * alimentador con {@code email} hecho único y {@code telefono} y {@code edad} variados según
+     * la vuelta; las demás columnas se repiten. Comparte los datos base, no copia nada
+     */
+    public AlimentadorDatos expandir(long cantidad) {
+        return new AlimentadorDatos(new Expansion(fuente, cantidad, indicesColumnas), modo);
+    }
+
+    /**
+     * Mismos datos con otro modo y un cursor propio
+     */
+    public AlimentadorDatos conModo(Modo otroModo) {
+        return new AlimentadorDatos(fuente, otroModo);
+    }
+
+    // ==================== ENTREGA DE FILAS ====================
+
+    /**
+     * Próxima fila según el modo; seguro para cualquier número de hilos
+     *
+     * @return la fila, o {@code null} si el modo es {@link Modo#UNICO} y ya se entregaron todas
+     */
+    public Fila siguiente() {
+        long filas = fuente.filas();
+        return switch (modo) {
+            case SECUENCIAL -> new Fila(Math.floorMod(cursor.getAndIncrement(), filas));
+            case ALEATORIO -> new Fila(ThreadLocalRandom.current().nextLong(filas));
+            case UNICO -> {
+                // Tras agotarse el cursor deja de avanzar: no hay desborde por más pedidos que lleguen
+                long indice = cursor.getAndUpdate(actual -> actual < filas ? actual + 1 : actual);
+                yield indice < filas ? new Fila(indice) : null;
+            }
+        };
+    }
+
+    /**
+     * Recorre todas las filas en orden, generándolas a medida que se consumen; no mueve el cursor
+     */
+    public Stream<Fila> filas() {
+        return LongStream.range(0, fuente.filas()).mapToObj(Fila::new);
+    }
+
+    public Fila fila(long indice) {
+        if (indice < 0 || indice >= fuente.filas()) {
+            throw new IndexOutOfBoundsException("Fila " + indice + " fuera de 0.." + (fuente.filas() - 1));
+        }
+        return new Fila(indice);
+    }
+
+    public List<String> getColumnas() { return fuente.columnas(); }
+    public long getTotalFilas() { return fuente.filas(); }
+    public Modo getModo() { return modo; }
+
+    /**
+     * Filas entregadas por {@link #siguiente()} en modo secuencial o único
+     */
+    public long getEntregadas() { return cursor.get(); }
+
+    /**
+     * @return índice de la columna, o -1 si no existe
+     */
+    public int indiceColumna(String columna) {
+        return indicesColumnas.getOrDefault(columna, -1);
+    }
+
+    /**
+     * Fila de datos; los valores se decodifican al leerlos
+     */
+    public final class Fila {
+        private final long indice;
+
+        private Fila(long indice) {
+            this.indice = indice;
+        }
+
+        public long indice() { return indice; }
+
+        public String get(int columna) {
+            return fuente.valor(indice, columna);
+        }
+
+        /**
+         * @throws IllegalArgumentException si la columna no existe
+         */
+        public String get(String columna) {
+            int posicion = indiceColumna(columna);
+            if (posicion < 0) {
+                throw new IllegalArgumentException("Columna inexistente: " + columna + "; disponibles: " + getColumnas());
+            }
+            return get(posicion);
+        }
+
+        @Override
+        public String toString() {
+            List<String> valores = new ArrayList<>();
+            for (int i = 0; i < getColumnas().size(); i++) {
+                valores.add(get(i));
+            }
+            return "Fila{" + indice + "=" + valores + "}";
+        }
+    }
+
+    // ==================== FUENTES ====================
+
+    private interface Fuente {
+        List<String> columnas();
+
+        long filas();
+
+        String valor(long fila, int columna);
+    }
+
+    /**
+     * CSV compacto: celdas UTF-8 contiguas en un arreglo y el desplazamiento de cada una en otro
+     */
+    private static final class TablaCsv implements Fuente {
+        private final List<String> columnas;
+        private final int filas;
+        private final byte[] datos;
+        private final int[] desplazamientos;
+
+        TablaCsv(List<String> columnas, int filas, byte[] datos, int[] desplazamientos) {
+            this.columnas = columnas;
+            this.filas = filas;
+            this.datos = datos;
+            this.desplazamientos = desplazamientos;
+        }
+
+        @Override public List<String> columnas() { return columnas; }
+        @Override public long filas() { return filas; }
+
+        @Override
+        public String valor(long fila, int columna) {
+            int celda = (int) fila * columnas.size() + columna;
+            int desde = desplazamientos[celda];
+            return new String(datos, desde, desplazamientos[celda + 1] - desde, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class Expansion implements Fuente {
+        private final Fuente base;
+        private final long filas;
+        private final int columnaEmail;
+        private final int columnaTelefono;
+        private final int columnaEdad;
+
+        Expansion(Fuente base, long filas, Map<String, Integer> indices) {
+            if (filas <= 0) {
+                throw new IllegalArgumentException("cantidad debe ser positiva");
+            }
+            this.base = base;
+            this.filas = filas;
+            this.columnaEmail = indices.getOrDefault("email", -1);
+            this.columnaTelefono = indices.getOrDefault("telefono", -1);
+            this.columnaEdad = indices.getOrDefault("edad", -1);
+        }
+
+        @Override public List<String> columnas() { return base.columnas(); }
+        @Override public long filas() { return filas; }
+
+        @Override
+        public String valor(long fila, int columna) {
+            long vuelta = fila / base.filas();
+            String valor = base.valor(fila % base.filas(), columna);
+            if (vuelta == 0) {
+                return valor;
+            }
+            if (columna == columnaEmail) {
+                int arroba = valor.indexOf('@');
+                return arroba < 0 ? valor + "." + vuelta : valor.substring(0, arroba) + "." + vuelta + valor.substring(arroba);
+            }
+            if (columna == columnaTelefono && valor.length() > 8) {
+                // Últimos ocho dígitos desplazados por la vuelta; el prefijo del país se conserva
+                long digitos = Long.parseLong(valor.substring(valor.length() - 8));
+                return valor.substring(0, valor.length() - 8) + String.format("%08d", (digitos + vuelta * 7_919) % 100_000_000);
+            }
+            if (columna == columnaEdad) {
+                // Siempre entre 18 y 87, aunque la edad base sea de un menor
+                return String.valueOf(18 + Math.floorMod(Integer.parseInt(valor) - 18 + vuelta, 70));
+            }
+            return valor;
+        }
+    }
+
+    private record CitasSinteticas(long filas, int pacientes) implements Fuente {
+        private static final List<String> COLUMNAS = List.of("motivo", "descripcion", "pacienteId");
+
+        CitasSinteticas {
+            if (filas <= 0) {
+                throw new IllegalArgumentException("cantidad debe ser positiva");
+            }
+        }
+
+        @Override public List<String> columnas() { return COLUMNAS; }
+
+        @Override
+        public String valor(long fila, int columna) {
+            String motivo = MOTIVOS_CITA[(int) (fila % MOTIVOS_CITA.length)];
+            return switch (columna) {
+                case 0 -> motivo;
+                case 1 -> "Cita " + (fila + 1) + ": " + motivo.toLowerCase() + " agendada por prueba de carga";
+                case 2 -> String.valueOf(1 + fila % pacientes);
+                default -> throw new IndexOutOfBoundsException("Columna " + columna);
+            };
+        }
+    }
+
+    // ==================== LECTURA DE CSV ====================
+
+    private static TablaCsv leerTabla(Path archivo) {
+        List<String> lineas;
+        try {
+            lineas = Files.readAllLines(archivo, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lineas.removeIf(String::isBlank);
+        if (lineas.size() < 2) {
+            throw new UncheckedIOException(new IOException("El CSV necesita cabecera y al menos una fila: " + archivo));
+        }
+        // Quita el BOM que dejan algunos editores en la primera columna
+        List<String> columnas = List.copyOf(dividir(lineas.get(0).replace("\uFEFF", "")));
+
+        int filas = lineas.size() - 1;
+        int[] desplazamientos = new int[filas * columnas.size() + 1];
+        byte[] datos = new byte[64];
+        int posicion = 0;
+        int celda = 0;
+        for (int i = 1; i < lineas.size(); i++) {
+            List<String> valores = dividir(lineas.get(i));
+            if (valores.size() != columnas.size()) {
+                throw new UncheckedIOException(new IOException(String.format("%s línea %d: %d columnas en lugar de %d",
+                        archivo.getFileName(), i + 1, valores.size(), columnas.size())));
+            }
+            for (String valor : valores) {
+                byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+                if (posicion + bytes.length > datos.length) {
+                    datos = Arrays.copyOf(datos, Math.max(datos.length * 2, posicion + bytes.length));
+                }
+                System.arraycopy(bytes, 0, datos, posicion, bytes.length);
+                desplazamientos[celda++] = posicion;
+                posicion += bytes.length;
+            }
+        }
+        desplazamientos[celda] = posicion;
+
+        LOGGER.info(String.format("📇 Datos de prueba %s: %d filas, %d columnas, %d bytes",
+                archivo.getFileName(), filas, columnas.size(), posicion));
+        return new TablaCsv(columnas, filas, Arrays.copyOf(datos, posicion), desplazamientos);
+    }
+
+    /**
+     * Separa una línea CSV respetando campos entre comillas y comillas dobles escapadas
+     */
+    private static List<String> dividir(String linea) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                valores.add(actual.toString().trim());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        valores.add(actual.toString().trim());
+        return valores;
+    }
+}
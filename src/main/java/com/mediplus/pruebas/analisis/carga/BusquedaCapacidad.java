@@ -0,0 +1,349 @@
+package com.mediplus.pruebas.analisis.carga;
+
+import com.mediplus.pruebas.analisis.configuracion.ConfiguracionAplicacion;
+import com.mediplus.pruebas.analisis.jmeter.AgregadorMetricasJTL;
+import com.mediplus.pruebas.analisis.jmeter.CatalogoEscenarios;
+import com.mediplus.pruebas.analisis.jmeter.EjecutorJMeterReal.ConfiguracionEscenario;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+import java.util.logging.Logger;
+
+/**
+ * Búsqueda automática de capacidad: sube la carga paso a paso, evalúa P95 y tasa de error contra
+ * un acuerdo de nivel de servicio tras cada paso y se queda con la mayor carga que lo cumple
+ * La carga es un entero que el llamador traduce a un {@link PlanCarga}: usuarios concurrentes
+ * ({@link #porUsuarios}) o peticiones por segundo en modelo abierto ({@link #porTasa})
+ *
+ * <ul>
+ *   <li>{@link Estrategia#ESCALONADA}: inicio, inicio + incremento, ... hasta el primer paso que falla</li>
+ *   <li>{@link Estrategia#BISECCION}: duplica desde el inicio hasta fallar y luego biseca entre el
+ *       último nivel que cumplió y el primero que falló hasta que la distancia sea la resolución</li>
+ * </ul>
+ *
+ * <pre>
+ * ResultadoCapacidad resultado = BusquedaCapacidad.porUsuarios(config, PlanCarga.URL_BASE_DEFAULT, Duration.ofSeconds(30))
+ *         .estrategia(Estrategia.BISECCION).inicio(10).maximo(400).resolucion(5)
+ *         .build()
+ *         .ejecutar(motor);
+ * </pre>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class BusquedaCapacidad {
+
+    private static final Logger LOGGER = Logger.getLogger(BusquedaCapacidad.class.getName());
+
+    /**
+     * Cómo se eligen los niveles de carga sucesivos
+     */
+    public enum Estrategia {
+        ESCALONADA,
+        BISECCION
+    }
+
+    private final IntFunction<PlanCarga> planPorNivel;
+    private final String unidad;
+    private final AcuerdoNivelServicio acuerdo;
+    private final Estrategia estrategia;
+    private final int inicio;
+    private final int incremento;
+    private final int maximo;
+    private final int resolucion;
+
+    private BusquedaCapacidad(Builder builder) {
+        if (builder.inicio <= 0 || builder.maximo < builder.inicio) {
+            throw new IllegalArgumentException("Se requiere 0 < inicio <= maximo");
+        }
+        if (builder.incremento <= 0 || builder.resolucion <= 0) {
+            throw new IllegalArgumentException("incremento y resolucion deben ser positivos");
+        }
+        this.planPorNivel = builder.planPorNivel;
+        this.unidad = builder.unidad;
+        this.acuerdo = builder.acuerdo;
+        this.estrategia = builder.estrategia;
+        this.inicio = builder.inicio;
+        this.incremento = builder.incremento;
+        this.maximo = builder.maximo;
+        this.resolucion = builder.resolucion;
+    }
+
+    /**
+     * Búsqueda sobre usuarios concurrentes con los samplers del escenario; cada paso dura
+     * {@code duracionPaso} y usa una rampa de un décimo de esa duración
+     */
+    public static Builder porUsuarios(ConfiguracionEscenario escenario, URI urlBase, Duration duracionPaso) {
+        return new Builder("usuarios", usuarios -> {
+            PlanCarga base = PlanCarga.desdeEscenario(escenario, urlBase);
+            PlanCarga.Builder builder = new PlanCarga.Builder()
+                    .nombre(escenario.nombre + " " + usuarios + "u")
+                    .urlBase(urlBase)
+                    .usuarios(usuarios)
+                    .duracion(duracionPaso)
+                    .rampa(duracionPaso.dividedBy(10))
+                    .seleccion(base.getSeleccion())
+                    .pausa(base.getPausa(), base.getPausaAleatoria());
+            base.getPeticiones().forEach(builder::peticion);
+            return builder.build();
+        });
+    }
+
+    /**
+     * Búsqueda sobre la tasa de llegada (req/s) en modelo abierto con los samplers del escenario
+     *
+     * @param maximoEnVuelo tope de peticiones en vuelo de cada paso
+     */
+    public static Builder porTasa(ConfiguracionEscenario escenario, URI urlBase, Duration duracionPaso, int maximoEnVuelo) {
+        return new Builder("req/s", tasa -> {
+            PlanCarga base = PlanCarga.desdeEscenario(escenario, urlBase);
+            PlanCarga.Builder builder = new PlanCarga.Builder()
+                    .nombre(escenario.nombre + " " + tasa + "rps")
+                    .urlBase(urlBase)
+                    .modeloAbierto(PerfilLlegadas.constante(tasa, duracionPaso), maximoEnVuelo)
+                    .seleccion(base.getSeleccion());
+            base.getPeticiones().forEach(builder::peticion);
+            return builder.build();
+        });
+    }
+
+    /**
+     * Ejecuta los pasos en orden hasta ubicar la capacidad; cada nivel se mide una sola vez
+     */
+    public ResultadoCapacidad ejecutar(MotorCargaVirtual motor) throws IOException, InterruptedException {
+        LOGGER.info(String.format("🔎 Búsqueda de capacidad (%s) de %d a %d %s con %s",
+                estrategia, inicio, maximo, unidad, acuerdo));
+        TreeMap<Integer, PuntoCurva> curva = new TreeMap<>();
+        int mayorQueCumple = 0;
+        int menorQueFalla = Integer.MAX_VALUE;
+
+        int nivel = inicio;
+        while (nivel > mayorQueCumple && nivel < menorQueFalla) {
+            PuntoCurva punto = medir(motor, nivel);
+            curva.put(nivel, punto);
+            if (punto.cumple()) {
+                mayorQueCumple = nivel;
+            } else {
+                menorQueFalla = nivel;
+            }
+            nivel = siguienteNivel(mayorQueCumple, menorQueFalla);
+        }
+
+        ResultadoCapacidad resultado = new ResultadoCapacidad(mayorQueCumple, unidad, acuerdo,
+                new ArrayList<>(curva.values()), menorQueFalla == Integer.MAX_VALUE);
+        LOGGER.info("🏁 " + resultado.resumen());
+        return resultado;
+    }
+
+    /**
+     * @return próximo nivel a medir, o un valor fuera de (cumple, falla) si la búsqueda terminó
+     */
+    private int siguienteNivel(int mayorQueCumple, int menorQueFalla) {
+        if (menorQueFalla == Integer.MAX_VALUE) {
+            if (mayorQueCumple >= maximo) {
+                return mayorQueCumple;
+            }
+            long siguiente = estrategia == Estrategia.ESCALONADA
+                    ? (long) mayorQueCumple + incremento
+                    : 2L * mayorQueCumple;
+            return (int) Math.min(siguiente, maximo);
+        }
+        if (estrategia == Estrategia.ESCALONADA || menorQueFalla - mayorQueCumple <= resolucion) {
+            return menorQueFalla;
+        }
+        return mayorQueCumple + (menorQueFalla - mayorQueCumple) / 2;
+    }
+
+    private PuntoCurva medir(MotorCargaVirtual motor, int nivel) throws IOException, InterruptedException {
+        ResultadoCarga resultado = motor.ejecutar(planPorNivel.apply(nivel));
+        AgregadorMetricasJTL general = resultado.general();
+        double segundos = Math.max(1, resultado.duracion().toMillis()) / 1000.0;
+        long descartadas = resultado.estadisticasLlegadas().map(EstadisticasLlegadas::descartadas).orElse(0L);
+        PuntoCurva punto = new PuntoCurva(nivel, general.getTotalMuestras(), general.getTotalMuestras() / segundos,
+                general.percentilMs(95), general.percentilMs(99), general.getTasaErrorPorcentaje(), descartadas,
+                acuerdo.cumple(general) && descartadas == 0);
+        LOGGER.info(String.format("   %s %d %s", punto.cumple() ? "✅" : "❌", nivel, punto));
+        return punto;
+    }
+
+    /**
+     * Búsqueda desatendida contra la API pública por usuarios concurrentes:
+     * {@code BusquedaCapacidad [GET|POST|MIXTO] [maximoUsuarios] [segundosPorPaso]}
+     * La curva queda en {@code reportes/capacidad_<tipo>.csv}
+     */
+    public static void main(String[] args) throws Exception {
+        String tipo = args.length > 0 ? args[0].toUpperCase(Locale.ROOT) : "GET";
+        int maximoUsuarios = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Duration duracionPaso = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+
+        ConfiguracionEscenario escenario = new ConfiguracionEscenario("Capacidad " + tipo, tipo, 1,
+                (int) duracionPaso.toSeconds(), "Búsqueda automática de capacidad");
+        BusquedaCapacidad busqueda = porUsuarios(escenario, CatalogoEscenarios.predeterminado().getUrlBase(), duracionPaso)
+                .maximo(maximoUsuarios)
+                .build();
+        try (MotorCargaVirtual motor = new MotorCargaVirtual()) {
+            ResultadoCapacidad resultado = busqueda.ejecutar(motor);
+            Path directorio = ConfiguracionAplicacion.obtenerInstancia().obtenerDirectorioReportes();
+            Files.createDirectories(directorio);
+            Path curva = directorio.resolve("capacidad_" + tipo.toLowerCase(Locale.ROOT) + ".csv");
+            resultado.guardarCurva(curva);
+            System.out.println(resultado.resumen());
+            System.out.println("📈 Curva: " + curva);
+        }
+    }
+
+    // ==================== TIPOS PÚBLICOS ====================
+
+    /**
+     * Acuerdo de nivel de servicio que debe cumplir cada paso
+     *
+     * @param p95MaximoMs               percentil 95 máximo
+     * @param tasaErrorMaximaPorcentaje tasa de error máxima
+     */
+    public record AcuerdoNivelServicio(double p95MaximoMs, double tasaErrorMaximaPorcentaje) {
+
+        /**
+         * Umbrales críticos de {@code aplicacion.properties} ({@code umbral.tiempo.critico}, {@code umbral.error.critico})
+         */
+        public static AcuerdoNivelServicio desdeConfiguracion() {
+            ConfiguracionAplicacion configuracion = ConfiguracionAplicacion.obtenerInstancia();
+            return new AcuerdoNivelServicio(configuracion.obtenerUmbralTiempoCritico(), configuracion.obtenerUmbralErrorCritico());
+        }
+
+        public boolean cumple(AgregadorMetricasJTL metricas) {
+            return metricas.getTotalMuestras() > 0
+                    && metricas.percentilMs(95) <= p95MaximoMs
+                    && metricas.getTasaErrorPorcentaje() <= tasaErrorMaximaPorcentaje;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "SLA{P95 <= %.0f ms, errores <= %.1f%%}", p95MaximoMs, tasaErrorMaximaPorcentaje);
+        }
+    }
+
+    /**
+     * Medición de un nivel de carga
+     *
+     * @param descartadas llegadas descartadas por el tope en vuelo (solo modelo abierto); un paso con descartes no cumple
+     */
+    public record PuntoCurva(int nivel, long muestras, double throughputReqSeg, double p95Ms, double p99Ms,
+                             double tasaErrorPorcentaje, long descartadas, boolean cumple) {
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d muestras | %.1f req/s | P95 %.0f ms | P99 %.0f ms | %.2f%% errores%s",
+                    muestras, throughputReqSeg, p95Ms, p99Ms, tasaErrorPorcentaje,
+                    descartadas > 0 ? " | " + descartadas + " descartadas" : "");
+        }
+    }
+
+    /**
+     * Capacidad encontrada y curva de carga medida
+     *
+     * @param capacidad      mayor nivel que cumplió el acuerdo (0 si ni el inicial lo cumplió)
+     * @param curva          pasos medidos, ordenados por nivel
+     * @param limiteAlcanzado true si se llegó al máximo sin fallar: la capacidad real puede ser mayor
+     */
+    public record ResultadoCapacidad(int capacidad, String unidad, AcuerdoNivelServicio acuerdo,
+                                     List<PuntoCurva> curva, boolean limiteAlcanzado) {
+
+        public ResultadoCapacidad {
+            curva = curva.stream().sorted(Comparator.comparingInt(PuntoCurva::nivel)).toList();
+        }
+
+        public String resumen() {
+            if (capacidad == 0) {
+                return "Ningún nivel cumplió " + acuerdo;
+            }
+            return String.format("Capacidad: %d %s con %s%s (%d pasos medidos)", capacidad, unidad, acuerdo,
+                    limiteAlcanzado ? ", límite de la búsqueda alcanzado" : "", curva.size());
+        }
+
+        /**
+         * Escribe la curva en CSV para graficarla
+         */
+        public void guardarCurva(Path archivo) throws IOException {
+            try (BufferedWriter writer = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+                writer.write("nivel,muestras,throughput,p95_ms,p99_ms,error_pct,descartadas,cumple\n");
+                for (PuntoCurva punto : curva) {
+                    writer.write(String.format(Locale.ROOT, "%d,%d,%.2f,%.0f,%.0f,%.2f,%d,%s%n",
+                            punto.nivel(), punto.muestras(), punto.throughputReqSeg(), punto.p95Ms(), punto.p99Ms(),
+                            punto.tasaErrorPorcentaje(), punto.descartadas(), punto.cumple()));
+                }
+            }
+        }
+    }
+
+    // ==================== BUILDER ====================
+
+    public static class Builder {
+        private final String unidad;
+        private final IntFunction<PlanCarga> planPorNivel;
+        private AcuerdoNivelServicio acuerdo = AcuerdoNivelServicio.desdeConfiguracion();
+        private Estrategia estrategia = Estrategia.BISECCION;
+        private int inicio = 10;
+        private int incremento = 10;
+        private int maximo = 1_000;
+        private int resolucion = 5;
+
+        /**
+         * @param unidad       unidad del nivel para los reportes
+         * @param planPorNivel plan a ejecutar para cada nivel de carga
+         */
+        public Builder(String unidad, IntFunction<PlanCarga> planPorNivel) {
+            this.unidad = unidad;
+            this.planPorNivel = planPorNivel;
+        }
+
+        public Builder acuerdo(AcuerdoNivelServicio acuerdo) {
+            this.acuerdo = acuerdo;
+            return this;
+        }
+
+        public Builder estrategia(Estrategia estrategia) {
+            this.estrategia = estrategia;
+            return this;
+        }
+
+        public Builder inicio(int inicio) {
+            this.inicio = inicio;
+            return this;
+        }
+
+        /**
+         * Paso de la estrategia escalonada
+         */
+        public Builder incremento(int incremento) {
+            this.incremento = incremento;
+            return this;
+        }
+
+        public Builder maximo(int maximo) {
+            this.maximo = maximo;
+            return this;
+        }
+
+        /**
+         * Distancia entre el último nivel que cumple y el primero que falla a la que se detiene la bisección
+         */
+        public Builder resolucion(int resolucion) {
+            this.resolucion = resolucion;
+            return this;
+        }
+
+        public BusquedaCapacidad build() {
+            return new BusquedaCapacidad(this);
+        }
+    }
+}
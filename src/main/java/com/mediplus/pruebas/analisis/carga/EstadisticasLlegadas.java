@@ -0,0 +1,34 @@
+package com.mediplus.pruebas.analisis.carga;
+
+/**
+ * Cumplimiento del programa de llegadas en modelo abierto
+ * {@code programadas = iniciadas + descartadas}; una llegada tardía se inició igualmente
+ *
+ * @param programadas      llegadas que generó el perfil
+ * @param iniciadas        peticiones que llegaron a lanzarse
+ * @param descartadas      llegadas que encontraron el tope de peticiones en vuelo
+ * @param tardias          peticiones iniciadas con más de {@link #TOLERANCIA_MS} ms de retraso sobre su instante
+ * @param retrasoMaximoMs  mayor retraso de arranque observado
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public record EstadisticasLlegadas(long programadas, long iniciadas, long descartadas,
+                                   long tardias, long retrasoMaximoMs) {
+
+    /** Retraso de arranque a partir del cual una llegada cuenta como tardía */
+    public static final long TOLERANCIA_MS = 10;
+
+    public double getPorcentajeDescartadas() {
+        return programadas > 0 ? descartadas * 100.0 / programadas : 0;
+    }
+
+    public double getPorcentajeTardias() {
+        return programadas > 0 ? tardias * 100.0 / programadas : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d programadas, %d descartadas (%.1f%%), %d tardías (máx %d ms)",
+                programadas, descartadas, getPorcentajeDescartadas(), tardias, retrasoMaximoMs);
+    }
+}
@@ -0,0 +1,381 @@
+package com.mediplus.pruebas.analisis.carga;
+
+import com.mediplus.pruebas.analisis.jmeter.DesgloseMetricasJTL;
+import com.mediplus.pruebas.analisis.jmeter.SerieTemporalJTL;
+import com.mediplus.pruebas.analisis.jmeter.EscritorJTL;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Motor de carga en proceso: un hilo virtual por usuario simulado sobre {@link HttpClient}
+ * Alternativa a lanzar una JVM de JMeter por escenario. Cada muestra se registra en
+ * histogramas en memoria ({@link DesgloseMetricasJTL}) y, si se indica, en un JTL CSV con el
+ * layout de JMeter para que el análisis, los reportes HTML y el seguimiento en vivo lo lean igual
+ *
+ * <p>Los usuarios registran en un número fijo de particiones con su propio candado (usuario
+ * {@code i} en la partición {@code i % particiones}); la memoria de métricas no crece con los
+ * usuarios y la contención se reparte. Se usan {@link ReentrantLock} para no fijar los hilos
+ * virtuales a su portador. Tampoco crece con la duración: cada partición guarda histogramas de
+ * tamaño fijo y una serie temporal de a lo sumo {@link SerieTemporalJTL#MAXIMO_VENTANAS_DEFAULT}
+ * ventanas de contadores sin histograma por ventana (~100 KB).</p>
+ *
+ * <p>En modelo abierto ({@link PlanCarga#esModeloAbierto()}) un temporizador en el hilo que
+ * llama a {@link #ejecutar} lanza cada petición en su instante programado, sin esperar a que
+ * terminen las anteriores; las llegadas que encuentran el tope en vuelo se descartan y, junto
+ * con las que arrancan tarde, se informan en {@link ResultadoCarga#llegadas()}.</p>
+ *
+ * <pre>
+ * try (MotorCargaVirtual motor = new MotorCargaVirtual()) {
+ *     ResultadoCarga resultado = motor.ejecutar(PlanCarga.desdeEscenario(config, PlanCarga.URL_BASE_DEFAULT), jtl);
+ * }
+ * </pre>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class MotorCargaVirtual implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(MotorCargaVirtual.class.getName());
+
+    private final HttpClient cliente;
+    private final boolean clientePropio;
+
+    public MotorCargaVirtual() {
+        this(HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build(), true);
+    }
+
+    /**
+     * Usa un cliente HTTP externo (no se cierra con el motor)
+     */
+    public MotorCargaVirtual(HttpClient cliente) {
+        this(cliente, false);
+    }
+
+    private MotorCargaVirtual(HttpClient cliente, boolean clientePropio) {
+        this.cliente = cliente;
+        this.clientePropio = clientePropio;
+    }
+
+    /**
+     * Ejecuta el plan solo con métricas en memoria
+     */
+    public ResultadoCarga ejecutar(PlanCarga plan) throws IOException, InterruptedException {
+        return ejecutar(plan, null);
+    }
+
+    /**
+     * Ejecuta el plan hasta agotar su duración y espera a que terminen las peticiones en curso
+     *
+     * @param archivoJTL JTL CSV a escribir, o {@code null} para no escribir ninguno
+     */
+    public ResultadoCarga ejecutar(PlanCarga plan, Path archivoJTL) throws IOException, InterruptedException {
+        LOGGER.info("🚀 Motor virtual: " + plan);
+        EscritorJTL escritor = archivoJTL != null ? EscritorJTL.crear(archivoJTL) : null;
+        Ejecucion ejecucion = new Ejecucion(plan, escritor);
+        try {
+            ejecucion.correr();
+        } finally {
+            if (escritor != null) {
+                escritor.close();
+            }
+        }
+
+        ResultadoCarga resultado = new ResultadoCarga(plan.getNombre(), plan.getUsuarios(),
+                ejecucion.combinarParticiones(), ejecucion.duracionReal(), archivoJTL, ejecucion.llegadas);
+        LOGGER.info("✅ Motor virtual: " + resultado.resumen());
+        if (resultado.llegadas() != null && resultado.llegadas().descartadas() > 0) {
+            LOGGER.warning(String.format("⚠️ %s: %d llegadas descartadas por el tope de %d peticiones en vuelo",
+                    plan.getNombre(), resultado.llegadas().descartadas(), plan.getUsuarios()));
+        }
+        return resultado;
+    }
+
+    @Override
+    public void close() {
+        if (clientePropio) {
+            cliente.close();
+        }
+    }
+
+    /**
+     * Estado de una ejecución de un plan
+     */
+    private final class Ejecucion {
+
+        private final PlanCarga plan;
+        private final EscritorJTL escritor;
+        private final DesgloseMetricasJTL[] particiones;
+        private final ReentrantLock[] candados;
+        private final AtomicInteger activos = new AtomicInteger();
+
+        private long inicioNanos;
+        private long finNanos;
+        private long terminadoNanos;
+        private EstadisticasLlegadas llegadas;
+
+        Ejecucion(PlanCarga plan, EscritorJTL escritor) {
+            this.plan = plan;
+            this.escritor = escritor;
+            // En modelo abierto cada llegada es un hilo nuevo: se reparte por número de llegada
+            int paralelismo = 2 * Runtime.getRuntime().availableProcessors();
+            int numeroParticiones = plan.esModeloAbierto() ? paralelismo : Math.min(plan.getUsuarios(), paralelismo);
+            this.particiones = new DesgloseMetricasJTL[numeroParticiones];
+            this.candados = new ReentrantLock[numeroParticiones];
+            for (int i = 0; i < numeroParticiones; i++) {
+                particiones[i] = new DesgloseMetricasJTL();
+                candados[i] = new ReentrantLock();
+            }
+        }
+
+        void correr() throws InterruptedException {
+            if (plan.esModeloAbierto()) {
+                correrModeloAbierto();
+                return;
+            }
+            inicioNanos = System.nanoTime();
+            finNanos = inicioNanos + plan.getDuracion().toNanos();
+            long rampaNanos = plan.getRampa().toNanos();
+            int usuarios = plan.getUsuarios();
+
+            ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor();
+            try {
+                for (int u = 0; u < usuarios; u++) {
+                    int usuario = u;
+                    long arranque = inicioNanos + rampaNanos * u / usuarios;
+                    hilos.execute(() -> simularUsuario(usuario, arranque));
+                }
+            } finally {
+                esperarTermino(hilos);
+            }
+        }
+
+        /**
+         * Temporizador del modelo abierto: lanza cada llegada del perfil en su instante, sin
+         * depender de los tiempos de respuesta, mientras haya hueco bajo el tope en vuelo
+         */
+        private void correrModeloAbierto() throws InterruptedException {
+            PerfilLlegadas.Programa programa = plan.getPerfilLlegadas().programa();
+            Semaphore enVuelo = new Semaphore(plan.getUsuarios());
+            List<PeticionCarga> peticiones = plan.getPeticiones();
+            long toleranciaNanos = TimeUnit.MILLISECONDS.toNanos(EstadisticasLlegadas.TOLERANCIA_MS);
+            long programadas = 0;
+            long descartadas = 0;
+            long tardias = 0;
+            long retrasoMaximo = 0;
+
+            inicioNanos = System.nanoTime();
+            finNanos = inicioNanos + plan.getDuracion().toNanos();
+            ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor();
+            try {
+                for (long instante = programa.siguienteNanos(); instante >= 0; instante = programa.siguienteNanos()) {
+                    long objetivo = inicioNanos + instante;
+                    esperarHasta(objetivo);
+                    long llegada = programadas++;
+                    if (!enVuelo.tryAcquire()) {
+                        descartadas++;
+                        continue;
+                    }
+                    long retraso = System.nanoTime() - objetivo;
+                    if (retraso > toleranciaNanos) {
+                        tardias++;
+                    }
+                    retrasoMaximo = Math.max(retrasoMaximo, retraso);
+
+                    PeticionCarga peticion = plan.getSeleccion() == PlanCarga.Seleccion.ALEATORIA
+                            ? peticiones.get(ThreadLocalRandom.current().nextInt(peticiones.size()))
+                            : peticiones.get((int) (llegada % peticiones.size()));
+                    String nombreHilo = plan.getNombre() + " 1-" + (llegada + 1);
+                    int particion = (int) (llegada % particiones.length);
+                    hilos.execute(() -> {
+                        activos.incrementAndGet();
+                        try {
+                            ejecutarPeticion(peticion, nombreHilo, particion);
+                        } catch (NoSuchElementException e) {
+                            // Datos únicos agotados: la llegada no se envía
+                        } finally {
+                            activos.decrementAndGet();
+                            enVuelo.release();
+                        }
+                    });
+                }
+            } finally {
+                esperarTermino(hilos);
+                llegadas = new EstadisticasLlegadas(programadas, programadas - descartadas, descartadas,
+                        tardias, TimeUnit.NANOSECONDS.toMillis(retrasoMaximo));
+            }
+        }
+
+        /**
+         * Duerme hasta poco antes del instante y termina con espera activa: el planificador del
+         * sistema no garantiza despertar con precisión de milisegundos
+         */
+        private void esperarHasta(long objetivoNanos) throws InterruptedException {
+            long margenActivo = TimeUnit.MILLISECONDS.toNanos(1);
+            long resto = objetivoNanos - System.nanoTime();
+            if (resto > margenActivo) {
+                TimeUnit.NANOSECONDS.sleep(resto - margenActivo);
+            }
+            while (System.nanoTime() < objetivoNanos) {
+                Thread.onSpinWait();
+            }
+        }
+
+        private void esperarTermino(ExecutorService hilos) throws InterruptedException {
+            hilos.shutdown();
+            // Margen para las peticiones que siguen en vuelo al vencer la duración
+            long margen = plan.getTimeoutPeticion().toNanos() + TimeUnit.SECONDS.toNanos(5);
+            if (!hilos.awaitTermination(finNanos - System.nanoTime() + margen, TimeUnit.NANOSECONDS)) {
+                LOGGER.warning("Usuarios virtuales que no terminaron a tiempo en " + plan.getNombre());
+                hilos.shutdownNow();
+            }
+            terminadoNanos = System.nanoTime();
+        }
+
+        private void simularUsuario(int usuario, long arranqueNanos) {
+            try {
+                long espera = arranqueNanos - System.nanoTime();
+                if (espera > 0) {
+                    TimeUnit.NANOSECONDS.sleep(espera);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            String nombreHilo = plan.getNombre() + " 1-" + (usuario + 1);
+            int particion = usuario % particiones.length;
+            List<PeticionCarga> peticiones = plan.getPeticiones();
+            activos.incrementAndGet();
+            try {
+                while (System.nanoTime() < finNanos && !Thread.currentThread().isInterrupted()) {
+                    if (plan.getSeleccion() == PlanCarga.Seleccion.ALEATORIA) {
+                        if (!pensar()) break;
+                        ejecutarPeticion(peticiones.get(ThreadLocalRandom.current().nextInt(peticiones.size())),
+                                nombreHilo, particion);
+                        continue;
+                    }
+                    for (PeticionCarga peticion : peticiones) {
+                        if (!pensar()) break;
+                        ejecutarPeticion(peticion, nombreHilo, particion);
+                    }
+                }
+            } catch (NoSuchElementException e) {
+                // Datos únicos agotados: el usuario termina, como "Stop thread on EOF" en JMeter
+                LOGGER.fine(nombreHilo + ": " + e.getMessage());
+            } finally {
+                activos.decrementAndGet();
+            }
+        }
+
+        /**
+         * Tiempo de reflexión del plan antes de una petición, recortado al final de la prueba
+         *
+         * @return {@code false} si la prueba terminó o el usuario fue interrumpido
+         */
+        private boolean pensar() {
+            long fija = plan.getPausa().toNanos();
+            long aleatoria = plan.getPausaAleatoria().toNanos();
+            if (fija > 0 || aleatoria > 0) {
+                long pausa = fija + (aleatoria > 0 ? ThreadLocalRandom.current().nextLong(aleatoria + 1) : 0);
+                try {
+                    TimeUnit.NANOSECONDS.sleep(Math.min(pausa, finNanos - System.nanoTime()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return System.nanoTime() < finNanos;
+        }
+
+        private void ejecutarPeticion(PeticionCarga peticion, String nombreHilo, int particion) {
+            URI uri = plan.getUrlBase().resolve(peticion.ruta());
+            String cuerpo = peticion.cuerpo() != null ? peticion.cuerpo().get() : null;
+            HttpRequest.Builder solicitud = HttpRequest.newBuilder(uri).timeout(plan.getTimeoutPeticion());
+            if (cuerpo != null) {
+                solicitud.header("Content-Type", "application/json")
+                        .header("Accept", "application/json")
+                        .method(peticion.metodo(), HttpRequest.BodyPublishers.ofString(cuerpo, StandardCharsets.UTF_8));
+            } else {
+                solicitud.method(peticion.metodo(), HttpRequest.BodyPublishers.noBody());
+            }
+
+            long timeStamp = System.currentTimeMillis();
+            long inicio = System.nanoTime();
+            long[] primerByte = {0};
+            String codigo;
+            String mensaje;
+            boolean exito;
+            String fallo = null;
+            long bytes = 0;
+            try {
+                // El manejador se invoca al llegar las cabeceras: ese instante es la latencia de JMeter
+                HttpResponse<byte[]> respuesta = cliente.send(solicitud.build(), info -> {
+                    primerByte[0] = System.nanoTime();
+                    return HttpResponse.BodySubscribers.ofByteArray();
+                });
+                codigo = String.valueOf(respuesta.statusCode());
+                mensaje = respuesta.statusCode() < 400 ? "OK" : "Error";
+                bytes = respuesta.body().length;
+                exito = respuesta.statusCode() == peticion.codigoEsperado();
+                if (!exito) {
+                    fallo = "Código de respuesta esperado " + peticion.codigoEsperado() + " y se obtuvo " + codigo;
+                }
+            } catch (IOException e) {
+                codigo = "Non HTTP response code: " + e.getClass().getName();
+                mensaje = "Non HTTP response message: " + e.getMessage();
+                exito = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long fin = System.nanoTime();
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(fin - inicio);
+            long latencia = primerByte[0] != 0 ? TimeUnit.NANOSECONDS.toMillis(primerByte[0] - inicio) : 0;
+
+            ReentrantLock candado = candados[particion];
+            candado.lock();
+            try {
+                particiones[particion].registrar(peticion.etiqueta(), timeStamp, elapsed, exito);
+            } finally {
+                candado.unlock();
+            }
+
+            if (escritor != null) {
+                int hilosActivos = activos.get();
+                escritor.escribir(new EscritorJTL.Muestra(timeStamp, elapsed, peticion.etiqueta(), codigo, mensaje,
+                        nombreHilo, exito, fallo, bytes, cuerpo != null ? cuerpo.getBytes(StandardCharsets.UTF_8).length : 0,
+                        hilosActivos, hilosActivos, uri.toString(), latencia, 0));
+            }
+        }
+
+        DesgloseMetricasJTL combinarParticiones() {
+            DesgloseMetricasJTL total = new DesgloseMetricasJTL();
+            for (DesgloseMetricasJTL particion : particiones) {
+                total.combinar(particion);
+            }
+            return total;
+        }
+
+        Duration duracionReal() {
+            return Duration.ofNanos(terminadoNanos - inicioNanos);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.mediplus.pruebas.analisis.carga;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Perfil de tasa de llegada (peticiones por segundo) para el modelo abierto
+ * Se compone de etapas consecutivas; en cada una la tasa cambia linealmente desde la tasa
+ * con la que terminó la anterior hasta la tasa final de la etapa (igual tasa = meseta)
+ *
+ * <pre>
+ * PerfilLlegadas perfil = PerfilLlegadas.desde(0)
+ *         .rampa(Duration.ofSeconds(30), 200)   // 0 → 200 req/s
+ *         .sostener(Duration.ofMinutes(5));     // 200 req/s constantes
+ * </pre>
+ *
+ * <p>Los instantes de llegada se obtienen invirtiendo exactamente la integral de la tasa, por
+ * lo que el número de peticiones programadas no depende de los tiempos de respuesta.</p>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class PerfilLlegadas {
+
+    private final double tasaInicial;
+    private final List<Etapa> etapas;
+
+    private PerfilLlegadas(double tasaInicial, List<Etapa> etapas) {
+        this.tasaInicial = tasaInicial;
+        this.etapas = etapas;
+    }
+
+    /**
+     * Perfil vacío que arranca en la tasa indicada
+     */
+    public static PerfilLlegadas desde(double tasaInicialReqSeg) {
+        validarTasa(tasaInicialReqSeg);
+        return new PerfilLlegadas(tasaInicialReqSeg, List.of());
+    }
+
+    /**
+     * Tasa fija durante toda la prueba
+     */
+    public static PerfilLlegadas constante(double tasaReqSeg, Duration duracion) {
+        return desde(tasaReqSeg).sostener(duracion);
+    }
+
+    /**
+     * Agrega una etapa que lleva la tasa linealmente hasta {@code tasaFinalReqSeg}
+     */
+    public PerfilLlegadas rampa(Duration duracion, double tasaFinalReqSeg) {
+        validarTasa(tasaFinalReqSeg);
+        if (duracion.isZero() || duracion.isNegative()) {
+            throw new IllegalArgumentException("La duración de la etapa debe ser positiva");
+        }
+        List<Etapa> nuevas = new ArrayList<>(etapas);
+        nuevas.add(new Etapa(duracion, tasaFinal(), tasaFinalReqSeg));
+        return new PerfilLlegadas(tasaInicial, Collections.unmodifiableList(nuevas));
+    }
+
+    /**
+     * Agrega una etapa que mantiene la tasa actual
+     */
+    public PerfilLlegadas sostener(Duration duracion) {
+        return rampa(duracion, tasaFinal());
+    }
+
+    public Duration getDuracion() {
+        return etapas.stream().map(Etapa::duracion).reduce(Duration.ZERO, Duration::plus);
+    }
+
+    public List<Etapa> getEtapas() {
+        return etapas;
+    }
+
+    /**
+     * Peticiones totales que programa el perfil (integral de la tasa)
+     */
+    public double getPeticionesEsperadas() {
+        return etapas.stream().mapToDouble(e -> (e.tasaInicial() + e.tasaFinal()) / 2 * e.duracion().toNanos() / 1e9).sum();
+    }
+
+    /**
+     * Tasa con la que termina la última etapa
+     */
+    public double tasaFinal() {
+        return etapas.isEmpty() ? tasaInicial : etapas.get(etapas.size() - 1).tasaFinal();
+    }
+
+    /**
+     * Nuevo recorrido de los instantes de llegada del perfil
+     */
+    public Programa programa() {
+        return new Programa();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("PerfilLlegadas{");
+        double tasa = tasaInicial;
+        sb.append(String.format("%.1f", tasa));
+        for (Etapa etapa : etapas) {
+            sb.append(String.format(" -(%ds)-> %.1f", etapa.duracion().toSeconds(), etapa.tasaFinal()));
+        }
+        return sb.append(" req/s}").toString();
+    }
+
+    private static void validarTasa(double tasa) {
+        if (tasa < 0 || Double.isNaN(tasa) || Double.isInfinite(tasa)) {
+            throw new IllegalArgumentException("La tasa debe ser un número no negativo");
+        }
+    }
+
+    /**
+     * Etapa lineal del perfil
+     */
+    public record Etapa(Duration duracion, double tasaInicial, double tasaFinal) { }
+
+    /**
+     * Iterador de instantes de llegada, en nanosegundos desde el inicio de la prueba
+     * La llegada k ocurre cuando la integral de la tasa alcanza k; dentro de una etapa
+     * lineal eso es la raíz de {@code a·t² + b·t = resto} con {@code a = (r1 - r0) / 2D}, {@code b = r0}
+     */
+    public final class Programa {
+
+        private int etapa;
+        private long inicioEtapaNanos;
+        private double llegadasAlInicioEtapa;
+        private long siguienteLlegada = 1;
+
+        private Programa() { }
+
+        /**
+         * @return instante de la próxima llegada, o -1 si el perfil terminó
+         */
+        public long siguienteNanos() {
+            while (etapa < etapas.size()) {
+                Etapa actual = etapas.get(etapa);
+                double duracionSeg = actual.duracion().toNanos() / 1e9;
+                double r0 = actual.tasaInicial();
+                double r1 = actual.tasaFinal();
+                double llegadasEtapa = (r0 + r1) / 2 * duracionSeg;
+                double resto = siguienteLlegada - llegadasAlInicioEtapa;
+
+                if (resto <= llegadasEtapa + 1e-9) {
+                    double a = (r1 - r0) / (2 * duracionSeg);
+                    double t = Math.abs(a) < 1e-12
+                            ? resto / r0
+                            : (-r0 + Math.sqrt(Math.max(0, r0 * r0 + 4 * a * resto))) / (2 * a);
+                    siguienteLlegada++;
+                    return inicioEtapaNanos + Math.min(actual.duracion().toNanos(), (long) (t * 1e9));
+                }
+                llegadasAlInicioEtapa += llegadasEtapa;
+                inicioEtapaNanos += actual.duracion().toNanos();
+                etapa++;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.mediplus.pruebas.analisis.carga;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Petición HTTP que un usuario simulado repite durante la prueba
+ * Equivale a un HTTP Sampler de JMeter con su aserción de código de respuesta
+ *
+ * @param etiqueta       nombre del sampler en el JTL (p.ej. "GET Products")
+ * @param metodo         verbo HTTP
+ * @param ruta           ruta relativa a la URL base del plan
+ * @param codigoEsperado código de respuesta que se considera éxito
+ * @param cuerpo         generador del cuerpo JSON, o {@code null} si la petición no lleva cuerpo
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public record PeticionCarga(String etiqueta, String metodo, String ruta, int codigoEsperado, Supplier<String> cuerpo) {
+
+    public PeticionCarga {
+        Objects.requireNonNull(etiqueta, "etiqueta");
+        Objects.requireNonNull(metodo, "metodo");
+        Objects.requireNonNull(ruta, "ruta");
+    }
+
+    public static PeticionCarga get(String etiqueta, String ruta) {
+        return new PeticionCarga(etiqueta, "GET", ruta, 200, null);
+    }
+
+    /**
+     * POST con cuerpo JSON; DummyJSON responde 201 en los endpoints {@code /add}
+     */
+    public static PeticionCarga post(String etiqueta, String ruta, Supplier<String> cuerpo) {
+        return new PeticionCarga(etiqueta, "POST", ruta, 201, cuerpo);
+    }
+}
@@ -0,0 +1,224 @@
+package com.mediplus.pruebas.analisis.carga;
+
+import com.mediplus.pruebas.analisis.jmeter.CatalogoEscenarios;
+import com.mediplus.pruebas.analisis.jmeter.EjecutorJMeterReal.ConfiguracionEscenario;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plan de carga que ejecuta {@link MotorCargaVirtual}: qué peticiones hace cada usuario
+ * simulado, cuántos usuarios, durante cuánto tiempo y con qué rampa de subida
+ *
+ * <p>Por defecto es un modelo cerrado (usuarios que repiten peticiones, como un Thread Group).
+ * Con {@link Builder#modeloAbierto} pasa a modelo abierto: las peticiones arrancan según un
+ * {@link PerfilLlegadas} sin esperar a las anteriores, con un tope de peticiones en vuelo.</p>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class PlanCarga {
+
+    /** API pública contra la que corren los escenarios del proyecto */
+    public static final URI URL_BASE_DEFAULT = URI.create("https://dummyjson.com");
+
+    /**
+     * Cómo recorre cada usuario la lista de peticiones en una iteración
+     */
+    public enum Seleccion {
+        /** Todas las peticiones en orden, como un Thread Group con varios samplers */
+        SECUENCIAL,
+        /** Una petición al azar por iteración, como un Random Controller */
+        ALEATORIA
+    }
+
+    private final String nombre;
+    private final URI urlBase;
+    private final int usuarios;
+    private final Duration duracion;
+    private final Duration rampa;
+    private final Seleccion seleccion;
+    private final List<PeticionCarga> peticiones;
+    private final Duration timeoutPeticion;
+    private final Duration pausa;
+    private final Duration pausaAleatoria;
+    private final PerfilLlegadas perfilLlegadas;
+
+    private PlanCarga(Builder builder) {
+        boolean abierto = builder.perfilLlegadas != null;
+        // En modelo abierto la duración la fija el perfil y los "usuarios" son el tope en vuelo
+        Duration duracionPlan = abierto ? builder.perfilLlegadas.getDuracion() : builder.duracion;
+        Duration rampaPlan = abierto ? Duration.ZERO : builder.rampa;
+
+        if (builder.nombre == null || builder.nombre.isBlank()) {
+            throw new IllegalArgumentException("nombre no puede estar vacío");
+        }
+        if (builder.usuarios <= 0) {
+            throw new IllegalArgumentException(abierto ? "maximoEnVuelo debe ser positivo" : "usuarios debe ser positivo");
+        }
+        if (duracionPlan == null || duracionPlan.isZero() || duracionPlan.isNegative()) {
+            throw new IllegalArgumentException(abierto ? "El perfil de llegadas no tiene etapas" : "duracion debe ser positiva");
+        }
+        if (builder.peticiones.isEmpty()) {
+            throw new IllegalArgumentException("El plan necesita al menos una petición");
+        }
+        if (builder.pausa.isNegative() || builder.pausaAleatoria.isNegative()) {
+            throw new IllegalArgumentException("La pausa no puede ser negativa");
+        }
+        this.nombre = builder.nombre;
+        this.urlBase = builder.urlBase;
+        this.usuarios = builder.usuarios;
+        this.duracion = duracionPlan;
+        // La rampa nunca supera la duración: todos los usuarios alcanzan a arrancar
+        this.rampa = rampaPlan.compareTo(duracionPlan) > 0 ? duracionPlan : rampaPlan;
+        this.seleccion = builder.seleccion;
+        this.peticiones = Collections.unmodifiableList(new ArrayList<>(builder.peticiones));
+        this.timeoutPeticion = builder.timeoutPeticion;
+        this.pausa = builder.pausa;
+        this.pausaAleatoria = builder.pausaAleatoria;
+        this.perfilLlegadas = builder.perfilLlegadas;
+    }
+
+    /**
+     * Traduce un escenario de {@link com.mediplus.pruebas.analisis.jmeter.EjecutorJMeterReal} a un plan
+     * con los mismos samplers, rampas y aserciones que su script JMX, tomados de la plantilla del
+     * catálogo configurado. La prueba termina por tiempo ({@code duracionSegundos}) en lugar de por
+     * número de iteraciones
+     */
+    public static PlanCarga desdeEscenario(ConfiguracionEscenario config, URI urlBase) {
+        return desdeEscenario(config, urlBase, CatalogoEscenarios.predeterminado());
+    }
+
+    /**
+     * Igual que {@link #desdeEscenario(ConfiguracionEscenario, URI)} con la plantilla de {@code catalogo}
+     *
+     * @throws IllegalArgumentException si el catálogo no define el {@code tipoOperacion} del escenario
+     */
+    public static PlanCarga desdeEscenario(ConfiguracionEscenario config, URI urlBase, CatalogoEscenarios catalogo) {
+        CatalogoEscenarios.Plantilla plantilla = catalogo.plantilla(config.tipoOperacion);
+        Builder builder = new Builder()
+                .nombre(config.nombre)
+                .urlBase(urlBase)
+                .usuarios(config.usuariosConcurrentes)
+                .duracion(Duration.ofSeconds(config.duracionSegundos))
+                .rampa(plantilla.getRampa())
+                .seleccion(plantilla.getSeleccion())
+                .pausa(plantilla.getPausa(), plantilla.getPausaAleatoria());
+        plantilla.getPeticionesCarga().forEach(builder::peticion);
+        return builder.build();
+    }
+
+    // ==================== GETTERS ====================
+
+    public String getNombre() { return nombre; }
+    public URI getUrlBase() { return urlBase; }
+    public int getUsuarios() { return usuarios; }
+    public Duration getDuracion() { return duracion; }
+    public Duration getRampa() { return rampa; }
+    public Seleccion getSeleccion() { return seleccion; }
+    public List<PeticionCarga> getPeticiones() { return peticiones; }
+    public Duration getTimeoutPeticion() { return timeoutPeticion; }
+    public Duration getPausa() { return pausa; }
+    public Duration getPausaAleatoria() { return pausaAleatoria; }
+
+    /**
+     * Perfil del modelo abierto, o {@code null} en modelo cerrado
+     */
+    public PerfilLlegadas getPerfilLlegadas() { return perfilLlegadas; }
+
+    public boolean esModeloAbierto() { return perfilLlegadas != null; }
+
+    @Override
+    public String toString() {
+        if (esModeloAbierto()) {
+            return String.format("PlanCarga{nombre='%s', abierto=%s, maximoEnVuelo=%d, duracion=%ds, peticiones=%d}",
+                    nombre, perfilLlegadas, usuarios, duracion.toSeconds(), peticiones.size());
+        }
+        return String.format("PlanCarga{nombre='%s', usuarios=%d, duracion=%ds, rampa=%ds, peticiones=%d}",
+                nombre, usuarios, duracion.toSeconds(), rampa.toSeconds(), peticiones.size());
+    }
+
+    // ==================== BUILDER ====================
+
+    public static class Builder {
+        private String nombre;
+        private URI urlBase = URL_BASE_DEFAULT;
+        private int usuarios;
+        private Duration duracion;
+        private Duration rampa = Duration.ZERO;
+        private Seleccion seleccion = Seleccion.SECUENCIAL;
+        private final List<PeticionCarga> peticiones = new ArrayList<>();
+        private Duration timeoutPeticion = Duration.ofSeconds(30);
+        private Duration pausa = Duration.ZERO;
+        private Duration pausaAleatoria = Duration.ZERO;
+        private PerfilLlegadas perfilLlegadas;
+
+        public Builder nombre(String nombre) {
+            this.nombre = nombre;
+            return this;
+        }
+
+        public Builder urlBase(URI urlBase) {
+            this.urlBase = urlBase;
+            return this;
+        }
+
+        public Builder usuarios(int usuarios) {
+            this.usuarios = usuarios;
+            return this;
+        }
+
+        public Builder duracion(Duration duracion) {
+            this.duracion = duracion;
+            return this;
+        }
+
+        public Builder rampa(Duration rampa) {
+            this.rampa = rampa;
+            return this;
+        }
+
+        public Builder seleccion(Seleccion seleccion) {
+            this.seleccion = seleccion;
+            return this;
+        }
+
+        public Builder peticion(PeticionCarga peticion) {
+            this.peticiones.add(peticion);
+            return this;
+        }
+
+        public Builder timeoutPeticion(Duration timeoutPeticion) {
+            this.timeoutPeticion = timeoutPeticion;
+            return this;
+        }
+
+        /**
+         * Tiempo de reflexión antes de cada petición: {@code fija} más un extra uniforme entre cero y
+         * {@code aleatoria}, como un Uniform Random Timer. Solo aplica al modelo cerrado; en el
+         * abierto el ritmo lo fija el perfil de llegadas
+         */
+        public Builder pausa(Duration fija, Duration aleatoria) {
+            this.pausa = fija;
+            this.pausaAleatoria = aleatoria;
+            return this;
+        }
+
+        /**
+         * Cambia a modelo abierto: las peticiones arrancan según el perfil, independientemente de
+         * los tiempos de respuesta. Las llegadas que encuentran {@code maximoEnVuelo} peticiones
+         * sin terminar se descartan y se informan en el resultado
+         */
+        public Builder modeloAbierto(PerfilLlegadas perfilLlegadas, int maximoEnVuelo) {
+            this.perfilLlegadas = perfilLlegadas;
+            this.usuarios = maximoEnVuelo;
+            return this;
+        }
+
+        public PlanCarga build() {
+            return new PlanCarga(this);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.mediplus.pruebas.analisis.carga;
+
+import com.mediplus.pruebas.analisis.jmeter.AgregadorMetricasJTL;
+import com.mediplus.pruebas.analisis.jmeter.DesgloseMetricasJTL;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Resultado de ejecutar un {@link PlanCarga} con {@link MotorCargaVirtual}
+ *
+ * @param nombre     nombre del plan
+ * @param usuarios   usuarios simulados
+ * @param desglose   métricas en memoria: general, por etiqueta, por método y serie temporal
+ * @param duracion   tiempo real desde el arranque hasta que terminó el último usuario
+ * @param archivoJTL JTL escrito durante la ejecución, o {@code null} si no se pidió
+ * @param llegadas   cumplimiento del programa en modelo abierto, o {@code null} en modelo cerrado
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public record ResultadoCarga(String nombre, int usuarios, DesgloseMetricasJTL desglose,
+                             Duration duracion, Path archivoJTL, EstadisticasLlegadas llegadas) {
+
+    public AgregadorMetricasJTL general() {
+        return desglose.getGeneral();
+    }
+
+    public Optional<Path> jtl() {
+        return Optional.ofNullable(archivoJTL);
+    }
+
+    public Optional<EstadisticasLlegadas> estadisticasLlegadas() {
+        return Optional.ofNullable(llegadas);
+    }
+
+    public String resumen() {
+        AgregadorMetricasJTL general = general();
+        double segundos = Math.max(1, duracion.toMillis()) / 1000.0;
+        String resumen = String.format("%s | %d %s | %d muestras (%.1f%% errores) | %.1f req/s | P95 %.0f ms",
+                nombre, usuarios, llegadas != null ? "en vuelo máx." : "usuarios", general.getTotalMuestras(),
+                general.getTasaErrorPorcentaje(), general.getTotalMuestras() / segundos, general.percentilMs(95));
+        return llegadas != null ? resumen + " | " + llegadas : resumen;
+    }
+}
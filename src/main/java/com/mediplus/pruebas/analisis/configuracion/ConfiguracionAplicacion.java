@@ -25,6 +25,10 @@ public class ConfiguracionAplicacion {
     private static final String FORMATO_FECHA_DEFAULT = "dd/MM/yyyy HH:mm";
     private static final int TIMEOUT_LECTURA_DEFAULT = 30;
 
+    // Motores de carga: JMeter en un proceso aparte o el motor virtual en proceso
+    public static final String MOTOR_CARGA_JMETER = "jmeter";
+    public static final String MOTOR_CARGA_VIRTUAL = "virtual";
+
     private ConfiguracionAplicacion() {
         this.propiedades = new Properties();
         cargarConfiguracion();
@@ -60,6 +64,16 @@ public class ConfiguracionAplicacion {
         propiedades.putIfAbsent("generar.graficas.ascii", "true");
         propiedades.putIfAbsent("umbral.error.critico", "10.0");
         propiedades.putIfAbsent("umbral.tiempo.critico", "2000.0");
+        propiedades.putIfAbsent("motor.carga", MOTOR_CARGA_JMETER);
+        propiedades.putIfAbsent("analisis.intervalo.esperado.ms", "-1");
+        // Un escenario JMeter (una JVM) por cada dos procesadores y 25 hilos de carga por procesador
+        int procesadores = Runtime.getRuntime().availableProcessors();
+        propiedades.putIfAbsent("escenarios.concurrentes.maximo", String.valueOf(Math.max(1, procesadores / 2)));
+        propiedades.putIfAbsent("escenarios.presupuesto.hilos", String.valueOf(25 * procesadores));
+        propiedades.putIfAbsent("escenarios.catalogo", "");
+        propiedades.putIfAbsent("backend.url", "");
+        propiedades.putIfAbsent("escenarios.lote", "false");
+        propiedades.putIfAbsent("reportes.html.trabajadores", String.valueOf(Math.max(1, procesadores / 4)));
     }
 
     // Getters para configuraciones específicas
@@ -95,6 +109,65 @@ public class ConfiguracionAplicacion {
         return propiedades.getProperty("nivel.log");
     }
 
+    public String obtenerMotorCarga() {
+        return propiedades.getProperty("motor.carga");
+    }
+
+    public boolean usarMotorCargaVirtual() {
+        return MOTOR_CARGA_VIRTUAL.equalsIgnoreCase(obtenerMotorCarga());
+    }
+
+    /**
+     * Intervalo esperado entre peticiones de un mismo usuario para corregir la omisión coordinada.
+     * Por defecto (negativo) no se corrige; 0 lo deriva de usuarios / throughput de cada métrica
+     */
+    public long obtenerIntervaloEsperadoMs() {
+        return Long.parseLong(propiedades.getProperty("analisis.intervalo.esperado.ms"));
+    }
+
+    /**
+     * Escenarios JMeter que pueden correr a la vez; 1 restaura la ejecución secuencial
+     */
+    public int obtenerEscenariosConcurrentesMaximo() {
+        return Integer.parseInt(propiedades.getProperty("escenarios.concurrentes.maximo"));
+    }
+
+    /**
+     * Suma máxima de hilos de carga entre los escenarios que corren a la vez
+     */
+    public int obtenerPresupuestoHilosCarga() {
+        return Integer.parseInt(propiedades.getProperty("escenarios.presupuesto.hilos"));
+    }
+
+    /**
+     * Archivo JSON con el catálogo de escenarios; vacío usa el catálogo incluido en el classpath
+     */
+    public String obtenerCatalogoEscenarios() {
+        return propiedades.getProperty("escenarios.catalogo");
+    }
+
+    /**
+     * URL del backend bajo prueba (p. ej. el ServidorDummyJSONLocal); vacía usa la {@code urlBase} del catálogo
+     */
+    public String obtenerUrlBackend() {
+        return propiedades.getProperty("backend.url");
+    }
+
+    /**
+     * Si es true, los escenarios de un mismo grupo de aislamiento se ejecutan en lote: un solo
+     * plan JMX con sus Thread Groups en serie y una sola JVM de JMeter por grupo
+     */
+    public boolean ejecutarEscenariosEnLote() {
+        return Boolean.parseBoolean(propiedades.getProperty("escenarios.lote"));
+    }
+
+    /**
+     * Dashboards HTML de JMeter que se generan a la vez en segundo plano, fuera de las corridas de carga
+     */
+    public int obtenerTrabajadoresReportesHTML() {
+        return Integer.parseInt(propiedades.getProperty("reportes.html.trabajadores"));
+    }
+
     /**
      * Permite override de configuración en tiempo de ejecución
      */
@@ -125,5 +198,13 @@ public class ConfiguracionAplicacion {
         if (obtenerTimeoutLecturaSegundos() <= 0) {
             throw new IllegalStateException("El timeout de lectura debe ser positivo");
         }
+
+        if (obtenerEscenariosConcurrentesMaximo() <= 0 || obtenerPresupuestoHilosCarga() <= 0) {
+            throw new IllegalStateException("El presupuesto de escenarios concurrentes y de hilos debe ser positivo");
+        }
+
+        if (obtenerTrabajadoresReportesHTML() <= 0) {
+            throw new IllegalStateException("Los trabajadores de reportes HTML deben ser positivos");
+        }
     }
 }
\ No newline at end of file
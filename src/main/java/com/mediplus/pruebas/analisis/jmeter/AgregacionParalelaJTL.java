@@ -0,0 +1,125 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Logger;
+
+/**
+ * Agregación paralela de archivos JTL grandes mediante fork-join
+ * Divide el archivo en bloques que empiezan y terminan en un salto de línea; cada bloque
+ * se procesa con su propio {@link LectorJTL} de segmento y su propio {@link AgregadorMetricasJTL},
+ * y los resultados parciales se combinan al volver de la recursión. Los lectores comparten
+ * el canal del archivo (lecturas posicionales) y las columnas resueltas de la cabecera
+ *
+ * <p>Por debajo de {@link #UMBRAL_PARALELO_BYTES} el costo de coordinar hilos no compensa
+ * y se usa la lectura secuencial; los JTL en XML también se leen secuencialmente.</p>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class AgregacionParalelaJTL {
+
+    private static final Logger LOGGER = Logger.getLogger(AgregacionParalelaJTL.class.getName());
+
+    /** Tamaño a partir del cual conviene repartir el archivo entre varios hilos */
+    public static final long UMBRAL_PARALELO_BYTES = 64L * 1024 * 1024;
+
+    /** Tamaño mínimo de bloque que procesa un solo hilo */
+    public static final long TAMANO_BLOQUE_DEFAULT = 16L * 1024 * 1024;
+
+    private AgregacionParalelaJTL() { }
+
+    /**
+     * Agrega un JTL eligiendo el modo según su tamaño: paralelo en el pool común
+     * para archivos grandes y secuencial para el resto
+     */
+    public static AgregadorMetricasJTL agregar(Path archivoJTL) throws IOException {
+        try (LectorJTL lector = LectorJTL.abrir(archivoJTL)) {
+            if (lector.formato() != LectorJTL.Formato.CSV || lector.tamanoArchivo() < UMBRAL_PARALELO_BYTES) {
+                return agregarSecuencial(lector);
+            }
+        }
+        return agregar(archivoJTL, ForkJoinPool.commonPool(), TAMANO_BLOQUE_DEFAULT);
+    }
+
+    /**
+     * Agrega un JTL en paralelo sobre el pool indicado
+     *
+     * @param tamanoBloque bytes por debajo de los cuales un bloque ya no se subdivide
+     */
+    public static AgregadorMetricasJTL agregar(Path archivoJTL, ForkJoinPool pool, long tamanoBloque) throws IOException {
+        if (tamanoBloque <= 0) {
+            throw new IllegalArgumentException("tamanoBloque debe ser positivo");
+        }
+        long inicio = System.nanoTime();
+        try (LectorJTL lector = LectorJTL.abrir(archivoJTL)) {
+            if (lector.formato() != LectorJTL.Formato.CSV) {
+                return agregarSecuencial(lector);
+            }
+            long tamano = lector.tamanoArchivo();
+            AgregadorMetricasJTL resultado = pool.invoke(
+                    new TareaBloque(lector, lector.inicioDatos(), tamano, tamanoBloque));
+
+            LOGGER.fine(() -> String.format("JTL %s agregado en paralelo: %d muestras, %d MB en %d ms (%d hilos)",
+                    archivoJTL.getFileName(), resultado.getTotalMuestras(), tamano / (1024 * 1024),
+                    (System.nanoTime() - inicio) / 1_000_000, pool.getParallelism()));
+            return resultado;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static AgregadorMetricasJTL agregarSecuencial(LectorJTL lector) throws IOException {
+        AgregadorMetricasJTL agregador = new AgregadorMetricasJTL();
+        while (lector.siguiente()) {
+            agregador.registrar(lector); // las líneas defectuosas se ignoran
+        }
+        return agregador;
+    }
+
+    /**
+     * Bloque {@code [inicio, fin)} del archivo; se parte por la mitad (alineada a inicio de línea)
+     * hasta llegar al tamaño mínimo
+     */
+    private static final class TareaBloque extends RecursiveTask<AgregadorMetricasJTL> {
+
+        private static final long serialVersionUID = 1L;
+
+        // Las tareas nunca se serializan; el lector solo vive dentro del pool
+        private final transient LectorJTL lectorBase;
+        private final long inicio;
+        private final long fin;
+        private final long tamanoBloque;
+
+        TareaBloque(LectorJTL lectorBase, long inicio, long fin, long tamanoBloque) {
+            this.lectorBase = lectorBase;
+            this.inicio = inicio;
+            this.fin = fin;
+            this.tamanoBloque = tamanoBloque;
+        }
+
+        @Override
+        protected AgregadorMetricasJTL compute() {
+            try {
+                if (fin - inicio > tamanoBloque) {
+                    long mitad = lectorBase.alinearAInicioDeLinea(inicio + (fin - inicio) / 2, fin);
+                    if (mitad > inicio && mitad < fin) {
+                        TareaBloque izquierda = new TareaBloque(lectorBase, inicio, mitad, tamanoBloque);
+                        TareaBloque derecha = new TareaBloque(lectorBase, mitad, fin, tamanoBloque);
+                        izquierda.fork();
+                        AgregadorMetricasJTL resultado = derecha.compute();
+                        resultado.combinar(izquierda.join());
+                        return resultado;
+                    }
+                }
+                try (LectorJTL segmento = lectorBase.abrirSegmento(inicio, fin)) {
+                    return agregarSecuencial(segmento);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import com.mediplus.pruebas.analisis.modelo.HistogramaLatencia;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Agregador incremental de métricas de un archivo JTL
+ * Mantiene solo acumuladores primitivos (conteos, extremos de timeStamp y un
+ * {@link HistogramaLatencia} de tiempos), de modo que la memoria es constante
+ * sin importar cuántas muestras se registren
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class AgregadorMetricasJTL {
+
+    private final HistogramaLatencia histograma;
+
+    private long totalMuestras;
+    private long totalErrores;
+    private long primerTimeStamp = Long.MAX_VALUE;
+    private long ultimoTimeStamp = Long.MIN_VALUE;
+
+    public AgregadorMetricasJTL() {
+        this(new HistogramaLatencia());
+    }
+
+    private AgregadorMetricasJTL(HistogramaLatencia histograma) {
+        this.histograma = histograma;
+    }
+
+    /**
+     * Registra la fila actual del lector; las filas sin timeStamp o elapsed válidos se ignoran
+     *
+     * @return true si la fila fue registrada
+     */
+    public boolean registrar(LectorJTL lector) {
+        long timeStamp = lector.timeStamp();
+        long elapsed = lector.elapsed();
+        if (timeStamp == LectorJTL.VALOR_INVALIDO || elapsed == LectorJTL.VALOR_INVALIDO || elapsed < 0) {
+            return false;
+        }
+        registrar(timeStamp, elapsed, lector.exito());
+        return true;
+    }
+
+    /**
+     * Registra una muestra individual
+     */
+    public void registrar(long timeStamp, long elapsedMs, boolean exito) {
+        totalMuestras++;
+        if (!exito) totalErrores++;
+        if (timeStamp < primerTimeStamp) primerTimeStamp = timeStamp;
+        if (timeStamp > ultimoTimeStamp) ultimoTimeStamp = timeStamp;
+        histograma.registrar(elapsedMs);
+    }
+
+    /**
+     * Incorpora las muestras de otro agregador (p.ej. el de otro bloque del mismo archivo)
+     */
+    public void combinar(AgregadorMetricasJTL otro) {
+        if (otro.totalMuestras == 0) return;
+        totalMuestras += otro.totalMuestras;
+        totalErrores += otro.totalErrores;
+        primerTimeStamp = Math.min(primerTimeStamp, otro.primerTimeStamp);
+        ultimoTimeStamp = Math.max(ultimoTimeStamp, otro.ultimoTimeStamp);
+        histograma.sumar(otro.histograma);
+    }
+
+    /**
+     * Serializa los acumuladores (unos pocos KB, ver {@link HistogramaLatencia#escribir})
+     */
+    public void escribir(DataOutput salida) throws IOException {
+        salida.writeLong(totalMuestras);
+        salida.writeLong(totalErrores);
+        salida.writeLong(primerTimeStamp);
+        salida.writeLong(ultimoTimeStamp);
+        histograma.escribir(salida);
+    }
+
+    /**
+     * Reconstruye un agregador escrito con {@link #escribir}
+     */
+    public static AgregadorMetricasJTL leer(DataInput entrada) throws IOException {
+        long totalMuestras = entrada.readLong();
+        long totalErrores = entrada.readLong();
+        long primerTimeStamp = entrada.readLong();
+        long ultimoTimeStamp = entrada.readLong();
+        AgregadorMetricasJTL agregador = new AgregadorMetricasJTL(HistogramaLatencia.leer(entrada));
+        agregador.totalMuestras = totalMuestras;
+        agregador.totalErrores = totalErrores;
+        agregador.primerTimeStamp = primerTimeStamp;
+        agregador.ultimoTimeStamp = ultimoTimeStamp;
+        return agregador;
+    }
+
+    /**
+     * Percentil por rango más cercano, con el error relativo acotado del histograma
+     *
+     * @param percentil valor entre 0 y 100
+     */
+    public double percentilMs(double percentil) {
+        return histograma.percentil(percentil);
+    }
+
+    // Getters
+    public long getTotalMuestras() { return totalMuestras; }
+    public long getTotalErrores() { return totalErrores; }
+    public long getTotalExitos() { return totalMuestras - totalErrores; }
+    public long getMinimoMs() { return histograma.getMinimo(); }
+    public long getMaximoMs() { return histograma.getMaximo(); }
+    public HistogramaLatencia getHistograma() { return histograma; }
+    public long getPrimerTimeStamp() { return totalMuestras > 0 ? primerTimeStamp : 0; }
+    public long getUltimoTimeStamp() { return totalMuestras > 0 ? ultimoTimeStamp : 0; }
+
+    public double getPromedioMs() {
+        return histograma.getPromedio();
+    }
+
+    public double getTasaErrorPorcentaje() {
+        return totalMuestras > 0 ? (double) totalErrores / totalMuestras * 100.0 : 0.0;
+    }
+
+    /**
+     * Duración entre el primer y el último timeStamp registrado
+     */
+    public long getDuracionMs() {
+        return totalMuestras > 0 ? ultimoTimeStamp - primerTimeStamp : 0;
+    }
+}
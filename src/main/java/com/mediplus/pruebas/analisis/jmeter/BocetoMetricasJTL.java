@@ -0,0 +1,190 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import com.mediplus.pruebas.analisis.modelo.HistogramaLatencia;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Resumen combinable de las métricas de un generador de carga
+ * Reduce el JTL de cada nodo a sus acumuladores (conteos, extremos de timeStamp e
+ * {@link HistogramaLatencia} general y por etiqueta) serializados en unos pocos KB. Los
+ * bocetos de varios nodos se combinan sin volver a leer ni ordenar las muestras, así que
+ * consolidar una prueba distribuida cuesta en proporción al número de nodos
+ *
+ * <p>Cotas de error: cada percentil tiene el error relativo máximo del histograma
+ * ({@link #getErrorRelativoMaximo()}, ~0,1% con la configuración por defecto). La combinación
+ * suma buckets idénticos, por lo que no agrega error: el P95 global de los bocetos combinados
+ * es el mismo que se obtendría registrando todas las muestras de todos los nodos en un solo
+ * histograma. Conteos, errores, promedio, mínimo y máximo son exactos.</p>
+ *
+ * <pre>
+ * // En cada generador
+ * BocetoMetricasJTL.desdeJTL(jtl, "nodo-1").guardar(Paths.get("carga_100u_nodo1.boceto"));
+ * // En el consolidador
+ * BocetoMetricasJTL global = BocetoMetricasJTL.combinarArchivos(archivosBoceto);
+ * </pre>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class BocetoMetricasJTL {
+
+    private static final Logger LOGGER = Logger.getLogger(BocetoMetricasJTL.class.getName());
+
+    public static final String EXTENSION = ".boceto";
+
+    private static final int MAGIA = 0x424F4354; // "BOCT"
+    private static final int VERSION = 1;
+
+    private final List<String> nodos = new ArrayList<>();
+    private final AgregadorMetricasJTL general = new AgregadorMetricasJTL();
+    private final Map<String, AgregadorMetricasJTL> porEtiqueta = new LinkedHashMap<>();
+
+    private BocetoMetricasJTL() { }
+
+    /**
+     * Resume un JTL completo en una sola pasada
+     */
+    public static BocetoMetricasJTL desdeJTL(Path archivoJTL, String nodo) throws IOException {
+        DesgloseMetricasJTL desglose = new DesgloseMetricasJTL();
+        try (LectorJTL lector = LectorJTL.abrir(archivoJTL)) {
+            while (lector.siguiente()) {
+                desglose.registrar(lector);
+            }
+        }
+        return desdeDesglose(desglose, nodo);
+    }
+
+    /**
+     * Resume un desglose ya calculado (copia sus acumuladores)
+     */
+    public static BocetoMetricasJTL desdeDesglose(DesgloseMetricasJTL desglose, String nodo) {
+        BocetoMetricasJTL boceto = new BocetoMetricasJTL();
+        boceto.nodos.add(nodo);
+        boceto.general.combinar(desglose.getGeneral());
+        desglose.getPorEtiqueta().forEach((etiqueta, agregador) ->
+                boceto.agregadorDeEtiqueta(etiqueta).combinar(agregador));
+        return boceto;
+    }
+
+    /**
+     * Combina los bocetos guardados de varios nodos
+     */
+    public static BocetoMetricasJTL combinarArchivos(List<Path> archivosBoceto) throws IOException {
+        BocetoMetricasJTL combinado = new BocetoMetricasJTL();
+        for (Path archivo : archivosBoceto) {
+            combinado.combinar(cargar(archivo));
+        }
+        LOGGER.fine(() -> "Bocetos combinados: " + combinado.nodos);
+        return combinado;
+    }
+
+    /**
+     * Incorpora el boceto de otro nodo; las etiquetas se reconcilian por texto
+     */
+    public void combinar(BocetoMetricasJTL otro) {
+        nodos.addAll(otro.nodos);
+        general.combinar(otro.general);
+        otro.porEtiqueta.forEach((etiqueta, agregador) -> agregadorDeEtiqueta(etiqueta).combinar(agregador));
+    }
+
+    // ==================== PERSISTENCIA ====================
+
+    public void guardar(Path archivo) throws IOException {
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(archivo)))) {
+            escribir(salida);
+        }
+    }
+
+    public static BocetoMetricasJTL cargar(Path archivo) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo)))) {
+            return leer(entrada, archivo.toString());
+        }
+    }
+
+    /**
+     * Serializa el boceto con el mismo formato que {@link #guardar}; sirve para enviarlo por un
+     * socket sin pasar por disco
+     */
+    public void escribir(DataOutput salida) throws IOException {
+        salida.writeInt(MAGIA);
+        salida.writeInt(VERSION);
+        salida.writeInt(nodos.size());
+        for (String nodo : nodos) {
+            salida.writeUTF(nodo);
+        }
+        general.escribir(salida);
+        salida.writeInt(porEtiqueta.size());
+        for (Map.Entry<String, AgregadorMetricasJTL> entrada : porEtiqueta.entrySet()) {
+            salida.writeUTF(entrada.getKey());
+            entrada.getValue().escribir(salida);
+        }
+    }
+
+    /**
+     * Reconstruye un boceto escrito con {@link #escribir}
+     */
+    public static BocetoMetricasJTL leer(DataInput entrada) throws IOException {
+        return leer(entrada, "flujo");
+    }
+
+    private static BocetoMetricasJTL leer(DataInput entrada, String origen) throws IOException {
+        try {
+            if (entrada.readInt() != MAGIA) {
+                throw new IOException("No es un boceto de métricas: " + origen);
+            }
+            int version = entrada.readInt();
+            if (version != VERSION) {
+                throw new IOException("Versión de boceto no soportada (" + version + "): " + origen);
+            }
+            BocetoMetricasJTL boceto = new BocetoMetricasJTL();
+            int numeroNodos = entrada.readInt();
+            for (int i = 0; i < numeroNodos; i++) {
+                boceto.nodos.add(entrada.readUTF());
+            }
+            boceto.general.combinar(AgregadorMetricasJTL.leer(entrada));
+            int numeroEtiquetas = entrada.readInt();
+            for (int i = 0; i < numeroEtiquetas; i++) {
+                String etiqueta = entrada.readUTF();
+                boceto.agregadorDeEtiqueta(etiqueta).combinar(AgregadorMetricasJTL.leer(entrada));
+            }
+            return boceto;
+        } catch (EOFException e) {
+            throw new IOException("Boceto truncado: " + origen, e);
+        }
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Nodos cuyas muestras forman parte del boceto
+     */
+    public List<String> getNodos() {
+        return Collections.unmodifiableList(nodos);
+    }
+
+    public AgregadorMetricasJTL getGeneral() {
+        return general;
+    }
+
+    /**
+     * Agregadores por etiqueta de sampler, en orden de primera aparición
+     */
+    public Map<String, AgregadorMetricasJTL> getPorEtiqueta() {
+        return Collections.unmodifiableMap(porEtiqueta);
+    }
+
+    /**
+     * Error relativo máximo de los percentiles del boceto
+     */
+    public double getErrorRelativoMaximo() {
+        return general.getHistograma().getErrorRelativoMaximo();
+    }
+
+    private AgregadorMetricasJTL agregadorDeEtiqueta(String etiqueta) {
+        return porEtiqueta.computeIfAbsent(etiqueta, e -> new AgregadorMetricasJTL());
+    }
+}
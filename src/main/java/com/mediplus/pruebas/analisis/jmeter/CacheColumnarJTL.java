@@ -0,0 +1,462 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caché binaria y columnar de JTL ya parseados
+ * La primera vez que se analiza un JTL se recorre el texto con {@link LectorJTL} y sus filas
+ * válidas se guardan en un archivo {@code .jtlc} por columnas; los análisis siguientes del mismo
+ * archivo verifican la cabecera y mapean en memoria solo la zona de bloques, en regiones de bloques
+ * completos de hasta {@link #MAXIMO_REGION} bytes (un mapeo no puede pasar de 2 GB)
+ *
+ * <p>La entrada se identifica por ruta canónica, tamaño y fecha de modificación del JTL, que forman
+ * parte del nombre del archivo: si cualquiera cambia se escribe un caché nuevo y los anteriores se
+ * borran cuando ya nadie los tiene mapeados. Formato (big-endian):</p>
+ * <pre>
+ * cabecera:   MAGIA, VERSION, tamaño origen, mtime origen (ms), filas, posición del diccionario,
+ *             longitud de la ruta + ruta canónica UTF-8
+ * bloques:    hasta FILAS_POR_BLOQUE filas cada uno
+ *             n, timeStamp base, int[n] deltas de timeStamp, int[n] elapsed, int[n] latencia,
+ *             int[n] código de etiqueta, long[(n+63)/64] bitset de éxito
+ * diccionario: número de etiquetas, y por cada una longitud + UTF-8
+ * </pre>
+ *
+ * <p>Los bloques acotan la memoria al construir el caché. Un delta que no cabe en un int (JTL
+ * desordenados o con huecos de semanas) simplemente abre un bloque nuevo. El archivo se escribe
+ * en un temporal y se mueve al final, de modo que un caché a medio escribir nunca se lee.</p>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class CacheColumnarJTL {
+
+    private static final Logger LOGGER = Logger.getLogger(CacheColumnarJTL.class.getName());
+
+    public static final Path DIRECTORIO_DEFAULT = Paths.get("target", "cache-jtl");
+
+    static final int FILAS_POR_BLOQUE = 1 << 16;
+
+    /** Bytes por mapeo; los JTL de varios GB generan cachés mayores que un solo MappedByteBuffer */
+    static final long MAXIMO_REGION = 1L << 30;
+
+    private static final int MAGIA = 0x4A544C43; // "JTLC"
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".jtlc";
+
+    // Posición de los campos que se completan al terminar de escribir
+    private static final int POSICION_FILAS = 24;
+
+    private final Path directorio;
+    private final long maximoRegion;
+
+    public CacheColumnarJTL() {
+        this(DIRECTORIO_DEFAULT);
+    }
+
+    public CacheColumnarJTL(Path directorio) {
+        this(directorio, MAXIMO_REGION);
+    }
+
+    /**
+     * @param maximoRegion bytes por mapeo; una región nunca parte un bloque
+     */
+    CacheColumnarJTL(Path directorio, long maximoRegion) {
+        if (maximoRegion <= 0 || maximoRegion > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maximoRegion debe estar entre 1 e Integer.MAX_VALUE");
+        }
+        this.directorio = directorio;
+        this.maximoRegion = maximoRegion;
+    }
+
+    /**
+     * Devuelve las columnas del JTL desde el caché, reconstruyéndolo si no existe o quedó obsoleto
+     */
+    public ArchivoColumnar obtener(Path archivoJTL) throws IOException {
+        ClaveOrigen clave = ClaveOrigen.de(archivoJTL);
+        Path archivoCache = rutaCache(clave);
+
+        Optional<ArchivoColumnar> existente = cargar(archivoCache, clave);
+        if (existente.isPresent()) {
+            LOGGER.fine(() -> "Caché columnar vigente para " + archivoJTL.getFileName());
+            return existente.get();
+        }
+
+        Files.createDirectories(directorio);
+        Path temporal = Files.createTempFile(directorio, archivoCache.getFileName().toString(), ".tmp");
+        try {
+            long filas = escribir(clave, temporal);
+            Files.move(temporal, archivoCache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.fine(() -> "Caché columnar creado para " + archivoJTL.getFileName() + ": " + filas + " filas");
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+        descartarVersionesAnteriores(clave, archivoCache);
+
+        return cargar(archivoCache, clave)
+                .orElseThrow(() -> new IOException("No se pudo releer el caché columnar recién creado: " + archivoCache));
+    }
+
+    /**
+     * Ruta del archivo de caché que corresponde a un JTL
+     */
+    public Path rutaCache(Path archivoJTL) throws IOException {
+        return rutaCache(ClaveOrigen.de(archivoJTL));
+    }
+
+    // ==================== ESCRITURA ====================
+
+    private static long escribir(ClaveOrigen clave, Path destino) throws IOException {
+        DiccionarioEtiquetas diccionario = new DiccionarioEtiquetas();
+        EscritorBloques bloques = new EscritorBloques();
+
+        try (FileChannel canal = FileChannel.open(destino, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             LectorJTL lector = LectorJTL.abrir(clave.ruta())) {
+
+            byte[] ruta = clave.textoRuta().getBytes(StandardCharsets.UTF_8);
+            ByteBuffer cabecera = ByteBuffer.allocate(POSICION_FILAS + 16 + 4 + ruta.length);
+            cabecera.putInt(MAGIA).putInt(VERSION).putLong(clave.tamano()).putLong(clave.modificadoMs())
+                    .putLong(-1L).putLong(-1L)   // filas y posición del diccionario, al final
+                    .putInt(ruta.length).put(ruta).flip();
+            escribirCompleto(canal, cabecera);
+
+            while (lector.siguiente()) {
+                long timeStamp = lector.timeStamp();
+                long elapsed = lector.elapsed();
+                if (timeStamp == LectorJTL.VALOR_INVALIDO || elapsed < 0 || elapsed > Integer.MAX_VALUE) {
+                    continue; // VALOR_INVALIDO es negativo
+                }
+                long latencia = lector.latencia();
+                int latenciaInt = latencia < 0 || latencia > Integer.MAX_VALUE ? -1 : (int) latencia;
+                bloques.agregar(canal, timeStamp, (int) elapsed, latenciaInt, lector.exito(),
+                        lector.codigoLabel(diccionario));
+            }
+            bloques.vaciar(canal);
+
+            long posicionDiccionario = canal.position();
+            List<byte[]> etiquetas = new ArrayList<>(diccionario.tamano());
+            int bytesDiccionario = 4;
+            for (int codigo = 0; codigo < diccionario.tamano(); codigo++) {
+                byte[] etiqueta = diccionario.etiqueta(codigo).getBytes(StandardCharsets.UTF_8);
+                etiquetas.add(etiqueta);
+                bytesDiccionario += 4 + etiqueta.length;
+            }
+            ByteBuffer bufferDiccionario = ByteBuffer.allocate(bytesDiccionario).putInt(etiquetas.size());
+            for (byte[] etiqueta : etiquetas) {
+                bufferDiccionario.putInt(etiqueta.length).put(etiqueta);
+            }
+            escribirCompleto(canal, bufferDiccionario.flip());
+
+            ByteBuffer totales = ByteBuffer.allocate(16).putLong(bloques.filas).putLong(posicionDiccionario).flip();
+            canal.write(totales, POSICION_FILAS);
+            canal.force(false);
+            return bloques.filas;
+        }
+    }
+
+    private static void escribirCompleto(FileChannel canal, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+    }
+
+    /**
+     * Acumula las filas del bloque en curso y lo vuelca al canal al llenarse
+     */
+    private static final class EscritorBloques {
+
+        private final int[] deltas = new int[FILAS_POR_BLOQUE];
+        private final int[] elapsed = new int[FILAS_POR_BLOQUE];
+        private final int[] latencias = new int[FILAS_POR_BLOQUE];
+        private final int[] codigos = new int[FILAS_POR_BLOQUE];
+        private final long[] exitos = new long[(FILAS_POR_BLOQUE + 63) / 64];
+        private ByteBuffer salida;
+
+        private int enBloque;
+        private long timeStampBase;
+        private long timeStampAnterior;
+        private long filas;
+
+        void agregar(FileChannel canal, long timeStamp, int elapsedMs, int latencia, boolean exito, int codigo)
+                throws IOException {
+            long delta = timeStamp - timeStampAnterior;
+            if (enBloque == FILAS_POR_BLOQUE || (enBloque > 0 && delta != (int) delta)) {
+                vaciar(canal);
+            }
+            if (enBloque == 0) {
+                timeStampBase = timeStamp;
+                delta = 0;
+            }
+            deltas[enBloque] = (int) delta;
+            elapsed[enBloque] = elapsedMs;
+            latencias[enBloque] = latencia;
+            codigos[enBloque] = codigo;
+            if (exito) {
+                exitos[enBloque >>> 6] |= 1L << enBloque;
+            }
+            timeStampAnterior = timeStamp;
+            enBloque++;
+            filas++;
+        }
+
+        void vaciar(FileChannel canal) throws IOException {
+            if (enBloque == 0) {
+                return;
+            }
+            int palabras = (enBloque + 63) / 64;
+            int bytes = longitudBloque(enBloque);
+            if (salida == null || salida.capacity() < bytes) {
+                salida = ByteBuffer.allocate(12 + 16 * FILAS_POR_BLOQUE + 8 * exitos.length);
+            }
+            salida.clear();
+            salida.putInt(enBloque).putLong(timeStampBase);
+            salida.asIntBuffer().put(deltas, 0, enBloque).put(elapsed, 0, enBloque)
+                    .put(latencias, 0, enBloque).put(codigos, 0, enBloque);
+            salida.position(12 + 16 * enBloque);
+            salida.asLongBuffer().put(exitos, 0, palabras);
+            salida.position(0).limit(bytes);
+            escribirCompleto(canal, salida);
+
+            Arrays.fill(exitos, 0, palabras, 0L);
+            enBloque = 0;
+        }
+    }
+
+    // ==================== LECTURA ====================
+
+    /**
+     * Bytes de un bloque de {@code n} filas: n y timeStamp base, cuatro columnas int y el bitset
+     */
+    private static int longitudBloque(int n) {
+        return 12 + 16 * n + 8 * ((n + 63) / 64);
+    }
+
+    /**
+     * Valida cabecera, ruta, diccionario y la cadena de bloques con lecturas normales y solo
+     * entonces mapea la zona de bloques: un caché obsoleto o dañado nunca queda mapeado, así que se
+     * puede borrar o reemplazar (Windows rechaza reemplazar un archivo con un mapeo abierto)
+     */
+    private Optional<ArchivoColumnar> cargar(Path archivoCache, ClaveOrigen clave) {
+        if (!Files.isRegularFile(archivoCache)) {
+            return Optional.empty();
+        }
+        try (FileChannel canal = FileChannel.open(archivoCache, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            if (tamano < POSICION_FILAS + 20) {
+                return Optional.empty();
+            }
+            ByteBuffer cabecera = leer(canal, 0, POSICION_FILAS + 20);
+            if (cabecera.getInt(0) != MAGIA || cabecera.getInt(4) != VERSION
+                    || cabecera.getLong(8) != clave.tamano() || cabecera.getLong(16) != clave.modificadoMs()) {
+                return Optional.empty();
+            }
+            long filas = cabecera.getLong(POSICION_FILAS);
+            long posicionDiccionario = cabecera.getLong(POSICION_FILAS + 8);
+            int longitudRuta = cabecera.getInt(POSICION_FILAS + 16);
+            long inicioBloques = POSICION_FILAS + 20L + longitudRuta;
+            if (filas < 0 || longitudRuta < 0 || inicioBloques > posicionDiccionario || posicionDiccionario >= tamano
+                    || tamano - posicionDiccionario > Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+            byte[] ruta = new byte[longitudRuta];
+            leer(canal, POSICION_FILAS + 20, longitudRuta).get(ruta);
+            if (!clave.textoRuta().equals(new String(ruta, StandardCharsets.UTF_8))) {
+                return Optional.empty();
+            }
+
+            ByteBuffer diccionario = leer(canal, posicionDiccionario, (int) (tamano - posicionDiccionario));
+            List<String> etiquetas = new ArrayList<>();
+            int numeroEtiquetas = diccionario.getInt();
+            for (int i = 0; i < numeroEtiquetas; i++) {
+                byte[] etiqueta = new byte[diccionario.getInt()];
+                diccionario.get(etiqueta);
+                etiquetas.add(new String(etiqueta, StandardCharsets.UTF_8));
+            }
+
+            // Límites de región: cada una reúne bloques completos sin pasar de maximoRegion
+            List<Long> limites = new ArrayList<>();
+            limites.add(inicioBloques);
+            long posicion = inicioBloques;
+            while (posicion < posicionDiccionario) {
+                int n = leer(canal, posicion, 4).getInt();
+                if (n <= 0 || n > FILAS_POR_BLOQUE || posicion + longitudBloque(n) > posicionDiccionario) {
+                    return Optional.empty();
+                }
+                long inicioRegion = limites.get(limites.size() - 1);
+                if (posicion > inicioRegion && posicion + longitudBloque(n) - inicioRegion > maximoRegion) {
+                    limites.add(posicion);
+                }
+                posicion += longitudBloque(n);
+            }
+            limites.add(posicionDiccionario);
+
+            List<ByteBuffer> regiones = new ArrayList<>(limites.size() - 1);
+            for (int i = 0; i + 1 < limites.size(); i++) {
+                long inicio = limites.get(i);
+                long fin = limites.get(i + 1);
+                if (fin > inicio) {
+                    regiones.add(canal.map(FileChannel.MapMode.READ_ONLY, inicio, fin - inicio));
+                }
+            }
+            return Optional.of(new ArchivoColumnar(regiones, filas, Collections.unmodifiableList(etiquetas)));
+        } catch (IOException | RuntimeException e) {
+            // Caché ilegible o truncado: se reconstruye desde el texto
+            LOGGER.log(Level.FINE, "Caché columnar descartado: " + archivoCache, e);
+            return Optional.empty();
+        }
+    }
+
+    private static ByteBuffer leer(FileChannel canal, long posicion, int longitud) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(longitud);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicion + buffer.position()) < 0) {
+                throw new IOException("Caché columnar truncado");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Cada versión del JTL (tamaño y mtime) tiene su propio archivo, así que reconstruir nunca
+     * reemplaza un caché que otro análisis pueda tener mapeado
+     */
+    private Path rutaCache(ClaveOrigen clave) {
+        return directorio.resolve(prefijoCache(clave) + Long.toHexString(clave.tamano())
+                + "-" + Long.toHexString(clave.modificadoMs()) + EXTENSION);
+    }
+
+    private static String prefijoCache(ClaveOrigen clave) {
+        return clave.ruta().getFileName().toString() + "-" + Integer.toHexString(clave.textoRuta().hashCode()) + "-";
+    }
+
+    /**
+     * Borra los cachés de versiones anteriores del mismo JTL; si alguno sigue mapeado (Windows no
+     * deja borrarlo) se queda para la próxima reconstrucción
+     */
+    private void descartarVersionesAnteriores(ClaveOrigen clave, Path vigente) {
+        String prefijo = prefijoCache(clave);
+        try (DirectoryStream<Path> anteriores = Files.newDirectoryStream(directorio, archivo -> {
+            String nombre = archivo.getFileName().toString();
+            return nombre.startsWith(prefijo) && nombre.endsWith(EXTENSION);
+        })) {
+            for (Path anterior : anteriores) {
+                if (!anterior.equals(vigente)) {
+                    try {
+                        Files.deleteIfExists(anterior);
+                    } catch (IOException e) {
+                        LOGGER.log(Level.FINE, "Caché columnar anterior aún en uso: " + anterior, e);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "No se pudieron listar los cachés anteriores de " + clave.ruta(), e);
+        }
+    }
+
+    // ==================== TIPOS ====================
+
+    /**
+     * Receptor de las filas al recorrer un {@link ArchivoColumnar}
+     */
+    @FunctionalInterface
+    public interface ConsumidorMuestra {
+        /**
+         * @param latencia latencia en ms o -1 si el JTL no la traía
+         * @param codigoEtiqueta índice en {@link ArchivoColumnar#etiquetas()}
+         */
+        void aceptar(long timeStamp, int elapsedMs, int latencia, boolean exito, int codigoEtiqueta);
+    }
+
+    /**
+     * Vista de solo lectura sobre un caché mapeado en memoria
+     */
+    public static final class ArchivoColumnar {
+
+        private final List<ByteBuffer> regiones;
+        private final long filas;
+        private final List<String> etiquetas;
+
+        /**
+         * @param regiones zona de bloques del archivo, en mapeos consecutivos de bloques completos
+         */
+        private ArchivoColumnar(List<ByteBuffer> regiones, long filas, List<String> etiquetas) {
+            this.regiones = List.copyOf(regiones);
+            this.filas = filas;
+            this.etiquetas = etiquetas;
+        }
+
+        /**
+         * Recorre las filas en el orden del JTL original
+         */
+        public void recorrer(ConsumidorMuestra consumidor) {
+            for (ByteBuffer region : regiones) {
+                recorrer(region, consumidor);
+            }
+        }
+
+        /**
+         * Número de mapeos en que se partió la zona de bloques
+         */
+        int regiones() {
+            return regiones.size();
+        }
+
+        private static void recorrer(ByteBuffer mapa, ConsumidorMuestra consumidor) {
+            int posicion = 0;
+            while (posicion < mapa.limit()) {
+                int n = mapa.getInt(posicion);
+                long timeStamp = mapa.getLong(posicion + 4);
+                int inicioColumnas = posicion + 12;
+                IntBuffer deltas = mapa.slice(inicioColumnas, 4 * n).asIntBuffer();
+                IntBuffer elapsed = mapa.slice(inicioColumnas + 4 * n, 4 * n).asIntBuffer();
+                IntBuffer latencias = mapa.slice(inicioColumnas + 8 * n, 4 * n).asIntBuffer();
+                IntBuffer codigos = mapa.slice(inicioColumnas + 12 * n, 4 * n).asIntBuffer();
+                int palabras = (n + 63) / 64;
+                LongBuffer exitos = mapa.slice(inicioColumnas + 16 * n, 8 * palabras).asLongBuffer();
+
+                for (int i = 0; i < n; i++) {
+                    timeStamp += deltas.get(i);
+                    boolean exito = (exitos.get(i >>> 6) & (1L << i)) != 0;
+                    consumidor.aceptar(timeStamp, elapsed.get(i), latencias.get(i), exito, codigos.get(i));
+                }
+                posicion += longitudBloque(n);
+            }
+        }
+
+        public long filas() {
+            return filas;
+        }
+
+        /**
+         * Etiquetas de sampler en orden de primera aparición; el código de cada fila es su índice
+         */
+        public List<String> etiquetas() {
+            return etiquetas;
+        }
+    }
+
+    /**
+     * Identidad del JTL de origen: ruta canónica, tamaño y fecha de modificación
+     */
+    private record ClaveOrigen(Path ruta, String textoRuta, long tamano, long modificadoMs) {
+
+        static ClaveOrigen de(Path archivoJTL) throws IOException {
+            Path canonica = archivoJTL.toRealPath();
+            BasicFileAttributes atributos = Files.readAttributes(canonica, BasicFileAttributes.class);
+            return new ClaveOrigen(canonica, canonica.toString(), atributos.size(),
+                    atributos.lastModifiedTime().toMillis());
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediplus.pruebas.analisis.carga.AlimentadorDatos;
+import com.mediplus.pruebas.analisis.carga.PeticionCarga;
+import com.mediplus.pruebas.analisis.carga.PlanCarga;
+import com.mediplus.pruebas.analisis.configuracion.ConfiguracionAplicacion;
+import com.mediplus.pruebas.analisis.jmeter.EjecutorJMeterReal.ConfiguracionEscenario;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Catálogo declarativo de escenarios de carga leído de un JSON con Jackson
+ * Las plantillas describen endpoints, cuerpos, pesos, tiempos de reflexión y rampa; los escenarios
+ * eligen una plantilla (por su nombre, que es el {@code tipoOperacion} del escenario) y fijan
+ * usuarios y duración. Tanto {@link GeneradorScriptsJMX} como {@link PlanCarga#desdeEscenario}
+ * compilan sus planes desde las plantillas ya procesadas, sin volver a leer el archivo
+ *
+ * <p>Una plantilla con {@code datos} toma filas de un CSV (un {@link AlimentadorDatos} por
+ * plantilla) y sus cuerpos usan las columnas como variables {@code ${columna}}, igual que un
+ * CSV Data Set Config. {@code expandirA} agranda el CSV con filas sintéticas de email único; lo
+ * aplica el motor virtual, los scripts JMX recorren el archivo tal cual.</p>
+ *
+ * <p>El catálogo incluido está en {@value #RECURSO_PREDETERMINADO}; la propiedad
+ * {@code escenarios.catalogo} apunta a otro archivo para correr endpoints o formas de carga
+ * nuevas sin recompilar, y {@code backend.url} reemplaza la {@code urlBase} del archivo (por
+ * ejemplo, para medir contra el servidor DummyJSON local).</p>
+ *
+ * <pre>
+ * {
+ *   "urlBase": "https://dummyjson.com",
+ *   "plantillas": {
+ *     "BUSQUEDA": {
+ *       "seleccion": "ALEATORIA", "rampaSegundos": 10, "pausaMs": 500, "pausaAleatoriaMs": 1000,
+ *       "datos": { "archivo": "datos/pacientes.csv", "modo": "UNICO", "expandirA": 100000 },
+ *       "peticiones": [
+ *         { "etiqueta": "GET Search", "ruta": "/products/search?q=phone", "peso": 3 },
+ *         { "etiqueta": "POST Cart", "metodo": "POST", "ruta": "/carts/add", "codigoEsperado": 201,
+ *           "cuerpo": "{\"userId\":${__Random(1,100)},\"email\":\"${email}\"}" }
+ *       ]
+ *     }
+ *   },
+ *   "escenarios": [ { "nombre": "Búsqueda Media", "plantilla": "BUSQUEDA", "usuarios": 25, "duracionSegundos": 60 } ]
+ * }
+ * </pre>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class CatalogoEscenarios {
+
+    private static final Logger LOGGER = Logger.getLogger(CatalogoEscenarios.class.getName());
+
+    /** Catálogo incluido en el classpath con los nueve escenarios estándar del proyecto */
+    public static final String RECURSO_PREDETERMINADO = "escenarios/catalogo-escenarios.json";
+
+    private static final ObjectMapper MAPEADOR = new ObjectMapper();
+
+    private static CatalogoEscenarios predeterminado;
+    private static String origenPredeterminado;
+
+    private final String origen;
+    private final URI urlBase;
+    private final Map<String, Plantilla> plantillas;
+    private final List<ConfiguracionEscenario> escenarios;
+
+    private CatalogoEscenarios(ArchivoCatalogo archivo, String origen, String urlForzada) {
+        if (archivo.plantillas() == null || archivo.plantillas().isEmpty()) {
+            throw new IllegalArgumentException(origen + ": el catálogo no define plantillas");
+        }
+        this.origen = origen;
+        if (urlForzada != null && !urlForzada.isBlank()) {
+            this.urlBase = URI.create(urlForzada);
+        } else {
+            this.urlBase = archivo.urlBase() != null ? URI.create(archivo.urlBase()) : PlanCarga.URL_BASE_DEFAULT;
+        }
+
+        Map<String, Plantilla> compiladas = new LinkedHashMap<>();
+        archivo.plantillas().forEach((nombre, definicion) ->
+                compiladas.put(clave(nombre), new Plantilla(nombre, definicion, origen)));
+        this.plantillas = Collections.unmodifiableMap(compiladas);
+
+        List<ConfiguracionEscenario> definidos = new ArrayList<>();
+        if (archivo.escenarios() != null) {
+            for (DefinicionEscenario escenario : archivo.escenarios()) {
+                definidos.add(compilarEscenario(escenario));
+            }
+        }
+        this.escenarios = Collections.unmodifiableList(definidos);
+    }
+
+    /**
+     * Catálogo indicado por {@code escenarios.catalogo}, o el incluido si la propiedad está vacía,
+     * con la URL de {@code backend.url} si está definida. Se lee una sola vez mientras ninguna de
+     * las dos propiedades cambie
+     *
+     * @throws IllegalStateException si el catálogo no se puede leer o no es válido
+     */
+    public static synchronized CatalogoEscenarios predeterminado() {
+        ConfiguracionAplicacion configuracion = ConfiguracionAplicacion.obtenerInstancia();
+        String archivo = configuracion.obtenerCatalogoEscenarios();
+        String urlBackend = configuracion.obtenerUrlBackend();
+        String clave = archivo + "|" + urlBackend;
+        if (predeterminado != null && clave.equals(origenPredeterminado)) {
+            return predeterminado;
+        }
+        try {
+            CatalogoEscenarios catalogo;
+            if (archivo.isBlank()) {
+                catalogo = cargarRecurso(RECURSO_PREDETERMINADO, urlBackend);
+            } else {
+                try (InputStream entrada = Files.newInputStream(Paths.get(archivo))) {
+                    catalogo = leer(entrada, archivo, urlBackend);
+                }
+            }
+            predeterminado = catalogo;
+            origenPredeterminado = clave;
+            return catalogo;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("No se pudo cargar el catálogo de escenarios "
+                    + (archivo.isBlank() ? RECURSO_PREDETERMINADO : archivo) + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static CatalogoEscenarios cargar(Path archivo) throws IOException {
+        try (InputStream entrada = Files.newInputStream(archivo)) {
+            return leer(entrada, archivo.toString(), null);
+        }
+    }
+
+    public static CatalogoEscenarios cargarRecurso(String recurso) throws IOException {
+        return cargarRecurso(recurso, null);
+    }
+
+    private static CatalogoEscenarios cargarRecurso(String recurso, String urlForzada) throws IOException {
+        try (InputStream entrada = CatalogoEscenarios.class.getClassLoader().getResourceAsStream(recurso)) {
+            if (entrada == null) {
+                throw new IOException("Recurso no encontrado en el classpath: " + recurso);
+            }
+            return leer(entrada, recurso, urlForzada);
+        }
+    }
+
+    private static CatalogoEscenarios leer(InputStream entrada, String origen, String urlForzada) throws IOException {
+        CatalogoEscenarios catalogo = new CatalogoEscenarios(
+                MAPEADOR.readValue(entrada, ArchivoCatalogo.class), origen, urlForzada);
+        LOGGER.info(String.format("📚 Catálogo de escenarios %s: %d plantillas, %d escenarios",
+                origen, catalogo.plantillas.size(), catalogo.escenarios.size()));
+        return catalogo;
+    }
+
+    // ==================== CONSULTAS ====================
+
+    public String getOrigen() { return origen; }
+    public URI getUrlBase() { return urlBase; }
+    public List<ConfiguracionEscenario> getEscenarios() { return escenarios; }
+
+    public Set<String> getNombresPlantillas() {
+        return plantillas.keySet();
+    }
+
+    /**
+     * @param nombre nombre de la plantilla, sin distinguir mayúsculas (el {@code tipoOperacion} del escenario)
+     * @throws IllegalArgumentException si el catálogo no la define
+     */
+    public Plantilla plantilla(String nombre) {
+        Plantilla plantilla = nombre != null ? plantillas.get(clave(nombre)) : null;
+        if (plantilla == null) {
+            throw new IllegalArgumentException("Plantilla '" + nombre + "' no definida en " + origen
+                    + "; disponibles: " + plantillas.keySet());
+        }
+        return plantilla;
+    }
+
+    // ==================== MÉTODOS PRIVADOS ====================
+
+    private ConfiguracionEscenario compilarEscenario(DefinicionEscenario escenario) {
+        if (escenario.nombre() == null || escenario.nombre().isBlank()) {
+            throw new IllegalArgumentException(origen + ": escenario sin nombre");
+        }
+        if (escenario.usuarios() <= 0 || escenario.duracionSegundos() <= 0) {
+            throw new IllegalArgumentException(origen + ": usuarios y duracionSegundos deben ser positivos en " + escenario.nombre());
+        }
+        Plantilla plantilla = plantilla(escenario.plantilla());
+        String descripcion = escenario.descripcion() != null ? escenario.descripcion() : plantilla.getDescripcion();
+        // Los niveles de carga de una misma plantilla no se solapan salvo que el catálogo diga otra cosa
+        String grupo = escenario.grupoAislamiento() != null ? escenario.grupoAislamiento() : plantilla.getNombre();
+        return new ConfiguracionEscenario(escenario.nombre(), plantilla.getNombre(), escenario.usuarios(),
+                escenario.duracionSegundos(), descripcion, grupo);
+    }
+
+    private static String clave(String nombre) {
+        return nombre.toUpperCase(Locale.ROOT);
+    }
+
+    private static int mcd(int a, int b) {
+        return b == 0 ? a : mcd(b, a % b);
+    }
+
+    // ==================== MODELO COMPILADO ====================
+
+    /**
+     * Plantilla validada, con pesos reducidos y cuerpos precompilados
+     * Sus peticiones para el motor virtual se construyen una vez y se comparten entre planes
+     */
+    public static final class Plantilla {
+        private final String nombre;
+        private final String descripcion;
+        private final PlanCarga.Seleccion seleccion;
+        private final Duration rampa;
+        private final int divisorIteraciones;
+        private final Duration pausa;
+        private final Duration pausaAleatoria;
+        private final Duration timeoutConexion;
+        private final Duration timeoutRespuesta;
+        private final List<PeticionPlantilla> peticiones;
+        private final Path archivoDatos;
+        private final AlimentadorDatos.Modo modoDatos;
+        private final long expandirDatosA;
+        private List<PeticionCarga> peticionesCarga;
+
+        private Plantilla(String nombre, DefinicionPlantilla definicion, String origen) {
+            if (definicion.peticiones() == null || definicion.peticiones().isEmpty()) {
+                throw new IllegalArgumentException(origen + ": la plantilla " + nombre + " no tiene peticiones");
+            }
+            if (definicion.rampaSegundos() < 0 || definicion.pausaMs() < 0 || definicion.pausaAleatoriaMs() < 0) {
+                throw new IllegalArgumentException(origen + ": rampa y pausas no pueden ser negativas en " + nombre);
+            }
+            this.nombre = nombre;
+            this.descripcion = definicion.descripcion() != null ? definicion.descripcion() : "Escenario " + nombre;
+            this.seleccion = definicion.seleccion() != null ? definicion.seleccion() : PlanCarga.Seleccion.SECUENCIAL;
+            this.rampa = Duration.ofSeconds(definicion.rampaSegundos());
+            this.divisorIteraciones = Math.max(1, definicion.divisorIteraciones());
+            this.pausa = Duration.ofMillis(definicion.pausaMs());
+            this.pausaAleatoria = Duration.ofMillis(definicion.pausaAleatoriaMs());
+            this.timeoutConexion = Duration.ofMillis(definicion.timeoutConexionMs() > 0 ? definicion.timeoutConexionMs() : 5_000);
+            this.timeoutRespuesta = Duration.ofMillis(definicion.timeoutRespuestaMs() > 0 ? definicion.timeoutRespuestaMs() : 10_000);
+            DefinicionDatos datos = definicion.datos();
+            if (datos != null && datos.archivo() == null) {
+                throw new IllegalArgumentException(origen + ": datos sin archivo en la plantilla " + nombre);
+            }
+            this.archivoDatos = datos != null ? Paths.get(datos.archivo()) : null;
+            this.modoDatos = datos != null && datos.modo() != null ? datos.modo() : AlimentadorDatos.Modo.SECUENCIAL;
+            this.expandirDatosA = datos != null ? datos.expandirA() : 0;
+
+            // Pesos 6 y 2 equivalen a 3 y 1: cada petición se repite lo mínimo
+            int divisor = 0;
+            for (DefinicionPeticion peticion : definicion.peticiones()) {
+                int peso = peticion.peso() != null ? peticion.peso() : 1;
+                if (peso <= 0) {
+                    throw new IllegalArgumentException(origen + ": peso no positivo en " + nombre + "/" + peticion.etiqueta());
+                }
+                divisor = mcd(peso, divisor);
+            }
+            List<PeticionPlantilla> compiladas = new ArrayList<>();
+            for (DefinicionPeticion definicionPeticion : definicion.peticiones()) {
+                PeticionPlantilla peticion = PeticionPlantilla.compilar(definicionPeticion, divisor, nombre, origen);
+                if (peticion.cuerpo() != null && !peticion.cuerpo().getVariables().isEmpty() && archivoDatos == null) {
+                    throw new IllegalArgumentException(origen + ": " + peticion.etiqueta() + " usa "
+                            + peticion.cuerpo().getVariables() + " pero la plantilla " + nombre + " no define datos");
+                }
+                compiladas.add(peticion);
+            }
+            this.peticiones = Collections.unmodifiableList(compiladas);
+        }
+
+        public String getNombre() { return nombre; }
+        public String getDescripcion() { return descripcion; }
+        public PlanCarga.Seleccion getSeleccion() { return seleccion; }
+        public Duration getRampa() { return rampa; }
+        public Duration getPausa() { return pausa; }
+        public Duration getPausaAleatoria() { return pausaAleatoria; }
+        public Duration getTimeoutConexion() { return timeoutConexion; }
+        public Duration getTimeoutRespuesta() { return timeoutRespuesta; }
+        public List<PeticionPlantilla> getPeticiones() { return peticiones; }
+
+        /**
+         * Los scripts JMX repiten por usuario menos iteraciones que las plantillas más pesadas
+         */
+        public int getDivisorIteraciones() { return divisorIteraciones; }
+
+        /**
+         * CSV de datos de prueba, o {@code null} si la plantilla no usa datos
+         */
+        public Path getArchivoDatos() { return archivoDatos; }
+        public AlimentadorDatos.Modo getModoDatos() { return modoDatos; }
+
+        /**
+         * Peticiones para el motor virtual, cada una repetida según su peso
+         * Se arman al primer uso, que es cuando se leen los datos de prueba; todos los planes de
+         * la plantilla comparten el mismo alimentador y por lo tanto su cursor
+         *
+         * @throws IllegalStateException si el CSV no se puede leer o le faltan columnas
+         */
+        public synchronized List<PeticionCarga> getPeticionesCarga() {
+            if (peticionesCarga == null) {
+                AlimentadorDatos datos = abrirDatos();
+                List<PeticionCarga> expandidas = new ArrayList<>();
+                for (PeticionPlantilla peticion : peticiones) {
+                    PeticionCarga carga = peticion.aPeticionCarga(datos);
+                    for (int i = 0; i < peticion.peso(); i++) {
+                        expandidas.add(carga);
+                    }
+                }
+                peticionesCarga = Collections.unmodifiableList(expandidas);
+            }
+            return peticionesCarga;
+        }
+
+        private AlimentadorDatos abrirDatos() {
+            if (archivoDatos == null) {
+                return null;
+            }
+            try {
+                AlimentadorDatos datos = AlimentadorDatos.desdeCsv(archivoDatos, modoDatos);
+                for (PeticionPlantilla peticion : peticiones) {
+                    for (String variable : peticion.cuerpo() != null ? peticion.cuerpo().getVariables() : Set.<String>of()) {
+                        if (datos.indiceColumna(variable) < 0) {
+                            throw new IllegalStateException(archivoDatos + " no tiene la columna " + variable
+                                    + " que usa " + peticion.etiqueta());
+                        }
+                    }
+                }
+                return expandirDatosA > datos.getTotalFilas() ? datos.expandir(expandirDatosA) : datos;
+            } catch (IOException e) {
+                throw new IllegalStateException("No se pudieron leer los datos de prueba de la plantilla "
+                        + nombre + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Endpoint de una plantilla
+     *
+     * @param peso   veces que aparece en cada iteración (SECUENCIAL) o probabilidad relativa de
+     *               elegirse (ALEATORIA); ya reducido por el máximo común divisor de la plantilla
+     * @param cuerpo cuerpo JSON, o {@code null} si la petición no lleva cuerpo
+     */
+    public record PeticionPlantilla(String etiqueta, String metodo, String ruta, int codigoEsperado,
+                                    PlantillaCuerpo cuerpo, int peso) {
+
+        private static PeticionPlantilla compilar(DefinicionPeticion definicion, int divisor, String plantilla, String origen) {
+            if (definicion.etiqueta() == null || definicion.ruta() == null) {
+                throw new IllegalArgumentException(origen + ": etiqueta y ruta son obligatorias en la plantilla " + plantilla);
+            }
+            String metodo = definicion.metodo() != null ? definicion.metodo().toUpperCase(Locale.ROOT) : "GET";
+            int codigo = definicion.codigoEsperado() > 0 ? definicion.codigoEsperado() : 200;
+            PlantillaCuerpo cuerpo = definicion.cuerpo() != null ? PlantillaCuerpo.compilar(definicion.cuerpo()) : null;
+            int peso = (definicion.peso() != null ? definicion.peso() : 1) / divisor;
+            return new PeticionPlantilla(definicion.etiqueta(), metodo, definicion.ruta(), codigo, cuerpo, peso);
+        }
+
+        PeticionCarga aPeticionCarga(AlimentadorDatos datos) {
+            Supplier<String> generador = null;
+            if (cuerpo != null) {
+                generador = cuerpo.getVariables().isEmpty() ? () -> cuerpo.generar(null) : () -> cuerpo.generar(datos.siguiente());
+            }
+            return new PeticionCarga(etiqueta, metodo, ruta, codigoEsperado, generador);
+        }
+    }
+
+    /**
+     * Cuerpo con funciones {@code ${__Random(min,max)}} de JMeter y variables {@code ${columna}}
+     * de los datos de prueba. El texto va tal cual a los scripts JMX (JMeter evalúa ambos); para el
+     * motor virtual se parte una vez en literales y marcadores y cada {@link #generar} solo concatena
+     */
+    public static final class PlantillaCuerpo {
+        private static final Pattern MARCADOR = Pattern.compile(
+                "\\$\\{(?:__Random\\(\\s*(-?\\d+)\\s*,\\s*(-?\\d+)\\s*\\)|([A-Za-z][A-Za-z0-9_]*))}");
+
+        private final String texto;
+        private final String[] literales;
+        private final int[] minimos;
+        private final int[] maximos;
+        /** Variable de cada marcador, o {@code null} si el marcador es un aleatorio */
+        private final String[] variables;
+
+        private PlantillaCuerpo(String texto, List<String> literales, List<int[]> rangos, List<String> variables) {
+            this.texto = texto;
+            this.literales = literales.toArray(String[]::new);
+            this.minimos = rangos.stream().mapToInt(r -> r[0]).toArray();
+            this.maximos = rangos.stream().mapToInt(r -> r[1]).toArray();
+            this.variables = variables.toArray(String[]::new);
+        }
+
+        static PlantillaCuerpo compilar(String texto) {
+            List<String> literales = new ArrayList<>();
+            List<int[]> rangos = new ArrayList<>();
+            List<String> variables = new ArrayList<>();
+            Matcher matcher = MARCADOR.matcher(texto);
+            int desde = 0;
+            while (matcher.find()) {
+                literales.add(texto.substring(desde, matcher.start()));
+                if (matcher.group(3) != null) {
+                    rangos.add(new int[]{0, 0});
+                    variables.add(matcher.group(3));
+                } else {
+                    int minimo = Integer.parseInt(matcher.group(1));
+                    int maximo = Integer.parseInt(matcher.group(2));
+                    if (maximo < minimo) {
+                        throw new IllegalArgumentException("Rango inválido en " + matcher.group());
+                    }
+                    rangos.add(new int[]{minimo, maximo});
+                    variables.add(null);
+                }
+                desde = matcher.end();
+            }
+            literales.add(texto.substring(desde));
+            return new PlantillaCuerpo(texto, literales, rangos, variables);
+        }
+
+        /**
+         * Texto original, con funciones y variables sin evaluar
+         */
+        public String getTexto() { return texto; }
+
+        /**
+         * Columnas de datos de prueba que usa el cuerpo
+         */
+        public Set<String> getVariables() {
+            Set<String> usadas = new LinkedHashSet<>();
+            for (String variable : variables) {
+                if (variable != null) usadas.add(variable);
+            }
+            return usadas;
+        }
+
+        /**
+         * Cuerpo con cada función reemplazada por un entero al azar en su rango (ambos incluidos)
+         * y cada variable por su valor en {@code fila}, escapado como contenido de una cadena JSON
+         * (las comillas las pone la plantilla): una comilla o barra en el CSV no rompe el cuerpo
+         *
+         * @throws NoSuchElementException si el cuerpo usa variables y no hay fila (datos únicos agotados)
+         */
+        public String generar(AlimentadorDatos.Fila fila) {
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            StringBuilder cuerpo = new StringBuilder(texto.length());
+            cuerpo.append(literales[0]);
+            for (int i = 0; i < variables.length; i++) {
+                if (variables[i] == null) {
+                    cuerpo.append(aleatorio.nextInt(minimos[i], maximos[i] + 1));
+                } else if (fila == null) {
+                    throw new NoSuchElementException("Datos de prueba agotados para ${" + variables[i] + "}");
+                } else {
+                    cuerpo.append(JsonStringEncoder.getInstance().quoteAsString(fila.get(variables[i])));
+                }
+                cuerpo.append(literales[i + 1]);
+            }
+            return cuerpo.toString();
+        }
+    }
+
+    // ==================== FORMATO DEL ARCHIVO ====================
+
+    private record ArchivoCatalogo(String urlBase, Map<String, DefinicionPlantilla> plantillas,
+                                   List<DefinicionEscenario> escenarios) { }
+
+    private record DefinicionPlantilla(String descripcion, PlanCarga.Seleccion seleccion, int rampaSegundos,
+                                       int divisorIteraciones, long pausaMs, long pausaAleatoriaMs,
+                                       long timeoutConexionMs, long timeoutRespuestaMs,
+                                       DefinicionDatos datos, List<DefinicionPeticion> peticiones) { }
+
+    private record DefinicionDatos(String archivo, AlimentadorDatos.Modo modo, long expandirA) { }
+
+    private record DefinicionPeticion(String etiqueta, String metodo, String ruta, int codigoEsperado,
+                                      String cuerpo, Integer peso) { }
+
+    private record DefinicionEscenario(String nombre, String plantilla, int usuarios, int duracionSegundos,
+                                       String descripcion, String grupoAislamiento) { }
+}
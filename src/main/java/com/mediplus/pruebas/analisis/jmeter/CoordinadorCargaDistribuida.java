@@ -0,0 +1,365 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import com.mediplus.pruebas.analisis.jmeter.EjecutorJMeterReal.ConfiguracionEscenario;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reparte un escenario entre varios procesos generadores de carga
+ * Un solo proceso se queda corto de concurrencia; el coordinador escucha en un puerto TCP,
+ * espera a que se registren N {@link TrabajadorCargaDistribuida} (lanzados aquí como procesos
+ * locales o iniciados a mano en otros equipos), sincroniza sus relojes, entrega a cada uno una
+ * porción de los usuarios del escenario con un instante de arranque común y consolida los
+ * {@link BocetoMetricasJTL} que devuelven. Por la red solo viajan resúmenes, nunca JTL
+ *
+ * <p>El desfase de reloj de cada trabajador se estima como en NTP: de varias idas y vueltas se
+ * toma la de menor latencia y se supone que la respuesta se generó a mitad del viaje.</p>
+ *
+ * <pre>
+ * try (CoordinadorCargaDistribuida coordinador = new CoordinadorCargaDistribuida(0)) {
+ *     coordinador.lanzarTrabajadoresLocales(4);
+ *     coordinador.esperarTrabajadores(4, Duration.ofSeconds(30));
+ *     ResultadoDistribuido resultado = coordinador.ejecutar(config, PlanCarga.URL_BASE_DEFAULT);
+ * }
+ * </pre>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class CoordinadorCargaDistribuida implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(CoordinadorCargaDistribuida.class.getName());
+
+    /** Idas y vueltas para estimar el desfase de reloj de cada trabajador */
+    private static final int MUESTRAS_RELOJ = 8;
+
+    /** Margen entre el envío de las asignaciones y el arranque común */
+    private static final Duration MARGEN_ARRANQUE_DEFAULT = Duration.ofSeconds(2);
+
+    /** Tiempo extra sobre la duración del escenario antes de dar por perdido a un trabajador */
+    private static final Duration MARGEN_RESULTADO = Duration.ofSeconds(60);
+
+    private final ServerSocket servidor;
+    private final List<Conexion> trabajadores = new ArrayList<>();
+    private final List<Process> procesosLocales = new ArrayList<>();
+    private Duration margenArranque = MARGEN_ARRANQUE_DEFAULT;
+    private Duration margenResultado = MARGEN_RESULTADO;
+
+    /**
+     * @param puerto puerto de escucha para los trabajadores; 0 elige uno libre
+     */
+    public CoordinadorCargaDistribuida(int puerto) throws IOException {
+        this.servidor = new ServerSocket();
+        servidor.setReuseAddress(true);
+        servidor.bind(new InetSocketAddress(puerto));
+        LOGGER.info("🛰️ Coordinador de carga escuchando en el puerto " + getPuerto());
+    }
+
+    public int getPuerto() {
+        return servidor.getLocalPort();
+    }
+
+    /**
+     * Tiempo que se da a los trabajadores entre recibir su porción y arrancar todos a la vez
+     */
+    public void setMargenArranque(Duration margenArranque) {
+        this.margenArranque = margenArranque;
+    }
+
+    /**
+     * Tiempo que se espera a cada resumen después de la duración del escenario; un trabajador que
+     * no responde dentro de ese plazo se desconecta
+     */
+    public void setMargenResultado(Duration margenResultado) {
+        this.margenResultado = margenResultado;
+    }
+
+    // ==================== TRABAJADORES ====================
+
+    /**
+     * Lanza trabajadores en JVM locales con el mismo classpath que este proceso
+     */
+    public List<Process> lanzarTrabajadoresLocales(int cantidad) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classpath = System.getProperty("java.class.path");
+        List<Process> lanzados = new ArrayList<>();
+        for (int i = 1; i <= cantidad; i++) {
+            String nodo = "local-" + i;
+            Process proceso = new ProcessBuilder(java, "-cp", classpath,
+                    TrabajadorCargaDistribuida.class.getName(),
+                    InetAddress.getLoopbackAddress().getHostAddress(), String.valueOf(getPuerto()), nodo)
+                    .inheritIO()
+                    .start();
+            lanzados.add(proceso);
+        }
+        synchronized (procesosLocales) {
+            procesosLocales.addAll(lanzados);
+        }
+        LOGGER.info("🚀 " + cantidad + " trabajadores locales lanzados");
+        return lanzados;
+    }
+
+    /**
+     * Acepta registros hasta tener {@code cantidad} trabajadores conectados
+     *
+     * @throws IOException si vence el plazo o un trabajador no habla el protocolo
+     */
+    public void esperarTrabajadores(int cantidad, Duration plazo) throws IOException {
+        long limite = System.nanoTime() + plazo.toNanos();
+        while (trabajadores.size() < cantidad) {
+            long restanteMs = TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime());
+            if (restanteMs <= 0) {
+                throw new IOException(String.format("Solo se registraron %d de %d trabajadores", trabajadores.size(), cantidad));
+            }
+            servidor.setSoTimeout((int) Math.min(Integer.MAX_VALUE, restanteMs));
+            Socket socket;
+            try {
+                socket = servidor.accept();
+            } catch (SocketTimeoutException e) {
+                continue;
+            }
+            Conexion conexion = registrar(socket);
+            trabajadores.add(conexion);
+            LOGGER.info(String.format("🤝 Trabajador %s registrado desde %s (%d/%d)",
+                    conexion.nodo, socket.getRemoteSocketAddress(), trabajadores.size(), cantidad));
+        }
+    }
+
+    public List<String> getNodos() {
+        return trabajadores.stream().map(c -> c.nodo).toList();
+    }
+
+    // ==================== EJECUCIÓN ====================
+
+    /**
+     * Reparte los usuarios del escenario entre los trabajadores registrados, los arranca a la vez
+     * y consolida sus resúmenes. Un trabajador que falla queda fuera del resultado y se informa;
+     * si además su conexión quedó desincronizada (plazo vencido, mensaje cortado) se cierra y deja
+     * de participar en los escenarios siguientes
+     */
+    public ResultadoDistribuido ejecutar(ConfiguracionEscenario escenario, URI urlBase) throws IOException {
+        if (trabajadores.isEmpty()) {
+            throw new IllegalStateException("No hay trabajadores registrados");
+        }
+        Map<String, Long> desfases = new LinkedHashMap<>();
+        for (Conexion conexion : trabajadores) {
+            conexion.sincronizarReloj();
+            desfases.put(conexion.nodo, conexion.desfaseMs);
+        }
+
+        // Arranque común en el reloj del coordinador, traducido al de cada trabajador
+        long inicio = System.currentTimeMillis() + margenArranque.toMillis();
+        List<ConfiguracionEscenario> porciones = repartir(escenario, trabajadores.size());
+        for (int i = 0; i < trabajadores.size(); i++) {
+            Conexion conexion = trabajadores.get(i);
+            new ProtocoloCargaDistribuida.Asignacion(porciones.get(i), urlBase, inicio + conexion.desfaseMs)
+                    .escribir(conexion.salida);
+            conexion.salida.flush();
+        }
+        LOGGER.info(String.format("⏱️ %s repartido entre %d trabajadores, arranque en %d ms",
+                escenario.nombre, trabajadores.size(), margenArranque.toMillis()));
+
+        BocetoMetricasJTL global = null;
+        List<String> errores = new ArrayList<>();
+        Duration plazo = margenArranque.plusSeconds(escenario.duracionSegundos).plus(margenResultado);
+        for (Conexion conexion : trabajadores) {
+            try {
+                BocetoMetricasJTL boceto = conexion.recibirResumen(plazo);
+                if (global == null) {
+                    global = boceto;
+                } else {
+                    global.combinar(boceto);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "⚠️ Sin resumen del trabajador " + conexion.nodo, e);
+                errores.add(conexion.nodo + ": " + e.getMessage());
+            }
+        }
+        trabajadores.removeIf(conexion -> conexion.descartada);
+        if (global == null) {
+            throw new IOException("Ningún trabajador devolvió resultados: " + errores);
+        }
+        LOGGER.info(String.format("✅ %s distribuido: %d muestras de %d trabajadores",
+                escenario.nombre, global.getGeneral().getTotalMuestras(), global.getNodos().size()));
+        return new ResultadoDistribuido(escenario.nombre, global, desfases, errores);
+    }
+
+    /**
+     * Divide los usuarios en partes lo más parejas posible; el resto va a los primeros trabajadores
+     */
+    static List<ConfiguracionEscenario> repartir(ConfiguracionEscenario escenario, int partes) {
+        List<ConfiguracionEscenario> porciones = new ArrayList<>(partes);
+        int base = escenario.usuariosConcurrentes / partes;
+        int resto = escenario.usuariosConcurrentes % partes;
+        for (int i = 0; i < partes; i++) {
+            porciones.add(new ConfiguracionEscenario(escenario.nombre, escenario.tipoOperacion,
+                    base + (i < resto ? 1 : 0), escenario.duracionSegundos, escenario.descripcion));
+        }
+        return porciones;
+    }
+
+    @Override
+    public void close() {
+        for (Conexion conexion : trabajadores) {
+            conexion.cerrar();
+        }
+        trabajadores.clear();
+        try {
+            servidor.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Error cerrando el socket del coordinador", e);
+        }
+        synchronized (procesosLocales) {
+            for (Process proceso : procesosLocales) {
+                try {
+                    if (!proceso.waitFor(10, TimeUnit.SECONDS)) {
+                        proceso.destroyForcibly();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    proceso.destroyForcibly();
+                }
+            }
+            procesosLocales.clear();
+        }
+    }
+
+    private Conexion registrar(Socket socket) throws IOException {
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout((int) Duration.ofSeconds(10).toMillis());
+            DataInputStream entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            ProtocoloCargaDistribuida.esperarTipo(entrada.readByte(), ProtocoloCargaDistribuida.REGISTRO);
+            if (entrada.readInt() != ProtocoloCargaDistribuida.MAGIA) {
+                throw new IOException("El cliente no es un trabajador de carga");
+            }
+            int version = entrada.readInt();
+            if (version != ProtocoloCargaDistribuida.VERSION) {
+                throw new IOException("Versión de protocolo no soportada: " + version);
+            }
+            String nodo = entrada.readUTF();
+            DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            return new Conexion(nodo, socket, entrada, salida);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Conexión con un trabajador registrado
+     */
+    private static final class Conexion {
+        final String nodo;
+        final Socket socket;
+        final DataInputStream entrada;
+        final DataOutputStream salida;
+        long desfaseMs;
+        /** La conexión ya no está alineada con el protocolo y se cerró */
+        boolean descartada;
+
+        Conexion(String nodo, Socket socket, DataInputStream entrada, DataOutputStream salida) {
+            this.nodo = nodo;
+            this.socket = socket;
+            this.entrada = entrada;
+            this.salida = salida;
+        }
+
+        /**
+         * Estima reloj del trabajador - reloj del coordinador con la ida y vuelta más rápida
+         */
+        void sincronizarReloj() throws IOException {
+            long mejorIdaVuelta = Long.MAX_VALUE;
+            for (int i = 0; i < MUESTRAS_RELOJ; i++) {
+                long envioNanos = System.nanoTime();
+                long envioMs = System.currentTimeMillis();
+                salida.writeByte(ProtocoloCargaDistribuida.RELOJ);
+                salida.flush();
+                ProtocoloCargaDistribuida.esperarTipo(entrada.readByte(), ProtocoloCargaDistribuida.RELOJ);
+                long relojTrabajador = entrada.readLong();
+                long idaVuelta = System.nanoTime() - envioNanos;
+                if (idaVuelta < mejorIdaVuelta) {
+                    mejorIdaVuelta = idaVuelta;
+                    desfaseMs = relojTrabajador - (envioMs + TimeUnit.NANOSECONDS.toMillis(idaVuelta) / 2);
+                }
+            }
+            LOGGER.fine(String.format("Reloj de %s: desfase %d ms, ida y vuelta %.2f ms",
+                    nodo, desfaseMs, mejorIdaVuelta / 1e6));
+        }
+
+        /**
+         * Un ERROR del trabajador deja la conexión alineada y se puede seguir usando; cualquier
+         * otro fallo (plazo vencido, resumen a medias) deja bytes sin leer, así que se descarta
+         * para que el próximo intercambio no tome ese resumen tardío como su respuesta
+         */
+        BocetoMetricasJTL recibirResumen(Duration plazo) throws IOException {
+            String errorTrabajador;
+            try {
+                socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, plazo.toMillis()));
+                byte tipo = entrada.readByte();
+                if (tipo != ProtocoloCargaDistribuida.ERROR) {
+                    ProtocoloCargaDistribuida.esperarTipo(tipo, ProtocoloCargaDistribuida.RESUMEN);
+                    return BocetoMetricasJTL.leer(entrada);
+                }
+                errorTrabajador = entrada.readUTF();
+            } catch (IOException | RuntimeException e) {
+                descartar();
+                throw e;
+            }
+            throw new IOException(errorTrabajador);
+        }
+
+        private void descartar() {
+            descartada = true;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Error cerrando la conexión de " + nodo, e);
+            }
+            LOGGER.warning("🔌 Conexión con " + nodo + " cerrada: quedó fuera de sincronía con el protocolo");
+        }
+
+        void cerrar() {
+            if (descartada) {
+                return;
+            }
+            try (socket) {
+                salida.writeByte(ProtocoloCargaDistribuida.FIN);
+                salida.flush();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Trabajador ya desconectado: " + nodo, e);
+            }
+        }
+    }
+
+    /**
+     * Resultado consolidado de un escenario distribuido
+     *
+     * @param escenario  nombre del escenario
+     * @param boceto     resúmenes combinados de todos los trabajadores que respondieron
+     * @param desfasesMs desfase de reloj estimado por trabajador (reloj del trabajador - coordinador)
+     * @param errores    trabajadores que no devolvieron resumen
+     */
+    public record ResultadoDistribuido(String escenario, BocetoMetricasJTL boceto,
+                                       Map<String, Long> desfasesMs, List<String> errores) {
+
+        /**
+         * Guarda el boceto consolidado para {@link com.mediplus.pruebas.analisis.AnalizadorMetricas#procesarBocetos}
+         */
+        public void guardar(Path archivo) throws IOException {
+            boceto.guardar(archivo);
+        }
+    }
+}
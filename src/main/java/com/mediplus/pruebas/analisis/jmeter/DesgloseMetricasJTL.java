@@ -0,0 +1,189 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import java.util.*;
+
+/**
+ * Agregación de un JTL desglosada por etiqueta de sampler y por método HTTP en una sola pasada
+ * Cada fila se registra en el agregador general, en el de su etiqueta y en el de su método.
+ * Las etiquetas se codifican con un {@link DiccionarioEtiquetas}, de modo que los agregadores
+ * parciales viven en arreglos indexados por código y el método HTTP se deduce una sola vez
+ * por etiqueta distinta
+ *
+ * <p>El método se toma de la primera palabra de la etiqueta (convención de los planes
+ * {@code jmeter_plans_mediplus}: "GET Products", "POST /products/add"); las etiquetas que
+ * no empiezan con un verbo HTTP se agrupan en {@link #METODO_OTRO}.</p>
+ *
+ * <p>El total general alimenta además una {@link SerieTemporalJTL} por ventanas de tiempo.</p>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class DesgloseMetricasJTL {
+
+    /** Grupo para etiquetas que no empiezan con un verbo HTTP */
+    public static final String METODO_OTRO = "OTRO";
+
+    private static final Set<String> METODOS_HTTP =
+            Set.of("GET", "POST", "PUT", "PATCH", "DELETE", "HEAD", "OPTIONS");
+
+    private final AgregadorMetricasJTL general = new AgregadorMetricasJTL();
+    private final SerieTemporalJTL serieTemporal;
+    private final DiccionarioEtiquetas etiquetas = new DiccionarioEtiquetas();
+    private AgregadorMetricasJTL[] porEtiqueta = new AgregadorMetricasJTL[16];
+    private int[] metodoPorEtiqueta = new int[16];
+
+    private final List<String> metodos = new ArrayList<>();
+    private final List<AgregadorMetricasJTL> porMetodo = new ArrayList<>();
+
+    public DesgloseMetricasJTL() {
+        this(SerieTemporalJTL.VENTANA_DEFAULT_MS);
+    }
+
+    /**
+     * @param ventanaSerieMs tamaño de ventana de la serie temporal
+     */
+    public DesgloseMetricasJTL(long ventanaSerieMs) {
+        this(ventanaSerieMs, false);
+    }
+
+    /**
+     * @param ventanaSerieMs        tamaño de ventana de la serie temporal
+     * @param percentilesPorVentana si cada ventana lleva su histograma para informar P50/P90/P99;
+     *                              la serie se limita entonces a {@link SerieTemporalJTL#MAXIMO_VENTANAS_PERCENTILES}
+     */
+    public DesgloseMetricasJTL(long ventanaSerieMs, boolean percentilesPorVentana) {
+        this.serieTemporal = percentilesPorVentana
+                ? new SerieTemporalJTL(ventanaSerieMs, SerieTemporalJTL.MAXIMO_VENTANAS_PERCENTILES,
+                        SerieTemporalJTL.Desborde.FUSIONAR, true)
+                : new SerieTemporalJTL(ventanaSerieMs);
+    }
+
+    /**
+     * Registra la fila actual del lector; las filas sin timeStamp o elapsed válidos se ignoran
+     *
+     * @return true si la fila fue registrada
+     */
+    public boolean registrar(LectorJTL lector) {
+        long timeStamp = lector.timeStamp();
+        long elapsed = lector.elapsed();
+        if (timeStamp == LectorJTL.VALOR_INVALIDO || elapsed == LectorJTL.VALOR_INVALIDO || elapsed < 0) {
+            return false;
+        }
+        registrar(lector.codigoLabel(etiquetas), timeStamp, elapsed, lector.exito());
+        return true;
+    }
+
+    /**
+     * Registra una muestra individual con su etiqueta
+     */
+    public void registrar(String etiqueta, long timeStamp, long elapsedMs, boolean exito) {
+        registrar(etiquetas.codificar(etiqueta), timeStamp, elapsedMs, exito);
+    }
+
+    /**
+     * Registra todas las filas de un JTL ya cacheado en formato columnar; las etiquetas del
+     * caché se traducen al diccionario propio una sola vez
+     */
+    public void registrar(CacheColumnarJTL.ArchivoColumnar columnas) {
+        List<String> etiquetasCache = columnas.etiquetas();
+        int[] codigos = new int[etiquetasCache.size()];
+        for (int i = 0; i < codigos.length; i++) {
+            codigos[i] = etiquetas.codificar(etiquetasCache.get(i));
+        }
+        columnas.recorrer((timeStamp, elapsedMs, latencia, exito, codigoEtiqueta) ->
+                registrar(codigos[codigoEtiqueta], timeStamp, elapsedMs, exito));
+    }
+
+    private void registrar(int codigo, long timeStamp, long elapsedMs, boolean exito) {
+        general.registrar(timeStamp, elapsedMs, exito);
+        serieTemporal.registrar(timeStamp, elapsedMs, exito);
+        agregadorDeEtiqueta(codigo).registrar(timeStamp, elapsedMs, exito);
+        porMetodo.get(metodoPorEtiqueta[codigo]).registrar(timeStamp, elapsedMs, exito);
+    }
+
+    /**
+     * Incorpora el desglose de otro bloque; las etiquetas se reconcilian por texto
+     */
+    public void combinar(DesgloseMetricasJTL otro) {
+        general.combinar(otro.general);
+        serieTemporal.combinar(otro.serieTemporal);
+        for (int codigoOtro = 0; codigoOtro < otro.etiquetas.tamano(); codigoOtro++) {
+            int codigo = etiquetas.codificar(otro.etiquetas.etiqueta(codigoOtro));
+            agregadorDeEtiqueta(codigo).combinar(otro.porEtiqueta[codigoOtro]);
+        }
+        for (int i = 0; i < otro.metodos.size(); i++) {
+            porMetodo.get(indiceMetodo(otro.metodos.get(i))).combinar(otro.porMetodo.get(i));
+        }
+    }
+
+    public AgregadorMetricasJTL getGeneral() {
+        return general;
+    }
+
+    public SerieTemporalJTL getSerieTemporal() {
+        return serieTemporal;
+    }
+
+    /**
+     * Agregadores por etiqueta de sampler, en orden de primera aparición
+     */
+    public Map<String, AgregadorMetricasJTL> getPorEtiqueta() {
+        Map<String, AgregadorMetricasJTL> resultado = new LinkedHashMap<>();
+        for (int codigo = 0; codigo < etiquetas.tamano(); codigo++) {
+            resultado.put(etiquetas.etiqueta(codigo), porEtiqueta[codigo]);
+        }
+        return Collections.unmodifiableMap(resultado);
+    }
+
+    /**
+     * Agregadores por método HTTP, en orden de primera aparición
+     */
+    public Map<String, AgregadorMetricasJTL> getPorMetodo() {
+        Map<String, AgregadorMetricasJTL> resultado = new LinkedHashMap<>();
+        for (int i = 0; i < metodos.size(); i++) {
+            resultado.put(metodos.get(i), porMetodo.get(i));
+        }
+        return Collections.unmodifiableMap(resultado);
+    }
+
+    public int getNumeroEtiquetas() {
+        return etiquetas.tamano();
+    }
+
+    /**
+     * Deduce el método HTTP a partir de la primera palabra de la etiqueta
+     */
+    public static String metodoDesdeEtiqueta(String etiqueta) {
+        String texto = etiqueta.trim();
+        int espacio = texto.indexOf(' ');
+        String primeraPalabra = (espacio > 0 ? texto.substring(0, espacio) : texto).toUpperCase(Locale.ROOT);
+        return METODOS_HTTP.contains(primeraPalabra) ? primeraPalabra : METODO_OTRO;
+    }
+
+    // ==================== MÉTODOS PRIVADOS ====================
+
+    private AgregadorMetricasJTL agregadorDeEtiqueta(int codigo) {
+        if (codigo >= porEtiqueta.length) {
+            int nuevaLongitud = Math.max(porEtiqueta.length * 2, codigo + 1);
+            porEtiqueta = Arrays.copyOf(porEtiqueta, nuevaLongitud);
+            metodoPorEtiqueta = Arrays.copyOf(metodoPorEtiqueta, nuevaLongitud);
+        }
+        AgregadorMetricasJTL agregador = porEtiqueta[codigo];
+        if (agregador == null) {
+            // Primera aparición de la etiqueta: crear su agregador y resolver su método una sola vez
+            agregador = new AgregadorMetricasJTL();
+            porEtiqueta[codigo] = agregador;
+            metodoPorEtiqueta[codigo] = indiceMetodo(metodoDesdeEtiqueta(etiquetas.etiqueta(codigo)));
+        }
+        return agregador;
+    }
+
+    private int indiceMetodo(String metodo) {
+        int indice = metodos.indexOf(metodo);
+        if (indice < 0) {
+            metodos.add(metodo);
+            porMetodo.add(new AgregadorMetricasJTL());
+            indice = metodos.size() - 1;
+        }
+        return indice;
+    }
+}
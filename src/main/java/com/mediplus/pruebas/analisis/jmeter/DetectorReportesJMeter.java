@@ -9,7 +9,6 @@ import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 import java.util.logging.Logger;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
 
 /**
  * Detector automático de reportes JMeter existentes en el sistema
@@ -160,12 +159,7 @@ public class DetectorReportesJMeter {
             return;
         }
 
-        // Leer las primeras líneas para validar formato JTL
-        List<String> primeras5Lineas = Files.lines(archivo)
-                .limit(5)
-                .collect(Collectors.toList());
-
-        boolean esJTLValido = validarFormatoJTL(primeras5Lineas);
+        boolean esJTLValido = validarFormatoJTL(archivo);
 
         if (esJTLValido) {
             String escenario = extraerEscenarioDeNombre(archivo.getFileName().toString());
@@ -216,37 +210,24 @@ public class DetectorReportesJMeter {
     }
 
     /**
-     * Valida si las líneas corresponden a formato JTL válido
+     * Valida si el archivo es un JTL (CSV con cabecera, CSV sin cabecera o XML)
+     * usando el mismo lector que el análisis de métricas
      */
-    private boolean validarFormatoJTL(List<String> lineas) {
-        if (lineas.isEmpty()) {
-            return false;
-        }
-
-        // Verificar header JTL típico
-        String primeraLinea = lineas.get(0).toLowerCase();
-        if (primeraLinea.contains("timestamp") && primeraLinea.contains("elapsed")) {
-            return true;
-        }
-
-        // Verificar formato de datos (segunda línea debe tener números)
-        if (lineas.size() > 1) {
-            String segundaLinea = lineas.get(1);
-            String[] campos = segundaLinea.split(",");
-
-            if (campos.length >= 3) {
-                try {
-                    // Intentar parsear timestamp y elapsed time
-                    Long.parseLong(campos[0].trim());
-                    Long.parseLong(campos[1].trim());
-                    return true;
-                } catch (NumberFormatException e) {
-                    // No es formato JTL válido
-                }
+    private boolean validarFormatoJTL(Path archivo) {
+        try (LectorJTL lector = LectorJTL.abrir(archivo)) {
+            // Verificar header JTL típico
+            if (lector.tieneCabecera() && lector.indiceColumna("elapsed") >= 0) {
+                return true;
             }
-        }
 
-        return false;
+            // Verificar formato de datos (la primera fila debe traer timeStamp y elapsed numéricos)
+            return lector.siguiente() &&
+                    lector.timeStamp() != LectorJTL.VALOR_INVALIDO &&
+                    lector.elapsed() != LectorJTL.VALOR_INVALIDO;
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "No se pudo validar JTL: " + archivo, e);
+            return false;
+        }
     }
 
     /**
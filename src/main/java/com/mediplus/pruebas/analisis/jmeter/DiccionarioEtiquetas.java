@@ -0,0 +1,119 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Diccionario de etiquetas de sampler codificadas como enteros densos (0, 1, 2...)
+ * Busca directamente sobre los bytes de la fila mediante una tabla hash de direccionamiento
+ * abierto, por lo que una etiqueta ya vista no crea objetos: el String solo se decodifica
+ * la primera vez que aparece. Los códigos permiten agregar por etiqueta en arreglos
+ * indexados en lugar de mapas con claves String
+ *
+ * <p>No es thread-safe: cada hilo de lectura debe usar su propio diccionario.</p>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class DiccionarioEtiquetas {
+
+    private static final int CAPACIDAD_INICIAL = 64; // potencia de dos
+    private static final int VACIO = -1;
+
+    private int[] tabla = nuevaTabla(CAPACIDAD_INICIAL);   // posición hash -> código
+    private byte[][] bytesPorCodigo = new byte[16][];
+    private int[] hashPorCodigo = new int[16];
+    private String[] textoPorCodigo = new String[16];
+    private int tamano;
+
+    /**
+     * Devuelve el código de la etiqueta contenida en {@code bytes[inicio, fin)}, registrándola si es nueva
+     */
+    public int codificar(byte[] bytes, int inicio, int fin) {
+        int hash = hash(bytes, inicio, fin);
+        int mascara = tabla.length - 1;
+        int posicion = hash & mascara;
+        while (true) {
+            int codigo = tabla[posicion];
+            if (codigo == VACIO) {
+                return agregar(Arrays.copyOfRange(bytes, inicio, fin), hash, posicion);
+            }
+            if (hashPorCodigo[codigo] == hash && Arrays.equals(bytesPorCodigo[codigo], 0,
+                    bytesPorCodigo[codigo].length, bytes, inicio, fin)) {
+                return codigo;
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+    }
+
+    /**
+     * Devuelve el código de una etiqueta dada como texto
+     */
+    public int codificar(String etiqueta) {
+        byte[] bytes = etiqueta.getBytes(StandardCharsets.UTF_8);
+        return codificar(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Texto de la etiqueta asociada a un código
+     */
+    public String etiqueta(int codigo) {
+        if (codigo < 0 || codigo >= tamano) {
+            throw new IllegalArgumentException("Código de etiqueta desconocido: " + codigo);
+        }
+        return textoPorCodigo[codigo];
+    }
+
+    /**
+     * Número de etiquetas distintas registradas
+     */
+    public int tamano() {
+        return tamano;
+    }
+
+    private int agregar(byte[] bytes, int hash, int posicion) {
+        if (tamano == bytesPorCodigo.length) {
+            int nuevaLongitud = tamano * 2;
+            bytesPorCodigo = Arrays.copyOf(bytesPorCodigo, nuevaLongitud);
+            hashPorCodigo = Arrays.copyOf(hashPorCodigo, nuevaLongitud);
+            textoPorCodigo = Arrays.copyOf(textoPorCodigo, nuevaLongitud);
+        }
+        int codigo = tamano++;
+        bytesPorCodigo[codigo] = bytes;
+        hashPorCodigo[codigo] = hash;
+        textoPorCodigo[codigo] = new String(bytes, StandardCharsets.UTF_8);
+        tabla[posicion] = codigo;
+
+        // Mantener el factor de carga por debajo de 0,5
+        if (tamano * 2 > tabla.length) {
+            redimensionar();
+        }
+        return codigo;
+    }
+
+    private void redimensionar() {
+        int[] nueva = nuevaTabla(tabla.length * 2);
+        int mascara = nueva.length - 1;
+        for (int codigo = 0; codigo < tamano; codigo++) {
+            int posicion = hashPorCodigo[codigo] & mascara;
+            while (nueva[posicion] != VACIO) {
+                posicion = (posicion + 1) & mascara;
+            }
+            nueva[posicion] = codigo;
+        }
+        tabla = nueva;
+    }
+
+    private static int[] nuevaTabla(int capacidad) {
+        int[] tabla = new int[capacidad];
+        Arrays.fill(tabla, VACIO);
+        return tabla;
+    }
+
+    private static int hash(byte[] bytes, int inicio, int fin) {
+        int h = 1;
+        for (int i = inicio; i < fin; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return h ^ (h >>> 16);
+    }
+}
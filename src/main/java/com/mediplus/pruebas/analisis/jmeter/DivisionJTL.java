@@ -0,0 +1,146 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * División de un JTL producido por un plan en lote en un JTL por escenario
+ * JMeter nombra cada hilo como {@code "<Thread Group> <grupo>-<hilo>"}, así que el prefijo del
+ * threadName identifica el escenario aunque varios compartan las mismas etiquetas de sampler.
+ * El archivo se recorre una sola vez y cada fila se copia tal cual a la salida de su grupo
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class DivisionJTL {
+
+    private static final Logger LOGGER = Logger.getLogger(DivisionJTL.class.getName());
+
+    private static final int SIN_GRUPO = -1;
+
+    private DivisionJTL() { }
+
+    /**
+     * Reparte las filas de {@code archivoJTL} según el Thread Group de su threadName
+     * Todas las salidas se crean con la cabecera del archivo de entrada, aunque no reciban filas
+     *
+     * @param salidasPorGrupo nombre del Thread Group y archivo de destino de sus filas
+     * @return filas escritas por grupo, en el orden de {@code salidasPorGrupo}
+     */
+    public static Map<String, Long> dividirPorGrupoHilos(Path archivoJTL, Map<String, Path> salidasPorGrupo)
+            throws IOException {
+        List<String> grupos = new ArrayList<>(salidasPorGrupo.keySet());
+        long[] conteos = new long[grupos.size()];
+        long sinGrupo = 0;
+
+        // Un fallo al cerrar las salidas queda suprimido en el error original, sin ocultarlo
+        try (Salidas salidas = new Salidas(grupos.size());
+             LectorJTL lector = LectorJTL.abrir(archivoJTL)) {
+            List<String> columnas = lector.nombresColumnas();
+            int[] indices = lector.mapearColumnas(columnas);
+            int indiceHilo = lector.indiceColumna("threadName");
+            if (indiceHilo < 0) {
+                throw new IOException("El JTL no tiene columna threadName: " + archivoJTL);
+            }
+
+            byte[] cabecera = (String.join(",", columnas) + "\n").getBytes(StandardCharsets.UTF_8);
+            for (String grupo : grupos) {
+                OutputStream salida = new BufferedOutputStream(
+                        Files.newOutputStream(salidasPorGrupo.get(grupo)), 1 << 16);
+                salidas.agregar(salida);
+                salida.write(cabecera);
+            }
+
+            // Los threadName se repiten en cada iteración: se resuelven una vez y se recuerdan
+            Map<String, Integer> destinoPorHilo = new HashMap<>();
+            while (lector.siguiente()) {
+                int destino = destinoPorHilo.computeIfAbsent(lector.campoTexto(indiceHilo),
+                        hilo -> resolverGrupo(hilo, grupos));
+                if (destino == SIN_GRUPO) {
+                    sinGrupo++;
+                    continue;
+                }
+                lector.escribirFilaCSV(salidas.get(destino), indices);
+                conteos[destino]++;
+            }
+        }
+
+        if (sinGrupo > 0) {
+            LOGGER.warning("Filas sin Thread Group conocido descartadas al dividir JTL: " + sinGrupo);
+        }
+        Map<String, Long> resultado = new LinkedHashMap<>();
+        for (int i = 0; i < grupos.size(); i++) {
+            resultado.put(grupos.get(i), conteos[i]);
+        }
+        return resultado;
+    }
+
+    /**
+     * Quita el sufijo {@code " grupo-hilo"} del threadName; si no coincide exacto (hilos con
+     * otro formato), usa el grupo más largo que sea prefijo del nombre
+     */
+    private static int resolverGrupo(String nombreHilo, List<String> grupos) {
+        int espacio = nombreHilo.lastIndexOf(' ');
+        if (espacio > 0) {
+            int exacto = grupos.indexOf(nombreHilo.substring(0, espacio));
+            if (exacto >= 0) {
+                return exacto;
+            }
+        }
+        int mejor = SIN_GRUPO;
+        for (int i = 0; i < grupos.size(); i++) {
+            String grupo = grupos.get(i);
+            if (nombreHilo.startsWith(grupo) && (mejor == SIN_GRUPO || grupo.length() > grupos.get(mejor).length())) {
+                mejor = i;
+            }
+        }
+        return mejor;
+    }
+
+    /**
+     * Archivos de destino abiertos; al cerrarse intenta cerrarlos todos y lanza el primer error
+     * con los siguientes suprimidos
+     */
+    private static final class Salidas implements Closeable {
+
+        private final List<OutputStream> abiertas;
+
+        Salidas(int capacidad) {
+            this.abiertas = new ArrayList<>(capacidad);
+        }
+
+        void agregar(OutputStream salida) {
+            abiertas.add(salida);
+        }
+
+        OutputStream get(int indice) {
+            return abiertas.get(indice);
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException error = null;
+            for (OutputStream salida : abiertas) {
+                try {
+                    salida.close();
+                } catch (IOException e) {
+                    if (error == null) error = e;
+                    else error.addSuppressed(e);
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+}
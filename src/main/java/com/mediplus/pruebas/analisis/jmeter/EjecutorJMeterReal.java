@@ -1,5 +1,7 @@
 package com.mediplus.pruebas.analisis.jmeter;
 
+import com.mediplus.pruebas.analisis.configuracion.ConfiguracionAplicacion;
+
 import java.io.*;
 import java.nio.file.*;
 import java.time.LocalDateTime;
@@ -18,7 +20,8 @@ import java.util.stream.Collectors;
  * - Detección automática de JMeter
  * - Generación de scripts JMX dinámicos
  * - Ejecución asíncrona de escenarios
- * - Generación automática de reportes HTML
+ * - Ejecución en lote: un plan y una JVM por grupo de escenarios
+ * - Generación de reportes HTML en segundo plano, fuera de la medición
  * - Índice de navegación integrado
  * - Manejo robusto de errores
  *
@@ -55,6 +58,7 @@ public class EjecutorJMeterReal implements AutoCloseable {
     private final GeneradorScriptsJMX generadorScripts;
     private final EjecutorComandos ejecutorComandos;
     private final GeneradorReportesHTML generadorReportes;
+    private final GeneradorDashboardsDiferido generadorDashboards;
 
     // Configuración de directorios
     private final Path directorioResultados;
@@ -87,7 +91,7 @@ public class EjecutorJMeterReal implements AutoCloseable {
 
         // Inicializar componentes
         this.detectorJMeter = new DetectorJMeter();
-        this.generadorScripts = new GeneradorScriptsJMX();
+        this.generadorScripts = new GeneradorScriptsJMX(CatalogoEscenarios.predeterminado());
         this.ejecutorComandos = new EjecutorComandos();
         this.generadorReportes = new GeneradorReportesHTML();
 
@@ -97,6 +101,9 @@ public class EjecutorJMeterReal implements AutoCloseable {
             this.estadoActual = EstadoEjecutor.ERROR;
             throw new IOException("JMeter no encontrado. Verificar instalación o configurar JMETER_HOME");
         }
+        this.generadorDashboards = new GeneradorDashboardsDiferido(
+                EjecutorComandos.comandoBase(rutaJMeter),
+                ConfiguracionAplicacion.obtenerInstancia().obtenerTrabajadoresReportesHTML());
 
         this.estadoActual = EstadoEjecutor.LISTO;
         LOGGER.info("✅ EjecutorJMeterReal inicializado correctamente");
@@ -199,42 +206,168 @@ public class EjecutorJMeterReal implements AutoCloseable {
         }
 
         List<ConfiguracionEscenario> escenarios = crearConfiguracionesEscenariosCompletas();
+        if (ConfiguracionAplicacion.obtenerInstancia().ejecutarEscenariosEnLote()) {
+            return ejecutarEscenariosEnLote(escenarios);
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            // Escenarios independientes en paralelo, dentro del presupuesto de CPU configurado
+            ConfiguracionAplicacion configuracion = ConfiguracionAplicacion.obtenerInstancia();
+            PlanificadorEscenarios planificador = new PlanificadorEscenarios(
+                    configuracion.obtenerEscenariosConcurrentesMaximo(), configuracion.obtenerPresupuestoHilosCarga());
+
+            List<PlanificadorEscenarios.Tarea<ResultadoEscenario>> tareas = escenarios.stream()
+                    .map(config -> new PlanificadorEscenarios.Tarea<>(config.nombre, config.usuariosConcurrentes,
+                            config.grupoAislamiento, () -> ejecutarEscenarioPlanificado(config)))
+                    .collect(Collectors.toList());
+
+            List<ResultadoEscenario> resultados = new ArrayList<>();
+            try {
+                for (PlanificadorEscenarios.Resultado<ResultadoEscenario> planificado : planificador.ejecutar(tareas)) {
+                    ResultadoEscenario resultado = planificado.exitoso()
+                            ? planificado.valor()
+                            : new ResultadoEscenario(false, planificado.nombre(), null,
+                                    "Error ejecutando escenario " + planificado.nombre() + ": " + planificado.error().getMessage());
+                    resultado.saturacion = planificado.saturacion();
+                    resultados.add(resultado);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.warning("⚠️ Ejecución de escenarios interrumpida");
+            }
+            return resultados;
+        }, executorService);
+    }
 
+    /**
+     * Variante en lote: los escenarios de un mismo grupo de aislamiento (que de todos modos no se
+     * solapan) se compilan en un solo plan con Thread Groups en serie y corren en una única JVM de
+     * JMeter; los grupos distintos siguen repartiéndose el presupuesto del planificador
+     */
+    private CompletableFuture<List<ResultadoEscenario>> ejecutarEscenariosEnLote(List<ConfiguracionEscenario> escenarios) {
         return CompletableFuture.supplyAsync(() -> {
-            List<ResultadoEscenario> resultados = Collections.synchronizedList(new ArrayList<>());
+            ConfiguracionAplicacion configuracion = ConfiguracionAplicacion.obtenerInstancia();
+            PlanificadorEscenarios planificador = new PlanificadorEscenarios(
+                    configuracion.obtenerEscenariosConcurrentesMaximo(), configuracion.obtenerPresupuestoHilosCarga());
 
-            // Ejecutar escenarios de forma secuencial para estabilidad
+            // Sin grupo de aislamiento el escenario forma un lote propio
+            Map<String, List<ConfiguracionEscenario>> lotes = new LinkedHashMap<>();
             for (ConfiguracionEscenario config : escenarios) {
-                if (cerrado) {
-                    LOGGER.warning("⚠️ Ejecución cancelada por cierre del ejecutor");
-                    break;
+                String clave = config.grupoAislamiento != null ? config.grupoAislamiento : config.nombre;
+                lotes.computeIfAbsent(clave, k -> new ArrayList<>()).add(config);
+            }
+
+            List<PlanificadorEscenarios.Tarea<List<ResultadoEscenario>>> tareas = lotes.entrySet().stream()
+                    .map(lote -> new PlanificadorEscenarios.Tarea<>(lote.getKey(),
+                            lote.getValue().stream().mapToInt(c -> c.usuariosConcurrentes).max().orElse(1),
+                            null, () -> ejecutarLote(lote.getKey(), lote.getValue())))
+                    .collect(Collectors.toList());
+
+            List<ResultadoEscenario> resultados = new ArrayList<>();
+            try {
+                for (PlanificadorEscenarios.Resultado<List<ResultadoEscenario>> planificado : planificador.ejecutar(tareas)) {
+                    List<ResultadoEscenario> resultadosLote = planificado.exitoso()
+                            ? planificado.valor()
+                            : lotes.get(planificado.nombre()).stream()
+                                    .map(c -> new ResultadoEscenario(false, c.nombre, null,
+                                            "Error ejecutando lote " + planificado.nombre() + ": " + planificado.error().getMessage()))
+                                    .collect(Collectors.toList());
+                    resultadosLote.forEach(r -> r.saturacion = planificado.saturacion());
+                    resultados.addAll(resultadosLote);
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.warning("⚠️ Ejecución de lotes interrumpida");
+            }
+            return resultados;
+        }, executorService);
+    }
 
-                try {
-                    LOGGER.info("🎯 Ejecutando escenario: " + config.nombre +
-                            " (" + config.usuariosConcurrentes + " usuarios)");
+    private List<ResultadoEscenario> ejecutarLote(String nombreLote, List<ConfiguracionEscenario> configs) {
+        if (cerrado) {
+            LOGGER.warning("⚠️ Ejecución cancelada por cierre del ejecutor: lote " + nombreLote);
+            return fallarLote(configs, "Ejecución cancelada");
+        }
+        LOGGER.info("🎯 Ejecutando lote " + nombreLote + ": " + configs.size() + " escenarios en una sola JVM");
 
-                    ResultadoEscenario resultado = ejecutarEscenarioSincrono(config);
-                    resultados.add(resultado);
+        try {
+            // 1. Un solo plan JMX con un Thread Group por escenario
+            Path archivoJMX = generadorScripts.generarScriptLoteJMX(nombreLote, configs, directorioScripts, timestampEjecucion);
 
-                    if (resultado.exitoso) {
-                        LOGGER.info("✅ Escenario completado exitosamente: " + config.nombre);
-                    } else {
-                        LOGGER.warning("⚠️ Escenario falló: " + config.nombre + " - " + resultado.error);
-                    }
+            // 2. El lote se ejecuta como un escenario cuya duración es la suma de sus partes
+            ConfiguracionEscenario configLote = new ConfiguracionEscenario("Lote " + nombreLote,
+                    configs.get(0).tipoOperacion,
+                    configs.stream().mapToInt(c -> c.usuariosConcurrentes).max().orElse(1),
+                    configs.stream().mapToInt(c -> c.duracionSegundos).sum(),
+                    "Lote en serie de " + configs.size() + " escenarios", nombreLote);
+            ArchivosEscenario archivos = prepararArchivosEscenario(configLote);
 
-                    // Pausa entre escenarios para estabilidad del sistema
-                    pausaEntreEscenarios();
+            boolean exitoso = ejecutorComandos.ejecutarComandoJMeterCompleto(
+                    rutaJMeter, archivoJMX, archivos, configLote);
+            if (!exitoso || !validarResultadosGenerados(archivos)) {
+                return fallarLote(configs, "Ejecución del lote falló o archivos no generados correctamente");
+            }
 
-                } catch (Exception e) {
-                    String error = "Error ejecutando escenario " + config.nombre + ": " + e.getMessage();
-                    LOGGER.log(Level.WARNING, "⚠️ " + error, e);
-                    resultados.add(new ResultadoEscenario(false, config.nombre, null, error));
+            // 3. Separar el JTL del lote en un JTL (y un dashboard) por escenario
+            Map<String, ArchivosEscenario> archivosPorEscenario = new LinkedHashMap<>();
+            Map<String, Path> salidas = new LinkedHashMap<>();
+            for (ConfiguracionEscenario config : configs) {
+                ArchivosEscenario archivosEscenario = prepararArchivosEscenario(config);
+                archivosPorEscenario.put(config.nombre, archivosEscenario);
+                salidas.put(config.nombre, archivosEscenario.archivoJTL);
+            }
+            Map<String, Long> filas = DivisionJTL.dividirPorGrupoHilos(archivos.archivoJTL, salidas);
+
+            List<ResultadoEscenario> resultados = new ArrayList<>();
+            for (ConfiguracionEscenario config : configs) {
+                String archivoJTL = salidas.get(config.nombre).toString();
+                if (filas.get(config.nombre) > 0) {
+                    archivosJTLGenerados.add(archivoJTL);
+                    encolarDashboard(archivosPorEscenario.get(config.nombre));
+                    resultados.add(new ResultadoEscenario(true, config.nombre, archivoJTL, null));
+                    LOGGER.info("✅ Escenario completado en lote: " + config.nombre +
+                            " (" + filas.get(config.nombre) + " muestras)");
+                } else {
+                    resultados.add(new ResultadoEscenario(false, config.nombre, null,
+                            "Sin muestras del escenario en el JTL del lote"));
+                    LOGGER.warning("⚠️ Escenario sin muestras en el lote: " + config.nombre);
                 }
             }
+            return resultados;
 
-            return new ArrayList<>(resultados);
-        }, executorService);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error ejecutando lote: " + nombreLote, e);
+            return fallarLote(configs, e.getMessage());
+        }
+    }
+
+    private void encolarDashboard(ArchivosEscenario archivos) {
+        Path logDashboard = archivos.archivoLog.resolveSibling(
+                archivos.archivoLog.getFileName().toString().replace(".log", "_dashboard.log"));
+        generadorDashboards.encolar(archivos.archivoJTL, archivos.directorioReporteHTML, logDashboard);
+    }
+
+    private List<ResultadoEscenario> fallarLote(List<ConfiguracionEscenario> configs, String error) {
+        return configs.stream()
+                .map(c -> new ResultadoEscenario(false, c.nombre, null, error))
+                .collect(Collectors.toList());
+    }
+
+    private ResultadoEscenario ejecutarEscenarioPlanificado(ConfiguracionEscenario config) {
+        if (cerrado) {
+            LOGGER.warning("⚠️ Ejecución cancelada por cierre del ejecutor: " + config.nombre);
+            return new ResultadoEscenario(false, config.nombre, null, "Ejecución cancelada");
+        }
+        LOGGER.info("🎯 Ejecutando escenario: " + config.nombre +
+                " (" + config.usuariosConcurrentes + " usuarios)");
+
+        ResultadoEscenario resultado = ejecutarEscenarioSincrono(config);
+        if (resultado.exitoso) {
+            LOGGER.info("✅ Escenario completado exitosamente: " + config.nombre);
+        } else {
+            LOGGER.warning("⚠️ Escenario falló: " + config.nombre + " - " + resultado.error);
+        }
+        return resultado;
     }
 
     private ResultadoEscenario ejecutarEscenarioSincrono(ConfiguracionEscenario config) {
@@ -249,16 +382,10 @@ public class EjecutorJMeterReal implements AutoCloseable {
             boolean exitoso = ejecutorComandos.ejecutarComandoJMeterCompleto(
                     rutaJMeter, archivoJMX, archivos, config);
 
-            // 4. Validar resultados
+            // 4. Validar resultados y dejar el dashboard en segundo plano
             if (exitoso && validarResultadosGenerados(archivos)) {
-                // Registrar archivos generados
-                if (archivos.archivoJTL != null) {
-                    archivosJTLGenerados.add(archivos.archivoJTL.toString());
-                }
-                if (archivos.directorioReporteHTML != null &&
-                        Files.exists(archivos.directorioReporteHTML.resolve("index.html"))) {
-                    reportesHTMLGenerados.add(archivos.directorioReporteHTML.toString());
-                }
+                archivosJTLGenerados.add(archivos.archivoJTL.toString());
+                encolarDashboard(archivos);
 
                 return new ResultadoEscenario(true, config.nombre,
                         archivos.archivoJTL.toString(), null);
@@ -276,6 +403,10 @@ public class EjecutorJMeterReal implements AutoCloseable {
     private ResultadoEjecucionJMeterExtendido procesarResultadosFinalesCompleto(List<ResultadoEscenario> resultados) {
         LOGGER.info("📊 Procesando resultados finales de " + resultados.size() + " escenarios...");
 
+        // Los escenarios ya terminaron: recién aquí se espera a los dashboards encolados
+        generadorDashboards.esperarPendientes()
+                .forEach(directorio -> reportesHTMLGenerados.add(directorio.toString()));
+
         List<String> archivosJTLExitosos = resultados.stream()
                 .filter(r -> r.exitoso && r.archivoJTL != null)
                 .map(r -> r.archivoJTL)
@@ -289,6 +420,11 @@ public class EjecutorJMeterReal implements AutoCloseable {
         boolean exitosoGeneral = !archivosJTLExitosos.isEmpty() &&
                 (errores.size() < resultados.size() / 2);
 
+        List<String> saturados = resultados.stream()
+                .filter(r -> r.saturacion != null && !r.saturacion.esConfiable())
+                .map(r -> r.escenario)
+                .collect(Collectors.toList());
+
         // Generar mensaje de resultado
         String mensaje = String.format(
                 "Ejecución completada: %d/%d escenarios exitosos, %d archivos JTL, %d reportes HTML generados",
@@ -298,6 +434,9 @@ public class EjecutorJMeterReal implements AutoCloseable {
         if (!errores.isEmpty()) {
             mensaje += ". Errores: " + errores.size();
         }
+        if (!saturados.isEmpty()) {
+            mensaje += ". Generador saturado en: " + String.join(", ", saturados);
+        }
 
         // Generar índice de navegación si hay reportes HTML
         if (!reportesHTMLGenerados.isEmpty()) {
@@ -323,32 +462,14 @@ public class EjecutorJMeterReal implements AutoCloseable {
 
     // ==================== MÉTODOS DE CONFIGURACIÓN DE ESCENARIOS ====================
 
-    private List<ConfiguracionEscenario> crearConfiguracionesEscenariosCompletas() {
-        return Arrays.asList(
-                // Escenarios GET con diferentes cargas
-                new ConfiguracionEscenario("GET Masivo Ligero", "GET", 10, 60,
-                        "Prueba de carga ligera para operaciones GET"),
-                new ConfiguracionEscenario("GET Masivo Medio", "GET", 25, 60,
-                        "Prueba de carga media para operaciones GET"),
-                new ConfiguracionEscenario("GET Masivo Intensivo", "GET", 50, 60,
-                        "Prueba de carga intensiva para operaciones GET"),
-
-                // Escenarios POST con diferentes cargas
-                new ConfiguracionEscenario("POST Masivo Ligero", "POST", 10, 60,
-                        "Prueba de carga ligera para operaciones POST"),
-                new ConfiguracionEscenario("POST Masivo Medio", "POST", 25, 60,
-                        "Prueba de carga media para operaciones POST"),
-                new ConfiguracionEscenario("POST Masivo Intensivo", "POST", 50, 60,
-                        "Prueba de carga intensiva para operaciones POST"),
-
-                // Escenarios mixtos para pruebas realistas
-                new ConfiguracionEscenario("Flujo Completo Ligero", "MIXTO", 10, 90,
-                        "Flujo de trabajo completo con carga ligera"),
-                new ConfiguracionEscenario("Flujo Completo Medio", "MIXTO", 25, 90,
-                        "Flujo de trabajo completo con carga media"),
-                new ConfiguracionEscenario("Flujo Completo Intensivo", "MIXTO", 50, 90,
-                        "Flujo de trabajo completo con carga intensiva")
-        );
+    /**
+     * Escenarios del catálogo configurado ({@link CatalogoEscenarios#predeterminado()}); también
+     * los usa el motor de carga virtual. Por defecto cada plantilla es un grupo de aislamiento: los
+     * niveles de carga de un mismo tipo nunca se solapan, para que su comparación de escalabilidad
+     * no se contamine
+     */
+    public static List<ConfiguracionEscenario> crearConfiguracionesEscenariosCompletas() {
+        return CatalogoEscenarios.predeterminado().getEscenarios();
     }
 
     // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
@@ -369,32 +490,25 @@ public class EjecutorJMeterReal implements AutoCloseable {
     }
 
     private ArchivosEscenario prepararArchivosEscenario(ConfiguracionEscenario config) throws IOException {
-        String nombreBase = String.format("%s_%du_%s",
-                config.nombre.toLowerCase()
-                        .replace(" ", "_")
-                        .replace("+", "")
-                        .replace("ñ", "n"),
-                config.usuariosConcurrentes,
-                timestampEjecucion);
+        String nombreBase = nombreBaseEscenario(config);
 
         Path archivoJTL = directorioResultados.resolve(nombreBase + ".jtl");
         Path archivoLog = directorioResultados.resolve(nombreBase + ".log");
+        // La carpeta del dashboard la crea la generación diferida
         Path directorioReporteHTML = directorioReportes.resolve(nombreBase);
 
-        Files.createDirectories(directorioReporteHTML);
-
         return new ArchivosEscenario(archivoJTL, archivoLog, directorioReporteHTML);
     }
 
+    private String nombreBaseEscenario(ConfiguracionEscenario config) {
+        return String.format("%s_%du_%s", GeneradorScriptsJMX.normalizarNombre(config.nombre),
+                config.usuariosConcurrentes, timestampEjecucion);
+    }
+
     private boolean validarResultadosGenerados(ArchivosEscenario archivos) {
         try {
-            boolean jtlValido = Files.exists(archivos.archivoJTL) &&
+            return Files.exists(archivos.archivoJTL) &&
                     Files.size(archivos.archivoJTL) > 100;
-
-            boolean htmlValido = Files.exists(archivos.directorioReporteHTML.resolve("index.html")) &&
-                    Files.size(archivos.directorioReporteHTML.resolve("index.html")) > 1000;
-
-            return jtlValido && htmlValido;
         } catch (IOException e) {
             LOGGER.log(Level.WARNING, "Error validando archivos generados", e);
             return false;
@@ -466,7 +580,7 @@ public class EjecutorJMeterReal implements AutoCloseable {
     private void verificarConectividadRed() {
         try {
             LOGGER.info("🌐 Verificando conectividad de red...");
-            java.net.URL url = new java.net.URL("https://dummyjson.com");
+            java.net.URL url = CatalogoEscenarios.predeterminado().getUrlBase().toURL();
             java.net.URLConnection connection = url.openConnection();
             connection.setConnectTimeout(5000);
             connection.setReadTimeout(5000);
@@ -490,14 +604,6 @@ public class EjecutorJMeterReal implements AutoCloseable {
         }
     }
 
-    private void pausaEntreEscenarios() {
-        try {
-            Thread.sleep(3000); // 3 segundos entre escenarios
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-    }
-
     private void mostrarInformacionReportesGenerados() {
         System.out.println("\n🌐 REPORTES HTML GENERADOS:");
         for (String reporte : reportesHTMLGenerados) {
@@ -580,6 +686,7 @@ public class EjecutorJMeterReal implements AutoCloseable {
             executorService.shutdownNow();
             Thread.currentThread().interrupt();
         }
+        generadorDashboards.close();
 
         LOGGER.info("✅ EjecutorJMeterReal cerrado correctamente");
     }
@@ -787,349 +894,6 @@ public class EjecutorJMeterReal implements AutoCloseable {
         }
     }
 
-    /**
-     * Generador de scripts JMX dinámicos
-     */
-    private static class GeneradorScriptsJMX {
-
-        Path generarScriptJMX(ConfiguracionEscenario config, Path directorioScripts, String timestamp)
-                throws IOException {
-            String nombreArchivo = String.format("%s_%du_%s.jmx",
-                    config.nombre.toLowerCase()
-                            .replace(" ", "_")
-                            .replace("+", "")
-                            .replace("ñ", "n"),
-                    config.usuariosConcurrentes,
-                    timestamp);
-
-            Path archivoJMX = directorioScripts.resolve(nombreArchivo);
-
-            String contenidoJMX = switch (config.tipoOperacion.toUpperCase()) {
-                case "GET" -> generarScriptGETAvanzado(config);
-                case "POST" -> generarScriptPOSTAvanzado(config);
-                case "MIXTO" -> generarScriptMixtoAvanzado(config);
-                default -> generarScriptGETAvanzado(config);
-            };
-
-            Files.writeString(archivoJMX, contenidoJMX);
-            LOGGER.info("📄 Script JMX generado: " + archivoJMX.getFileName());
-
-            return archivoJMX;
-        }
-
-        private String generarScriptGETAvanzado(ConfiguracionEscenario config) {
-            return String.format("""
-                    <?xml version="1.0" encoding="UTF-8"?>
-                    <jmeterTestPlan version="1.2" properties="5.0" jmeter="5.6.3">
-                      <hashTree>
-                        <TestPlan guiclass="TestPlanGui" testclass="TestPlan" testname="Test Plan GET - %s">
-                          <stringProp name="TestPlan.comments">Generado automáticamente para: %s</stringProp>
-                          <boolProp name="TestPlan.functional_mode">false</boolProp>
-                          <boolProp name="TestPlan.serialize_threadgroups">false</boolProp>
-                          <elementProp name="TestPlan.arguments" elementType="Arguments" guiclass="ArgumentsPanel">
-                            <collectionProp name="Arguments.arguments"/>
-                          </elementProp>
-                          <stringProp name="TestPlan.user_define_classpath"></stringProp>
-                        </TestPlan>
-                        <hashTree>
-                          <ThreadGroup guiclass="ThreadGroupGui" testclass="ThreadGroup" testname="%s">
-                            <stringProp name="ThreadGroup.on_sample_error">continue</stringProp>
-                            <elementProp name="ThreadGroup.main_controller" elementType="LoopController">
-                              <boolProp name="LoopController.continue_forever">false</boolProp>
-                              <intProp name="LoopController.loops">%d</intProp>
-                            </elementProp>
-                            <stringProp name="ThreadGroup.num_threads">%d</stringProp>
-                            <stringProp name="ThreadGroup.ramp_time">10</stringProp>
-                            <longProp name="ThreadGroup.start_time">1</longProp>
-                            <longProp name="ThreadGroup.end_time">1</longProp>
-                            <boolProp name="ThreadGroup.scheduler">false</boolProp>
-                            <stringProp name="ThreadGroup.duration">%d</stringProp>
-                            <stringProp name="ThreadGroup.delay"></stringProp>
-                          </ThreadGroup>
-                          <hashTree>
-                            <HTTPSamplerProxy guiclass="HttpTestSampleGui" testclass="HTTPSamplerProxy" testname="GET Products">
-                              <elementProp name="HTTPsampler.Arguments" elementType="Arguments">
-                                <collectionProp name="Arguments.arguments"/>
-                              </elementProp>
-                              <stringProp name="HTTPSampler.domain">dummyjson.com</stringProp>
-                              <stringProp name="HTTPSampler.port"></stringProp>
-                              <stringProp name="HTTPSampler.protocol">https</stringProp>
-                              <stringProp name="HTTPSampler.path">/products</stringProp>
-                              <stringProp name="HTTPSampler.method">GET</stringProp>
-                              <boolProp name="HTTPSampler.follow_redirects">true</boolProp>
-                              <boolProp name="HTTPSampler.auto_redirects">false</boolProp>
-                              <boolProp name="HTTPSampler.use_keepalive">true</boolProp>
-                              <boolProp name="HTTPSampler.DO_MULTIPART_POST">false</boolProp>
-                              <stringProp name="HTTPSampler.embedded_url_re"></stringProp>
-                              <stringProp name="HTTPSampler.connect_timeout">5000</stringProp>
-                              <stringProp name="HTTPSampler.response_timeout">10000</stringProp>
-                            </HTTPSamplerProxy>
-                            <hashTree>
-                              <ResponseAssertion guiclass="AssertionGui" testclass="ResponseAssertion" testname="Response Code Assertion">
-                                <collectionProp name="Asserion.test_strings">
-                                  <stringProp name="49586">200</stringProp>
-                                </collectionProp>
-                                <stringProp name="Assertion.test_field">Assertion.response_code</stringProp>
-                                <boolProp name="Assertion.assume_success">false</boolProp>
-                                <intProp name="Assertion.test_type">1</intProp>
-                              </ResponseAssertion>
-                              <hashTree/>
-                            </hashTree>
-                            
-                            <HTTPSamplerProxy guiclass="HttpTestSampleGui" testclass="HTTPSamplerProxy" testname="GET Users">
-                              <elementProp name="HTTPsampler.Arguments" elementType="Arguments">
-                                <collectionProp name="Arguments.arguments"/>
-                              </elementProp>
-                              <stringProp name="HTTPSampler.domain">dummyjson.com</stringProp>
-                              <stringProp name="HTTPSampler.port"></stringProp>
-                              <stringProp name="HTTPSampler.protocol">https</stringProp>
-                              <stringProp name="HTTPSampler.path">/users</stringProp>
-                              <stringProp name="HTTPSampler.method">GET</stringProp>
-                              <boolProp name="HTTPSampler.follow_redirects">true</boolProp>
-                              <boolProp name="HTTPSampler.auto_redirects">false</boolProp>
-                              <boolProp name="HTTPSampler.use_keepalive">true</boolProp>
-                              <stringProp name="HTTPSampler.connect_timeout">5000</stringProp>
-                              <stringProp name="HTTPSampler.response_timeout">10000</stringProp>
-                            </HTTPSamplerProxy>
-                            <hashTree>
-                              <ResponseAssertion guiclass="AssertionGui" testclass="ResponseAssertion" testname="Response Code Assertion">
-                                <collectionProp name="Asserion.test_strings">
-                                  <stringProp name="49586">200</stringProp>
-                                </collectionProp>
-                                <stringProp name="Assertion.test_field">Assertion.response_code</stringProp>
-                                <boolProp name="Assertion.assume_success">false</boolProp>
-                                <intProp name="Assertion.test_type">1</intProp>
-                              </ResponseAssertion>
-                              <hashTree/>
-                            </hashTree>
-                          </hashTree>
-                        </hashTree>
-                      </hashTree>
-                    </jmeterTestPlan>
-                    """,
-                    config.nombre, config.descripcion, config.nombre,
-                    calcularIteraciones(config.duracionSegundos, config.usuariosConcurrentes),
-                    config.usuariosConcurrentes, config.duracionSegundos);
-        }
-
-        private String generarScriptPOSTAvanzado(ConfiguracionEscenario config) {
-            return String.format("""
-                    <?xml version="1.0" encoding="UTF-8"?>
-                    <jmeterTestPlan version="1.2" properties="5.0" jmeter="5.6.3">
-                      <hashTree>
-                        <TestPlan guiclass="TestPlanGui" testclass="TestPlan" testname="Test Plan POST - %s">
-                          <stringProp name="TestPlan.comments">Generado automáticamente para: %s</stringProp>
-                          <boolProp name="TestPlan.functional_mode">false</boolProp>
-                          <boolProp name="TestPlan.serialize_threadgroups">false</boolProp>
-                        </TestPlan>
-                        <hashTree>
-                          <ThreadGroup guiclass="ThreadGroupGui" testclass="ThreadGroup" testname="%s">
-                            <stringProp name="ThreadGroup.on_sample_error">continue</stringProp>
-                            <elementProp name="ThreadGroup.main_controller" elementType="LoopController">
-                              <boolProp name="LoopController.continue_forever">false</boolProp>
-                              <intProp name="LoopController.loops">%d</intProp>
-                            </elementProp>
-                            <stringProp name="ThreadGroup.num_threads">%d</stringProp>
-                            <stringProp name="ThreadGroup.ramp_time">15</stringProp>
-                            <stringProp name="ThreadGroup.duration">%d</stringProp>
-                            <boolProp name="ThreadGroup.scheduler">false</boolProp>
-                          </ThreadGroup>
-                          <hashTree>
-                            <HTTPSamplerProxy guiclass="HttpTestSampleGui" testclass="HTTPSamplerProxy" testname="POST Create User">
-                              <boolProp name="HTTPSampler.postBodyRaw">true</boolProp>
-                              <elementProp name="HTTPsampler.Arguments" elementType="Arguments">
-                                <collectionProp name="Arguments.arguments">
-                                  <elementProp name="" elementType="HTTPArgument">
-                                    <boolProp name="HTTPArgument.always_encode">false</boolProp>
-                                    <stringProp name="Argument.value">{"firstName":"Test${__Random(1,1000)}","lastName":"User${__Random(1,1000)}","email":"test${__Random(1,1000)}@mediplus.com","age":${__Random(18,65)}}</stringProp>
-                                    <stringProp name="Argument.metadata">=</stringProp>
-                                  </elementProp>
-                                </collectionProp>
-                              </elementProp>
-                              <stringProp name="HTTPSampler.domain">dummyjson.com</stringProp>
-                              <stringProp name="HTTPSampler.path">/users/add</stringProp>
-                              <stringProp name="HTTPSampler.method">POST</stringProp>
-                              <stringProp name="HTTPSampler.protocol">https</stringProp>
-                              <boolProp name="HTTPSampler.use_keepalive">true</boolProp>
-                              <stringProp name="HTTPSampler.connect_timeout">5000</stringProp>
-                              <stringProp name="HTTPSampler.response_timeout">10000</stringProp>
-                            </HTTPSamplerProxy>
-                            <hashTree>
-                              <HeaderManager guiclass="HeaderPanel" testclass="HeaderManager" testname="HTTP Header Manager">
-                                <collectionProp name="HeaderManager.headers">
-                                  <elementProp name="" elementType="Header">
-                                    <stringProp name="Header.name">Content-Type</stringProp>
-                                    <stringProp name="Header.value">application/json</stringProp>
-                                  </elementProp>
-                                  <elementProp name="" elementType="Header">
-                                    <stringProp name="Header.name">Accept</stringProp>
-                                    <stringProp name="Header.value">application/json</stringProp>
-                                  </elementProp>
-                                </collectionProp>
-                              </HeaderManager>
-                              <hashTree/>
-                              
-                              <ResponseAssertion guiclass="AssertionGui" testclass="ResponseAssertion" testname="Response Code Assertion">
-                                <collectionProp name="Asserion.test_strings">
-                                  <stringProp name="49587">201</stringProp>
-                                </collectionProp>
-                                <stringProp name="Assertion.test_field">Assertion.response_code</stringProp>
-                                <boolProp name="Assertion.assume_success">false</boolProp>
-                                <intProp name="Assertion.test_type">1</intProp>
-                              </ResponseAssertion>
-                              <hashTree/>
-                            </hashTree>
-                            
-                            <HTTPSamplerProxy guiclass="HttpTestSampleGui" testclass="HTTPSamplerProxy" testname="POST Create Product">
-                              <boolProp name="HTTPSampler.postBodyRaw">true</boolProp>
-                              <elementProp name="HTTPsampler.Arguments" elementType="Arguments">
-                                <collectionProp name="Arguments.arguments">
-                                  <elementProp name="" elementType="HTTPArgument">
-                                    <boolProp name="HTTPArgument.always_encode">false</boolProp>
-                                    <stringProp name="Argument.value">{"title":"Producto Test ${__Random(1,1000)}","description":"Descripción del producto","price":${__Random(10,500)},"category":"test"}</stringProp>
-                                    <stringProp name="Argument.metadata">=</stringProp>
-                                  </elementProp>
-                                </collectionProp>
-                              </elementProp>
-                              <stringProp name="HTTPSampler.domain">dummyjson.com</stringProp>
-                              <stringProp name="HTTPSampler.path">/products/add</stringProp>
-                              <stringProp name="HTTPSampler.method">POST</stringProp>
-                              <stringProp name="HTTPSampler.protocol">https</stringProp>
-                              <boolProp name="HTTPSampler.use_keepalive">true</boolProp>
-                              <stringProp name="HTTPSampler.connect_timeout">5000</stringProp>
-                              <stringProp name="HTTPSampler.response_timeout">10000</stringProp>
-                            </HTTPSamplerProxy>
-                            <hashTree>
-                              <HeaderManager guiclass="HeaderPanel" testclass="HeaderManager" testname="HTTP Header Manager">
-                                <collectionProp name="HeaderManager.headers">
-                                  <elementProp name="" elementType="Header">
-                                    <stringProp name="Header.name">Content-Type</stringProp>
-                                    <stringProp name="Header.value">application/json</stringProp>
-                                  </elementProp>
-                                </collectionProp>
-                              </HeaderManager>
-                              <hashTree/>
-                              
-                              <ResponseAssertion guiclass="AssertionGui" testclass="ResponseAssertion" testname="Response Code Assertion">
-                                <collectionProp name="Asserion.test_strings">
-                                  <stringProp name="49587">201</stringProp>
-                                </collectionProp>
-                                <stringProp name="Assertion.test_field">Assertion.response_code</stringProp>
-                                <boolProp name="Assertion.assume_success">false</boolProp>
-                                <intProp name="Assertion.test_type">1</intProp>
-                              </ResponseAssertion>
-                              <hashTree/>
-                            </hashTree>
-                          </hashTree>
-                        </hashTree>
-                      </hashTree>
-                    </jmeterTestPlan>
-                    """,
-                    config.nombre, config.descripcion, config.nombre,
-                    calcularIteraciones(config.duracionSegundos, config.usuariosConcurrentes) / 2, // Menos iteraciones para POST
-                    config.usuariosConcurrentes, config.duracionSegundos);
-        }
-
-        private String generarScriptMixtoAvanzado(ConfiguracionEscenario config) {
-            return String.format("""
-                    <?xml version="1.0" encoding="UTF-8"?>
-                    <jmeterTestPlan version="1.2" properties="5.0" jmeter="5.6.3">
-                      <hashTree>
-                        <TestPlan guiclass="TestPlanGui" testclass="TestPlan" testname="Test Plan MIXTO - %s">
-                          <stringProp name="TestPlan.comments">Flujo mixto generado automáticamente para: %s</stringProp>
-                          <boolProp name="TestPlan.functional_mode">false</boolProp>
-                          <boolProp name="TestPlan.serialize_threadgroups">false</boolProp>
-                        </TestPlan>
-                        <hashTree>
-                          <ThreadGroup guiclass="ThreadGroupGui" testclass="ThreadGroup" testname="%s">
-                            <stringProp name="ThreadGroup.on_sample_error">continue</stringProp>
-                            <elementProp name="ThreadGroup.main_controller" elementType="LoopController">
-                              <boolProp name="LoopController.continue_forever">false</boolProp>
-                              <intProp name="LoopController.loops">%d</intProp>
-                            </elementProp>
-                            <stringProp name="ThreadGroup.num_threads">%d</stringProp>
-                            <stringProp name="ThreadGroup.ramp_time">20</stringProp>
-                            <stringProp name="ThreadGroup.duration">%d</stringProp>
-                            <boolProp name="ThreadGroup.scheduler">false</boolProp>
-                          </ThreadGroup>
-                          <hashTree>
-                            <RandomController guiclass="RandomControllerGui" testclass="RandomController" testname="Random Controller">
-                              <intProp name="InterleaveControl.style">1</intProp>
-                            </RandomController>
-                            <hashTree>
-                              <HTTPSamplerProxy guiclass="HttpTestSampleGui" testclass="HTTPSamplerProxy" testname="GET Products">
-                                <stringProp name="HTTPSampler.domain">dummyjson.com</stringProp>
-                                <stringProp name="HTTPSampler.path">/products</stringProp>
-                                <stringProp name="HTTPSampler.method">GET</stringProp>
-                                <stringProp name="HTTPSampler.protocol">https</stringProp>
-                                <boolProp name="HTTPSampler.use_keepalive">true</boolProp>
-                                <stringProp name="HTTPSampler.connect_timeout">5000</stringProp>
-                                <stringProp name="HTTPSampler.response_timeout">10000</stringProp>
-                              </HTTPSamplerProxy>
-                              <hashTree/>
-                              
-                              <HTTPSamplerProxy guiclass="HttpTestSampleGui" testclass="HTTPSamplerProxy" testname="POST Create User">
-                                <boolProp name="HTTPSampler.postBodyRaw">true</boolProp>
-                                <elementProp name="HTTPsampler.Arguments" elementType="Arguments">
-                                  <collectionProp name="Arguments.arguments">
-                                    <elementProp name="" elementType="HTTPArgument">
-                                      <boolProp name="HTTPArgument.always_encode">false</boolProp>
-                                      <stringProp name="Argument.value">{"firstName":"Mixto${__Random(1,1000)}","lastName":"Test${__Random(1,1000)}","email":"mixto${__Random(1,1000)}@test.com"}</stringProp>
-                                      <stringProp name="Argument.metadata">=</stringProp>
-                                    </elementProp>
-                                  </collectionProp>
-                                </elementProp>
-                                <stringProp name="HTTPSampler.domain">dummyjson.com</stringProp>
-                                <stringProp name="HTTPSampler.path">/users/add</stringProp>
-                                <stringProp name="HTTPSampler.method">POST</stringProp>
-                                <stringProp name="HTTPSampler.protocol">https</stringProp>
-                                <boolProp name="HTTPSampler.use_keepalive">true</boolProp>
-                                <stringProp name="HTTPSampler.connect_timeout">5000</stringProp>
-                                <stringProp name="HTTPSampler.response_timeout">10000</stringProp>
-                              </HTTPSamplerProxy>
-                              <hashTree>
-                                <HeaderManager guiclass="HeaderPanel" testclass="HeaderManager" testname="HTTP Header Manager">
-                                  <collectionProp name="HeaderManager.headers">
-                                    <elementProp name="" elementType="Header">
-                                      <stringProp name="Header.name">Content-Type</stringProp>
-                                      <stringProp name="Header.value">application/json</stringProp>
-                                    </elementProp>
-                                  </collectionProp>
-                                </HeaderManager>
-                                <hashTree/>
-                              </hashTree>
-                              
-                              <HTTPSamplerProxy guiclass="HttpTestSampleGui" testclass="HTTPSamplerProxy" testname="GET Users">
-                                <stringProp name="HTTPSampler.domain">dummyjson.com</stringProp>
-                                <stringProp name="HTTPSampler.path">/users</stringProp>
-                                <stringProp name="HTTPSampler.method">GET</stringProp>
-                                <stringProp name="HTTPSampler.protocol">https</stringProp>
-                                <boolProp name="HTTPSampler.use_keepalive">true</boolProp>
-                                <stringProp name="HTTPSampler.connect_timeout">5000</stringProp>
-                                <stringProp name="HTTPSampler.response_timeout">10000</stringProp>
-                              </HTTPSamplerProxy>
-                              <hashTree/>
-                            </hashTree>
-                          </hashTree>
-                        </hashTree>
-                      </hashTree>
-                    </jmeterTestPlan>
-                    """,
-                    config.nombre, config.descripcion, config.nombre,
-                    calcularIteraciones(config.duracionSegundos, config.usuariosConcurrentes) / 3, // Menos iteraciones para mixto
-                    config.usuariosConcurrentes, config.duracionSegundos);
-        }
-
-        private int calcularIteraciones(int duracionSegundos, int usuarios) {
-            // Calcular iteraciones para mantener carga durante la duración especificada
-            // Más usuarios = menos iteraciones por usuario para evitar sobrecarga
-            int baseIteraciones = Math.max(1, duracionSegundos / 10);
-            if (usuarios <= 10) return baseIteraciones * 3;
-            if (usuarios <= 25) return baseIteraciones * 2;
-            return baseIteraciones;
-        }
-    }
-
     /**
      * Ejecutor de comandos JMeter con manejo avanzado
      */
@@ -1138,10 +902,9 @@ public class EjecutorJMeterReal implements AutoCloseable {
         boolean ejecutarComandoJMeterCompleto(String rutaJMeter, Path archivoJMX,
                                               ArchivosEscenario archivos, ConfiguracionEscenario config) {
             try {
-                List<String> comando = construirComandoJMeterConHTML(rutaJMeter, archivoJMX, archivos);
+                List<String> comando = construirComandoJMeter(rutaJMeter, archivoJMX, archivos);
 
                 LOGGER.info("⚡ Ejecutando JMeter: " + config.nombre);
-                LOGGER.info("📊 Reporte HTML se generará en: " + archivos.directorioReporteHTML.resolve("index.html"));
 
                 ProcessBuilder pb = new ProcessBuilder(comando);
                 pb.redirectErrorStream(true);
@@ -1150,8 +913,14 @@ public class EjecutorJMeterReal implements AutoCloseable {
                 // Capturar salida en tiempo real
                 CompletableFuture<Void> lecturaOutput = capturarSalidaJMeter(proceso);
 
-                boolean terminado = proceso.waitFor(
-                        config.duracionSegundos + TIMEOUT_EJECUCION_BASE_SEGUNDOS, TimeUnit.SECONDS);
+                // Seguir el JTL mientras se escribe para publicar métricas en vivo
+                boolean terminado;
+                try (SeguidorJTL seguidor = new SeguidorJTL(archivos.archivoJTL,
+                        m -> LOGGER.info("📈 " + config.nombre + " en vivo: " + m.resumen()))) {
+                    seguidor.iniciar();
+                    terminado = proceso.waitFor(
+                            config.duracionSegundos + TIMEOUT_EJECUCION_BASE_SEGUNDOS, TimeUnit.SECONDS);
+                }
 
                 if (!terminado) {
                     LOGGER.warning("⏱️ Timeout ejecutando JMeter: " + config.nombre);
@@ -1170,12 +939,8 @@ public class EjecutorJMeterReal implements AutoCloseable {
 
                 // Verificar éxito y validar archivos generados
                 if (codigoSalida == 0) {
-                    boolean reporteHTMLGenerado = validarReporteHTMLGenerado(archivos.directorioReporteHTML);
-                    boolean archivoJTLGenerado = validarArchivoJTLGenerado(archivos.archivoJTL);
-
-                    if (reporteHTMLGenerado && archivoJTLGenerado) {
+                    if (validarArchivoJTLGenerado(archivos.archivoJTL)) {
                         LOGGER.info("✅ JMeter ejecutado exitosamente: " + config.nombre);
-                        LOGGER.info("📊 Reporte HTML generado correctamente");
                         LOGGER.info("📁 Archivo JTL generado correctamente");
                         return true;
                     } else {
@@ -1193,33 +958,32 @@ public class EjecutorJMeterReal implements AutoCloseable {
             }
         }
 
-        private List<String> construirComandoJMeterConHTML(String rutaJMeter, Path archivoJMX,
-                                                           ArchivosEscenario archivos) {
-            List<String> comando = new ArrayList<>();
-
-            // Detectar sistema operativo
+        /**
+         * Comando que lanza JMeter en este sistema operativo, sin argumentos
+         */
+        static List<String> comandoBase(String rutaJMeter) {
             boolean esWindows = System.getProperty("os.name").toLowerCase().contains("win");
-
             if (esWindows && rutaJMeter.endsWith(".bat")) {
-                comando.add("cmd.exe");
-                comando.add("/c");
+                return List.of("cmd.exe", "/c", rutaJMeter);
             }
+            return List.of(rutaJMeter);
+        }
+
+        private List<String> construirComandoJMeter(String rutaJMeter, Path archivoJMX,
+                                                    ArchivosEscenario archivos) {
+            List<String> comando = new ArrayList<>(comandoBase(rutaJMeter));
 
-            comando.add(rutaJMeter);
+            // Sin -e/-o: el dashboard se genera después con -g (GeneradorDashboardsDiferido)
             comando.addAll(Arrays.asList(
                     "-n",  // modo no-GUI
                     "-t", archivoJMX.toAbsolutePath().toString(),
                     "-l", archivos.archivoJTL.toAbsolutePath().toString(),
                     "-j", archivos.archivoLog.toAbsolutePath().toString(),
-                    "-e",  // generar reporte HTML
-                    "-o", archivos.directorioReporteHTML.toAbsolutePath().toString(),
                     "-Jjmeter.save.saveservice.output_format=csv",
                     "-Jjmeter.save.saveservice.response_data=false",
                     "-Jjmeter.save.saveservice.samplerData=false",
                     "-Jjmeter.save.saveservice.requestHeaders=false",
-                    "-Jjmeter.save.saveservice.responseHeaders=false",
-                    "-Jjmeter.reportgenerator.overall_granularity=60000",
-                    "-Jjmeter.reportgenerator.graph.responseTimeDistribution.property.set_granularity=100"
+                    "-Jjmeter.save.saveservice.responseHeaders=false"
             ));
 
             return comando;
@@ -1254,15 +1018,6 @@ public class EjecutorJMeterReal implements AutoCloseable {
                     lineaLower.contains("exception");
         }
 
-        private boolean validarReporteHTMLGenerado(Path directorioReporte) {
-            try {
-                Path indexHTML = directorioReporte.resolve("index.html");
-                return Files.exists(indexHTML) && Files.size(indexHTML) > 1000;
-            } catch (IOException e) {
-                return false;
-            }
-        }
-
         private boolean validarArchivoJTLGenerado(Path archivoJTL) {
             try {
                 return Files.exists(archivoJTL) && Files.size(archivoJTL) > 100;
@@ -1534,14 +1289,22 @@ public class EjecutorJMeterReal implements AutoCloseable {
         public final int usuariosConcurrentes;
         public final int duracionSegundos;
         public final String descripcion;
+        /** Escenarios con el mismo grupo no corren a la vez; null = puede solaparse con cualquiera */
+        public final String grupoAislamiento;
 
         public ConfiguracionEscenario(String nombre, String tipoOperacion, int usuariosConcurrentes,
-                                      int duracionSegundos, String descripcion) {
+                                      int duracionSegundos, String descripcion, String grupoAislamiento) {
             this.nombre = nombre;
             this.tipoOperacion = tipoOperacion;
             this.usuariosConcurrentes = usuariosConcurrentes;
             this.duracionSegundos = duracionSegundos;
             this.descripcion = descripcion;
+            this.grupoAislamiento = grupoAislamiento;
+        }
+
+        public ConfiguracionEscenario(String nombre, String tipoOperacion, int usuariosConcurrentes,
+                                      int duracionSegundos, String descripcion) {
+            this(nombre, tipoOperacion, usuariosConcurrentes, duracionSegundos, descripcion, null);
         }
 
         // Constructor de compatibilidad
@@ -1608,6 +1371,7 @@ public class EjecutorJMeterReal implements AutoCloseable {
         final String escenario;
         final String archivoJTL;
         final String error;
+        MonitorSaturacionCPU.InformeSaturacion saturacion;
 
         ResultadoEscenario(boolean exitoso, String escenario, String archivoJTL, String error) {
             this.exitoso = exitoso;
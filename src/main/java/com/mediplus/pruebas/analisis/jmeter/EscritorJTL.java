@@ -0,0 +1,123 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Escritor thread-safe de JTL en CSV con el layout por defecto de JMeter
+ * Permite que generadores de carga propios produzcan archivos que {@link LectorJTL}, el
+ * dashboard de JMeter ({@code jmeter -g}) y el resto de consumidores leen sin cambios
+ *
+ * <p>La fila se arma fuera del candado y solo la escritura al buffer es exclusiva. Se usa un
+ * {@link ReentrantLock} y no {@code synchronized} para no fijar hilos virtuales a su portador
+ * mientras escriben.</p>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class EscritorJTL implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(EscritorJTL.class.getName());
+
+    static final String CABECERA = "timeStamp,elapsed,label,responseCode,responseMessage,threadName,dataType," +
+            "success,failureMessage,bytes,sentBytes,grpThreads,allThreads,URL,Latency,IdleTime,Connect";
+
+    private final Path archivo;
+    private final BufferedWriter writer;
+    private final ReentrantLock candado = new ReentrantLock();
+    private boolean fallido;
+
+    private EscritorJTL(Path archivo, BufferedWriter writer) {
+        this.archivo = archivo;
+        this.writer = writer;
+    }
+
+    /**
+     * Crea (o reemplaza) el archivo y escribe la cabecera
+     */
+    public static EscritorJTL crear(Path archivo) throws IOException {
+        BufferedWriter writer = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8);
+        writer.write(CABECERA);
+        writer.newLine();
+        return new EscritorJTL(archivo, writer);
+    }
+
+    /**
+     * Agrega una muestra; un error de E/S se registra una sola vez y descarta las filas siguientes
+     * para no interrumpir la generación de carga
+     */
+    public void escribir(Muestra muestra) {
+        String fila = muestra.aFilaCSV();
+        candado.lock();
+        try {
+            if (fallido) return;
+            writer.write(fila);
+        } catch (IOException e) {
+            fallido = true;
+            LOGGER.log(Level.WARNING, "No se pudo escribir el JTL, se descartan las muestras siguientes: " + archivo, e);
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    public Path getArchivo() {
+        return archivo;
+    }
+
+    @Override
+    public void close() throws IOException {
+        candado.lock();
+        try {
+            writer.close();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Una fila del JTL con las columnas del layout por defecto
+     */
+    public record Muestra(long timeStamp, long elapsed, String label, String responseCode, String responseMessage,
+                          String threadName, boolean success, String failureMessage, long bytes, long sentBytes,
+                          int grpThreads, int allThreads, String url, long latency, long connect) {
+
+        String aFilaCSV() {
+            StringBuilder sb = new StringBuilder(160);
+            sb.append(timeStamp).append(',').append(elapsed).append(',');
+            campo(sb, label).append(',');
+            campo(sb, responseCode).append(',');
+            campo(sb, responseMessage).append(',');
+            campo(sb, threadName).append(",text,").append(success).append(',');
+            campo(sb, failureMessage).append(',');
+            sb.append(bytes).append(',').append(sentBytes).append(',')
+                    .append(grpThreads).append(',').append(allThreads).append(',');
+            campo(sb, url).append(',');
+            sb.append(latency).append(",0,").append(connect).append('\n');
+            return sb.toString();
+        }
+
+        /**
+         * Entrecomilla al estilo CSV los campos con separadores, comillas o saltos de línea
+         */
+        private static StringBuilder campo(StringBuilder sb, String valor) {
+            if (valor == null || valor.isEmpty()) {
+                return sb;
+            }
+            boolean requiereComillas = false;
+            for (int i = 0; i < valor.length() && !requiereComillas; i++) {
+                char c = valor.charAt(i);
+                requiereComillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!requiereComillas) {
+                return sb.append(valor);
+            }
+            return sb.append('"').append(valor.replace("\"", "\"\"")).append('"');
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Fusión k-way de varios JTL en un único CSV ordenado por timeStamp
+ * Cada entrada se recorre con su propio {@link LectorJTL} de buffer fijo y un montículo de
+ * k posiciones elige en cada paso la fila con menor timeStamp, que se copia de inmediato a la
+ * salida. La memoria depende solo del número de archivos, no de su tamaño
+ *
+ * <p>Se asume que cada archivo viene ordenado por timeStamp (como los escribe JMeter, salvo
+ * pequeños desórdenes entre hilos que se conservan tal cual). La salida usa las columnas del
+ * primer archivo con datos; las filas sin timeStamp válido se descartan.</p>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class FusionJTL {
+
+    private static final Logger LOGGER = Logger.getLogger(FusionJTL.class.getName());
+
+    /** Buffer de lectura por archivo de entrada */
+    private static final int TAMANO_BUFFER_POR_ARCHIVO = 256 * 1024;
+
+    private FusionJTL() { }
+
+    /**
+     * Fusiona los JTL indicados en {@code archivoSalida}; los archivos inexistentes o vacíos se omiten
+     *
+     * @return número de filas escritas
+     */
+    public static long fusionarPorTimeStamp(List<Path> archivosJTL, Path archivoSalida) throws IOException {
+        List<LectorJTL> lectores = new ArrayList<>();
+        try {
+            for (Path archivo : archivosJTL) {
+                if (Files.exists(archivo) && Files.size(archivo) > 0) {
+                    lectores.add(LectorJTL.abrir(archivo, TAMANO_BUFFER_POR_ARCHIVO));
+                }
+            }
+            return fusionar(lectores, archivoSalida);
+        } finally {
+            for (LectorJTL lector : lectores) {
+                try {
+                    lector.close();
+                } catch (IOException e) {
+                    LOGGER.fine("Error cerrando JTL de entrada: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static long fusionar(List<LectorJTL> lectores, Path archivoSalida) throws IOException {
+        int k = lectores.size();
+        List<String> columnas = k > 0 ? lectores.get(0).nombresColumnas() : List.of();
+        int[][] indices = new int[k][];
+        for (int i = 0; i < k; i++) {
+            indices[i] = lectores.get(i).mapearColumnas(columnas);
+        }
+
+        Monticulo monticulo = new Monticulo(k);
+        long descartadas = 0;
+        for (int i = 0; i < k; i++) {
+            descartadas += avanzar(lectores.get(i), i, monticulo);
+        }
+
+        long escritas = 0;
+        try (OutputStream salida = new BufferedOutputStream(Files.newOutputStream(archivoSalida), 1 << 16)) {
+            salida.write((String.join(",", columnas) + "\n").getBytes(StandardCharsets.UTF_8));
+            while (!monticulo.estaVacio()) {
+                int i = monticulo.extraerMinimo();
+                lectores.get(i).escribirFilaCSV(salida, indices[i]);
+                escritas++;
+                descartadas += avanzar(lectores.get(i), i, monticulo);
+            }
+        }
+
+        if (descartadas > 0) {
+            LOGGER.warning("Filas sin timeStamp válido descartadas al fusionar JTL: " + descartadas);
+        }
+        LOGGER.fine(() -> "JTL fusionados: " + k + " archivos de entrada");
+        return escritas;
+    }
+
+    /**
+     * Avanza el lector a su siguiente fila válida y la vuelve a poner en el montículo
+     *
+     * @return filas descartadas por no tener timeStamp
+     */
+    private static long avanzar(LectorJTL lector, int indice, Monticulo monticulo) throws IOException {
+        long descartadas = 0;
+        while (lector.siguiente()) {
+            long timeStamp = lector.timeStamp();
+            if (timeStamp != LectorJTL.VALOR_INVALIDO) {
+                monticulo.insertar(indice, timeStamp);
+                return descartadas;
+            }
+            descartadas++;
+        }
+        return descartadas;
+    }
+
+    /**
+     * Montículo mínimo de índices de archivo ordenado por el timeStamp de su fila actual;
+     * a igual timeStamp gana el archivo que aparece primero en la lista
+     */
+    private static final class Monticulo {
+
+        private final int[] archivos;
+        private final long[] claves;   // timeStamp de la fila actual de cada archivo
+        private int tamano;
+
+        Monticulo(int capacidad) {
+            this.archivos = new int[capacidad];
+            this.claves = new long[capacidad];
+        }
+
+        boolean estaVacio() {
+            return tamano == 0;
+        }
+
+        void insertar(int archivo, long clave) {
+            claves[archivo] = clave;
+            int i = tamano++;
+            archivos[i] = archivo;
+            while (i > 0) {
+                int padre = (i - 1) / 2;
+                if (!menor(archivos[i], archivos[padre])) break;
+                intercambiar(i, padre);
+                i = padre;
+            }
+        }
+
+        int extraerMinimo() {
+            int minimo = archivos[0];
+            archivos[0] = archivos[--tamano];
+            int i = 0;
+            while (true) {
+                int izquierdo = 2 * i + 1;
+                int derecho = izquierdo + 1;
+                int menorHijo = i;
+                if (izquierdo < tamano && menor(archivos[izquierdo], archivos[menorHijo])) menorHijo = izquierdo;
+                if (derecho < tamano && menor(archivos[derecho], archivos[menorHijo])) menorHijo = derecho;
+                if (menorHijo == i) break;
+                intercambiar(i, menorHijo);
+                i = menorHijo;
+            }
+            return minimo;
+        }
+
+        private boolean menor(int a, int b) {
+            return claves[a] < claves[b] || (claves[a] == claves[b] && a < b);
+        }
+
+        private void intercambiar(int i, int j) {
+            int temporal = archivos[i];
+            archivos[i] = archivos[j];
+            archivos[j] = temporal;
+        }
+    }
+}
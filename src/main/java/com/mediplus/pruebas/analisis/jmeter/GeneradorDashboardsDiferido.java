@@ -0,0 +1,176 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generación de dashboards HTML de JMeter fuera de la medición
+ * Las corridas de carga escriben solo el JTL; el dashboard se encola aquí y se genera después con
+ * {@code jmeter -g <jtl> -o <carpeta>} en un pool acotado de trabajadores. Así el proceso que
+ * genera la carga no gasta CPU al final renderizando y el siguiente escenario no espera al reporte.
+ * En Unix cada generación corre con {@code nice} para ceder CPU a las corridas que sigan activas
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class GeneradorDashboardsDiferido implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(GeneradorDashboardsDiferido.class.getName());
+
+    /** Mismas propiedades de lectura y granularidad que usaba la generación dentro de la corrida */
+    private static final List<String> PROPIEDADES_REPORTE = List.of(
+            "-Jjmeter.save.saveservice.output_format=csv",
+            "-Jjmeter.reportgenerator.overall_granularity=60000",
+            "-Jjmeter.reportgenerator.graph.responseTimeDistribution.property.set_granularity=100");
+
+    private static final Duration TIMEOUT_PREDETERMINADO = Duration.ofMinutes(10);
+
+    private final List<String> comandoJMeter;
+    private final Duration timeout;
+    private final ExecutorService trabajadores;
+    private final List<CompletableFuture<Path>> pendientes = new ArrayList<>();
+
+    /**
+     * @param comandoJMeter comando base que lanza JMeter (p. ej. {@code [jmeter]} o {@code [java, -jar, ApacheJMeter.jar]})
+     * @param trabajadores  dashboards que pueden generarse a la vez
+     */
+    public GeneradorDashboardsDiferido(List<String> comandoJMeter, int trabajadores) {
+        this(comandoJMeter, trabajadores, TIMEOUT_PREDETERMINADO);
+    }
+
+    public GeneradorDashboardsDiferido(List<String> comandoJMeter, int trabajadores, Duration timeout) {
+        if (comandoJMeter.isEmpty()) {
+            throw new IllegalArgumentException("El comando de JMeter no puede estar vacío");
+        }
+        if (trabajadores <= 0) {
+            throw new IllegalArgumentException("trabajadores debe ser positivo");
+        }
+        this.comandoJMeter = List.copyOf(comandoJMeter);
+        this.timeout = timeout;
+        AtomicInteger contador = new AtomicInteger();
+        this.trabajadores = Executors.newFixedThreadPool(trabajadores, r -> {
+            Thread hilo = new Thread(r, "dashboard-jmeter-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            hilo.setPriority(Thread.MIN_PRIORITY);
+            return hilo;
+        });
+    }
+
+    /**
+     * Encola la generación del dashboard de un JTL ya cerrado; vuelve de inmediato
+     *
+     * @param archivoLog log de JMeter para esta generación, o null para descartarlo
+     * @return futuro con la carpeta del dashboard; falla si JMeter termina con error o sin index.html
+     */
+    public CompletableFuture<Path> encolar(Path archivoJTL, Path directorioHtml, Path archivoLog) {
+        CompletableFuture<Path> futuro = CompletableFuture.supplyAsync(() -> {
+            try {
+                return generar(archivoJTL, directorioHtml, archivoLog);
+            } catch (IOException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Generación de dashboard interrumpida: " + directorioHtml, e);
+            }
+        }, trabajadores);
+        synchronized (pendientes) {
+            pendientes.add(futuro);
+        }
+        return futuro;
+    }
+
+    /**
+     * Espera a que terminen todos los dashboards encolados desde la última espera
+     *
+     * @return carpetas generadas con éxito, en orden de encolado
+     */
+    public List<Path> esperarPendientes() {
+        List<CompletableFuture<Path>> copia;
+        synchronized (pendientes) {
+            copia = new ArrayList<>(pendientes);
+            pendientes.clear();
+        }
+        if (!copia.isEmpty()) {
+            LOGGER.info("⏳ Esperando " + copia.size() + " dashboards HTML en segundo plano...");
+        }
+        List<Path> generados = new ArrayList<>();
+        for (CompletableFuture<Path> futuro : copia) {
+            try {
+                generados.add(futuro.join());
+            } catch (Exception e) {
+                LOGGER.warning("⚠️ Dashboard no generado: " + e.getMessage());
+            }
+        }
+        return generados;
+    }
+
+    private Path generar(Path archivoJTL, Path directorioHtml, Path archivoLog)
+            throws IOException, InterruptedException {
+        if (!Files.isRegularFile(archivoJTL)) {
+            throw new IOException("JTL inexistente para el dashboard: " + archivoJTL);
+        }
+        // JMeter exige una carpeta de salida vacía o inexistente
+        Files.createDirectories(directorioHtml);
+
+        List<String> comando = new ArrayList<>();
+        if (!System.getProperty("os.name").toLowerCase().contains("win") && new File("/usr/bin/nice").canExecute()) {
+            comando.addAll(List.of("/usr/bin/nice", "-n", "10"));
+        }
+        comando.addAll(comandoJMeter);
+        comando.addAll(List.of("-g", archivoJTL.toAbsolutePath().toString(),
+                "-o", directorioHtml.toAbsolutePath().toString()));
+        if (archivoLog != null) {
+            comando.addAll(List.of("-j", archivoLog.toAbsolutePath().toString()));
+        }
+        comando.addAll(PROPIEDADES_REPORTE);
+
+        long inicio = System.nanoTime();
+        Process proceso = new ProcessBuilder(comando)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        if (!proceso.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            proceso.destroyForcibly();
+            throw new IOException("Timeout generando dashboard: " + directorioHtml);
+        }
+        if (proceso.exitValue() != 0) {
+            throw new IOException("JMeter -g terminó con código " + proceso.exitValue() + ": " + directorioHtml);
+        }
+        if (!Files.isRegularFile(directorioHtml.resolve("index.html"))) {
+            throw new IOException("Dashboard sin index.html: " + directorioHtml);
+        }
+
+        LOGGER.info(String.format("📊 Dashboard HTML generado en segundo plano (%d ms): %s",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), directorioHtml.resolve("index.html")));
+        return directorioHtml;
+    }
+
+    /**
+     * Espera los dashboards pendientes y libera los trabajadores
+     */
+    @Override
+    public void close() {
+        esperarPendientes();
+        trabajadores.shutdown();
+        try {
+            if (!trabajadores.awaitTermination(10, TimeUnit.SECONDS)) {
+                trabajadores.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            trabajadores.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.log(Level.FINE, "Generador de dashboards cerrado");
+    }
+}
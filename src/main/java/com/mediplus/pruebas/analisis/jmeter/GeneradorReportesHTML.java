@@ -225,42 +225,13 @@ public class GeneradorReportesHTML {
     }
 
     /**
-     * Combina múltiples archivos JTL en uno solo
+     * Combina múltiples archivos JTL en uno solo, ordenado por timeStamp
+     * Fusión k-way en streaming (ver {@link FusionJTL}): la memoria depende del número de archivos,
+     * no de su tamaño
      */
     private void combinarArchivosJTL(List<Path> archivosJTL, Path archivoSalida) throws IOException {
-        try (BufferedWriter writer = Files.newBufferedWriter(archivoSalida)) {
-            boolean primeraLinea = true;
-
-            for (Path archivo : archivosJTL) {
-                if (!Files.exists(archivo) || Files.size(archivo) == 0) {
-                    continue;
-                }
-
-                List<String> lineas = Files.readAllLines(archivo);
-
-                for (int i = 0; i < lineas.size(); i++) {
-                    String linea = lineas.get(i);
-
-                    // Escribir header solo una vez
-                    if (i == 0 && linea.contains("timeStamp")) {
-                        if (primeraLinea) {
-                            writer.write(linea);
-                            writer.newLine();
-                            primeraLinea = false;
-                        }
-                        continue;
-                    }
-
-                    // Escribir datos
-                    if (i > 0 || !linea.contains("timeStamp")) {
-                        writer.write(linea);
-                        writer.newLine();
-                    }
-                }
-            }
-        }
-
-        LOGGER.info("📄 Archivo JTL consolidado creado: " + archivoSalida.getFileName());
+        long filas = FusionJTL.fusionarPorTimeStamp(archivosJTL, archivoSalida);
+        LOGGER.info("📄 Archivo JTL consolidado creado: " + archivoSalida.getFileName() + " (" + filas + " filas)");
     }
 
     /**
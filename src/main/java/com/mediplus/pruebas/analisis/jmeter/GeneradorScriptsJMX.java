@@ -0,0 +1,298 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import com.mediplus.pruebas.analisis.carga.AlimentadorDatos;
+import com.mediplus.pruebas.analisis.carga.PlanCarga;
+import com.mediplus.pruebas.analisis.jmeter.EjecutorJMeterReal.ConfiguracionEscenario;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Generador de scripts JMX a partir de las plantillas de un {@link CatalogoEscenarios}
+ * El árbol de samplers de cada plantilla se arma una sola vez y se reutiliza; por escenario
+ * solo se formatean el Test Plan y el Thread Group, así las matrices grandes de escenarios
+ * se generan sin volver a recorrer la plantilla. En lote, varios escenarios comparten un único
+ * plan con sus Thread Groups en serie
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+final class GeneradorScriptsJMX {
+
+    private static final Logger LOGGER = Logger.getLogger(GeneradorScriptsJMX.class.getName());
+
+    private final CatalogoEscenarios catalogo;
+    private final Map<String, String> samplersPorPlantilla = new ConcurrentHashMap<>();
+
+    GeneradorScriptsJMX(CatalogoEscenarios catalogo) {
+        this.catalogo = catalogo;
+    }
+
+    Path generarScriptJMX(ConfiguracionEscenario config, Path directorioScripts, String timestamp)
+            throws IOException {
+        String nombreArchivo = String.format("%s_%du_%s.jmx",
+                normalizarNombre(config.nombre), config.usuariosConcurrentes, timestamp);
+
+        Path archivoJMX = directorioScripts.resolve(nombreArchivo);
+        Files.writeString(archivoJMX, generarContenido(config));
+        LOGGER.info("📄 Script JMX generado: " + archivoJMX.getFileName());
+
+        return archivoJMX;
+    }
+
+    /**
+     * Escribe un plan en lote con un Thread Group por escenario (ver {@link #generarContenidoLote})
+     */
+    Path generarScriptLoteJMX(String nombreLote, List<ConfiguracionEscenario> configs, Path directorioScripts,
+                              String timestamp) throws IOException {
+        Path archivoJMX = directorioScripts.resolve(
+                String.format("lote_%s_%de_%s.jmx", normalizarNombre(nombreLote), configs.size(), timestamp));
+        Files.writeString(archivoJMX, generarContenidoLote(nombreLote, configs));
+        LOGGER.info("📄 Script JMX en lote generado: " + archivoJMX.getFileName() +
+                " (" + configs.size() + " escenarios)");
+
+        return archivoJMX;
+    }
+
+    String generarContenido(ConfiguracionEscenario config) {
+        CatalogoEscenarios.Plantilla plantilla = catalogo.plantilla(config.tipoOperacion);
+        return generarPlan(String.format("Test Plan %s - %s", plantilla.getNombre(), config.nombre),
+                config.descripcion, false, generarThreadGroup(config));
+    }
+
+    /**
+     * Plan único con los Thread Groups de todos los escenarios, ejecutados uno tras otro
+     * ({@code serialize_threadgroups}) dentro de la misma JVM. Cada Thread Group se llama como su
+     * escenario, que es el prefijo del threadName con el que {@link DivisionJTL} separa el JTL
+     */
+    String generarContenidoLote(String nombreLote, List<ConfiguracionEscenario> configs) {
+        Set<String> nombres = new HashSet<>();
+        StringBuilder threadGroups = new StringBuilder();
+        for (ConfiguracionEscenario config : configs) {
+            if (!nombres.add(config.nombre)) {
+                throw new IllegalArgumentException("Escenario repetido en el lote: " + config.nombre);
+            }
+            threadGroups.append(generarThreadGroup(config));
+        }
+        String escenarios = configs.stream().map(c -> c.nombre).collect(Collectors.joining(", "));
+        return generarPlan("Test Plan Lote " + nombreLote, "Lote en serie: " + escenarios, true,
+                threadGroups.toString());
+    }
+
+    private String generarPlan(String nombrePlan, String comentario, boolean serializar, String threadGroups) {
+        return String.format("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <jmeterTestPlan version="1.2" properties="5.0" jmeter="5.6.3">
+                  <hashTree>
+                    <TestPlan guiclass="TestPlanGui" testclass="TestPlan" testname="%s">
+                      <stringProp name="TestPlan.comments">Generado automáticamente para: %s</stringProp>
+                      <boolProp name="TestPlan.functional_mode">false</boolProp>
+                      <boolProp name="TestPlan.serialize_threadgroups">%b</boolProp>
+                      <elementProp name="TestPlan.arguments" elementType="Arguments" guiclass="ArgumentsPanel">
+                        <collectionProp name="Arguments.arguments"/>
+                      </elementProp>
+                      <stringProp name="TestPlan.user_define_classpath"></stringProp>
+                    </TestPlan>
+                    <hashTree>
+                %s    </hashTree>
+                  </hashTree>
+                </jmeterTestPlan>
+                """,
+                escaparXml(nombrePlan), escaparXml(comentario), serializar, threadGroups);
+    }
+
+    private String generarThreadGroup(ConfiguracionEscenario config) {
+        CatalogoEscenarios.Plantilla plantilla = catalogo.plantilla(config.tipoOperacion);
+        String samplers = samplersPorPlantilla.computeIfAbsent(plantilla.getNombre(), nombre -> generarSamplers(plantilla));
+        int iteraciones = Math.max(1,
+                calcularIteraciones(config.duracionSegundos, config.usuariosConcurrentes) / plantilla.getDivisorIteraciones());
+
+        return String.format("""
+                      <ThreadGroup guiclass="ThreadGroupGui" testclass="ThreadGroup" testname="%s">
+                        <stringProp name="ThreadGroup.on_sample_error">continue</stringProp>
+                        <elementProp name="ThreadGroup.main_controller" elementType="LoopController">
+                          <boolProp name="LoopController.continue_forever">false</boolProp>
+                          <intProp name="LoopController.loops">%d</intProp>
+                        </elementProp>
+                        <stringProp name="ThreadGroup.num_threads">%d</stringProp>
+                        <stringProp name="ThreadGroup.ramp_time">%d</stringProp>
+                        <boolProp name="ThreadGroup.scheduler">false</boolProp>
+                        <stringProp name="ThreadGroup.duration">%d</stringProp>
+                        <stringProp name="ThreadGroup.delay"></stringProp>
+                      </ThreadGroup>
+                      <hashTree>
+                %s      </hashTree>
+                """,
+                escaparXml(config.nombre), iteraciones, config.usuariosConcurrentes,
+                plantilla.getRampa().toSeconds(), config.duracionSegundos, samplers);
+    }
+
+    // ==================== ÁRBOL DE LA PLANTILLA ====================
+
+    private String generarSamplers(CatalogoEscenarios.Plantilla plantilla) {
+        StringBuilder arbol = new StringBuilder();
+        if (plantilla.getArchivoDatos() != null) {
+            // Sin variableNames JMeter toma los nombres de la cabecera; no hay modo aleatorio, se recorre en orden
+            boolean unico = plantilla.getModoDatos() == AlimentadorDatos.Modo.UNICO;
+            arbol.append(String.format("""
+                    <CSVDataSet guiclass="TestBeanGUI" testclass="CSVDataSet" testname="Datos de prueba">
+                      <stringProp name="filename">%s</stringProp>
+                      <stringProp name="fileEncoding">UTF-8</stringProp>
+                      <stringProp name="variableNames"></stringProp>
+                      <boolProp name="ignoreFirstLine">false</boolProp>
+                      <stringProp name="delimiter">,</stringProp>
+                      <boolProp name="quotedData">true</boolProp>
+                      <boolProp name="recycle">%b</boolProp>
+                      <boolProp name="stopThread">%b</boolProp>
+                      <stringProp name="shareMode">shareMode.all</stringProp>
+                    </CSVDataSet>
+                    <hashTree/>
+                    """, escaparXml(plantilla.getArchivoDatos().toAbsolutePath().toString()), !unico, unico));
+        }
+        if (!plantilla.getPausa().isZero() || !plantilla.getPausaAleatoria().isZero()) {
+            // Tiempo de reflexión antes de cada sampler, igual que la pausa del motor virtual
+            arbol.append(String.format("""
+                    <UniformRandomTimer guiclass="UniformRandomTimerGui" testclass="UniformRandomTimer" testname="Think Time">
+                      <stringProp name="ConstantTimer.delay">%d</stringProp>
+                      <stringProp name="RandomTimer.range">%d</stringProp>
+                    </UniformRandomTimer>
+                    <hashTree/>
+                    """, plantilla.getPausa().toMillis(), plantilla.getPausaAleatoria().toMillis()));
+        }
+
+        StringBuilder samplers = new StringBuilder();
+        for (CatalogoEscenarios.PeticionPlantilla peticion : plantilla.getPeticiones()) {
+            String sampler = generarSampler(plantilla, peticion);
+            // El peso se expresa repitiendo el sampler: el Random Controller elige entre hijos por igual
+            samplers.append(sampler.repeat(peticion.peso()));
+        }
+
+        if (plantilla.getSeleccion() == PlanCarga.Seleccion.ALEATORIA) {
+            arbol.append("""
+                    <RandomController guiclass="RandomControllerGui" testclass="RandomController" testname="Random Controller">
+                      <intProp name="InterleaveControl.style">1</intProp>
+                    </RandomController>
+                    <hashTree>
+                    """)
+                    .append(samplers.toString().indent(2))
+                    .append("</hashTree>\n");
+        } else {
+            arbol.append(samplers);
+        }
+        return arbol.toString().indent(8);
+    }
+
+    private String generarSampler(CatalogoEscenarios.Plantilla plantilla, CatalogoEscenarios.PeticionPlantilla peticion) {
+        URI urlBase = catalogo.getUrlBase();
+        StringBuilder sampler = new StringBuilder();
+        sampler.append(String.format("""
+                <HTTPSamplerProxy guiclass="HttpTestSampleGui" testclass="HTTPSamplerProxy" testname="%s">
+                """, escaparXml(peticion.etiqueta())));
+        if (peticion.cuerpo() != null) {
+            sampler.append(String.format("""
+                      <boolProp name="HTTPSampler.postBodyRaw">true</boolProp>
+                      <elementProp name="HTTPsampler.Arguments" elementType="Arguments">
+                        <collectionProp name="Arguments.arguments">
+                          <elementProp name="" elementType="HTTPArgument">
+                            <boolProp name="HTTPArgument.always_encode">false</boolProp>
+                            <stringProp name="Argument.value">%s</stringProp>
+                            <stringProp name="Argument.metadata">=</stringProp>
+                          </elementProp>
+                        </collectionProp>
+                      </elementProp>
+                    """, escaparXml(peticion.cuerpo().getTexto())));
+        } else {
+            sampler.append("""
+                      <elementProp name="HTTPsampler.Arguments" elementType="Arguments">
+                        <collectionProp name="Arguments.arguments"/>
+                      </elementProp>
+                    """);
+        }
+        sampler.append(String.format("""
+                  <stringProp name="HTTPSampler.domain">%s</stringProp>
+                  <stringProp name="HTTPSampler.port">%s</stringProp>
+                  <stringProp name="HTTPSampler.protocol">%s</stringProp>
+                  <stringProp name="HTTPSampler.path">%s</stringProp>
+                  <stringProp name="HTTPSampler.method">%s</stringProp>
+                  <boolProp name="HTTPSampler.follow_redirects">true</boolProp>
+                  <boolProp name="HTTPSampler.auto_redirects">false</boolProp>
+                  <boolProp name="HTTPSampler.use_keepalive">true</boolProp>
+                  <boolProp name="HTTPSampler.DO_MULTIPART_POST">false</boolProp>
+                  <stringProp name="HTTPSampler.embedded_url_re"></stringProp>
+                  <stringProp name="HTTPSampler.connect_timeout">%d</stringProp>
+                  <stringProp name="HTTPSampler.response_timeout">%d</stringProp>
+                </HTTPSamplerProxy>
+                <hashTree>
+                """,
+                escaparXml(urlBase.getHost()), urlBase.getPort() > 0 ? String.valueOf(urlBase.getPort()) : "",
+                urlBase.getScheme(), escaparXml(peticion.ruta()), peticion.metodo(),
+                plantilla.getTimeoutConexion().toMillis(), plantilla.getTimeoutRespuesta().toMillis()));
+        if (peticion.cuerpo() != null) {
+            sampler.append("""
+                      <HeaderManager guiclass="HeaderPanel" testclass="HeaderManager" testname="HTTP Header Manager">
+                        <collectionProp name="HeaderManager.headers">
+                          <elementProp name="" elementType="Header">
+                            <stringProp name="Header.name">Content-Type</stringProp>
+                            <stringProp name="Header.value">application/json</stringProp>
+                          </elementProp>
+                          <elementProp name="" elementType="Header">
+                            <stringProp name="Header.name">Accept</stringProp>
+                            <stringProp name="Header.value">application/json</stringProp>
+                          </elementProp>
+                        </collectionProp>
+                      </HeaderManager>
+                      <hashTree/>
+                    """);
+        }
+        String codigo = String.valueOf(peticion.codigoEsperado());
+        sampler.append(String.format("""
+                  <ResponseAssertion guiclass="AssertionGui" testclass="ResponseAssertion" testname="Response Code Assertion">
+                    <collectionProp name="Asserion.test_strings">
+                      <stringProp name="%d">%s</stringProp>
+                    </collectionProp>
+                    <stringProp name="Assertion.test_field">Assertion.response_code</stringProp>
+                    <boolProp name="Assertion.assume_success">false</boolProp>
+                    <intProp name="Assertion.test_type">1</intProp>
+                  </ResponseAssertion>
+                  <hashTree/>
+                </hashTree>
+                """, codigo.hashCode(), codigo));
+        return sampler.toString();
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    private int calcularIteraciones(int duracionSegundos, int usuarios) {
+        // Calcular iteraciones para mantener carga durante la duración especificada
+        // Más usuarios = menos iteraciones por usuario para evitar sobrecarga
+        int baseIteraciones = Math.max(1, duracionSegundos / 10);
+        if (usuarios <= 10) return baseIteraciones * 3;
+        if (usuarios <= 25) return baseIteraciones * 2;
+        return baseIteraciones;
+    }
+
+    static String normalizarNombre(String nombre) {
+        return nombre.toLowerCase()
+                .replace(" ", "_")
+                .replace("+", "")
+                .replace("ñ", "n");
+    }
+
+    private static String escaparXml(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        return texto.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;");
+    }
+}
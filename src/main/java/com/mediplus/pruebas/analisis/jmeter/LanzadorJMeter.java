@@ -1,5 +1,7 @@
 package com.mediplus.pruebas.analisis.jmeter;
 
+import com.mediplus.pruebas.analisis.configuracion.ConfiguracionAplicacion;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -24,7 +26,8 @@ import java.util.stream.Collectors;
  *   <li>Logs de JMeter en {@code evidencias_jmeter_logs/}</li>
  * </ul>
  *
- * <p>Ejecuta JMeter vía {@code java -jar ApacheJMeter.jar} (sin ir al /bin).</p>
+ * <p>Ejecuta JMeter vía {@code java -jar ApacheJMeter.jar} (sin ir al /bin). Cada plan solo escribe su .jtl;
+ * el dashboard HTML se genera en segundo plano con {@code -g} mientras corre el plan siguiente.</p>
  * <p>Java 21, principios SOLID y nombres en español.</p>
  */
 public final class LanzadorJMeter {
@@ -82,27 +85,40 @@ public final class LanzadorJMeter {
             }
 
             var ejecutor = new EjecutorJMeter(resolverRutaJMeterJar(), JAVA_EXE);
-            System.out.printf("=== Ejecutando %d escenario(s) en %s ===%n",
-                    escenarios.size(), CARPETA_PLANES.toAbsolutePath());
-
             boolean todoOk = true;
-            for (EscenarioJMeter esc : escenarios) {
-                System.out.printf("%n--- Plan: %s%n", esc.nombrePlan());
-                try {
-                    ResultadoEjecucion r = ejecutor.ejecutar(esc);
-                    if (!r.salidaStd().isBlank()) System.out.print(r.salidaStd());
-                    if (!r.errorStd().isBlank())  System.err.print(r.errorStd());
-
-                    if (r.codigoSalida() != 0) {
+            // close() espera los dashboards pendientes también si el ciclo termina por una excepción
+            try (var dashboards = new GeneradorDashboardsDiferido(
+                    List.of(JAVA_EXE, "-jar", resolverRutaJMeterJar().toAbsolutePath().toString()),
+                    ConfiguracionAplicacion.obtenerInstancia().obtenerTrabajadoresReportesHTML())) {
+                System.out.printf("=== Ejecutando %d escenario(s) en %s ===%n",
+                        escenarios.size(), CARPETA_PLANES.toAbsolutePath());
+
+                for (EscenarioJMeter esc : escenarios) {
+                    System.out.printf("%n--- Plan: %s%n", esc.nombrePlan());
+                    try {
+                        ResultadoEjecucion r = ejecutor.ejecutar(esc);
+                        if (!r.salidaStd().isBlank()) System.out.print(r.salidaStd());
+                        if (!r.errorStd().isBlank())  System.err.print(r.errorStd());
+
+                        if (r.codigoSalida() != 0) {
+                            todoOk = false;
+                            System.err.printf("⚠️  Falló (exit=%d). Log: %s%n", r.codigoSalida(), esc.rutaLog());
+                        } else {
+                            System.out.printf("✅ OK  → %s%n", esc.rutaJtl());
+                            // El dashboard no frena al plan siguiente
+                            dashboards.encolar(esc.rutaJtl(), esc.rutaCarpetaHtml(),
+                                    CARPETA_LOGS.resolve(quitarExtension(esc.rutaLog().getFileName().toString()) + "_dashboard.log"))
+                                    .whenComplete((carpeta, error) -> {
+                                        if (error != null) System.err.printf("⚠️  Dashboard de '%s' no generado: %s%n",
+                                                esc.nombrePlan(), error.getMessage());
+                                        else System.out.printf("📊 Dashboard → %s%n", carpeta.resolve("index.html"));
+                                    });
+                        }
+                    } catch (Exception e) {
                         todoOk = false;
-                        System.err.printf("⚠️  Falló (exit=%d). Log: %s%n", r.codigoSalida(), esc.rutaLog());
-                    } else {
-                        System.out.printf("✅ OK  → %s%n", esc.rutaCarpetaHtml().resolve("index.html"));
+                        System.err.printf("❌ Error en '%s': %s%n", esc.nombrePlan(), e.getMessage());
+                        e.printStackTrace(System.err);
                     }
-                } catch (Exception e) {
-                    todoOk = false;
-                    System.err.printf("❌ Error en '%s': %s%n", esc.nombrePlan(), e.getMessage());
-                    e.printStackTrace(System.err);
                 }
             }
 
@@ -230,7 +246,7 @@ public final class LanzadorJMeter {
 
     /**
      * Única responsabilidad: armar y ejecutar
-     * <pre>java -jar ApacheJMeter.jar -n -t ... -l ... -e -o ... -j ...</pre>
+     * <pre>java -jar ApacheJMeter.jar -n -t ... -l ... -j ...</pre>
      * y devolver stdout/stderr/código de salida.
      */
     public static final class EjecutorJMeter {
@@ -248,7 +264,7 @@ public final class LanzadorJMeter {
         }
 
         /**
-         * Propósito: ejecutar un escenario .jmx en modo no-GUI dejando resultados y reportes.
+         * Propósito: ejecutar un escenario .jmx en modo no-GUI dejando resultados y log (el HTML va aparte).
          * @param esc Escenario con rutas (.jmx, .jtl, carpeta HTML, log).
          * @return Resultado de la ejecución.
          */
@@ -260,15 +276,12 @@ public final class LanzadorJMeter {
                 // No borramos históricos: como la carpeta lleva timestamp, no debería existir.
                 throw new IOException("La carpeta HTML ya existe y debe ser nueva: " + esc.rutaCarpetaHtml());
             }
-            Files.createDirectories(esc.rutaCarpetaHtml());
 
             List<String> cmd = List.of(
                     javaExe, "-jar", rutaJmeterJar.toAbsolutePath().toString(),
                     "-n",
                     "-t", esc.rutaJmx().toAbsolutePath().toString(),
                     "-l", esc.rutaJtl().toAbsolutePath().toString(),
-                    "-e",
-                    "-o", esc.rutaCarpetaHtml().toAbsolutePath().toString(),
                     "-j", esc.rutaLog().toAbsolutePath().toString()
             );
 
@@ -303,7 +316,7 @@ public final class LanzadorJMeter {
 
     /** Métricas básicas consolidadas a partir de un .jtl CSV. */
     private record Metricas(long total, long exitos, long fallos,
-                            long duracionSeg, double avgMs, double p90, double p95, double throughput) {
+                            long duracionSeg, double avgMs, double p90, double p95, double p99, double throughput) {
         boolean ok() { return total > 0 && fallos == 0; }
     }
 
@@ -343,78 +356,28 @@ public final class LanzadorJMeter {
         return "-";
     }
 
-    /** Lee un .jtl (con o sin cabecera) y calcula total, éxitos, p90/p95, avg, duración y throughput. */
+    /** Lee un .jtl (con o sin cabecera) y calcula total, éxitos, p90/p95/p99, avg, duración y throughput. */
     private static Metricas calcularMetricasDesdeJtl(Path jtl) throws IOException {
-        if (!Files.isRegularFile(jtl)) return new Metricas(0,0,0,0,0,0,0,0);
-
-        List<String> lines = Files.readAllLines(jtl, StandardCharsets.UTF_8)
-                .stream().filter(s -> !s.isBlank()).toList();
-        if (lines.isEmpty()) return new Metricas(0,0,0,0,0,0,0,0);
-
-        int start = 0;
-        int idxTs, idxElapsed, idxSuccess;
-
-        // Soportar JTL con y sin cabecera (JMeter por defecto puede no imprimir cabecera)
-        String first = lines.get(0);
-        if (first.toLowerCase(Locale.ROOT).contains("timestamp") || first.toLowerCase(Locale.ROOT).contains("timeStamp".toLowerCase())) {
-            String[] hdr = first.split(",", -1);
-            idxElapsed = indexOf(hdr, "elapsed");
-            idxSuccess = indexOf(hdr, "success");
-            idxTs      = Math.max(indexOf(hdr, "timeStamp"), indexOf(hdr, "timestamp"));
-            start = 1;
-        } else {
-            // Layout por defecto (sin cabecera): timeStamp, elapsed, label, responseCode, responseMessage,
-            // threadName, dataType, success, failureMessage, bytes, sentBytes, grpThreads, allThreads,
-            // URL, Latency, IdleTime, Connect
-            idxTs = 0; idxElapsed = 1; idxSuccess = 7;
-        }
+        if (!Files.isRegularFile(jtl)) return new Metricas(0,0,0,0,0,0,0,0,0);
 
-        if (idxElapsed < 0 || idxSuccess < 0 || idxTs < 0) return new Metricas(0,0,0,0,0,0,0,0);
-
-        List<Integer> elapsed = new ArrayList<>();
-        List<Long>    stamps  = new ArrayList<>();
-        long total=0, exitos=0;
-
-        for (int i = start; i < lines.size(); i++) {
-            String[] c = lines.get(i).split(",", -1);
-            try {
-                int e = Integer.parseInt(c[idxElapsed].trim());
-                boolean ok = "true".equalsIgnoreCase(c[idxSuccess].trim());
-                long ts = Long.parseLong(c[idxTs].trim());
-                elapsed.add(e);
-                stamps.add(ts);
-                total++;
-                if (ok) exitos++;
-            } catch (Exception ignore) { /* línea defectuosa */ }
-        }
-
-        long fallos = total - exitos;
-        if (total == 0) return new Metricas(0,0,0,0,0,0,0,0);
+        // Lectura en streaming: acumuladores primitivos + histograma, sin listas ni ordenamiento.
+        // Los .jtl grandes se reparten por bloques entre los núcleos disponibles (fork-join)
+        return aMetricas(AgregacionParalelaJTL.agregar(jtl));
+    }
 
-        long minTs = stamps.stream().mapToLong(Long::longValue).min().orElse(0L);
-        long maxTs = stamps.stream().mapToLong(Long::longValue).max().orElse(0L);
-        long durSeg = Math.max(1, (maxTs - minTs) / 1000);  // evitar división por cero
+    /** Convierte los acumuladores de un .jtl en las métricas del dashboard final. */
+    private static Metricas aMetricas(AgregadorMetricasJTL agregador) {
+        long total = agregador.getTotalMuestras();
+        if (total == 0) return new Metricas(0,0,0,0,0,0,0,0,0);
 
-        double avg = elapsed.stream().mapToInt(Integer::intValue).average().orElse(0);
-        Collections.sort(elapsed);
-        double p90 = percentile(elapsed, 0.90);
-        double p95 = percentile(elapsed, 0.95);
+        long durSeg = Math.max(1, agregador.getDuracionMs() / 1000);  // evitar división por cero
         double thr = total / (double) durSeg;
 
-        return new Metricas(total, exitos, fallos, durSeg, round(avg), round(p90), round(p95), round(thr));
+        return new Metricas(total, agregador.getTotalExitos(), agregador.getTotalErrores(), durSeg,
+                round(agregador.getPromedioMs()), round(agregador.percentilMs(90)),
+                round(agregador.percentilMs(95)), round(agregador.percentilMs(99)), round(thr));
     }
 
-    private static int indexOf(String[] headers, String name) {
-        for (int i=0;i<headers.length;i++) if (headers[i].trim().equalsIgnoreCase(name)) return i;
-        return -1;
-    }
-    private static double percentile(List<Integer> sorted, double q) {
-        if (sorted.isEmpty()) return 0;
-        double pos = q * (sorted.size() - 1);
-        int lo = (int) Math.floor(pos), hi = (int) Math.ceil(pos);
-        if (lo == hi) return sorted.get(lo);
-        return sorted.get(lo) + (pos - lo) * (sorted.get(hi) - sorted.get(lo));
-    }
     private static double round(double x) { return Math.round(x * 100.0) / 100.0; }
 
     /** HTML minimalista para el dashboard final (similar al de tu captura). */
@@ -440,7 +403,7 @@ public final class LanzadorJMeter {
 
         sb.append("<div class='card'><table><thead><tr>")
                 .append("<th>Escenario</th><th>Usuarios</th><th>Duración (s)</th>")
-                .append("<th>Tiempo Prom. (ms)</th><th>P90 (ms)</th><th>P95 (ms)</th>")
+                .append("<th>Tiempo Prom. (ms)</th><th>P90 (ms)</th><th>P95 (ms)</th><th>P99 (ms)</th>")
                 .append("<th>Throughput (req/s)</th><th>Tasa Error (%)</th><th>Estado</th>")
                 .append("</tr></thead><tbody>");
 
@@ -454,6 +417,7 @@ public final class LanzadorJMeter {
                     .append("<td>").append(m.avgMs()).append("</td>")
                     .append("<td>").append(m.p90()).append("</td>")
                     .append("<td>").append(m.p95()).append("</td>")
+                    .append("<td>").append(m.p99()).append("</td>")
                     .append("<td>").append(m.throughput()).append("</td>")
                     .append("<td>").append(round(errPct)).append("</td>")
                     .append("<td class='").append(ok ? "ok" : "fail").append("'>")
@@ -0,0 +1,879 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Lector secuencial de archivos JTL basado en un canal NIO, único punto de lectura de JTL del proyecto
+ * Lee el archivo por bloques grandes sobre un buffer fijo y expone cada fila como un cursor
+ * reutilizable: los campos se parsean directamente desde los bytes, sin crear Strings por línea,
+ * por lo que la memoria utilizada no depende del tamaño del archivo
+ *
+ * <pre>
+ * try (LectorJTL lector = LectorJTL.abrir(archivo)) {
+ *     while (lector.siguiente()) {
+ *         long elapsed = lector.elapsed();
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>Formatos soportados (se detectan al abrir):</p>
+ * <ul>
+ *   <li>CSV con cabecera (resuelta una sola vez, sin distinguir mayúsculas) o sin ella, usando el
+ *       layout por defecto de JMeter. Los campos entre comillas pueden contener comas, saltos de línea
+ *       y comillas dobles escapadas ({@code ""}), como los escribe JMeter en {@code responseMessage}
+ *       o {@code failureMessage}</li>
+ *   <li>XML ({@code <testResults>}): cada {@code <httpSample>} o {@code <sample>} de primer nivel es una
+ *       fila y sus atributos ({@code ts}, {@code t}, {@code lb}, {@code s}...) se exponen con los mismos
+ *       nombres de columna que el CSV; los sub-resultados anidados se omiten</li>
+ * </ul>
+ *
+ * <p>En CSV también puede recorrer solo un segmento {@code [inicio, fin)} del archivo (ver
+ * {@link #abrirSegmento}), reutilizando las columnas ya resueltas; así varios hilos
+ * procesan bloques distintos del mismo JTL en paralelo.</p>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class LectorJTL implements Closeable {
+
+    /** Formato del archivo detectado al abrirlo */
+    public enum Formato { CSV, XML }
+
+    /** Valor devuelto por los accesores numéricos cuando el campo no existe o no es numérico */
+    public static final long VALOR_INVALIDO = Long.MIN_VALUE;
+
+    private static final int TAMANO_BUFFER_DEFAULT = 1 << 20; // 1 MB
+    private static final int CAMPOS_INICIALES = 32;
+
+    // Layout por defecto de JMeter cuando el JTL no trae cabecera
+    private static final List<String> COLUMNAS_POR_DEFECTO = List.of(
+            "timeStamp", "elapsed", "label", "responseCode", "responseMessage",
+            "threadName", "dataType", "success", "failureMessage", "bytes", "sentBytes",
+            "grpThreads", "allThreads", "URL", "Latency", "IdleTime", "Connect");
+
+    // Atributos de una muestra XML y la columna equivalente del layout por defecto
+    private static final String[][] ATRIBUTOS_XML = {
+            {"ts", "timeStamp"}, {"t", "elapsed"}, {"lb", "label"}, {"rc", "responseCode"},
+            {"rm", "responseMessage"}, {"tn", "threadName"}, {"dt", "dataType"}, {"s", "success"},
+            {"by", "bytes"}, {"sby", "sentBytes"}, {"ng", "grpThreads"}, {"na", "allThreads"},
+            {"lt", "Latency"}, {"it", "IdleTime"}, {"ct", "Connect"}};
+    private static final byte[][] NOMBRES_ATRIBUTOS_XML = new byte[ATRIBUTOS_XML.length][];
+    private static final int[] COLUMNAS_ATRIBUTOS_XML = new int[ATRIBUTOS_XML.length];
+
+    static {
+        for (int i = 0; i < ATRIBUTOS_XML.length; i++) {
+            NOMBRES_ATRIBUTOS_XML[i] = ATRIBUTOS_XML[i][0].getBytes(StandardCharsets.US_ASCII);
+            COLUMNAS_ATRIBUTOS_XML[i] = COLUMNAS_POR_DEFECTO.indexOf(ATRIBUTOS_XML[i][1]);
+        }
+    }
+
+    private static final byte[] VERDADERO = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ETIQUETA_HTTP_SAMPLE = "httpSample".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ETIQUETA_SAMPLE = "sample".getBytes(StandardCharsets.US_ASCII);
+
+    // Tipo de escape de cada campo: determina cómo se decodifica el texto
+    private static final byte SIN_ESCAPE = 0;
+    private static final byte ESCAPE_CSV = 1;  // contiene "" dentro de un campo entre comillas
+    private static final byte ESCAPE_XML = 2;  // contiene entidades &...;
+
+    private final FileChannel canal;
+    private final boolean propietarioCanal;
+    private final long limiteCanal;
+    private long posicionCanal;
+    private final long inicioDatos;
+    private final Formato formato;
+
+    private byte[] buffer;
+    private int finDatos;      // bytes válidos en buffer: [0, finDatos)
+    private int cursor;        // próxima posición sin leer dentro del buffer
+    private boolean canalAgotado;
+
+    private int[] inicioCampos = new int[CAMPOS_INICIALES];
+    private int[] finCampos = new int[CAMPOS_INICIALES];
+    private byte[] escapeCampos = new byte[CAMPOS_INICIALES];
+    private int numeroCampos;
+    private boolean filaPendiente;
+    private int profundidadXml;
+
+    private final List<String> nombresColumnas;
+    private final Map<String, Integer> columnas;
+    private final boolean conCabecera;
+    private final int idxTimeStamp;
+    private final int idxElapsed;
+    private final int idxLabel;
+    private final int idxSuccess;
+    private final int idxLatency;
+
+    private LectorJTL(FileChannel canal, int tamanoBuffer) throws IOException {
+        this.canal = canal;
+        this.propietarioCanal = true;
+        this.limiteCanal = canal.size();
+        this.buffer = new byte[tamanoBuffer];
+
+        saltarPreambulo();
+        this.formato = cursor < finDatos && buffer[cursor] == '<' ? Formato.XML : Formato.CSV;
+
+        if (formato == Formato.XML) {
+            this.nombresColumnas = COLUMNAS_POR_DEFECTO;
+            this.conCabecera = false;
+            this.inicioDatos = posicionActual();
+        } else {
+            // Resolver la cabecera una sola vez: si la primera línea no la trae se asume el layout por defecto
+            long inicioPrimeraLinea = posicionActual();
+            boolean hayPrimeraLinea = leerLinea();
+            if (hayPrimeraLinea && esCabecera()) {
+                List<String> nombres = new ArrayList<>(numeroCampos);
+                for (int i = 0; i < numeroCampos; i++) {
+                    nombres.add(campoTexto(i));
+                }
+                this.nombresColumnas = List.copyOf(nombres);
+                this.conCabecera = true;
+                this.inicioDatos = posicionActual();
+            } else {
+                this.nombresColumnas = COLUMNAS_POR_DEFECTO;
+                this.conCabecera = false;
+                this.filaPendiente = hayPrimeraLinea;
+                this.inicioDatos = inicioPrimeraLinea;
+            }
+        }
+        this.columnas = indexarColumnas(nombresColumnas);
+
+        this.idxTimeStamp = indiceColumna("timeStamp");
+        this.idxElapsed = indiceColumna("elapsed");
+        this.idxLabel = indiceColumna("label");
+        this.idxSuccess = indiceColumna("success");
+        this.idxLatency = indiceColumna("Latency");
+    }
+
+    /**
+     * Lector de un segmento: comparte canal y columnas con el lector original
+     */
+    private LectorJTL(LectorJTL original, long inicio, long fin, int tamanoBuffer) {
+        this.canal = original.canal;
+        this.propietarioCanal = false;
+        this.limiteCanal = fin;
+        this.posicionCanal = inicio;
+        this.inicioDatos = inicio;
+        this.formato = original.formato;
+        this.buffer = new byte[tamanoBuffer];
+        this.nombresColumnas = original.nombresColumnas;
+        this.columnas = original.columnas;
+        this.conCabecera = original.conCabecera;
+        this.idxTimeStamp = original.idxTimeStamp;
+        this.idxElapsed = original.idxElapsed;
+        this.idxLabel = original.idxLabel;
+        this.idxSuccess = original.idxSuccess;
+        this.idxLatency = original.idxLatency;
+    }
+
+    /**
+     * Abre un archivo JTL para lectura secuencial
+     */
+    public static LectorJTL abrir(Path archivoJTL) throws IOException {
+        return abrir(archivoJTL, TAMANO_BUFFER_DEFAULT);
+    }
+
+    /**
+     * Abre un archivo JTL indicando el tamaño del buffer de lectura
+     */
+    public static LectorJTL abrir(Path archivoJTL, int tamanoBuffer) throws IOException {
+        FileChannel canal = FileChannel.open(archivoJTL, StandardOpenOption.READ);
+        try {
+            return new LectorJTL(canal, Math.max(tamanoBuffer, 1024));
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Avanza el cursor a la siguiente fila con contenido
+     *
+     * @return false cuando no quedan filas
+     */
+    public boolean siguiente() throws IOException {
+        if (filaPendiente) {
+            filaPendiente = false;
+            return true;
+        }
+        if (formato == Formato.XML) {
+            return leerMuestraXml();
+        }
+        while (leerLinea()) {
+            if (numeroCampos > 1 || finCampos[0] > inicioCampos[0]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ==================== ACCESORES DE LA FILA ACTUAL ====================
+
+    public long timeStamp() {
+        return campoLong(idxTimeStamp);
+    }
+
+    public long elapsed() {
+        return campoLong(idxElapsed);
+    }
+
+    public long latencia() {
+        return campoLong(idxLatency);
+    }
+
+    /**
+     * Indica si la muestra fue exitosa; si el JTL no trae la columna se asume éxito
+     */
+    public boolean exito() {
+        if (idxSuccess < 0 || idxSuccess >= numeroCampos || finCampos[idxSuccess] == inicioCampos[idxSuccess]) {
+            return true;
+        }
+        return campoIgualIgnorandoMayusculas(idxSuccess, VERDADERO);
+    }
+
+    /**
+     * Etiqueta del sampler (crea un String, usar solo fuera de bucles críticos)
+     */
+    public String label() {
+        return idxLabel >= 0 && idxLabel < numeroCampos ? campoTexto(idxLabel) : "Unknown";
+    }
+
+    /**
+     * Código de la etiqueta del sampler en el diccionario, sin crear Strings para etiquetas ya vistas
+     */
+    public int codigoLabel(DiccionarioEtiquetas diccionario) {
+        if (idxLabel >= 0 && idxLabel < numeroCampos) {
+            if (escapeCampos[idxLabel] != SIN_ESCAPE) {
+                String texto = campoTexto(idxLabel);
+                return diccionario.codificar(texto.isEmpty() ? "Unknown" : texto);
+            }
+            int inicio = inicioCampos[idxLabel];
+            int fin = finCampos[idxLabel];
+            while (inicio < fin && buffer[inicio] == ' ') inicio++;
+            while (fin > inicio && buffer[fin - 1] == ' ') fin--;
+            if (inicio < fin) {
+                return diccionario.codificar(buffer, inicio, fin);
+            }
+        }
+        return diccionario.codificar("Unknown");
+    }
+
+    /**
+     * Parsea un campo numérico directamente desde los bytes del buffer
+     */
+    public long campoLong(int indice) {
+        if (indice < 0 || indice >= numeroCampos) {
+            return VALOR_INVALIDO;
+        }
+        int inicio = inicioCampos[indice];
+        int fin = finCampos[indice];
+        while (inicio < fin && buffer[inicio] == ' ') inicio++;
+        while (fin > inicio && buffer[fin - 1] == ' ') fin--;
+        if (inicio == fin) {
+            return VALOR_INVALIDO;
+        }
+
+        boolean negativo = buffer[inicio] == '-';
+        if (negativo && ++inicio == fin) {
+            return VALOR_INVALIDO;
+        }
+
+        long valor = 0;
+        for (int i = inicio; i < fin; i++) {
+            int digito = buffer[i] - '0';
+            if (digito < 0 || digito > 9) {
+                return VALOR_INVALIDO;
+            }
+            valor = valor * 10 + digito;
+        }
+        return negativo ? -valor : valor;
+    }
+
+    /**
+     * Devuelve el campo como texto sin espacios laterales, ya sin comillas ni entidades XML
+     */
+    public String campoTexto(int indice) {
+        if (indice < 0 || indice >= numeroCampos) {
+            return "";
+        }
+        String texto = new String(buffer, inicioCampos[indice], finCampos[indice] - inicioCampos[indice],
+                StandardCharsets.UTF_8);
+        return switch (escapeCampos[indice]) {
+            case ESCAPE_CSV -> texto.replace("\"\"", "\"").trim();
+            case ESCAPE_XML -> decodificarEntidades(texto).trim();
+            default -> texto.trim();
+        };
+    }
+
+    /**
+     * Escribe la fila actual en CSV con las columnas indicadas (ver {@link #mapearColumnas}),
+     * copiando los bytes originales y agregando comillas solo a los campos que las necesitan
+     *
+     * @param indices índice de columna de este lector para cada columna de salida (-1 = vacía)
+     */
+    public void escribirFilaCSV(OutputStream salida, int[] indices) throws IOException {
+        for (int k = 0; k < indices.length; k++) {
+            if (k > 0) {
+                salida.write(',');
+            }
+            escribirCampoCSV(indices[k], salida);
+        }
+        salida.write('\n');
+    }
+
+    /**
+     * Traduce una lista de nombres de columna a los índices de este lector (-1 si no existe)
+     */
+    public int[] mapearColumnas(List<String> nombres) {
+        int[] indices = new int[nombres.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = indiceColumna(nombres.get(i));
+        }
+        return indices;
+    }
+
+    /**
+     * Índice de una columna por nombre (sin distinguir mayúsculas), o -1 si no existe
+     */
+    public int indiceColumna(String nombre) {
+        Integer indice = columnas.get(nombre.toLowerCase(Locale.ROOT));
+        return indice != null ? indice : -1;
+    }
+
+    /**
+     * Nombres de columna en orden: la cabecera del CSV o el layout por defecto de JMeter
+     */
+    public List<String> nombresColumnas() {
+        return nombresColumnas;
+    }
+
+    /**
+     * Crea un lector independiente para el segmento {@code [inicio, fin)} del mismo archivo
+     * Ambos extremos deben coincidir con inicios de línea (ver {@link #alinearAInicioDeLinea}).
+     * El lector devuelto no cierra el canal compartido; puede usarse desde otro hilo
+     */
+    public LectorJTL abrirSegmento(long inicio, long fin) throws IOException {
+        if (formato != Formato.CSV) {
+            throw new IllegalStateException("La lectura por segmentos solo está disponible para JTL en CSV");
+        }
+        if (inicio < inicioDatos || fin > tamanoArchivo() || inicio > fin) {
+            throw new IllegalArgumentException("Segmento fuera del rango de datos: [" + inicio + ", " + fin + ")");
+        }
+        return new LectorJTL(this, inicio, fin, Math.min(buffer.length, TAMANO_BUFFER_DEFAULT));
+    }
+
+    /**
+     * Devuelve la primera posición de inicio de fila en o después de {@code posicion}
+     * (sin pasar de {@code limite}), para partir el archivo sin cortar filas
+     * Si la primera columna es timeStamp, un salto de línea que no va seguido de un dígito se
+     * considera parte de un campo entre comillas y se sigue buscando
+     */
+    public long alinearAInicioDeLinea(long posicion, long limite) throws IOException {
+        if (posicion <= inicioDatos) {
+            return inicioDatos;
+        }
+        ByteBuffer bloque = ByteBuffer.allocate(8 * 1024);
+        long actual = posicion - 1; // si el byte anterior es '\n', la posición ya es inicio de línea
+        while (actual < limite) {
+            bloque.clear();
+            int leidos = canal.read(bloque, actual);
+            if (leidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < leidos; i++) {
+                if (bloque.get(i) != '\n') {
+                    continue;
+                }
+                long candidato = actual + i + 1;
+                if (candidato >= limite) {
+                    return limite;
+                }
+                if (i + 1 >= leidos || idxTimeStamp != 0 || esDigito(bloque.get(i + 1))) {
+                    return candidato;
+                }
+            }
+            actual += leidos;
+        }
+        return limite;
+    }
+
+    /**
+     * Devuelve la posición siguiente al último fin de fila dentro de {@code [desde, hasta)}, o
+     * {@code desde} si no hay ninguno; permite procesar solo filas completas de un archivo que crece
+     * El recorrido avanza desde {@code desde}, que debe ser un inicio de fila, con las mismas reglas
+     * de comillas que la lectura: un salto de línea dentro de un {@code responseMessage} entre
+     * comillas no corta la fila aunque el cierre de las comillas todavía no se haya escrito
+     */
+    public long ultimoFinDeLinea(long desde, long hasta) throws IOException {
+        ByteBuffer bloque = ByteBuffer.allocate(8 * 1024);
+        long ultimoFin = desde;
+        boolean entreComillas = false;
+        boolean cierrePendiente = false; // comilla dentro de un campo: cierre o primera de ""
+        byte anterior = '\n';
+        long inicioBloque = desde;
+        while (inicioBloque < hasta) {
+            bloque.clear().limit((int) Math.min(bloque.capacity(), hasta - inicioBloque));
+            int leidos = canal.read(bloque, inicioBloque);
+            if (leidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < leidos; i++) {
+                byte b = bloque.get(i);
+                if (cierrePendiente) {
+                    cierrePendiente = false;
+                    if (b == '"') {
+                        continue; // "" escapada, el campo sigue abierto
+                    }
+                    entreComillas = false;
+                }
+                if (entreComillas) {
+                    cierrePendiente = b == '"';
+                } else if (b == '\n') {
+                    ultimoFin = inicioBloque + i + 1;
+                } else if (b == '"' && (anterior == ',' || anterior == '\n')) {
+                    entreComillas = true;
+                }
+                anterior = b;
+            }
+            inicioBloque += leidos;
+        }
+        return ultimoFin;
+    }
+
+    /**
+     * Posición del archivo donde empiezan las filas de datos (después de la cabecera)
+     */
+    public long inicioDatos() {
+        return inicioDatos;
+    }
+
+    public long tamanoArchivo() throws IOException {
+        return canal.size();
+    }
+
+    public Formato formato() {
+        return formato;
+    }
+
+    public int numeroCampos() {
+        return numeroCampos;
+    }
+
+    public boolean tieneCabecera() {
+        return conCabecera;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (propietarioCanal) {
+            canal.close();
+        }
+    }
+
+    // ==================== LECTURA DE BAJO NIVEL ====================
+
+    /**
+     * Carga el primer bloque y salta el BOM UTF-8 y los espacios iniciales
+     */
+    private void saltarPreambulo() throws IOException {
+        rellenarBuffer();
+        if (finDatos >= 3 && (buffer[0] & 0xFF) == 0xEF && (buffer[1] & 0xFF) == 0xBB && (buffer[2] & 0xFF) == 0xBF) {
+            cursor = 3;
+        }
+        while (cursor < finDatos && esEspacio(buffer[cursor])) {
+            cursor++;
+        }
+    }
+
+    /**
+     * Lee la siguiente línea CSV del buffer, rellenándolo desde el canal cuando se agota,
+     * y registra las posiciones de sus campos
+     */
+    private boolean leerLinea() throws IOException {
+        int finLinea = buscarFinDeLinea(cursor);
+        while (finLinea < 0) {
+            if (canalAgotado) {
+                if (cursor >= finDatos) {
+                    return false;
+                }
+                finLinea = finDatos; // última línea sin salto final
+                break;
+            }
+            rellenarBuffer();
+            finLinea = buscarFinDeLinea(cursor);
+        }
+
+        int inicioLinea = cursor;
+        cursor = finLinea < finDatos ? finLinea + 1 : finLinea;
+
+        int finContenido = finLinea;
+        if (finContenido > inicioLinea && buffer[finContenido - 1] == '\r') {
+            finContenido--;
+        }
+        separarCampos(inicioLinea, finContenido);
+        return true;
+    }
+
+    /**
+     * Busca el salto de línea que cierra la fila, ignorando los que están dentro de un campo
+     * entre comillas; devuelve -1 si hacen falta más datos
+     */
+    private int buscarFinDeLinea(int desde) {
+        boolean entreComillas = false;
+        byte anterior = ',';
+        for (int i = desde; i < finDatos; i++) {
+            byte b = buffer[i];
+            if (entreComillas) {
+                if (b == '"') {
+                    if (i + 1 == finDatos && !canalAgotado) {
+                        return -1; // no se sabe si es "" o el cierre
+                    }
+                    if (i + 1 < finDatos && buffer[i + 1] == '"') {
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                }
+            } else if (b == '\n') {
+                return i;
+            } else if (b == '"' && (anterior == ',' || anterior == '\n')) {
+                entreComillas = true;
+            }
+            anterior = b;
+        }
+        return -1;
+    }
+
+    private void separarCampos(int inicio, int fin) {
+        numeroCampos = 0;
+        int i = inicio;
+        while (true) {
+            int finCampo;
+            if (i < fin && buffer[i] == '"') {
+                // Campo entre comillas: puede contener comas, saltos de línea y "" escapadas
+                int inicioValor = i + 1;
+                int j = inicioValor;
+                boolean escapado = false;
+                while (j < fin) {
+                    if (buffer[j] == '"') {
+                        if (j + 1 < fin && buffer[j + 1] == '"') {
+                            escapado = true;
+                            j += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    j++;
+                }
+                agregarCampo(inicioValor, j, escapado ? ESCAPE_CSV : SIN_ESCAPE);
+                finCampo = j;
+                while (finCampo < fin && buffer[finCampo] != ',') finCampo++;
+            } else {
+                finCampo = i;
+                while (finCampo < fin && buffer[finCampo] != ',') finCampo++;
+                agregarCampo(i, finCampo, SIN_ESCAPE);
+            }
+            if (finCampo >= fin) {
+                return;
+            }
+            i = finCampo + 1;
+        }
+    }
+
+    /**
+     * Avanza hasta la siguiente muestra XML de primer nivel y expone sus atributos como campos
+     */
+    private boolean leerMuestraXml() throws IOException {
+        while (true) {
+            int inicioEtiqueta = buscarByte(cursor, (byte) '<');
+            if (inicioEtiqueta < 0) {
+                if (canalAgotado) {
+                    return false;
+                }
+                cursor = finDatos; // el texto entre etiquetas no interesa
+                rellenarBuffer();
+                continue;
+            }
+            cursor = inicioEtiqueta;
+            int finEtiqueta = buscarFinDeEtiqueta(cursor);
+            if (finEtiqueta < 0) {
+                if (canalAgotado) {
+                    return false;
+                }
+                rellenarBuffer();
+                continue;
+            }
+
+            int inicioNombre = cursor + 1;
+            cursor = finEtiqueta + 1;
+            if (buffer[inicioNombre] == '/') {
+                if (esEtiquetaMuestra(inicioNombre + 1, finNombre(inicioNombre + 1, finEtiqueta))) {
+                    profundidadXml = Math.max(0, profundidadXml - 1);
+                }
+                continue;
+            }
+            if (buffer[inicioNombre] == '?' || buffer[inicioNombre] == '!') {
+                continue;
+            }
+
+            int finNombre = finNombre(inicioNombre, finEtiqueta);
+            if (!esEtiquetaMuestra(inicioNombre, finNombre)) {
+                continue;
+            }
+            boolean autocerrada = buffer[finEtiqueta - 1] == '/';
+            boolean primerNivel = profundidadXml == 0;
+            if (!autocerrada) {
+                profundidadXml++;
+            }
+            if (primerNivel) {
+                separarAtributos(finNombre, autocerrada ? finEtiqueta - 1 : finEtiqueta);
+                return true;
+            }
+        }
+    }
+
+    private void separarAtributos(int inicio, int fin) {
+        numeroCampos = 0;
+        for (int c = 0; c < COLUMNAS_POR_DEFECTO.size(); c++) {
+            agregarCampo(inicio, inicio, SIN_ESCAPE);
+        }
+        int i = inicio;
+        while (i < fin) {
+            while (i < fin && esEspacio(buffer[i])) i++;
+            int inicioNombre = i;
+            while (i < fin && buffer[i] != '=' && !esEspacio(buffer[i])) i++;
+            int finNombreAtributo = i;
+            while (i < fin && buffer[i] != '"' && buffer[i] != '\'') i++;
+            if (i >= fin) {
+                return;
+            }
+            byte comilla = buffer[i];
+            int inicioValor = ++i;
+            boolean conEntidades = false;
+            while (i < fin && buffer[i] != comilla) {
+                if (buffer[i] == '&') conEntidades = true;
+                i++;
+            }
+            int columna = columnaDeAtributo(inicioNombre, finNombreAtributo);
+            if (columna >= 0) {
+                inicioCampos[columna] = inicioValor;
+                finCampos[columna] = i;
+                escapeCampos[columna] = conEntidades ? ESCAPE_XML : SIN_ESCAPE;
+            }
+            i++;
+        }
+    }
+
+    private int buscarByte(int desde, byte valor) {
+        for (int i = desde; i < finDatos; i++) {
+            if (buffer[i] == valor) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int buscarFinDeEtiqueta(int desde) {
+        byte comilla = 0;
+        for (int i = desde; i < finDatos; i++) {
+            byte b = buffer[i];
+            if (comilla != 0) {
+                if (b == comilla) comilla = 0;
+            } else if (b == '"' || b == '\'') {
+                comilla = b;
+            } else if (b == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int finNombre(int inicio, int limite) {
+        int i = inicio;
+        while (i < limite && !esEspacio(buffer[i]) && buffer[i] != '/' && buffer[i] != '>') i++;
+        return i;
+    }
+
+    private boolean esEtiquetaMuestra(int inicio, int fin) {
+        return Arrays.equals(buffer, inicio, fin, ETIQUETA_HTTP_SAMPLE, 0, ETIQUETA_HTTP_SAMPLE.length) ||
+                Arrays.equals(buffer, inicio, fin, ETIQUETA_SAMPLE, 0, ETIQUETA_SAMPLE.length);
+    }
+
+    private int columnaDeAtributo(int inicio, int fin) {
+        for (int a = 0; a < NOMBRES_ATRIBUTOS_XML.length; a++) {
+            byte[] nombre = NOMBRES_ATRIBUTOS_XML[a];
+            if (Arrays.equals(buffer, inicio, fin, nombre, 0, nombre.length)) {
+                return COLUMNAS_ATRIBUTOS_XML[a];
+            }
+        }
+        return -1;
+    }
+
+    private long posicionActual() {
+        return posicionCanal - (finDatos - cursor);
+    }
+
+    /**
+     * Compacta los bytes pendientes al inicio del buffer y lee más datos del canal;
+     * si una línea no cabe en el buffer, este se duplica
+     */
+    private void rellenarBuffer() throws IOException {
+        int pendientes = finDatos - cursor;
+        if (cursor > 0) {
+            System.arraycopy(buffer, cursor, buffer, 0, pendientes);
+        } else if (pendientes == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        cursor = 0;
+        finDatos = pendientes;
+
+        int disponibles = (int) Math.min(buffer.length - finDatos, limiteCanal - posicionCanal);
+        ByteBuffer destino = ByteBuffer.wrap(buffer, finDatos, Math.max(0, disponibles));
+        while (destino.hasRemaining() && posicionCanal < limiteCanal) {
+            int leidos = canal.read(destino, posicionCanal);
+            if (leidos < 0) {
+                break;
+            }
+            posicionCanal += leidos;
+        }
+        finDatos = destino.position();
+        canalAgotado = posicionCanal >= limiteCanal;
+    }
+
+    private void agregarCampo(int inicio, int fin, byte escape) {
+        if (numeroCampos == inicioCampos.length) {
+            inicioCampos = Arrays.copyOf(inicioCampos, numeroCampos * 2);
+            finCampos = Arrays.copyOf(finCampos, numeroCampos * 2);
+            escapeCampos = Arrays.copyOf(escapeCampos, numeroCampos * 2);
+        }
+        inicioCampos[numeroCampos] = inicio;
+        finCampos[numeroCampos] = fin;
+        escapeCampos[numeroCampos] = escape;
+        numeroCampos++;
+    }
+
+    private void escribirCampoCSV(int indice, OutputStream salida) throws IOException {
+        if (indice < 0 || indice >= numeroCampos) {
+            return;
+        }
+        if (escapeCampos[indice] == ESCAPE_XML) {
+            byte[] texto = campoTexto(indice).getBytes(StandardCharsets.UTF_8);
+            escribirBytesCSV(texto, 0, texto.length, false, salida);
+        } else {
+            escribirBytesCSV(buffer, inicioCampos[indice], finCampos[indice],
+                    escapeCampos[indice] == ESCAPE_CSV, salida);
+        }
+    }
+
+    /**
+     * Copia un valor a la salida CSV; solo lo entrecomilla si contiene separadores, comillas o saltos
+     *
+     * @param yaEscapado el valor ya trae sus comillas internas duplicadas
+     */
+    private static void escribirBytesCSV(byte[] bytes, int inicio, int fin, boolean yaEscapado,
+                                         OutputStream salida) throws IOException {
+        boolean requiereComillas = yaEscapado;
+        for (int i = inicio; i < fin && !requiereComillas; i++) {
+            byte b = bytes[i];
+            requiereComillas = b == ',' || b == '"' || b == '\n' || b == '\r';
+        }
+        if (!requiereComillas) {
+            salida.write(bytes, inicio, fin - inicio);
+            return;
+        }
+        salida.write('"');
+        if (yaEscapado) {
+            salida.write(bytes, inicio, fin - inicio);
+        } else {
+            for (int i = inicio; i < fin; i++) {
+                if (bytes[i] == '"') salida.write('"');
+                salida.write(bytes[i]);
+            }
+        }
+        salida.write('"');
+    }
+
+    private boolean campoIgualIgnorandoMayusculas(int indice, byte[] esperado) {
+        int inicio = inicioCampos[indice];
+        int fin = finCampos[indice];
+        while (inicio < fin && buffer[inicio] == ' ') inicio++;
+        while (fin > inicio && buffer[fin - 1] == ' ') fin--;
+        if (fin - inicio != esperado.length) {
+            return false;
+        }
+        for (int i = 0; i < esperado.length; i++) {
+            if ((buffer[inicio + i] | 0x20) != esperado[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean esCabecera() {
+        return campoTexto(0).toLowerCase(Locale.ROOT).contains("timestamp") ||
+                (numeroCampos > 1 && campoTexto(1).equalsIgnoreCase("elapsed"));
+    }
+
+    private static boolean esEspacio(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static boolean esDigito(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Decodifica las entidades XML predefinidas y las numéricas ({@code &#38;}, {@code &#x26;})
+     */
+    private static String decodificarEntidades(String texto) {
+        StringBuilder sb = new StringBuilder(texto.length());
+        int i = 0;
+        while (i < texto.length()) {
+            char c = texto.charAt(i);
+            int fin = c == '&' ? texto.indexOf(';', i) : -1;
+            if (fin < 0) {
+                sb.append(c);
+                i++;
+                continue;
+            }
+            String entidad = texto.substring(i + 1, fin);
+            switch (entidad) {
+                case "amp" -> sb.append('&');
+                case "lt" -> sb.append('<');
+                case "gt" -> sb.append('>');
+                case "quot" -> sb.append('"');
+                case "apos" -> sb.append('\'');
+                default -> {
+                    try {
+                        if (entidad.startsWith("#x") || entidad.startsWith("#X")) {
+                            sb.appendCodePoint(Integer.parseInt(entidad.substring(2), 16));
+                        } else if (entidad.startsWith("#")) {
+                            sb.appendCodePoint(Integer.parseInt(entidad.substring(1)));
+                        } else {
+                            sb.append('&').append(entidad).append(';');
+                        }
+                    } catch (IllegalArgumentException e) {
+                        sb.append('&').append(entidad).append(';');
+                    }
+                }
+            }
+            i = fin + 1;
+        }
+        return sb.toString();
+    }
+
+    private static Map<String, Integer> indexarColumnas(List<String> nombres) {
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < nombres.size(); i++) {
+            indices.putIfAbsent(nombres.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        return Collections.unmodifiableMap(indices);
+    }
+}
@@ -0,0 +1,168 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Mide si los generadores de carga tuvieron CPU suficiente mientras corrían
+ * Un hilo de plataforma despierta cada {@link #PERIODO_MS} ms y anota la carga de CPU del equipo
+ * y cuánto se retrasó su propio despertar (el retraso solo aparece cuando el sistema no tiene
+ * núcleos libres para planificarlo, como en jHiccup). Cada escenario abre una {@link Ventana}
+ * al arrancar y la cierra al terminar; las ventanas solapadas comparten las mismas muestras
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class MonitorSaturacionCPU implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(MonitorSaturacionCPU.class.getName());
+
+    /** Período de muestreo */
+    public static final long PERIODO_MS = 50;
+
+    /** Carga de CPU del equipo (0 a 1) a partir de la cual una muestra cuenta como saturada */
+    public static final double UMBRAL_CARGA = 0.90;
+
+    private final OperatingSystemMXBean sistemaOperativo = ManagementFactory.getOperatingSystemMXBean();
+    private final int procesadores = Runtime.getRuntime().availableProcessors();
+    private final List<Ventana> ventanas = new CopyOnWriteArrayList<>();
+    private final Thread hilo;
+    private volatile boolean activo = true;
+
+    public MonitorSaturacionCPU() {
+        this.hilo = Thread.ofPlatform()
+                .name("monitor-saturacion-cpu")
+                .daemon(true)
+                .start(this::muestrear);
+    }
+
+    /**
+     * Empieza a acumular muestras para un escenario
+     */
+    public Ventana abrir(String escenario) {
+        Ventana ventana = new Ventana(escenario);
+        ventanas.add(ventana);
+        return ventana;
+    }
+
+    @Override
+    public void close() {
+        activo = false;
+        hilo.interrupt();
+    }
+
+    private void muestrear() {
+        long periodoNanos = TimeUnit.MILLISECONDS.toNanos(PERIODO_MS);
+        long esperado = System.nanoTime() + periodoNanos;
+        while (activo) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.max(0, esperado - System.nanoTime()));
+            } catch (InterruptedException e) {
+                return;
+            }
+            long ahora = System.nanoTime();
+            long retrasoMs = TimeUnit.NANOSECONDS.toMillis(Math.max(0, ahora - esperado));
+            double carga = cargaCpu();
+            for (Ventana ventana : ventanas) {
+                ventana.registrar(carga, retrasoMs);
+            }
+            // Tras un retraso se vuelve a la cadencia desde ahora, sin ráfagas de recuperación
+            esperado = Math.max(esperado + periodoNanos, ahora);
+        }
+    }
+
+    /**
+     * Carga de CPU del equipo entre 0 y 1; con la interfaz estándar se aproxima con la carga
+     * media de un minuto por procesador, y es negativa si la plataforma no la informa
+     */
+    private double cargaCpu() {
+        if (sistemaOperativo instanceof com.sun.management.OperatingSystemMXBean extendido) {
+            double carga = extendido.getCpuLoad();
+            if (carga >= 0) {
+                return carga;
+            }
+        }
+        double promedio = sistemaOperativo.getSystemLoadAverage();
+        return promedio >= 0 ? Math.min(1.0, promedio / procesadores) : -1;
+    }
+
+    /**
+     * Muestras acumuladas durante la ejecución de un escenario
+     */
+    public final class Ventana {
+
+        private final String escenario;
+        private long muestras;
+        private long muestrasConCarga;
+        private double sumaCarga;
+        private long muestrasSaturadas;
+        private long sumaRetrasoMs;
+        private long retrasoMaximoMs;
+
+        private Ventana(String escenario) {
+            this.escenario = escenario;
+        }
+
+        private synchronized void registrar(double carga, long retrasoMs) {
+            muestras++;
+            if (carga >= 0) {
+                muestrasConCarga++;
+                sumaCarga += carga;
+                if (carga >= UMBRAL_CARGA) muestrasSaturadas++;
+            }
+            sumaRetrasoMs += retrasoMs;
+            retrasoMaximoMs = Math.max(retrasoMaximoMs, retrasoMs);
+        }
+
+        /**
+         * Deja de acumular y devuelve el informe del escenario
+         */
+        public synchronized InformeSaturacion cerrar() {
+            ventanas.remove(this);
+            InformeSaturacion informe = new InformeSaturacion(escenario, muestras,
+                    muestrasConCarga > 0 ? sumaCarga / muestrasConCarga * 100 : -1,
+                    muestrasConCarga > 0 ? muestrasSaturadas * 100.0 / muestrasConCarga : 0,
+                    muestras > 0 ? (double) sumaRetrasoMs / muestras : 0,
+                    retrasoMaximoMs);
+            LOGGER.fine(informe::toString);
+            return informe;
+        }
+    }
+
+    /**
+     * Cuánto le faltó CPU al generador de un escenario
+     *
+     * @param escenario           nombre del escenario
+     * @param muestras            muestras tomadas mientras corría
+     * @param cargaCpuPromedio    carga media del equipo en porcentaje, o -1 si no se pudo medir
+     * @param porcentajeSaturado  porcentaje de muestras con la CPU por encima de {@link #UMBRAL_CARGA}
+     * @param retrasoPromedioMs   retraso medio de planificación de un hilo listo para correr
+     * @param retrasoMaximoMs     mayor retraso de planificación observado
+     */
+    public record InformeSaturacion(String escenario, long muestras, double cargaCpuPromedio,
+                                    double porcentajeSaturado, double retrasoPromedioMs, long retrasoMaximoMs) {
+
+        /** Porcentaje de tiempo saturado por encima del cual los tiempos medidos son dudosos */
+        public static final double PORCENTAJE_SATURADO_MAXIMO = 10.0;
+
+        /** Retraso de planificación que ya distorsiona tiempos de respuesta de pocos ms */
+        public static final long RETRASO_MAXIMO_ACEPTABLE_MS = 100;
+
+        /**
+         * Indica si el generador tuvo CPU suficiente para que sus tiempos sean representativos
+         */
+        public boolean esConfiable() {
+            return porcentajeSaturado <= PORCENTAJE_SATURADO_MAXIMO && retrasoMaximoMs <= RETRASO_MAXIMO_ACEPTABLE_MS;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: CPU media %.0f%%, saturada %.1f%% del tiempo, retraso de planificación medio %.1f ms (máx %d ms)%s",
+                    escenario, cargaCpuPromedio, porcentajeSaturado, retrasoPromedioMs, retrasoMaximoMs,
+                    esConfiable() ? "" : " ⚠️ generador sin CPU suficiente");
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ejecuta escenarios independientes en paralelo dentro de un presupuesto de CPU
+ * El presupuesto limita cuántos escenarios corren a la vez y cuántos hilos de carga suman entre
+ * todos; un escenario que por sí solo supera el presupuesto de hilos corre sin compañía. Los
+ * escenarios con el mismo grupo de aislamiento nunca se solapan
+ *
+ * <p>Los escenarios se lanzan en el orden recibido; cuando el siguiente no cabe, se adelanta el
+ * primero posterior que sí quepa. Cada escenario se mide con un {@link MonitorSaturacionCPU}
+ * para saber si su generador compitió por CPU con los demás.</p>
+ *
+ * <pre>
+ * PlanificadorEscenarios planificador = new PlanificadorEscenarios(4, 100);
+ * List&lt;Resultado&lt;Boolean&gt;&gt; resultados = planificador.ejecutar(tareas);
+ * </pre>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class PlanificadorEscenarios {
+
+    private static final Logger LOGGER = Logger.getLogger(PlanificadorEscenarios.class.getName());
+
+    private final int maximoConcurrentes;
+    private final int presupuestoHilos;
+
+    private final ReentrantLock candado = new ReentrantLock();
+    private final Condition cambio = candado.newCondition();
+
+    /**
+     * @param maximoConcurrentes escenarios que pueden correr a la vez (1 = secuencial)
+     * @param presupuestoHilos   suma máxima de hilos de carga de los escenarios en curso
+     */
+    public PlanificadorEscenarios(int maximoConcurrentes, int presupuestoHilos) {
+        if (maximoConcurrentes <= 0) {
+            throw new IllegalArgumentException("maximoConcurrentes debe ser positivo");
+        }
+        if (presupuestoHilos <= 0) {
+            throw new IllegalArgumentException("presupuestoHilos debe ser positivo");
+        }
+        this.maximoConcurrentes = maximoConcurrentes;
+        this.presupuestoHilos = presupuestoHilos;
+    }
+
+    /**
+     * Ejecuta todas las tareas respetando el presupuesto y espera a que terminen
+     *
+     * @return un resultado por tarea, en el mismo orden que {@code tareas}
+     */
+    public <R> List<Resultado<R>> ejecutar(List<Tarea<R>> tareas) throws InterruptedException {
+        List<Resultado<R>> resultados = new ArrayList<>(tareas.size());
+        for (int i = 0; i < tareas.size(); i++) {
+            resultados.add(null);
+        }
+        LinkedList<Integer> pendientes = new LinkedList<>();
+        for (int i = 0; i < tareas.size(); i++) {
+            pendientes.add(i);
+        }
+
+        Estado estado = new Estado();
+        List<Thread> hilos = new ArrayList<>();
+        try (MonitorSaturacionCPU monitor = new MonitorSaturacionCPU()) {
+            candado.lock();
+            try {
+                while (!pendientes.isEmpty()) {
+                    Integer siguiente = elegirSiguiente(pendientes, tareas, estado);
+                    if (siguiente == null) {
+                        cambio.await();
+                        continue;
+                    }
+                    pendientes.remove(siguiente);
+                    Tarea<R> tarea = tareas.get(siguiente);
+                    estado.ocupar(tarea);
+                    LOGGER.info(String.format("▶️ Escenario %s (%d hilos) - en curso: %d, hilos en uso: %d/%d",
+                            tarea.nombre(), tarea.hilos(), estado.enCurso, estado.hilosEnUso, presupuestoHilos));
+                    int indice = siguiente;
+                    hilos.add(Thread.ofVirtual()
+                            .name("escenario-" + tarea.nombre())
+                            .start(() -> resultados.set(indice, correr(tarea, monitor, estado))));
+                }
+            } finally {
+                candado.unlock();
+            }
+            for (Thread hilo : hilos) {
+                hilo.join();
+            }
+        }
+        return resultados;
+    }
+
+    // ==================== MÉTODOS PRIVADOS ====================
+
+    private <R> Integer elegirSiguiente(List<Integer> pendientes, List<Tarea<R>> tareas, Estado estado) {
+        if (estado.enCurso >= maximoConcurrentes) {
+            return null;
+        }
+        for (Integer indice : pendientes) {
+            Tarea<R> tarea = tareas.get(indice);
+            boolean grupoLibre = tarea.grupoAislamiento() == null || !estado.gruposOcupados.contains(tarea.grupoAislamiento());
+            boolean cabe = estado.enCurso == 0 || estado.hilosEnUso + tarea.hilos() <= presupuestoHilos;
+            if (grupoLibre && cabe) {
+                return indice;
+            }
+        }
+        return null;
+    }
+
+    private <R> Resultado<R> correr(Tarea<R> tarea, MonitorSaturacionCPU monitor, Estado estado) {
+        MonitorSaturacionCPU.Ventana ventana = monitor.abrir(tarea.nombre());
+        long inicio = System.nanoTime();
+        R valor = null;
+        Exception error = null;
+        try {
+            valor = tarea.accion().call();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "⚠️ Escenario falló: " + tarea.nombre(), e);
+            error = e;
+        } finally {
+            candado.lock();
+            try {
+                estado.liberar(tarea);
+                cambio.signalAll();
+            } finally {
+                candado.unlock();
+            }
+        }
+        MonitorSaturacionCPU.InformeSaturacion saturacion = ventana.cerrar();
+        if (saturacion.esConfiable()) {
+            LOGGER.info("🖥️ " + saturacion);
+        } else {
+            LOGGER.warning("⚠️ Resultados con el generador saturado - " + saturacion);
+        }
+        return new Resultado<>(tarea.nombre(), valor, error, saturacion, Duration.ofNanos(System.nanoTime() - inicio));
+    }
+
+    /**
+     * Recursos ocupados por los escenarios en curso; se accede con el candado tomado
+     */
+    private static final class Estado {
+        int enCurso;
+        int hilosEnUso;
+        final Set<String> gruposOcupados = new HashSet<>();
+
+        void ocupar(Tarea<?> tarea) {
+            enCurso++;
+            hilosEnUso += tarea.hilos();
+            if (tarea.grupoAislamiento() != null) gruposOcupados.add(tarea.grupoAislamiento());
+        }
+
+        void liberar(Tarea<?> tarea) {
+            enCurso--;
+            hilosEnUso -= tarea.hilos();
+            if (tarea.grupoAislamiento() != null) gruposOcupados.remove(tarea.grupoAislamiento());
+        }
+    }
+
+    // ==================== TIPOS PÚBLICOS ====================
+
+    /**
+     * Escenario a planificar
+     *
+     * @param nombre           nombre para logs e informes
+     * @param hilos            hilos de carga que usa (usuarios concurrentes)
+     * @param grupoAislamiento escenarios con el mismo grupo no se solapan; {@code null} = sin restricción
+     * @param accion           ejecución del escenario
+     */
+    public record Tarea<R>(String nombre, int hilos, String grupoAislamiento, Callable<R> accion) {
+        public Tarea {
+            if (hilos <= 0) {
+                throw new IllegalArgumentException("hilos debe ser positivo");
+            }
+        }
+    }
+
+    /**
+     * Resultado de un escenario planificado
+     *
+     * @param valor      valor devuelto por la acción, o {@code null} si falló
+     * @param error      excepción lanzada por la acción, o {@code null}
+     * @param saturacion cuánto le faltó CPU al generador mientras corría
+     */
+    public record Resultado<R>(String nombre, R valor, Exception error,
+                               MonitorSaturacionCPU.InformeSaturacion saturacion, Duration duracion) {
+        public boolean exitoso() {
+            return error == null;
+        }
+    }
+}
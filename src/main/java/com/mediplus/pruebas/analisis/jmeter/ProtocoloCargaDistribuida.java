@@ -0,0 +1,74 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import com.mediplus.pruebas.analisis.jmeter.EjecutorJMeterReal.ConfiguracionEscenario;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Protocolo binario entre {@link CoordinadorCargaDistribuida} y {@link TrabajadorCargaDistribuida}
+ * Cada mensaje es un byte de tipo seguido de campos de {@link DataOutput}; viajan por una
+ * conexión TCP que el trabajador abre contra el coordinador y mantiene durante toda la campaña
+ *
+ * <pre>
+ * trabajador → REGISTRO    magia, versión, nodo
+ * coordinador → RELOJ       (trabajador responde RELOJ con su currentTimeMillis)
+ * coordinador → ASIGNACION  porción del escenario, URL base e instante de arranque en el reloj del trabajador
+ * trabajador → RESUMEN     {@link BocetoMetricasJTL} de su porción, o ERROR con el mensaje
+ * coordinador → FIN         el trabajador cierra la conexión y termina
+ * </pre>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+final class ProtocoloCargaDistribuida {
+
+    static final int MAGIA = 0x43524741; // "CRGA"
+    static final int VERSION = 1;
+
+    static final byte REGISTRO = 1;
+    static final byte RELOJ = 2;
+    static final byte ASIGNACION = 3;
+    static final byte RESUMEN = 4;
+    static final byte ERROR = 5;
+    static final byte FIN = 6;
+
+    private ProtocoloCargaDistribuida() { }
+
+    /**
+     * Porción de un escenario asignada a un trabajador
+     *
+     * @param escenario       escenario con los usuarios que le tocan al trabajador
+     * @param urlBase         API contra la que corre la carga
+     * @param inicioEpochMs   instante de arranque expresado en el reloj del trabajador
+     */
+    record Asignacion(ConfiguracionEscenario escenario, URI urlBase, long inicioEpochMs) {
+
+        void escribir(DataOutput salida) throws IOException {
+            salida.writeByte(ASIGNACION);
+            salida.writeUTF(escenario.nombre);
+            salida.writeUTF(escenario.tipoOperacion);
+            salida.writeInt(escenario.usuariosConcurrentes);
+            salida.writeInt(escenario.duracionSegundos);
+            salida.writeUTF(escenario.descripcion);
+            salida.writeUTF(urlBase.toString());
+            salida.writeLong(inicioEpochMs);
+        }
+
+        /**
+         * Lee los campos que siguen al byte de tipo
+         */
+        static Asignacion leer(DataInput entrada) throws IOException {
+            ConfiguracionEscenario escenario = new ConfiguracionEscenario(entrada.readUTF(), entrada.readUTF(),
+                    entrada.readInt(), entrada.readInt(), entrada.readUTF());
+            return new Asignacion(escenario, URI.create(entrada.readUTF()), entrada.readLong());
+        }
+    }
+
+    static void esperarTipo(byte recibido, byte esperado) throws IOException {
+        if (recibido != esperado) {
+            throw new IOException("Mensaje inesperado: tipo " + recibido + " en lugar de " + esperado);
+        }
+    }
+}
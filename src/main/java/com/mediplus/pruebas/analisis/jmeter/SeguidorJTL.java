@@ -0,0 +1,243 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Seguimiento en vivo de un JTL que JMeter todavía está escribiendo
+ * Cada sondeo procesa solo los bytes nuevos desde la última posición conocida y hasta el
+ * último salto de línea (la fila parcial del final se deja para el siguiente sondeo), alimenta
+ * los acumuladores de la ejecución y publica una {@link InstantaneaMetricas} con el throughput,
+ * el P95 y la tasa de error de las últimas ventanas de un segundo
+ *
+ * <pre>
+ * try (SeguidorJTL seguidor = new SeguidorJTL(jtl, m -&gt; LOGGER.info(m.resumen()))) {
+ *     seguidor.iniciar();
+ *     proceso.waitFor();
+ * } // al cerrar se procesa lo pendiente y se publica la instantánea final
+ * </pre>
+ *
+ * <p>Solo sigue JTL en CSV, que es el formato con el que se lanza JMeter desde este proyecto.</p>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class SeguidorJTL implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(SeguidorJTL.class.getName());
+
+    public static final long INTERVALO_DEFAULT_MS = 5_000L;
+    public static final int VENTANAS_MOVILES_DEFAULT = 10;
+
+    private final Path archivoJTL;
+    private final long intervaloMs;
+    private final int ventanasMoviles;
+    private final Consumer<InstantaneaMetricas> publicador;
+
+    private final AgregadorMetricasJTL acumulado = new AgregadorMetricasJTL();
+    private final SerieTemporalJTL serie;
+    private final long inicioNanos = System.nanoTime();
+
+    private LectorJTL lectorBase;   // se abre cuando el archivo ya tiene su primera línea completa
+    private long posicion;          // primer byte aún no procesado
+    private boolean formatoNoSoportado;
+    private ScheduledExecutorService planificador;
+    private boolean cerrado;
+
+    public SeguidorJTL(Path archivoJTL, Consumer<InstantaneaMetricas> publicador) {
+        this(archivoJTL, INTERVALO_DEFAULT_MS, VENTANAS_MOVILES_DEFAULT, publicador);
+    }
+
+    /**
+     * @param intervaloMs     cada cuánto se sondea el archivo y se publica una instantánea
+     * @param ventanasMoviles ventanas de un segundo que cubren las métricas móviles
+     */
+    public SeguidorJTL(Path archivoJTL, long intervaloMs, int ventanasMoviles,
+                       Consumer<InstantaneaMetricas> publicador) {
+        if (intervaloMs <= 0 || ventanasMoviles <= 0) {
+            throw new IllegalArgumentException("intervaloMs y ventanasMoviles deben ser positivos");
+        }
+        this.archivoJTL = archivoJTL;
+        this.intervaloMs = intervaloMs;
+        this.ventanasMoviles = ventanasMoviles;
+        this.publicador = publicador;
+        // Solo hacen falta las ventanas móviles; el margen tolera filas que llegan algo desordenadas
+        this.serie = new SerieTemporalJTL(SerieTemporalJTL.VENTANA_DEFAULT_MS, 2 * ventanasMoviles + 2,
+                SerieTemporalJTL.Desborde.DESCARTAR_ANTIGUAS, true);
+    }
+
+    /**
+     * Comienza a sondear el archivo en un hilo daemon propio
+     */
+    public synchronized void iniciar() {
+        if (planificador != null || cerrado) {
+            return;
+        }
+        planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "seguidor-jtl-" + archivoJTL.getFileName());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        planificador.scheduleWithFixedDelay(this::sondearYPublicar, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Procesa las filas completas escritas desde el último sondeo
+     *
+     * @return número de filas nuevas registradas
+     */
+    public synchronized long sondear() throws IOException {
+        if (formatoNoSoportado || !Files.isRegularFile(archivoJTL)) {
+            return 0;
+        }
+        if (lectorBase == null && !abrirCuandoHayaPrimeraLinea()) {
+            return 0;
+        }
+
+        long tamano = lectorBase.tamanoArchivo();
+        if (tamano < posicion) {
+            LOGGER.warning("El JTL se truncó durante el seguimiento: " + archivoJTL);
+            posicion = tamano;
+            return 0;
+        }
+
+        long fin = lectorBase.ultimoFinDeLinea(posicion, tamano);
+        if (fin <= posicion) {
+            return 0;
+        }
+
+        long nuevas = 0;
+        try (LectorJTL segmento = lectorBase.abrirSegmento(posicion, fin)) {
+            while (segmento.siguiente()) {
+                if (acumulado.registrar(segmento)) {
+                    serie.registrar(segmento.timeStamp(), segmento.elapsed(), segmento.exito());
+                    nuevas++;
+                }
+            }
+        }
+        posicion = fin;
+        return nuevas;
+    }
+
+    /**
+     * Métricas acumuladas de la ejecución y móviles de las últimas ventanas
+     */
+    public synchronized InstantaneaMetricas instantanea() {
+        Optional<SerieTemporalJTL.RegimenEstable> movil = serie.resumirUltimasVentanas(ventanasMoviles);
+        return new InstantaneaMetricas(
+                Duration.ofNanos(System.nanoTime() - inicioNanos),
+                acumulado.getTotalMuestras(),
+                acumulado.getTotalErrores(),
+                movil.map(SerieTemporalJTL.RegimenEstable::throughputReqSeg).orElse(0.0),
+                movil.map(r -> r.histograma().getP95()).orElse(0L),
+                movil.map(SerieTemporalJTL.RegimenEstable::tasaErrorPorcentaje).orElse(0.0),
+                (long) acumulado.percentilMs(95));
+    }
+
+    /**
+     * Detiene el sondeo, procesa lo que quede en el archivo y publica la instantánea final
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService pendiente;
+        synchronized (this) {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            pendiente = planificador;
+        }
+        if (pendiente != null) {
+            pendiente.shutdown();
+            try {
+                pendiente.awaitTermination(intervaloMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sondearYPublicar();
+        synchronized (this) {
+            if (lectorBase != null) {
+                try {
+                    lectorBase.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.FINE, "Error cerrando JTL seguido: " + archivoJTL, e);
+                }
+                lectorBase = null;
+            }
+        }
+    }
+
+    // ==================== MÉTODOS PRIVADOS ====================
+
+    private void sondearYPublicar() {
+        try {
+            sondear();
+            publicador.accept(instantanea());
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "No se pudo leer el JTL en curso: " + archivoJTL, e);
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría los sondeos siguientes del planificador
+            LOGGER.log(Level.WARNING, "Error publicando métricas en vivo de " + archivoJTL, e);
+        }
+    }
+
+    /**
+     * Abre el lector solo cuando la cabecera (o la primera fila) está completa, para no resolver
+     * columnas a partir de una línea a medio escribir
+     */
+    private boolean abrirCuandoHayaPrimeraLinea() throws IOException {
+        try (FileChannel canal = FileChannel.open(archivoJTL, StandardOpenOption.READ)) {
+            ByteBuffer bloque = ByteBuffer.allocate(8 * 1024);
+            long leidoTotal = 0;
+            boolean completa = false;
+            while (!completa) {
+                bloque.clear();
+                int leidos = canal.read(bloque, leidoTotal);
+                if (leidos <= 0) {
+                    return false;
+                }
+                for (int i = 0; i < leidos && !completa; i++) {
+                    completa = bloque.get(i) == '\n';
+                }
+                leidoTotal += leidos;
+            }
+        }
+
+        lectorBase = LectorJTL.abrir(archivoJTL);
+        if (lectorBase.formato() != LectorJTL.Formato.CSV) {
+            LOGGER.warning("El seguimiento en vivo solo admite JTL en CSV: " + archivoJTL);
+            formatoNoSoportado = true;
+            lectorBase.close();
+            lectorBase = null;
+            return false;
+        }
+        posicion = lectorBase.inicioDatos();
+        return true;
+    }
+
+    /**
+     * Métricas publicadas en cada sondeo: totales acumulados y valores móviles de las últimas ventanas
+     */
+    public record InstantaneaMetricas(Duration transcurrido, long muestras, long errores,
+                                      double throughputMovilReqSeg, long p95MovilMs,
+                                      double tasaErrorMovilPorcentaje, long p95AcumuladoMs) {
+
+        public String resumen() {
+            return String.format("%ds | %d muestras (%d errores) | %.1f req/s | P95 %d ms (acumulado %d ms) | errores %.1f%%",
+                    transcurrido.toSeconds(), muestras, errores, throughputMovilReqSeg,
+                    p95MovilMs, p95AcumuladoMs, tasaErrorMovilPorcentaje);
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import com.mediplus.pruebas.analisis.modelo.HistogramaLatencia;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Serie temporal de un JTL agrupada en ventanas de tamaño fijo (1 segundo por defecto)
+ * Cada muestra se asigna a la ventana de su instante de fin ({@code timeStamp + elapsed}),
+ * igual que el throughput de JMeter, y cada ventana guarda conteos y suma de tiempos; el
+ * histograma por ventana (de menor precisión) solo se lleva si se pide, para percentiles móviles
+ *
+ * <p>La memoria está acotada por {@link #MAXIMO_VENTANAS_DEFAULT} ventanas. Si una ejecución larga
+ * no cabe, {@link Desborde#FUSIONAR} une las ventanas vecinas de a pares (la ventana duplica su
+ * tamaño y la serie sigue cubriendo toda la ejecución) y {@link Desborde#DESCARTAR_ANTIGUAS}
+ * descarta las más antiguas. Las muestras a más de {@link #RANGO_MAXIMO_MS} de la primera, o con
+ * instante no positivo, se cuentan como descartadas en lugar de estirar la serie hacia ellas.</p>
+ *
+ * <p>{@link #detectarRegimenEstable()} recorta el ramp-up y el drenaje final: toma como nivel
+ * de referencia el percentil 75 del throughput por ventana y conserva el tramo entre la primera
+ * y la última ventana que alcanzan el {@link #FRACCION_REGIMEN_DEFAULT} de ese nivel. La primera
+ * y la última ventana se descartan siempre porque suelen estar incompletas.</p>
+ *
+ * <p>No es thread-safe; las series de distintos bloques se unen con {@link #combinar}.</p>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class SerieTemporalJTL {
+
+    public static final long VENTANA_DEFAULT_MS = 1_000L;
+
+    /** Fracción del throughput de referencia a partir de la cual una ventana se considera meseta */
+    public static final double FRACCION_REGIMEN_DEFAULT = 0.8;
+
+    /** Ventanas completas mínimas para dar por encontrado un régimen estable */
+    public static final int MINIMO_VENTANAS_REGIMEN = 3;
+
+    /** Ventanas conservadas por defecto: algo más de una hora con ventanas de 1 s (~100 KB) */
+    public static final int MAXIMO_VENTANAS_DEFAULT = 4_096;
+
+    /**
+     * Ventanas conservadas por defecto cuando cada una lleva su histograma: unos 10 MB en el peor
+     * caso; una ejecución más larga fusiona ventanas antes que crecer
+     */
+    public static final int MAXIMO_VENTANAS_PERCENTILES = 1_024;
+
+    /** Distancia máxima a la primera muestra; más lejos se asume un timeStamp corrupto */
+    public static final long RANGO_MAXIMO_MS = 7L * 24 * 3600 * 1000;
+
+    /**
+     * Qué hacer con una muestra que no cabe en el máximo de ventanas
+     */
+    public enum Desborde {
+        /** Une ventanas vecinas de a pares; conserva toda la ejecución con menos resolución */
+        FUSIONAR,
+        /** Descarta las ventanas más antiguas; conserva solo el tramo reciente (métricas en vivo) */
+        DESCARTAR_ANTIGUAS
+    }
+
+    // Histogramas por ventana: 2 dígitos (error ~1%) y hasta 60 s para acotar la memoria por ventana
+    private static final long MAXIMO_VENTANA_MS = 60_000L;
+    private static final int DIGITOS_VENTANA = 2;
+
+    private final long ventanaInicialMs;
+    private final int maximoVentanas;
+    private final Desborde desborde;
+
+    private long ventanaMs;
+    private long referenciaMs = Long.MIN_VALUE;  // instante de la primera muestra aceptada
+    private long ventanaBase;                    // número absoluto de la ventana en el índice 0
+    private int numeroVentanas;
+    private long[] muestras;
+    private long[] errores;
+    private long[] sumaMs;
+    private HistogramaLatencia[] histogramas;    // null sin percentiles por ventana
+    private long muestrasDescartadas;
+
+    public SerieTemporalJTL() {
+        this(VENTANA_DEFAULT_MS);
+    }
+
+    public SerieTemporalJTL(long ventanaMs) {
+        this(ventanaMs, MAXIMO_VENTANAS_DEFAULT, Desborde.FUSIONAR, false);
+    }
+
+    /**
+     * @param maximoVentanas        ventanas que se conservan como máximo
+     * @param desborde              qué hacer cuando una muestra cae fuera de ese máximo
+     * @param percentilesPorVentana si cada ventana lleva su histograma (~10 KB por ventana)
+     */
+    public SerieTemporalJTL(long ventanaMs, int maximoVentanas, Desborde desborde, boolean percentilesPorVentana) {
+        if (ventanaMs <= 0) {
+            throw new IllegalArgumentException("ventanaMs debe ser positivo");
+        }
+        if (maximoVentanas < 2) {
+            throw new IllegalArgumentException("maximoVentanas debe ser al menos 2");
+        }
+        this.ventanaInicialMs = ventanaMs;
+        this.ventanaMs = ventanaMs;
+        this.maximoVentanas = maximoVentanas;
+        this.desborde = Objects.requireNonNull(desborde, "desborde");
+        int capacidad = Math.min(64, maximoVentanas);
+        this.muestras = new long[capacidad];
+        this.errores = new long[capacidad];
+        this.sumaMs = new long[capacidad];
+        this.histogramas = percentilesPorVentana ? new HistogramaLatencia[capacidad] : null;
+    }
+
+    // ==================== REGISTRO ====================
+
+    /**
+     * Registra una muestra en la ventana de su instante de fin
+     */
+    public void registrar(long timeStamp, long elapsedMs, boolean exito) {
+        int indice = indiceVentana(timeStamp + elapsedMs);
+        if (indice < 0) {
+            muestrasDescartadas++;
+            return;
+        }
+        muestras[indice]++;
+        if (!exito) errores[indice]++;
+        sumaMs[indice] += elapsedMs;
+        if (histogramas != null) {
+            histogramaDe(indice).registrar(elapsedMs);
+        }
+    }
+
+    /**
+     * Incorpora las ventanas de otra serie con el mismo tamaño de ventana inicial; si la otra
+     * ya fusionó ventanas, esta se fusiona hasta igualarla
+     */
+    public void combinar(SerieTemporalJTL otra) {
+        if (otra.ventanaInicialMs != ventanaInicialMs) {
+            throw new IllegalArgumentException("Solo se pueden combinar series con el mismo tamaño de ventana");
+        }
+        if ((otra.histogramas == null) != (histogramas == null)) {
+            throw new IllegalArgumentException("Solo se pueden combinar series que llevan los mismos percentiles por ventana");
+        }
+        while (ventanaMs < otra.ventanaMs) {
+            fusionarPares();
+        }
+        muestrasDescartadas += otra.muestrasDescartadas;
+        for (int i = 0; i < otra.numeroVentanas; i++) {
+            if (otra.muestras[i] == 0) continue;
+            // Cada ventana de la otra cabe entera en una de esta, que es igual o múltiplo
+            int indice = indiceVentana((otra.ventanaBase + i) * otra.ventanaMs);
+            if (indice < 0) {
+                muestrasDescartadas += otra.muestras[i];
+                continue;
+            }
+            muestras[indice] += otra.muestras[i];
+            errores[indice] += otra.errores[i];
+            sumaMs[indice] += otra.sumaMs[i];
+            if (histogramas != null) {
+                histogramaDe(indice).sumar(otra.histogramas[i]);
+            }
+        }
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Ventanas consecutivas desde la primera hasta la última con muestras (los huecos van con ceros)
+     */
+    public List<Ventana> getVentanas() {
+        List<Ventana> ventanas = new ArrayList<>(numeroVentanas);
+        for (int i = 0; i < numeroVentanas; i++) {
+            ventanas.add(crearVentana(i));
+        }
+        return Collections.unmodifiableList(ventanas);
+    }
+
+    public int getNumeroVentanas() {
+        return numeroVentanas;
+    }
+
+    /**
+     * Tamaño actual de ventana; crece al fusionar ventanas en ejecuciones largas
+     */
+    public long getVentanaMs() {
+        return ventanaMs;
+    }
+
+    /**
+     * Muestras ignoradas por caer fuera de rango (timeStamp corrupto o anterior a lo conservado)
+     */
+    public long getMuestrasDescartadas() {
+        return muestrasDescartadas;
+    }
+
+    public boolean isPercentilesPorVentana() {
+        return histogramas != null;
+    }
+
+    /**
+     * Detecta la meseta con la fracción por defecto
+     */
+    public Optional<RegimenEstable> detectarRegimenEstable() {
+        return detectarRegimenEstable(FRACCION_REGIMEN_DEFAULT);
+    }
+
+    /**
+     * Detecta el tramo de régimen estable recortando ramp-up y drenaje. El histograma del
+     * resultado solo existe con percentiles por ventana; para los percentiles exactos de la meseta
+     * se vuelven a recorrer las muestras con fin en {@code [inicioMs, finMs)}
+     *
+     * @param fraccion fracción (0-1] del throughput de referencia que debe alcanzar una ventana
+     * @return vacío si la serie es demasiado corta para distinguir transitorios
+     */
+    public Optional<RegimenEstable> detectarRegimenEstable(double fraccion) {
+        if (fraccion <= 0 || fraccion > 1) {
+            throw new IllegalArgumentException("fraccion debe estar entre 0 y 1");
+        }
+        // Sin la primera y la última ventana (parciales) deben quedar suficientes ventanas
+        int primera = 1;
+        int ultima = numeroVentanas - 2;
+        if (ultima - primera + 1 < MINIMO_VENTANAS_REGIMEN) {
+            return Optional.empty();
+        }
+
+        long[] ordenadas = Arrays.copyOfRange(muestras, primera, ultima + 1);
+        Arrays.sort(ordenadas);
+        long referencia = ordenadas[(int) Math.ceil(0.75 * ordenadas.length) - 1];
+        double umbral = referencia * fraccion;
+
+        int inicio = primera;
+        while (inicio <= ultima && muestras[inicio] < umbral) inicio++;
+        int fin = ultima;
+        while (fin >= inicio && muestras[fin] < umbral) fin--;
+
+        if (fin - inicio + 1 < MINIMO_VENTANAS_REGIMEN) {
+            return Optional.empty();
+        }
+        return Optional.of(resumir(inicio, fin));
+    }
+
+    /**
+     * Resume las últimas {@code cantidad} ventanas sin contar la más reciente, que puede seguir
+     * recibiendo muestras; sirve para métricas móviles durante una ejecución en curso
+     */
+    public Optional<RegimenEstable> resumirUltimasVentanas(int cantidad) {
+        int fin = numeroVentanas - 2;
+        if (cantidad <= 0 || fin < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(resumir(Math.max(0, fin - cantidad + 1), fin));
+    }
+
+    /**
+     * Escribe la serie en CSV (una fila por ventana) para graficarla o revisarla
+     */
+    public void exportarCSV(Path archivo) throws IOException {
+        boolean percentiles = isPercentilesPorVentana();
+        try (BufferedWriter writer = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            writer.write("inicioMs,muestras,errores,throughputReqSeg,tasaErrorPorcentaje,promedioMs"
+                    + (percentiles ? ",p50Ms,p90Ms,p99Ms" : ""));
+            writer.newLine();
+            for (Ventana v : getVentanas()) {
+                writer.write(String.format(Locale.ROOT, "%d,%d,%d,%.2f,%.2f,%.2f",
+                        v.inicioMs(), v.muestras(), v.errores(), v.throughputReqSeg(),
+                        v.tasaErrorPorcentaje(), v.promedioMs()));
+                if (percentiles) {
+                    writer.write(String.format(Locale.ROOT, ",%d,%d,%d", v.p50Ms(), v.p90Ms(), v.p99Ms()));
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    // ==================== MÉTODOS PRIVADOS ====================
+
+    private Ventana crearVentana(int i) {
+        HistogramaLatencia h = histogramas != null ? histogramas[i] : null;
+        long n = muestras[i];
+        return new Ventana((ventanaBase + i) * ventanaMs, n, errores[i],
+                n * 1000.0 / ventanaMs,
+                n > 0 ? errores[i] * 100.0 / n : 0.0,
+                n > 0 ? (double) sumaMs[i] / n : 0.0,
+                h != null ? h.getP50() : 0, h != null ? h.getP90() : 0, h != null ? h.getP99() : 0);
+    }
+
+    private RegimenEstable resumir(int inicio, int fin) {
+        HistogramaLatencia histograma = histogramas != null
+                ? new HistogramaLatencia(MAXIMO_VENTANA_MS, DIGITOS_VENTANA) : null;
+        long totalMuestras = 0;
+        long totalErrores = 0;
+        long totalMs = 0;
+        for (int i = inicio; i <= fin; i++) {
+            totalMuestras += muestras[i];
+            totalErrores += errores[i];
+            totalMs += sumaMs[i];
+            if (histograma != null && histogramas[i] != null) {
+                histograma.sumar(histogramas[i]);
+            }
+        }
+        long inicioMs = (ventanaBase + inicio) * ventanaMs;
+        long finMs = (ventanaBase + fin + 1) * ventanaMs;
+        return new RegimenEstable(inicioMs, finMs, fin - inicio + 1, totalMuestras, totalErrores,
+                totalMuestras * 1000.0 / (finMs - inicioMs),
+                totalMuestras > 0 ? (double) totalMs / totalMuestras : 0.0,
+                histograma);
+    }
+
+    /**
+     * Traduce el instante de fin de una muestra a índice del arreglo, ampliándolo hacia adelante
+     * o hacia atrás y aplicando la política de desborde si no cabe
+     *
+     * @return -1 si la muestra se descarta
+     */
+    private int indiceVentana(long instanteMs) {
+        if (instanteMs <= 0) {
+            return -1;
+        }
+        if (referenciaMs == Long.MIN_VALUE) {
+            referenciaMs = instanteMs;
+        } else if (Math.abs(instanteMs - referenciaMs) > RANGO_MAXIMO_MS) {
+            return -1;
+        }
+        while (true) {
+            long ventana = Math.floorDiv(instanteMs, ventanaMs);
+            if (numeroVentanas == 0) {
+                ventanaBase = ventana;
+                numeroVentanas = 1;
+                return 0;
+            }
+            long primera = Math.min(ventanaBase, ventana);
+            long ultima = Math.max(ventanaBase + numeroVentanas - 1, ventana);
+            if (ultima - primera < maximoVentanas) {
+                ampliar(primera, ultima);
+                return (int) (ventana - ventanaBase);
+            }
+            if (desborde == Desborde.FUSIONAR) {
+                fusionarPares();
+            } else if (ventana < ventanaBase) {
+                return -1; // anterior al tramo que se conserva
+            } else {
+                descartarAnterioresA(ventana - maximoVentanas + 1);
+            }
+        }
+    }
+
+    /**
+     * Extiende el rango a {@code [primera, ultima]}, que ya cabe en el máximo de ventanas
+     */
+    private void ampliar(long primera, long ultima) {
+        if (primera < ventanaBase) {
+            int desplazamiento = (int) (ventanaBase - primera);
+            asegurarCapacidad(numeroVentanas + desplazamiento);
+            System.arraycopy(muestras, 0, muestras, desplazamiento, numeroVentanas);
+            System.arraycopy(errores, 0, errores, desplazamiento, numeroVentanas);
+            System.arraycopy(sumaMs, 0, sumaMs, desplazamiento, numeroVentanas);
+            Arrays.fill(muestras, 0, desplazamiento, 0);
+            Arrays.fill(errores, 0, desplazamiento, 0);
+            Arrays.fill(sumaMs, 0, desplazamiento, 0);
+            if (histogramas != null) {
+                System.arraycopy(histogramas, 0, histogramas, desplazamiento, numeroVentanas);
+                Arrays.fill(histogramas, 0, desplazamiento, null);
+            }
+            ventanaBase = primera;
+            numeroVentanas += desplazamiento;
+        }
+        int requeridas = (int) (ultima - ventanaBase + 1);
+        if (requeridas > numeroVentanas) {
+            asegurarCapacidad(requeridas);
+            numeroVentanas = requeridas;
+        }
+    }
+
+    /**
+     * Une cada par de ventanas vecinas en una del doble de tamaño
+     */
+    private void fusionarPares() {
+        long nuevaBase = Math.floorDiv(ventanaBase, 2);
+        for (int i = 0; i < numeroVentanas; i++) {
+            int destino = (int) (Math.floorDiv(ventanaBase + i, 2) - nuevaBase);
+            if (destino == i) continue;
+            // destino < i: ya se recorrió, así que acumular en él no pisa nada pendiente
+            muestras[destino] += muestras[i];
+            errores[destino] += errores[i];
+            sumaMs[destino] += sumaMs[i];
+            muestras[i] = 0;
+            errores[i] = 0;
+            sumaMs[i] = 0;
+            if (histogramas != null && histogramas[i] != null) {
+                if (histogramas[destino] == null) {
+                    histogramas[destino] = histogramas[i];
+                } else {
+                    histogramas[destino].sumar(histogramas[i]);
+                }
+                histogramas[i] = null;
+            }
+        }
+        if (numeroVentanas > 0) {
+            numeroVentanas = (int) (Math.floorDiv(ventanaBase + numeroVentanas - 1, 2) - nuevaBase + 1);
+        }
+        ventanaBase = nuevaBase;
+        ventanaMs *= 2;
+    }
+
+    /**
+     * Descarta las ventanas anteriores a {@code nuevaBase}
+     */
+    private void descartarAnterioresA(long nuevaBase) {
+        int descartadas = (int) Math.min(numeroVentanas, nuevaBase - ventanaBase);
+        int restantes = numeroVentanas - descartadas;
+        System.arraycopy(muestras, descartadas, muestras, 0, restantes);
+        System.arraycopy(errores, descartadas, errores, 0, restantes);
+        System.arraycopy(sumaMs, descartadas, sumaMs, 0, restantes);
+        Arrays.fill(muestras, restantes, numeroVentanas, 0);
+        Arrays.fill(errores, restantes, numeroVentanas, 0);
+        Arrays.fill(sumaMs, restantes, numeroVentanas, 0);
+        if (histogramas != null) {
+            System.arraycopy(histogramas, descartadas, histogramas, 0, restantes);
+            Arrays.fill(histogramas, restantes, numeroVentanas, null);
+        }
+        ventanaBase += descartadas;
+        numeroVentanas = restantes;
+    }
+
+    private void asegurarCapacidad(int requerida) {
+        if (requerida <= muestras.length) return;
+        int nuevaLongitud = Math.min(maximoVentanas, Math.max(muestras.length * 2, requerida));
+        muestras = Arrays.copyOf(muestras, nuevaLongitud);
+        errores = Arrays.copyOf(errores, nuevaLongitud);
+        sumaMs = Arrays.copyOf(sumaMs, nuevaLongitud);
+        if (histogramas != null) {
+            histogramas = Arrays.copyOf(histogramas, nuevaLongitud);
+        }
+    }
+
+    private HistogramaLatencia histogramaDe(int indice) {
+        HistogramaLatencia h = histogramas[indice];
+        if (h == null) {
+            h = new HistogramaLatencia(MAXIMO_VENTANA_MS, DIGITOS_VENTANA);
+            histogramas[indice] = h;
+        }
+        return h;
+    }
+
+    // ==================== TIPOS DE RESULTADO ====================
+
+    /** Métricas de una ventana de la serie; los percentiles valen 0 si la serie no los lleva */
+    public record Ventana(long inicioMs, long muestras, long errores, double throughputReqSeg,
+                          double tasaErrorPorcentaje, double promedioMs, long p50Ms, long p90Ms, long p99Ms) { }
+
+    /**
+     * Tramo de la serie (régimen estable o ventanas móviles) y sus métricas agregadas; el
+     * histograma es null si la serie no lleva percentiles por ventana
+     */
+    public record RegimenEstable(long inicioMs, long finMs, int ventanas, long muestras, long errores,
+                                 double throughputReqSeg, double promedioMs, HistogramaLatencia histograma) {
+
+        public double tasaErrorPorcentaje() {
+            return muestras > 0 ? errores * 100.0 / muestras : 0.0;
+        }
+
+        public long duracionMs() {
+            return finMs - inicioMs;
+        }
+    }
+}
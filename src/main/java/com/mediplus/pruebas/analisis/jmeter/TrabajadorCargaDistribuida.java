@@ -0,0 +1,131 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import com.mediplus.pruebas.analisis.carga.MotorCargaVirtual;
+import com.mediplus.pruebas.analisis.carga.PlanCarga;
+import com.mediplus.pruebas.analisis.carga.ResultadoCarga;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generador de carga que recibe porciones de escenarios de un {@link CoordinadorCargaDistribuida}
+ * Corre cada porción con {@link MotorCargaVirtual} en su propia JVM, arrancando en el instante
+ * acordado, y devuelve solo el {@link BocetoMetricasJTL} de sus muestras (unos pocos KB), nunca
+ * el JTL. En otro equipo se inicia con:
+ *
+ * <pre>
+ * java -cp &lt;classpath&gt; com.mediplus.pruebas.analisis.jmeter.TrabajadorCargaDistribuida &lt;host&gt; &lt;puerto&gt; [nodo]
+ * </pre>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class TrabajadorCargaDistribuida {
+
+    private static final Logger LOGGER = Logger.getLogger(TrabajadorCargaDistribuida.class.getName());
+
+    private final String nodo;
+
+    public TrabajadorCargaDistribuida(String nodo) {
+        this.nodo = nodo;
+    }
+
+    /**
+     * Se conecta al coordinador y atiende sus mensajes hasta recibir FIN o perder la conexión
+     */
+    public void atender(String host, int puerto) throws IOException {
+        try (Socket socket = new Socket(host, puerto);
+             MotorCargaVirtual motor = new MotorCargaVirtual()) {
+            socket.setTcpNoDelay(true);
+            DataInputStream entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            salida.writeByte(ProtocoloCargaDistribuida.REGISTRO);
+            salida.writeInt(ProtocoloCargaDistribuida.MAGIA);
+            salida.writeInt(ProtocoloCargaDistribuida.VERSION);
+            salida.writeUTF(nodo);
+            salida.flush();
+            LOGGER.info("🔌 Trabajador " + nodo + " conectado a " + host + ":" + puerto);
+
+            while (true) {
+                byte tipo;
+                try {
+                    tipo = entrada.readByte();
+                } catch (EOFException e) {
+                    LOGGER.warning("Coordinador desconectado: " + nodo);
+                    return;
+                }
+                switch (tipo) {
+                    case ProtocoloCargaDistribuida.RELOJ -> {
+                        salida.writeByte(ProtocoloCargaDistribuida.RELOJ);
+                        salida.writeLong(System.currentTimeMillis());
+                    }
+                    case ProtocoloCargaDistribuida.ASIGNACION ->
+                            responderAsignacion(motor, ProtocoloCargaDistribuida.Asignacion.leer(entrada), salida);
+                    case ProtocoloCargaDistribuida.FIN -> {
+                        LOGGER.info("👋 Trabajador " + nodo + " finalizado por el coordinador");
+                        return;
+                    }
+                    default -> throw new IOException("Tipo de mensaje desconocido: " + tipo);
+                }
+                salida.flush();
+            }
+        }
+    }
+
+    /**
+     * Un fallo de la porción (E/S del motor, datos, interrupción) se informa al coordinador con
+     * ERROR y el trabajador sigue atendiendo; solo los fallos al escribir en el socket se propagan
+     */
+    private void responderAsignacion(MotorCargaVirtual motor, ProtocoloCargaDistribuida.Asignacion asignacion,
+                                     DataOutputStream salida) throws IOException {
+        BocetoMetricasJTL boceto;
+        try {
+            boceto = ejecutar(motor, asignacion);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            salida.writeByte(ProtocoloCargaDistribuida.ERROR);
+            salida.writeUTF("Trabajador " + nodo + " interrumpido");
+            return;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Error ejecutando porción en " + nodo, e);
+            salida.writeByte(ProtocoloCargaDistribuida.ERROR);
+            salida.writeUTF(nodo + ": " + e);
+            return;
+        }
+        salida.writeByte(ProtocoloCargaDistribuida.RESUMEN);
+        boceto.escribir(salida);
+    }
+
+    private BocetoMetricasJTL ejecutar(MotorCargaVirtual motor, ProtocoloCargaDistribuida.Asignacion asignacion)
+            throws IOException, InterruptedException {
+        EjecutorJMeterReal.ConfiguracionEscenario escenario = asignacion.escenario();
+        if (escenario.usuariosConcurrentes == 0) {
+            return BocetoMetricasJTL.desdeDesglose(new DesgloseMetricasJTL(), nodo);
+        }
+
+        long espera = asignacion.inicioEpochMs() - System.currentTimeMillis();
+        if (espera > 0) {
+            Thread.sleep(espera);
+        } else {
+            LOGGER.warning(String.format("Trabajador %s arranca %d ms tarde", nodo, -espera));
+        }
+        ResultadoCarga resultado = motor.ejecutar(PlanCarga.desdeEscenario(escenario, asignacion.urlBase()));
+        return BocetoMetricasJTL.desdeDesglose(resultado.desglose(), nodo);
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Uso: TrabajadorCargaDistribuida <host> <puerto> [nodo]");
+            System.exit(2);
+        }
+        String nodo = args.length > 2 ? args[2] : "trabajador-" + ProcessHandle.current().pid();
+        try {
+            new TrabajadorCargaDistribuida(nodo).atender(args[0], Integer.parseInt(args[1]));
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "❌ Trabajador " + nodo + " terminó con error", e);
+            System.exit(1);
+        }
+    }
+}
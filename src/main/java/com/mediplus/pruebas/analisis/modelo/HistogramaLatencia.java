@@ -0,0 +1,344 @@
+package com.mediplus.pruebas.analisis.modelo;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Histograma log-lineal de latencias (estilo HDR) con memoria fija
+ * Divide cada potencia de dos en sub-buckets lineales, por lo que el error relativo de
+ * cualquier percentil queda acotado por la precisión configurada. Registrar una muestra es O(1)
+ * y no genera objetos, y dos histogramas con la misma configuración se combinan sin pérdida
+ *
+ * <p>No es thread-safe: cada hilo debe registrar en su propio histograma y combinarlos al final.</p>
+ *
+ * <p>{@link #escribir} lo serializa en forma dispersa (solo los buckets con conteo, en varints),
+ * lo que deja unos pocos KB por histograma; sirve como resumen que se envía entre nodos y se
+ * combina con {@link #sumar} sin perder precisión.</p>
+ *
+ * <p>Un generador en lazo cerrado que queda esperando una respuesta lenta deja de enviar las
+ * peticiones que le tocaban (omisión coordinada). {@link #registrarConIntervaloEsperado} y
+ * {@link #corregidoPorOmisionCoordinada} reponen esas muestras a partir del intervalo esperado
+ * entre peticiones, igual que HdrHistogram.</p>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class HistogramaLatencia {
+
+    /** Valor máximo rastreable por defecto: 1 hora en milisegundos */
+    public static final long MAXIMO_RASTREABLE_DEFAULT_MS = 3_600_000L;
+
+    /** Dígitos significativos por defecto (error relativo máximo ~0,1%) */
+    public static final int DIGITOS_SIGNIFICATIVOS_DEFAULT = 3;
+
+    private final long valorMaximoRastreable;
+    private final int digitosSignificativos;
+    private final int bitsSubBucket;      // log2 del número de sub-buckets
+    private final int mitadSubBuckets;    // sub-buckets por potencia de dos a partir de la primera
+    private final long[] conteos;
+
+    private long total;
+    private long suma;
+    private long minimo = Long.MAX_VALUE;
+    private long maximo = Long.MIN_VALUE;
+
+    /**
+     * Crea un histograma para valores de 0 a 1 hora con 3 dígitos significativos
+     */
+    public HistogramaLatencia() {
+        this(MAXIMO_RASTREABLE_DEFAULT_MS, DIGITOS_SIGNIFICATIVOS_DEFAULT);
+    }
+
+    /**
+     * @param valorMaximoRastreable valor más alto con precisión garantizada; los mayores se acumulan en el último bucket
+     * @param digitosSignificativos precisión entre 1 y 5 dígitos
+     */
+    public HistogramaLatencia(long valorMaximoRastreable, int digitosSignificativos) {
+        if (valorMaximoRastreable < 2) {
+            throw new IllegalArgumentException("valorMaximoRastreable debe ser al menos 2");
+        }
+        if (digitosSignificativos < 1 || digitosSignificativos > 5) {
+            throw new IllegalArgumentException("digitosSignificativos debe estar entre 1 y 5");
+        }
+        this.valorMaximoRastreable = valorMaximoRastreable;
+        this.digitosSignificativos = digitosSignificativos;
+
+        long valorConResolucionUnitaria = 2 * (long) Math.pow(10, digitosSignificativos);
+        this.bitsSubBucket = 64 - Long.numberOfLeadingZeros(valorConResolucionUnitaria - 1);
+        this.mitadSubBuckets = 1 << (bitsSubBucket - 1);
+
+        int desplazamientoMaximo = Math.max(0, longitudEnBits(valorMaximoRastreable) - bitsSubBucket);
+        this.conteos = new long[(desplazamientoMaximo + 2) * mitadSubBuckets];
+    }
+
+    // ==================== REGISTRO ====================
+
+    /**
+     * Registra un valor; los negativos se tratan como 0
+     */
+    public void registrar(long valor) {
+        registrar(valor, 1);
+    }
+
+    /**
+     * Registra un valor repetido {@code conteo} veces
+     */
+    public void registrar(long valor, long conteo) {
+        if (conteo <= 0) return;
+        long v = Math.max(0, valor);
+        conteos[indiceDe(Math.min(v, valorMaximoRastreable))] += conteo;
+        total += conteo;
+        suma += v * conteo;
+        if (v < minimo) minimo = v;
+        if (v > maximo) maximo = v;
+    }
+
+    /**
+     * Registra un valor y las muestras que el generador omitió mientras lo esperaba: si el
+     * valor supera el intervalo esperado se agregan {@code valor - intervalo},
+     * {@code valor - 2·intervalo}, ... mientras sigan superándolo
+     *
+     * @param intervaloEsperado tiempo esperado entre peticiones consecutivas; 0 o menos no corrige
+     */
+    public void registrarConIntervaloEsperado(long valor, long intervaloEsperado) {
+        registrarConIntervaloEsperado(valor, 1, intervaloEsperado);
+    }
+
+    /**
+     * Las muestras omitidas forman la progresión {@code valor - k·intervalo} (k = 1, 2, ...) mientras
+     * sigan en {@code intervalo} o más. Se reponen por bucket y no una a una: cada paso cuenta en O(1)
+     * los términos que caen en el bucket actual, así que un bucket cuesta a lo sumo tantos pasos como
+     * buckets tiene el histograma aunque {@code valor / intervalo} sea enorme
+     */
+    private void registrarConIntervaloEsperado(long valor, long conteo, long intervaloEsperado) {
+        registrar(valor, conteo);
+        if (intervaloEsperado <= 0 || conteo <= 0) return;
+        long actual = valor - intervaloEsperado;
+        while (actual >= intervaloEsperado) {
+            int indice = indiceDe(Math.min(actual, valorMaximoRastreable));
+            long piso = Math.max(intervaloEsperado, menorValorEquivalente(indice));
+            long terminos = (actual - piso) / intervaloEsperado + 1;
+            long menor = actual - (terminos - 1) * intervaloEsperado;
+            // (actual + menor) es par cuando terminos es impar, así que la mitad es exacta
+            long sumaTerminos = terminos % 2 == 0
+                    ? (terminos / 2) * (actual + menor)
+                    : terminos * ((actual + menor) / 2);
+            conteos[indice] += terminos * conteo;
+            total += terminos * conteo;
+            suma += sumaTerminos * conteo;
+            if (menor < minimo) minimo = menor;
+            if (actual > maximo) maximo = actual;
+            actual = menor - intervaloEsperado;
+        }
+    }
+
+    /**
+     * Copia corregida por omisión coordinada: equivale a haber registrado cada muestra con
+     * {@link #registrarConIntervaloEsperado}. Cada bucket se repone desde su mayor valor
+     * equivalente, por lo que el error relativo se mantiene
+     */
+    public HistogramaLatencia corregidoPorOmisionCoordinada(long intervaloEsperado) {
+        HistogramaLatencia corregido = new HistogramaLatencia(valorMaximoRastreable, digitosSignificativos);
+        for (int i = 0; i < conteos.length; i++) {
+            if (conteos[i] != 0) {
+                long valor = Math.max(minimo, Math.min(mayorValorEquivalente(i), maximo));
+                corregido.registrarConIntervaloEsperado(valor, conteos[i], intervaloEsperado);
+            }
+        }
+        return corregido;
+    }
+
+    /**
+     * Combina sin pérdida los conteos de otro histograma con la misma configuración
+     */
+    public void sumar(HistogramaLatencia otro) {
+        validarCompatible(otro);
+        if (otro.total == 0) return;
+        for (int i = 0; i < conteos.length; i++) {
+            conteos[i] += otro.conteos[i];
+        }
+        total += otro.total;
+        suma += otro.suma;
+        minimo = Math.min(minimo, otro.minimo);
+        maximo = Math.max(maximo, otro.maximo);
+    }
+
+    /**
+     * Vacía el histograma conservando su configuración
+     */
+    public void reiniciar() {
+        Arrays.fill(conteos, 0);
+        total = 0;
+        suma = 0;
+        minimo = Long.MAX_VALUE;
+        maximo = Long.MIN_VALUE;
+    }
+
+    public HistogramaLatencia copia() {
+        HistogramaLatencia copia = new HistogramaLatencia(valorMaximoRastreable, digitosSignificativos);
+        copia.sumar(this);
+        return copia;
+    }
+
+    // ==================== SERIALIZACIÓN ====================
+
+    /**
+     * Escribe la configuración, los totales y los buckets no vacíos (índice como delta y conteo, en varints)
+     */
+    public void escribir(DataOutput salida) throws IOException {
+        salida.writeLong(valorMaximoRastreable);
+        salida.writeByte(digitosSignificativos);
+        salida.writeLong(total);
+        salida.writeLong(suma);
+        salida.writeLong(minimo);
+        salida.writeLong(maximo);
+
+        int noVacios = 0;
+        for (long conteo : conteos) {
+            if (conteo != 0) noVacios++;
+        }
+        salida.writeInt(noVacios);
+        int anterior = 0;
+        for (int i = 0; i < conteos.length; i++) {
+            if (conteos[i] != 0) {
+                escribirVarint(salida, i - anterior);
+                escribirVarint(salida, conteos[i]);
+                anterior = i;
+            }
+        }
+    }
+
+    /**
+     * Reconstruye un histograma escrito con {@link #escribir}
+     */
+    public static HistogramaLatencia leer(DataInput entrada) throws IOException {
+        long valorMaximo = entrada.readLong();
+        int digitos = entrada.readByte();
+        HistogramaLatencia histograma;
+        try {
+            histograma = new HistogramaLatencia(valorMaximo, digitos);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Configuración de histograma inválida", e);
+        }
+        histograma.total = entrada.readLong();
+        histograma.suma = entrada.readLong();
+        histograma.minimo = entrada.readLong();
+        histograma.maximo = entrada.readLong();
+
+        int noVacios = entrada.readInt();
+        int indice = 0;
+        for (int i = 0; i < noVacios; i++) {
+            indice += (int) leerVarint(entrada);
+            if (indice < 0 || indice >= histograma.conteos.length) {
+                throw new IOException("Índice de bucket fuera de rango: " + indice);
+            }
+            histograma.conteos[indice] = leerVarint(entrada);
+        }
+        return histograma;
+    }
+
+    private static void escribirVarint(DataOutput salida, long valor) throws IOException {
+        while ((valor & ~0x7FL) != 0) {
+            salida.writeByte((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        salida.writeByte((int) valor);
+    }
+
+    private static long leerVarint(DataInput entrada) throws IOException {
+        long valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+            byte b = entrada.readByte();
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+        throw new IOException("Varint demasiado largo");
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Percentil por rango más cercano; devuelve el mayor valor equivalente del bucket,
+     * acotado por el máximo real registrado
+     *
+     * @param percentil valor entre 0 y 100
+     */
+    public long percentil(double percentil) {
+        if (total == 0) return 0;
+
+        // El épsilon evita que errores de redondeo (p.ej. 99.9 / 100 * 1000) suban un rango
+        long rango = (long) Math.ceil(Math.max(0, Math.min(percentil, 100.0)) / 100.0 * total - 1e-9);
+        rango = Math.max(1, rango);
+
+        long acumulado = 0;
+        for (int i = 0; i < conteos.length; i++) {
+            acumulado += conteos[i];
+            if (acumulado >= rango) {
+                return Math.max(minimo, Math.min(mayorValorEquivalente(i), maximo));
+            }
+        }
+        return maximo;
+    }
+
+    public long getP50() { return percentil(50); }
+    public long getP90() { return percentil(90); }
+    public long getP95() { return percentil(95); }
+    public long getP99() { return percentil(99); }
+    public long getP999() { return percentil(99.9); }
+
+    public long getTotal() { return total; }
+    public long getMinimo() { return total > 0 ? minimo : 0; }
+    public long getMaximo() { return total > 0 ? maximo : 0; }
+    public double getPromedio() { return total > 0 ? (double) suma / total : 0.0; }
+    public long getValorMaximoRastreable() { return valorMaximoRastreable; }
+    public int getDigitosSignificativos() { return digitosSignificativos; }
+
+    /**
+     * Error relativo máximo de un percentil respecto del valor exacto
+     */
+    public double getErrorRelativoMaximo() {
+        return 1.0 / mitadSubBuckets;
+    }
+
+    // ==================== CÁLCULO DE ÍNDICES ====================
+
+    private int indiceDe(long valor) {
+        int desplazamiento = Math.max(0, longitudEnBits(valor) - bitsSubBucket);
+        int subBucket = (int) (valor >>> desplazamiento);
+        return desplazamiento * mitadSubBuckets + subBucket;
+    }
+
+    private long menorValorEquivalente(int indice) {
+        if (indice < 2 * mitadSubBuckets) {
+            return indice;
+        }
+        int desplazamiento = indice / mitadSubBuckets - 1;
+        long subBucket = indice - (long) desplazamiento * mitadSubBuckets;
+        return subBucket << desplazamiento;
+    }
+
+    private long mayorValorEquivalente(int indice) {
+        int desplazamiento = indice < 2 * mitadSubBuckets ? 0 : indice / mitadSubBuckets - 1;
+        return menorValorEquivalente(indice) + (1L << desplazamiento) - 1;
+    }
+
+    private static int longitudEnBits(long valor) {
+        return 64 - Long.numberOfLeadingZeros(valor);
+    }
+
+    private void validarCompatible(HistogramaLatencia otro) {
+        if (otro.valorMaximoRastreable != valorMaximoRastreable ||
+                otro.digitosSignificativos != digitosSignificativos) {
+            throw new IllegalArgumentException("Solo se pueden combinar histogramas con la misma configuración");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HistogramaLatencia{total=%d, p50=%d, p90=%d, p95=%d, p99=%d, p99.9=%d, max=%d}",
+                total, getP50(), getP90(), getP95(), getP99(), getP999(), getMaximo());
+    }
+}
@@ -23,6 +23,9 @@ public class MetricaRendimiento {
     private final double tiempoMaximoMs;
     private final int duracionPruebaSegundos;
     private final LocalDateTime fechaEjecucion;
+    private final HistogramaLatencia histograma;
+    private final HistogramaLatencia histogramaCorregido;
+    private final long intervaloEsperadoMs;
 
     private MetricaRendimiento(Builder builder) {
         this.nombreEscenario = validarNoVacio(builder.nombreEscenario, "nombreEscenario");
@@ -36,6 +39,9 @@ public class MetricaRendimiento {
         this.tiempoMaximoMs = validarNoNegativo(builder.tiempoMaximoMs, "tiempoMaximoMs");
         this.duracionPruebaSegundos = validarPositivo(builder.duracionPruebaSegundos, "duracionPruebaSegundos");
         this.fechaEjecucion = builder.fechaEjecucion != null ? builder.fechaEjecucion : LocalDateTime.now();
+        this.histograma = builder.histograma != null ? builder.histograma.copia() : null;
+        this.histogramaCorregido = builder.histogramaCorregido != null ? builder.histogramaCorregido.copia() : null;
+        this.intervaloEsperadoMs = builder.intervaloEsperadoMs;
     }
 
     /**
@@ -97,7 +103,18 @@ public class MetricaRendimiento {
         reporte.append("  Mínimo: ").append(String.format("%.0f ms", tiempoMinimoMs)).append("\n");
         reporte.append("  Máximo: ").append(String.format("%.0f ms", tiempoMaximoMs)).append("\n");
         reporte.append("  Percentil 90: ").append(String.format("%.0f ms", percentil90Ms)).append("\n");
-        reporte.append("  Percentil 95: ").append(String.format("%.0f ms", percentil95Ms)).append("\n\n");
+        reporte.append("  Percentil 95: ").append(String.format("%.0f ms", percentil95Ms)).append("\n");
+        if (histograma != null) {
+            reporte.append("  Percentil 50: ").append(String.format("%.0f ms", getPercentil50Ms())).append("\n");
+            reporte.append("  Percentil 99: ").append(String.format("%.0f ms", getPercentil99Ms())).append("\n");
+            reporte.append("  Percentil 99.9: ").append(String.format("%.0f ms", getPercentil999Ms())).append("\n");
+        }
+        if (histogramaCorregido != null) {
+            reporte.append(String.format("  Corregidos por omisión coordinada (intervalo esperado %d ms):%n", intervaloEsperadoMs));
+            reporte.append(String.format("    P95 %.0f ms | P99 %.0f ms | P99.9 %.0f ms%n",
+                    getPercentil95CorregidoMs(), getPercentil99CorregidoMs(), getPercentil999CorregidoMs()));
+        }
+        reporte.append("\n");
 
         reporte.append("📈 THROUGHPUT Y ERRORES:\n");
         reporte.append("  Throughput: ").append(String.format("%.1f req/s", throughputReqSeg)).append("\n");
@@ -154,6 +171,40 @@ public class MetricaRendimiento {
     public int getDuracionPruebaSegundos() { return duracionPruebaSegundos; }
     public LocalDateTime getFechaEjecucion() { return fechaEjecucion; }
 
+    /**
+     * Indica si la métrica trae la distribución completa de tiempos
+     */
+    public boolean tieneHistograma() { return histograma != null; }
+
+    /**
+     * Copia de la distribución de tiempos (null si la métrica no la trae); se puede
+     * combinar con la de otras métricas mediante {@link HistogramaLatencia#sumar}
+     */
+    public HistogramaLatencia getHistograma() { return histograma != null ? histograma.copia() : null; }
+
+    // Percentiles adicionales: solo disponibles cuando la métrica trae histograma (0 en caso contrario)
+    public double getPercentil50Ms() { return histograma != null ? histograma.getP50() : 0.0; }
+    public double getPercentil99Ms() { return histograma != null ? histograma.getP99() : 0.0; }
+    public double getPercentil999Ms() { return histograma != null ? histograma.getP999() : 0.0; }
+
+    /**
+     * Indica si la métrica trae la distribución corregida por omisión coordinada
+     */
+    public boolean tieneCorreccionOmision() { return histogramaCorregido != null; }
+
+    /**
+     * Copia de la distribución con las muestras omitidas repuestas (null si no se corrigió)
+     */
+    public HistogramaLatencia getHistogramaCorregido() { return histogramaCorregido != null ? histogramaCorregido.copia() : null; }
+
+    /** Intervalo esperado entre peticiones con el que se corrigió la distribución */
+    public long getIntervaloEsperadoMs() { return intervaloEsperadoMs; }
+
+    // Percentiles corregidos: junto a los medidos dan la cola que vería un cliente que no espera (0 sin corrección)
+    public double getPercentil95CorregidoMs() { return histogramaCorregido != null ? histogramaCorregido.getP95() : 0.0; }
+    public double getPercentil99CorregidoMs() { return histogramaCorregido != null ? histogramaCorregido.getP99() : 0.0; }
+    public double getPercentil999CorregidoMs() { return histogramaCorregido != null ? histogramaCorregido.getP999() : 0.0; }
+
     /**
      * Enum para representar niveles de rendimiento
      */
@@ -190,6 +241,9 @@ public class MetricaRendimiento {
         private double tiempoMaximoMs;
         private int duracionPruebaSegundos;
         private LocalDateTime fechaEjecucion;
+        private HistogramaLatencia histograma;
+        private HistogramaLatencia histogramaCorregido;
+        private long intervaloEsperadoMs;
 
         public Builder nombreEscenario(String nombreEscenario) {
             this.nombreEscenario = nombreEscenario;
@@ -246,6 +300,20 @@ public class MetricaRendimiento {
             return this;
         }
 
+        public Builder histograma(HistogramaLatencia histograma) {
+            this.histograma = histograma;
+            return this;
+        }
+
+        /**
+         * Distribución corregida por omisión coordinada y el intervalo esperado usado para corregirla
+         */
+        public Builder correccionOmision(HistogramaLatencia histogramaCorregido, long intervaloEsperadoMs) {
+            this.histogramaCorregido = histogramaCorregido;
+            this.intervaloEsperadoMs = intervaloEsperadoMs;
+            return this;
+        }
+
         public MetricaRendimiento build() {
             return new MetricaRendimiento(this);
         }
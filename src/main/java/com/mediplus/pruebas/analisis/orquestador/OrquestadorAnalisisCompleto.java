@@ -6,8 +6,13 @@ import com.mediplus.pruebas.analisis.modelo.MetricaRendimiento;
 import com.mediplus.pruebas.analisis.evidencias.GeneradorEvidencias;
 import com.mediplus.pruebas.analisis.evidencias.GeneradorGraficas;
 import com.mediplus.pruebas.analisis.AnalizadorMetricas;
+import com.mediplus.pruebas.analisis.carga.MotorCargaVirtual;
+import com.mediplus.pruebas.analisis.carga.PlanCarga;
+import com.mediplus.pruebas.analisis.jmeter.CacheColumnarJTL;
+import com.mediplus.pruebas.analisis.jmeter.CatalogoEscenarios;
 import com.mediplus.pruebas.analisis.jmeter.DetectorReportesJMeter;
 import com.mediplus.pruebas.analisis.jmeter.EjecutorJMeterReal;
+import com.mediplus.pruebas.analisis.jmeter.SerieTemporalJTL;
 import com.mediplus.pruebas.analisis.procesador.ProcesadorResultadosCapturados;
 
 import java.io.*;
@@ -42,6 +47,7 @@ public class OrquestadorAnalisisCompleto implements AutoCloseable {
 
     private static final Logger LOGGER = Logger.getLogger(OrquestadorAnalisisCompleto.class.getName());
     private static final DateTimeFormatter FORMATO_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+    private static final String PATRON_PRUEBAS_FUNCIONALES = "com.mediplus.pruebas.casos.Pruebas*Test";
 
     // ==================== CAMPOS DE INSTANCIA ====================
 
@@ -49,6 +55,7 @@ public class OrquestadorAnalisisCompleto implements AutoCloseable {
     private final GeneradorEvidencias generadorEvidencias;
     private final GeneradorGraficas generadorGraficas;
     private final AnalizadorMetricas analizadorMetricas;
+    private final CacheColumnarJTL cacheJTL;
     private final ExecutorService executorService;
     private final String timestampEjecucion;
 
@@ -62,7 +69,9 @@ public class OrquestadorAnalisisCompleto implements AutoCloseable {
         this.configuracion = ConfiguracionAplicacion.obtenerInstancia();
         this.generadorEvidencias = new GeneradorEvidencias();
         this.generadorGraficas = new GeneradorGraficas();
-        this.analizadorMetricas = new AnalizadorMetricas();
+        this.analizadorMetricas = new AnalizadorMetricas(SerieTemporalJTL.VENTANA_DEFAULT_MS, true,
+                configuracion.obtenerIntervaloEsperadoMs());
+        this.cacheJTL = new CacheColumnarJTL();
         this.executorService = Executors.newFixedThreadPool(4);
         this.timestampEjecucion = LocalDateTime.now().format(FORMATO_TIMESTAMP);
         this.estadoActual = EstadoOrquestador.INICIALIZANDO;
@@ -130,12 +139,9 @@ public class OrquestadorAnalisisCompleto implements AutoCloseable {
                 // Iniciar sistema de captura
                 ProcesadorResultadosCapturados.iniciarCaptura();
 
-                // Ejecutar tests Maven
+                // Ejecutar tests Maven (los reportes de Surefire ya están escritos cuando termina el proceso)
                 ResultadoEjecucionMaven resultado = ejecutarTestsConMaven();
 
-                // Esperar captura de resultados
-                Thread.sleep(2000);
-
                 // Obtener tests capturados
                 List<ProcesadorResultadosCapturados.TestCapturadoSimple> testsCapturados =
                         ProcesadorResultadosCapturados.obtenerTestsCapturados();
@@ -194,7 +200,11 @@ public class OrquestadorAnalisisCompleto implements AutoCloseable {
                             metricasConReferencias, analisis);
                 }
 
-                // 4. Intentar ejecución con JMeter Real
+                // 4. Generar carga: motor virtual en proceso si está configurado, si no JMeter Real
+                if (configuracion.usarMotorCargaVirtual()) {
+                    LOGGER.info("⚡ Motor de carga virtual configurado - ejecutando escenarios en proceso");
+                    return intentarEjecucionMotorVirtual();
+                }
                 if (EjecutorJMeterReal.verificarJMeterDisponible()) {
                     LOGGER.info("⚡ JMeter disponible - intentando ejecución automática");
                     return intentarEjecucionJMeterReal();
@@ -317,10 +327,16 @@ public class OrquestadorAnalisisCompleto implements AutoCloseable {
 
     /**
      * Ejecuta tests con Maven
+     * Corre solo las suites funcionales, que se ejecutan en paralelo por clase y por método según
+     * la configuración de Surefire; sin instrumentación de cobertura, que aquí no se usa
      */
     private ResultadoEjecucionMaven ejecutarTestsConMaven() throws IOException, InterruptedException {
         LOGGER.info("📦 Ejecutando tests con Maven...");
-        ProcessBuilder pb = new ProcessBuilder("mvn", "test", "-Dtest=PruebasBasicas", "-q");
+        ProcessBuilder pb = new ProcessBuilder("mvn", "-q", "test",
+                "-Dtest=" + PATRON_PRUEBAS_FUNCIONALES,
+                "-Dsurefire.failIfNoSpecifiedTests=false",
+                "-Dpruebas.paralelas=true",
+                "-Djacoco.skip=true");
         pb.redirectErrorStream(true);
         Process proceso = pb.start();
 
@@ -348,7 +364,7 @@ public class OrquestadorAnalisisCompleto implements AutoCloseable {
     }
 
     /**
-     * Procesa JTLs detectados por el detector
+     * Procesa JTLs detectados por el detector; las corridas ya analizadas se leen desde el caché columnar
      */
     private List<MetricaRendimiento> procesarJTLsDetectados(List<DetectorReportesJMeter.ArchivoJTLEncontrado> archivosJTL) {
         List<MetricaRendimiento> metricas = new ArrayList<>();
@@ -356,10 +372,12 @@ public class OrquestadorAnalisisCompleto implements AutoCloseable {
             try {
                 Path pathJTL = Paths.get(jtl.rutaArchivo);
                 if (Files.exists(pathJTL) && Files.size(pathJTL) > 0) {
-                    MetricaRendimiento metrica = analizadorMetricas.procesarArchivoJTL(pathJTL);
-                    if (metrica != null) {
-                        metricas.add(metrica);
+                    AnalizadorMetricas.ResultadoAnalisisJTL resultado =
+                            analizadorMetricas.procesarArchivoJTLConDesglose(pathJTL, cacheJTL);
+                    if (resultado != null) {
+                        metricas.add(resultado.getGeneral());
                         LOGGER.info("✅ Procesado JTL REAL detectado: " + pathJTL.getFileName());
+                        registrarSamplerMasLento(resultado);
                     }
                 }
             } catch (Exception e) {
@@ -369,6 +387,18 @@ public class OrquestadorAnalisisCompleto implements AutoCloseable {
         return metricas;
     }
 
+    /**
+     * Informa el sampler con peor percentil 95 cuando el JTL mezcla varios
+     */
+    private void registrarSamplerMasLento(AnalizadorMetricas.ResultadoAnalisisJTL resultado) {
+        if (resultado.getPorEtiqueta().size() < 2) {
+            return;
+        }
+        resultado.getEtiquetaMasLenta().ifPresent(lento ->
+                LOGGER.info(String.format("   🐢 Sampler más lento: %s (P95 %.0f ms, %.1f%% errores)",
+                        lento.getNombreEscenario(), lento.getPercentil95Ms(), lento.getTasaErrorPorcentaje())));
+    }
+
     /**
      * Intenta ejecutar JMeter Real automáticamente
      */
@@ -414,6 +444,45 @@ public class OrquestadorAnalisisCompleto implements AutoCloseable {
         }
     }
 
+    /**
+     * Ejecuta los escenarios estándar con el motor de carga virtual; los JTL que escribe se
+     * procesan igual que los de JMeter
+     */
+    private ResultadoRendimiento intentarEjecucionMotorVirtual() {
+        try {
+            Path directorioResultados = Files.createDirectories(Paths.get("jmeter-results"));
+            List<String> archivosJTL = new ArrayList<>();
+            try (MotorCargaVirtual motor = new MotorCargaVirtual()) {
+                for (EjecutorJMeterReal.ConfiguracionEscenario escenario :
+                        EjecutorJMeterReal.crearConfiguracionesEscenariosCompletas()) {
+                    if (cerrado) break;
+                    String nombreJTL = String.format("%s_%du_%s.jtl",
+                            escenario.nombre.toLowerCase().replace(" ", "_").replace("+", "").replace("ñ", "n"),
+                            escenario.usuariosConcurrentes, timestampEjecucion);
+                    Path archivoJTL = directorioResultados.resolve(nombreJTL);
+                    motor.ejecutar(PlanCarga.desdeEscenario(escenario, CatalogoEscenarios.predeterminado().getUrlBase()), archivoJTL);
+                    archivosJTL.add(archivoJTL.toString());
+                }
+            }
+
+            List<MetricaRendimiento> metricas = procesarArchivosJTLReales(archivosJTL);
+            if (!metricas.isEmpty()) {
+                return new ResultadoRendimiento(true,
+                        String.format("🎯 Métricas REALES generadas por el motor virtual: %d archivos JTL", archivosJTL.size()),
+                        metricas, analizadorMetricas.compararMetricas(metricas));
+            }
+            LOGGER.warning("El motor virtual no generó métricas válidas - usando simuladas");
+            return usarDatosSimulados();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return usarDatosSimulados();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "El motor de carga virtual no pudo ejecutarse", e);
+            return usarDatosSimulados();
+        }
+    }
+
     /**
      * Procesa archivos JTL reales generados por JMeter
      */
@@ -423,10 +492,12 @@ public class OrquestadorAnalisisCompleto implements AutoCloseable {
             try {
                 Path pathJTL = Paths.get(archivoJTL);
                 if (Files.exists(pathJTL) && Files.size(pathJTL) > 0) {
-                    MetricaRendimiento metrica = analizadorMetricas.procesarArchivoJTL(pathJTL);
-                    if (metrica != null) {
-                        metricas.add(metrica);
+                    AnalizadorMetricas.ResultadoAnalisisJTL resultado =
+                            analizadorMetricas.procesarArchivoJTLConDesglose(pathJTL, cacheJTL);
+                    if (resultado != null) {
+                        metricas.add(resultado.getGeneral());
                         LOGGER.info("✅ Procesado JTL real: " + pathJTL.getFileName());
+                        registrarSamplerMasLento(resultado);
                     }
                 }
             } catch (Exception e) {
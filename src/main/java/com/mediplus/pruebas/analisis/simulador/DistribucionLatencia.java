@@ -0,0 +1,56 @@
+package com.mediplus.pruebas.analisis.simulador;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+/**
+ * Distribución de la latencia de servicio que el {@link ServidorDummyJSONLocal} agrega a cada respuesta
+ * Las implementaciones deben ser seguras entre hilos; el servidor les pasa el generador aleatorio
+ * del hilo que atiende la petición
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+@FunctionalInterface
+public interface DistribucionLatencia {
+
+    /**
+     * @return latencia de una respuesta en nanosegundos (cero o positiva)
+     */
+    long muestrearNanos(RandomGenerator aleatorio);
+
+    static DistribucionLatencia ninguna() {
+        return aleatorio -> 0L;
+    }
+
+    static DistribucionLatencia constante(Duration latencia) {
+        long nanos = latencia.toNanos();
+        return aleatorio -> nanos;
+    }
+
+    static DistribucionLatencia uniforme(Duration minimo, Duration maximo) {
+        long desde = minimo.toNanos();
+        long hasta = maximo.toNanos();
+        if (hasta < desde) {
+            throw new IllegalArgumentException("El máximo no puede ser menor que el mínimo");
+        }
+        return aleatorio -> hasta == desde ? desde : aleatorio.nextLong(desde, hasta + 1);
+    }
+
+    /**
+     * Tiempos de servicio sin memoria, típicos de un servidor con carga independiente
+     */
+    static DistribucionLatencia exponencial(Duration media) {
+        double mediaNanos = media.toNanos();
+        return aleatorio -> (long) (mediaNanos * aleatorio.nextExponential());
+    }
+
+    /**
+     * Cuerpo concentrado en la mediana con cola larga a la derecha, como las latencias reales de una API
+     *
+     * @param sigma desviación del logaritmo; 0.5 da un p99 de unas 3,2 veces la mediana
+     */
+    static DistribucionLatencia logNormal(Duration mediana, double sigma) {
+        double medianaNanos = mediana.toNanos();
+        return aleatorio -> (long) (medianaNanos * Math.exp(sigma * aleatorio.nextGaussian()));
+    }
+}
@@ -0,0 +1,797 @@
+package com.mediplus.pruebas.analisis.simulador;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sustituto local y embebido de DummyJSON para mediciones reproducibles y sin internet
+ * Implementa los endpoints que usan los servicios de prueba, los planes JMeter y el catálogo de
+ * escenarios: listados paginados de {@code /products}, {@code /users}, {@code /posts} y
+ * {@code /todos} con búsqueda, detalle, {@code /add}, PUT/PATCH/DELETE simulados (como DummyJSON,
+ * nada se persiste), categorías de productos, {@code /posts/user/{id}} y el flujo
+ * {@code /auth/login}, {@code /auth/me} y {@code /auth/refresh} con tokens firmados HS256.
+ *
+ * <p>Los datos se generan con semilla fija al iniciar y cada elemento queda serializado una sola
+ * vez; un listado solo concatena bytes ya armados. Cada petición corre en un hilo virtual, así la
+ * latencia inyectada no consume hilos de plataforma. Sobre eso se configuran una
+ * {@link DistribucionLatencia}, una tasa de fallos con su código HTTP y un tope de ancho de banda
+ * compartido por todas las respuestas.</p>
+ *
+ * <pre>
+ * try (ServidorDummyJSONLocal servidor = ServidorDummyJSONLocal.builder()
+ *         .latencia(DistribucionLatencia.logNormal(Duration.ofMillis(40), 0.5))
+ *         .fallos(0.01, 503)
+ *         .anchoBanda(5_000_000)
+ *         .iniciar()) {
+ *     URI urlBase = servidor.getUrlBase();
+ * }
+ * </pre>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class ServidorDummyJSONLocal implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ServidorDummyJSONLocal.class.getName());
+
+    private static final ObjectMapper MAPEADOR = new ObjectMapper();
+    private static final long SEMILLA_DATOS = 20250818L;
+    private static final int LIMITE_PREDETERMINADO = 30;
+    private static final byte[] CABECERA_JWT = base64Url("{\"alg\":\"HS256\",\"typ\":\"JWT\"}"
+            .getBytes(StandardCharsets.UTF_8)).getBytes(StandardCharsets.US_ASCII);
+
+    private final HttpServer servidor;
+    private final ExecutorService hilos;
+    private final DistribucionLatencia latencia;
+    private final double tasaFallos;
+    private final int codigoFallo;
+    private final long bytesPorSegundo;
+    private final AtomicLong siguienteEnvioLibre = new AtomicLong();
+    private final byte[] claveFirma;
+    private final Map<String, Recurso> recursos;
+    private final Recurso usuarios;
+    private final byte[] categorias;
+    private final byte[] listaCategorias;
+    private final LongAdder peticiones = new LongAdder();
+    private final LongAdder fallosInyectados = new LongAdder();
+
+    private ServidorDummyJSONLocal(Builder builder) throws IOException {
+        this.latencia = builder.latencia;
+        this.tasaFallos = builder.tasaFallos;
+        this.codigoFallo = builder.codigoFallo;
+        this.bytesPorSegundo = builder.bytesPorSegundo;
+        this.claveFirma = new byte[32];
+        new SecureRandom().nextBytes(claveFirma);
+
+        SplittableRandom aleatorio = new SplittableRandom(SEMILLA_DATOS);
+        this.usuarios = generarUsuarios(aleatorio);
+        Recurso productos = generarProductos(aleatorio);
+        this.recursos = Map.of(
+                "users", usuarios,
+                "products", productos,
+                "posts", generarPosts(aleatorio),
+                "todos", generarTodos(aleatorio));
+        this.categorias = serializar(generarCategorias(true));
+        this.listaCategorias = serializar(generarCategorias(false));
+
+        this.hilos = Executors.newVirtualThreadPerTaskExecutor();
+        this.servidor = HttpServer.create(new InetSocketAddress(builder.direccion, builder.puerto), builder.backlog);
+        servidor.createContext("/", this::atender);
+        servidor.setExecutor(hilos);
+        servidor.start();
+        LOGGER.info("🧪 Servidor DummyJSON local escuchando en " + getUrlBase());
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public URI getUrlBase() {
+        InetSocketAddress direccion = servidor.getAddress();
+        String host = direccion.getAddress().isAnyLocalAddress() ? "localhost" : direccion.getHostString();
+        return URI.create("http://" + host + ":" + direccion.getPort());
+    }
+
+    public long getPeticionesAtendidas() {
+        return peticiones.sum();
+    }
+
+    public long getFallosInyectados() {
+        return fallosInyectados.sum();
+    }
+
+    @Override
+    public void close() {
+        servidor.stop(0);
+        hilos.shutdownNow();
+        LOGGER.info("🧪 Servidor DummyJSON local detenido tras " + getPeticionesAtendidas() + " peticiones");
+    }
+
+    // ==================== ATENCIÓN DE PETICIONES ====================
+
+    private record Respuesta(int codigo, byte[] cuerpo) { }
+
+    private void atender(HttpExchange intercambio) {
+        try (intercambio) {
+            peticiones.increment();
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            long espera = latencia.muestrearNanos(aleatorio);
+            if (espera > 0) {
+                TimeUnit.NANOSECONDS.sleep(espera);
+            }
+
+            Respuesta respuesta;
+            if (tasaFallos > 0 && aleatorio.nextDouble() < tasaFallos) {
+                fallosInyectados.increment();
+                respuesta = mensaje(codigoFallo, "Injected failure from local server");
+            } else {
+                try {
+                    respuesta = enrutar(intercambio);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Error atendiendo " + intercambio.getRequestURI(), e);
+                    respuesta = mensaje(500, "Internal server error");
+                }
+            }
+            enviar(intercambio, respuesta);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // El cliente cortó la conexión; no afecta al resto
+            LOGGER.log(Level.FINE, "Error respondiendo petición", e);
+        }
+    }
+
+    private Respuesta enrutar(HttpExchange intercambio) throws IOException {
+        String metodo = intercambio.getRequestMethod().toUpperCase(Locale.ROOT);
+        String[] segmentos = intercambio.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+        Map<String, String> parametros = parametros(intercambio.getRequestURI().getRawQuery());
+
+        try {
+            if (segmentos[0].equals("auth") && segmentos.length == 2) {
+                return switch (segmentos[1]) {
+                    case "login" -> metodo.equals("POST") ? login(leerCuerpo(intercambio)) : noEncontrado();
+                    case "refresh" -> metodo.equals("POST") ? refrescar(leerCuerpo(intercambio)) : noEncontrado();
+                    case "me" -> metodo.equals("GET") ? usuarioActual(intercambio) : noEncontrado();
+                    default -> noEncontrado();
+                };
+            }
+
+            Recurso recurso = recursos.get(segmentos[0]);
+            if (recurso == null) {
+                return noEncontrado();
+            }
+            if (segmentos.length == 1) {
+                return metodo.equals("GET") ? recurso.listar(recurso.elementos, parametros) : noEncontrado();
+            }
+
+            String accion = segmentos[1];
+            if (segmentos.length == 2) {
+                switch (accion) {
+                    case "search":
+                        return recurso.listar(recurso.buscar(parametros.getOrDefault("q", "")), parametros);
+                    case "add":
+                        return metodo.equals("POST") ? recurso.agregar(leerCuerpo(intercambio)) : noEncontrado();
+                    case "categories":
+                        return recurso == recursos.get("products") ? new Respuesta(200, categorias) : noEncontrado();
+                    case "category-list":
+                        return recurso == recursos.get("products") ? new Respuesta(200, listaCategorias) : noEncontrado();
+                    default:
+                        break;
+                }
+                Integer id = entero(accion);
+                if (id == null) {
+                    return recurso.idInvalido(accion);
+                }
+                return switch (metodo) {
+                    case "GET" -> recurso.obtener(id);
+                    case "PUT", "PATCH" -> recurso.actualizar(id, leerCuerpo(intercambio));
+                    case "DELETE" -> recurso.eliminar(id);
+                    default -> noEncontrado();
+                };
+            }
+
+            if (segmentos.length == 3 && metodo.equals("GET")) {
+                if (accion.equals("user") && recurso.tieneUsuario) {
+                    Integer idUsuario = entero(segmentos[2]);
+                    return recurso.listar(recurso.filtrar(e -> idUsuario != null && e.path("userId").asInt() == idUsuario),
+                            parametros);
+                }
+                if (accion.equals("category") && recurso == recursos.get("products")) {
+                    String categoria = segmentos[2];
+                    return recurso.listar(recurso.filtrar(e -> e.path("category").asText().equals(categoria)), parametros);
+                }
+            }
+            return noEncontrado();
+
+        } catch (JsonProcessingException e) {
+            return mensaje(400, "Invalid JSON body: " + e.getOriginalMessage());
+        }
+    }
+
+    private void enviar(HttpExchange intercambio, Respuesta respuesta) throws IOException, InterruptedException {
+        intercambio.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        byte[] cuerpo = respuesta.cuerpo();
+        intercambio.sendResponseHeaders(respuesta.codigo(), cuerpo.length);
+        OutputStream salida = intercambio.getResponseBody();
+        if (bytesPorSegundo <= 0) {
+            salida.write(cuerpo);
+            return;
+        }
+        // Bloques de ~10 ms de transmisión que se reservan en un único canal compartido
+        int bloque = (int) Math.max(512, Math.min(16 * 1024, bytesPorSegundo / 100));
+        for (int desde = 0; desde < cuerpo.length; desde += bloque) {
+            int largo = Math.min(bloque, cuerpo.length - desde);
+            esperarAnchoBanda(largo);
+            salida.write(cuerpo, desde, largo);
+            salida.flush();
+        }
+    }
+
+    /**
+     * Reserva el tiempo de transmisión de {@code bytes} después de lo ya reservado y espera a que termine
+     */
+    private void esperarAnchoBanda(int bytes) throws InterruptedException {
+        long duracion = bytes * 1_000_000_000L / bytesPorSegundo;
+        long fin;
+        while (true) {
+            long reservado = siguienteEnvioLibre.get();
+            fin = Math.max(System.nanoTime(), reservado) + duracion;
+            if (siguienteEnvioLibre.compareAndSet(reservado, fin)) {
+                break;
+            }
+        }
+        long espera = fin - System.nanoTime();
+        if (espera > 0) {
+            TimeUnit.NANOSECONDS.sleep(espera);
+        }
+    }
+
+    // ==================== AUTENTICACIÓN ====================
+
+    private Respuesta login(JsonNode cuerpo) {
+        String usuario = cuerpo.path("username").asText("");
+        String clave = cuerpo.path("password").asText("");
+        if (usuario.isEmpty() || clave.isEmpty()) {
+            return mensaje(400, "Username and password required");
+        }
+        for (ObjectNode candidato : usuarios.elementos) {
+            if (candidato.path("username").asText().equals(usuario) && candidato.path("password").asText().equals(clave)) {
+                return new Respuesta(200, serializar(sesion(candidato, cuerpo.path("expiresInMins").asInt(60))));
+            }
+        }
+        return mensaje(400, "Invalid credentials");
+    }
+
+    private Respuesta refrescar(JsonNode cuerpo) {
+        JsonNode contenido = verificarToken(cuerpo.path("refreshToken").asText(""));
+        if (contenido == null || !contenido.path("refresh").asBoolean()) {
+            return mensaje(401, "Invalid refresh token");
+        }
+        ObjectNode usuario = usuarios.porId(contenido.path("id").asInt());
+        if (usuario == null) {
+            return mensaje(401, "Invalid refresh token");
+        }
+        ObjectNode sesion = sesion(usuario, cuerpo.path("expiresInMins").asInt(60));
+        ObjectNode tokens = MAPEADOR.createObjectNode();
+        tokens.set("accessToken", sesion.get("accessToken"));
+        tokens.set("refreshToken", sesion.get("refreshToken"));
+        return new Respuesta(200, serializar(tokens));
+    }
+
+    private Respuesta usuarioActual(HttpExchange intercambio) {
+        String autorizacion = intercambio.getRequestHeaders().getFirst("Authorization");
+        if (autorizacion == null || !autorizacion.startsWith("Bearer ")) {
+            return mensaje(401, "Access Token is required");
+        }
+        JsonNode contenido = verificarToken(autorizacion.substring("Bearer ".length()).trim());
+        if (contenido == null || contenido.path("refresh").asBoolean()) {
+            return mensaje(401, "Invalid/Expired Token!");
+        }
+        return usuarios.obtener(contenido.path("id").asInt());
+    }
+
+    private ObjectNode sesion(ObjectNode usuario, int minutos) {
+        ObjectNode sesion = MAPEADOR.createObjectNode();
+        for (String campo : List.of("id", "username", "email", "firstName", "lastName", "gender", "image")) {
+            sesion.set(campo, usuario.get(campo));
+        }
+        sesion.put("accessToken", firmarToken(usuario, Duration.ofMinutes(Math.max(1, minutos)), false));
+        sesion.put("refreshToken", firmarToken(usuario, Duration.ofDays(7), true));
+        return sesion;
+    }
+
+    private String firmarToken(ObjectNode usuario, Duration vigencia, boolean refresh) {
+        long ahora = Instant.now().getEpochSecond();
+        ObjectNode contenido = MAPEADOR.createObjectNode();
+        contenido.set("id", usuario.get("id"));
+        contenido.set("username", usuario.get("username"));
+        contenido.put("refresh", refresh);
+        contenido.put("iat", ahora);
+        contenido.put("exp", ahora + vigencia.toSeconds());
+        // jti distinto en cada emisión, para que dos tokens del mismo segundo no coincidan
+        contenido.put("jti", Long.toHexString(ThreadLocalRandom.current().nextLong()));
+        String firmado = new String(CABECERA_JWT, StandardCharsets.US_ASCII) + "." + base64Url(serializar(contenido));
+        return firmado + "." + base64Url(hmac(firmado));
+    }
+
+    /**
+     * @return contenido del token si la firma es válida y no expiró; null en otro caso
+     */
+    private JsonNode verificarToken(String token) {
+        int ultimoPunto = token.lastIndexOf('.');
+        int primerPunto = token.indexOf('.');
+        if (primerPunto < 0 || ultimoPunto == primerPunto) {
+            return null;
+        }
+        try {
+            byte[] firma = Base64.getUrlDecoder().decode(token.substring(ultimoPunto + 1));
+            if (!MessageDigest.isEqual(firma, hmac(token.substring(0, ultimoPunto)))) {
+                return null;
+            }
+            JsonNode contenido = MAPEADOR.readTree(Base64.getUrlDecoder().decode(token.substring(primerPunto + 1, ultimoPunto)));
+            return contenido.path("exp").asLong() > Instant.now().getEpochSecond() ? contenido : null;
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    private byte[] hmac(String datos) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(claveFirma, "HmacSHA256"));
+            return mac.doFinal(datos.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 no disponible", e);
+        }
+    }
+
+    // ==================== RECURSOS ====================
+
+    /**
+     * Colección de solo lectura con sus elementos ya serializados
+     */
+    private static final class Recurso {
+
+        private final String nombre;
+        private final String entidad;
+        private final List<ObjectNode> elementos;
+        private final byte[][] serializados;   // por posición: el elemento con id N está en N - 1
+        private final List<String> camposBusqueda;
+        private final boolean tieneUsuario;
+
+        Recurso(String nombre, String entidad, List<ObjectNode> elementos, List<String> camposBusqueda) {
+            this.nombre = nombre;
+            this.entidad = entidad;
+            this.elementos = List.copyOf(elementos);
+            this.camposBusqueda = camposBusqueda;
+            this.tieneUsuario = !elementos.isEmpty() && elementos.get(0).has("userId");
+            this.serializados = new byte[this.elementos.size()][];
+            for (int i = 0; i < serializados.length; i++) {
+                serializados[i] = serializar(this.elementos.get(i));
+            }
+        }
+
+        ObjectNode porId(int id) {
+            return id >= 1 && id <= elementos.size() ? elementos.get(id - 1) : null;
+        }
+
+        Respuesta obtener(int id) {
+            ObjectNode elemento = porId(id);
+            return elemento != null ? new Respuesta(200, serializados[id - 1]) : noExiste(id);
+        }
+
+        Respuesta agregar(JsonNode cuerpo) {
+            ObjectNode creado = MAPEADOR.createObjectNode();
+            creado.put("id", elementos.size() + 1);
+            if (cuerpo.isObject()) {
+                creado.setAll((ObjectNode) cuerpo);
+            }
+            return new Respuesta(201, serializar(creado));
+        }
+
+        Respuesta actualizar(int id, JsonNode cuerpo) {
+            ObjectNode elemento = porId(id);
+            if (elemento == null) {
+                return noExiste(id);
+            }
+            ObjectNode actualizado = elemento.deepCopy();
+            if (cuerpo.isObject()) {
+                actualizado.setAll((ObjectNode) cuerpo);
+            }
+            actualizado.put("id", id);
+            return new Respuesta(200, serializar(actualizado));
+        }
+
+        Respuesta eliminar(int id) {
+            ObjectNode elemento = porId(id);
+            if (elemento == null) {
+                return noExiste(id);
+            }
+            ObjectNode eliminado = elemento.deepCopy();
+            eliminado.put("isDeleted", true);
+            eliminado.put("deletedOn", Instant.now().toString());
+            return new Respuesta(200, serializar(eliminado));
+        }
+
+        List<ObjectNode> buscar(String consulta) {
+            String texto = consulta.toLowerCase(Locale.ROOT);
+            return filtrar(e -> camposBusqueda.stream()
+                    .anyMatch(campo -> e.path(campo).asText().toLowerCase(Locale.ROOT).contains(texto)));
+        }
+
+        List<ObjectNode> filtrar(Predicate<ObjectNode> condicion) {
+            List<ObjectNode> filtrados = new ArrayList<>();
+            for (ObjectNode elemento : elementos) {
+                if (condicion.test(elemento)) {
+                    filtrados.add(elemento);
+                }
+            }
+            return filtrados;
+        }
+
+        /**
+         * Página con el formato de DummyJSON: {@code limit=0} devuelve todo y {@code select}
+         * reduce cada elemento a {@code id} más los campos pedidos
+         */
+        Respuesta listar(List<ObjectNode> seleccion, Map<String, String> parametros) {
+            Integer limiteParametro = entero(parametros.getOrDefault("limit", String.valueOf(LIMITE_PREDETERMINADO)));
+            Integer saltoParametro = entero(parametros.getOrDefault("skip", "0"));
+            int salto = Math.min(Math.max(0, saltoParametro != null ? saltoParametro : 0), seleccion.size());
+            int limite = limiteParametro == null ? LIMITE_PREDETERMINADO : limiteParametro;
+            int hasta = limite <= 0 ? seleccion.size() : (int) Math.min((long) salto + limite, seleccion.size());
+            String[] campos = parametros.containsKey("select") ? parametros.get("select").split(",") : null;
+
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(64 + (hasta - salto) * 512);
+            salida.writeBytes(("{\"" + nombre + "\":[").getBytes(StandardCharsets.UTF_8));
+            for (int i = salto; i < hasta; i++) {
+                if (i > salto) {
+                    salida.write(',');
+                }
+                ObjectNode elemento = seleccion.get(i);
+                salida.writeBytes(campos == null
+                        ? serializados[elemento.get("id").asInt() - 1]
+                        : serializar(proyectar(elemento, campos)));
+            }
+            salida.writeBytes(String.format("],\"total\":%d,\"skip\":%d,\"limit\":%d}",
+                    seleccion.size(), salto, hasta - salto).getBytes(StandardCharsets.UTF_8));
+            return new Respuesta(200, salida.toByteArray());
+        }
+
+        Respuesta idInvalido(String valor) {
+            return mensaje(400, "Invalid " + entidad.toLowerCase(Locale.ROOT) + " id '" + valor + "'");
+        }
+
+        private Respuesta noExiste(int id) {
+            return mensaje(404, entidad + " with id '" + id + "' not found");
+        }
+
+        private static ObjectNode proyectar(ObjectNode elemento, String[] campos) {
+            ObjectNode proyectado = MAPEADOR.createObjectNode();
+            proyectado.set("id", elemento.get("id"));
+            for (String campo : campos) {
+                JsonNode valor = elemento.get(campo.trim());
+                if (valor != null) {
+                    proyectado.set(campo.trim(), valor);
+                }
+            }
+            return proyectado;
+        }
+    }
+
+    // ==================== DATOS SINTÉTICOS ====================
+
+    private static final String[] NOMBRES = {"Emily", "Michael", "Sophia", "James", "Emma", "Olivia", "Alexander",
+            "Ava", "Ethan", "Isabella", "Liam", "Mia", "Noah", "Charlotte", "Lucas", "Amelia", "Mateo", "Valentina",
+            "Benjamín", "Catalina", "Tomás", "Florencia", "Joaquín", "Martina", "Diego", "Josefa"};
+    private static final String[] APELLIDOS = {"Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis",
+            "Rodriguez", "Martinez", "Wilson", "Anderson", "Taylor", "González", "Muñoz", "Rojas", "Díaz", "Pérez",
+            "Soto", "Contreras", "Silva", "Morales", "Sepúlveda", "Fuentes", "Torres"};
+    private static final String[] CATEGORIAS = {"beauty", "fragrances", "furniture", "groceries", "home-decoration",
+            "kitchen-accessories", "laptops", "mens-shirts", "mens-shoes", "mobile-accessories", "skin-care",
+            "smartphones", "sports-accessories", "sunglasses", "tablets", "tops", "vehicle", "womens-bags"};
+    private static final String[] MARCAS = {"Essence", "Glamour Beauty", "Velvet Touch", "Apple", "Samsung",
+            "Huawei", "Dell", "Lenovo", "Nike", "Puma", "Rolex", "Fashion Trends", "Annibale Colombo"};
+    private static final String[] PALABRAS = {"health", "care", "appointment", "patient", "clinic", "doctor",
+            "history", "report", "love", "crime", "mystery", "english", "french", "fiction", "american", "magical",
+            "classic", "medical", "review", "schedule", "quality", "service", "daily", "weekly", "results"};
+    private static final String[] TAREAS = {"Do something nice for someone you care about",
+            "Memorize a poem", "Watch a classic movie", "Schedule a medical checkup", "Go for a run",
+            "Organize your pantry", "Learn a new recipe", "Call a friend", "Read a book", "Plan a trip"};
+
+    private static Recurso generarUsuarios(SplittableRandom aleatorio) {
+        List<ObjectNode> elementos = new ArrayList<>();
+        for (int id = 1; id <= 208; id++) {
+            String nombre = id == 1 ? "Emily" : NOMBRES[aleatorio.nextInt(NOMBRES.length)];
+            String apellido = id == 1 ? "Johnson" : APELLIDOS[aleatorio.nextInt(APELLIDOS.length)];
+            String usuario = id == 1 ? "emilys" : sinTildes(nombre).toLowerCase(Locale.ROOT) + id;
+            ObjectNode u = MAPEADOR.createObjectNode();
+            u.put("id", id);
+            u.put("firstName", nombre);
+            u.put("lastName", apellido);
+            u.put("age", 18 + aleatorio.nextInt(60));
+            u.put("gender", aleatorio.nextBoolean() ? "female" : "male");
+            u.put("email", sinTildes(nombre + "." + apellido).toLowerCase(Locale.ROOT)
+                    + (id == 1 ? "" : String.valueOf(id)) + "@x.dummyjson.com");
+            u.put("phone", String.format("+56 9%08d", aleatorio.nextInt(100_000_000)));
+            u.put("username", usuario);
+            u.put("password", usuario + "pass");
+            u.put("birthDate", String.format("%d-%d-%d", 1950 + aleatorio.nextInt(55), 1 + aleatorio.nextInt(12),
+                    1 + aleatorio.nextInt(28)));
+            u.put("image", "https://dummyjson.com/icon/" + usuario + "/128");
+            u.put("role", id == 1 ? "admin" : id % 10 == 0 ? "moderator" : "user");
+            elementos.add(u);
+        }
+        return new Recurso("users", "User", elementos, List.of("firstName", "lastName", "email", "username"));
+    }
+
+    private static Recurso generarProductos(SplittableRandom aleatorio) {
+        List<ObjectNode> elementos = new ArrayList<>();
+        for (int id = 1; id <= 194; id++) {
+            String categoria = CATEGORIAS[(id - 1) % CATEGORIAS.length];
+            String marca = MARCAS[aleatorio.nextInt(MARCAS.length)];
+            ObjectNode p = MAPEADOR.createObjectNode();
+            p.put("id", id);
+            p.put("title", marca + " " + capitalizar(PALABRAS[aleatorio.nextInt(PALABRAS.length)]) + " " + id);
+            p.put("description", frase(aleatorio, 14));
+            p.put("category", categoria);
+            p.put("price", Math.round(aleatorio.nextDouble(1, 2500) * 100) / 100.0);
+            p.put("discountPercentage", Math.round(aleatorio.nextDouble(0, 20) * 100) / 100.0);
+            p.put("rating", Math.round(aleatorio.nextDouble(2.5, 5) * 100) / 100.0);
+            p.put("stock", aleatorio.nextInt(150));
+            p.put("brand", marca);
+            ArrayNode etiquetas = p.putArray("tags");
+            etiquetas.add(categoria.split("-")[0]);
+            etiquetas.add(PALABRAS[aleatorio.nextInt(PALABRAS.length)]);
+            p.put("thumbnail", "https://cdn.dummyjson.com/products/images/" + categoria + "/" + id + "/thumbnail.png");
+            elementos.add(p);
+        }
+        return new Recurso("products", "Product", elementos, List.of("title", "description", "brand", "category"));
+    }
+
+    private static Recurso generarPosts(SplittableRandom aleatorio) {
+        List<ObjectNode> elementos = new ArrayList<>();
+        for (int id = 1; id <= 251; id++) {
+            ObjectNode p = MAPEADOR.createObjectNode();
+            p.put("id", id);
+            p.put("title", capitalizar(frase(aleatorio, 6)));
+            p.put("body", capitalizar(frase(aleatorio, 40)) + ".");
+            ArrayNode etiquetas = p.putArray("tags");
+            for (int i = 0; i < 3; i++) {
+                etiquetas.add(PALABRAS[aleatorio.nextInt(PALABRAS.length)]);
+            }
+            ObjectNode reacciones = p.putObject("reactions");
+            reacciones.put("likes", aleatorio.nextInt(2000));
+            reacciones.put("dislikes", aleatorio.nextInt(100));
+            p.put("views", aleatorio.nextInt(5000));
+            p.put("userId", 1 + aleatorio.nextInt(208));
+            elementos.add(p);
+        }
+        return new Recurso("posts", "Post", elementos, List.of("title", "body"));
+    }
+
+    private static Recurso generarTodos(SplittableRandom aleatorio) {
+        List<ObjectNode> elementos = new ArrayList<>();
+        for (int id = 1; id <= 254; id++) {
+            ObjectNode t = MAPEADOR.createObjectNode();
+            t.put("id", id);
+            t.put("todo", TAREAS[aleatorio.nextInt(TAREAS.length)]);
+            t.put("completed", aleatorio.nextBoolean());
+            t.put("userId", 1 + aleatorio.nextInt(208));
+            elementos.add(t);
+        }
+        return new Recurso("todos", "Todo", elementos, List.of("todo"));
+    }
+
+    private static ArrayNode generarCategorias(boolean detalladas) {
+        ArrayNode categorias = MAPEADOR.createArrayNode();
+        for (String categoria : CATEGORIAS) {
+            if (!detalladas) {
+                categorias.add(categoria);
+                continue;
+            }
+            ObjectNode c = categorias.addObject();
+            c.put("slug", categoria);
+            c.put("name", capitalizar(categoria.replace('-', ' ')));
+            c.put("url", "https://dummyjson.com/products/category/" + categoria);
+        }
+        return categorias;
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    private static Respuesta noEncontrado() {
+        return mensaje(404, "Route not found");
+    }
+
+    private static Respuesta mensaje(int codigo, String texto) {
+        ObjectNode cuerpo = MAPEADOR.createObjectNode();
+        cuerpo.put("message", texto);
+        return new Respuesta(codigo, serializar(cuerpo));
+    }
+
+    private static JsonNode leerCuerpo(HttpExchange intercambio) throws IOException {
+        try (InputStream entrada = intercambio.getRequestBody()) {
+            byte[] bytes = entrada.readAllBytes();
+            return bytes.length == 0 ? MAPEADOR.createObjectNode() : MAPEADOR.readTree(bytes);
+        }
+    }
+
+    private static Map<String, String> parametros(String consulta) {
+        Map<String, String> parametros = new LinkedHashMap<>();
+        if (consulta == null || consulta.isEmpty()) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.put(URLDecoder.decode(clave, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    private static Integer entero(String texto) {
+        try {
+            return Integer.parseInt(texto.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static byte[] serializar(JsonNode nodo) {
+        try {
+            return MAPEADOR.writeValueAsBytes(nodo);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta", e);
+        }
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String frase(SplittableRandom aleatorio, int palabras) {
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < palabras; i++) {
+            if (i > 0) {
+                texto.append(' ');
+            }
+            texto.append(PALABRAS[aleatorio.nextInt(PALABRAS.length)]);
+        }
+        return texto.toString();
+    }
+
+    private static String capitalizar(String texto) {
+        return texto.isEmpty() ? texto : Character.toUpperCase(texto.charAt(0)) + texto.substring(1);
+    }
+
+    private static String sinTildes(String texto) {
+        return Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    }
+
+    // ==================== BUILDER ====================
+
+    public static final class Builder {
+        private String direccion = "127.0.0.1";
+        private int puerto = 0;
+        private int backlog = 1024;
+        private DistribucionLatencia latencia = DistribucionLatencia.ninguna();
+        private double tasaFallos = 0;
+        private int codigoFallo = 503;
+        private long bytesPorSegundo = 0;
+
+        private Builder() { }
+
+        /** Dirección de escucha; por defecto solo loopback */
+        public Builder direccion(String direccion) {
+            this.direccion = direccion;
+            return this;
+        }
+
+        /** 0 elige un puerto libre (ver {@link ServidorDummyJSONLocal#getUrlBase()}) */
+        public Builder puerto(int puerto) {
+            this.puerto = puerto;
+            return this;
+        }
+
+        public Builder backlog(int backlog) {
+            this.backlog = backlog;
+            return this;
+        }
+
+        public Builder latencia(DistribucionLatencia latencia) {
+            this.latencia = latencia;
+            return this;
+        }
+
+        /**
+         * Responde {@code codigo} con probabilidad {@code tasa} en lugar de atender la petición
+         */
+        public Builder fallos(double tasa, int codigo) {
+            if (tasa < 0 || tasa > 1) {
+                throw new IllegalArgumentException("La tasa de fallos debe estar entre 0 y 1");
+            }
+            this.tasaFallos = tasa;
+            this.codigoFallo = codigo;
+            return this;
+        }
+
+        /**
+         * Tope de bytes por segundo para todas las respuestas juntas; 0 = sin tope
+         */
+        public Builder anchoBanda(long bytesPorSegundo) {
+            if (bytesPorSegundo < 0) {
+                throw new IllegalArgumentException("El ancho de banda no puede ser negativo");
+            }
+            this.bytesPorSegundo = bytesPorSegundo;
+            return this;
+        }
+
+        public ServidorDummyJSONLocal iniciar() throws IOException {
+            return new ServidorDummyJSONLocal(this);
+        }
+    }
+
+    // ==================== EJECUCIÓN INDEPENDIENTE ====================
+
+    /**
+     * {@code ServidorDummyJSONLocal [puerto] [medianaLatenciaMs] [tasaFallos] [bytesPorSegundo]}
+     * Deja el servidor corriendo para apuntar JMeter o el motor virtual con {@code backend.url}
+     */
+    public static void main(String[] args) throws Exception {
+        int puerto = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        long medianaMs = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        double tasaFallos = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        long bytesPorSegundo = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+        ServidorDummyJSONLocal servidor = builder()
+                .direccion("0.0.0.0")
+                .puerto(puerto)
+                .latencia(medianaMs > 0
+                        ? DistribucionLatencia.logNormal(Duration.ofMillis(medianaMs), 0.5)
+                        : DistribucionLatencia.ninguna())
+                .fallos(tasaFallos, 503)
+                .anchoBanda(bytesPorSegundo)
+                .iniciar();
+        Runtime.getRuntime().addShutdownHook(new Thread(servidor::close));
+        System.out.println("🧪 DummyJSON local en " + servidor.getUrlBase() + " (Ctrl+C para detener)");
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,104 @@
+package com.mediplus.pruebas.analisis.carga;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del alimentador de datos de prueba compartido por los usuarios virtuales
+ */
+public class PruebasAlimentadorDatosTest {
+
+    @TempDir
+    Path directorioTemporal;
+
+    @Test
+    @DisplayName("Datos de prueba - Los modos secuencial y único reparten las filas del CSV")
+    public void deberiaRepartirFilasSegunModo() throws Exception {
+        Path csv = directorioTemporal.resolve("pacientes.csv");
+        Files.writeString(csv, """
+                nombre,apellido,email,telefono,edad
+                Ana,"Silva, Pérez",ana@mediplus.cl,+56965432109,45
+                José,"O""Brien",jose@mediplus.cl,+56911112222,30
+                """);
+
+        AlimentadorDatos secuencial = AlimentadorDatos.desdeCsv(csv, AlimentadorDatos.Modo.SECUENCIAL);
+        assertEquals(List.of("nombre", "apellido", "email", "telefono", "edad"), secuencial.getColumnas());
+        assertEquals("Silva, Pérez", secuencial.siguiente().get("apellido"));
+        assertEquals("O\"Brien", secuencial.siguiente().get("apellido"));
+        assertEquals("Ana", secuencial.siguiente().get("nombre"), "Vuelve a empezar al terminar");
+
+        AlimentadorDatos unico = secuencial.conModo(AlimentadorDatos.Modo.UNICO);
+        assertNotNull(unico.siguiente());
+        assertNotNull(unico.siguiente());
+        assertNull(unico.siguiente());
+        assertNull(unico.siguiente());
+
+        AlimentadorDatos aleatorio = secuencial.conModo(AlimentadorDatos.Modo.ALEATORIO);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(Set.of("Ana", "José").contains(aleatorio.siguiente().get("nombre")));
+        }
+    }
+
+    @Test
+    @DisplayName("Datos de prueba - La expansión entrega un paciente distinto a cada hilo virtual")
+    public void deberiaEntregarFilasUnicasEntreHilos() throws Exception {
+        AlimentadorDatos pacientes = AlimentadorDatos.desdeCsv(Path.of("datos/pacientes.csv"), AlimentadorDatos.Modo.UNICO)
+                .expandir(20_000);
+        Set<String> emails = ConcurrentHashMap.newKeySet();
+        AtomicInteger entregadas = new AtomicInteger();
+
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int h = 0; h < 2_000; h++) {
+                hilos.execute(() -> {
+                    for (AlimentadorDatos.Fila fila = pacientes.siguiente(); fila != null; fila = pacientes.siguiente()) {
+                        emails.add(fila.get("email"));
+                        entregadas.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        assertEquals(20_000, entregadas.get());
+        assertEquals(20_000, emails.size(), "Cada email expandido es único");
+        AlimentadorDatos.Fila vuelta = pacientes.fila(50);
+        assertEquals("maria.gonzalez.1@mediplus.cl", vuelta.get("email"));
+        assertEquals("María", vuelta.get("nombre"));
+        assertTrue(vuelta.get("telefono").matches("\\+569\\d{8}"), vuelta.get("telefono"));
+
+        // Una edad base de menor de edad no produce edades negativas al expandir
+        Path menores = directorioTemporal.resolve("menores.csv");
+        Files.writeString(menores, """
+                nombre,edad
+                Tomás,5
+                """);
+        AlimentadorDatos expandidos = AlimentadorDatos.desdeCsv(menores, AlimentadorDatos.Modo.SECUENCIAL).expandir(200);
+        expandidos.filas().mapToInt(fila -> Integer.parseInt(fila.get("edad"))).skip(1)
+                .forEach(edad -> assertTrue(edad >= 18 && edad < 88, "Edad: " + edad));
+    }
+
+    @Test
+    @DisplayName("Datos de prueba - Las citas sintéticas se recorren sin materializarse")
+    public void deberiaGenerarCitasSinteticas() {
+        AlimentadorDatos citas = AlimentadorDatos.citasSinteticas(2_000_000, 208, AlimentadorDatos.Modo.SECUENCIAL);
+
+        assertEquals(2_000_000, citas.filas().count());
+        Set<String> pacientes = citas.filas().limit(1_000).map(f -> f.get("pacienteId")).collect(Collectors.toSet());
+        assertEquals(208, pacientes.size());
+        assertEquals("208", citas.fila(207).get("pacienteId"));
+        assertEquals("1", citas.fila(208).get("pacienteId"));
+        assertFalse(citas.siguiente().get("motivo").isBlank());
+    }
+}
@@ -0,0 +1,83 @@
+package com.mediplus.pruebas.analisis.carga;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la búsqueda de capacidad contra un servidor local con capacidad conocida
+ */
+public class PruebasBusquedaCapacidadTest {
+
+    @TempDir
+    Path directorioTemporal;
+
+    @Test
+    @DisplayName("Búsqueda de capacidad - La bisección encuentra el punto de saturación del servidor")
+    public void deberiaEncontrarCapacidadPorBiseccion() throws Exception {
+        // El servidor atiende 8 peticiones a la vez; la novena recibe 503
+        AtomicInteger enCurso = new AtomicInteger();
+        HttpServer servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/products", intercambio -> {
+            try {
+                if (enCurso.incrementAndGet() > 8) {
+                    intercambio.sendResponseHeaders(503, -1);
+                    return;
+                }
+                Thread.sleep(50);
+                intercambio.sendResponseHeaders(200, -1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                enCurso.decrementAndGet();
+                intercambio.close();
+            }
+        });
+        servidor.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        servidor.start();
+        URI urlBase = URI.create("http://127.0.0.1:" + servidor.getAddress().getPort());
+
+        BusquedaCapacidad.ResultadoCapacidad resultado;
+        try (MotorCargaVirtual motor = new MotorCargaVirtual()) {
+            resultado = new BusquedaCapacidad.Builder("usuarios", usuarios -> new PlanCarga.Builder()
+                    .nombre("Capacidad " + usuarios + "u")
+                    .urlBase(urlBase)
+                    .usuarios(usuarios)
+                    .duracion(Duration.ofMillis(800))
+                    .peticion(PeticionCarga.get("GET Products", "/products"))
+                    .build())
+                    .acuerdo(new BusquedaCapacidad.AcuerdoNivelServicio(1_000, 1.0))
+                    .estrategia(BusquedaCapacidad.Estrategia.BISECCION)
+                    .inicio(2)
+                    .maximo(64)
+                    .resolucion(1)
+                    .build()
+                    .ejecutar(motor);
+        } finally {
+            servidor.stop(0);
+        }
+
+        assertEquals(8, resultado.capacidad(), resultado.resumen());
+        assertFalse(resultado.limiteAlcanzado());
+        // 2, 4, 8 cumplen; 16 falla y la bisección mide 12, 10 y 9
+        List<Integer> niveles = resultado.curva().stream().map(BusquedaCapacidad.PuntoCurva::nivel).toList();
+        assertEquals(List.of(2, 4, 8, 9, 10, 12, 16), niveles);
+        resultado.curva().forEach(punto -> assertEquals(punto.nivel() <= 8, punto.cumple(), "Nivel " + punto.nivel()));
+
+        Path curva = directorioTemporal.resolve("capacidad.csv");
+        resultado.guardarCurva(curva);
+        assertEquals(1 + niveles.size(), Files.readAllLines(curva).size());
+    }
+}
@@ -0,0 +1,135 @@
+package com.mediplus.pruebas.analisis.carga;
+
+import com.mediplus.pruebas.analisis.jmeter.AgregadorMetricasJTL;
+import com.mediplus.pruebas.analisis.jmeter.DesgloseMetricasJTL;
+import com.mediplus.pruebas.analisis.jmeter.LectorJTL;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del motor de carga con hilos virtuales contra un servidor HTTP local
+ */
+public class PruebasMotorCargaVirtualTest {
+
+    @TempDir
+    Path directorioTemporal;
+
+    private HttpServer servidor;
+    private URI urlBase;
+
+    @BeforeEach
+    void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/products", intercambio -> {
+            byte[] cuerpo = "{\"products\":[]}".getBytes(StandardCharsets.UTF_8);
+            intercambio.sendResponseHeaders(200, cuerpo.length);
+            intercambio.getResponseBody().write(cuerpo);
+            intercambio.close();
+        });
+        servidor.createContext("/users/add", intercambio -> {
+            intercambio.getRequestBody().readAllBytes();
+            // Respuesta inesperada: la aserción de código 201 debe marcarla como error
+            intercambio.sendResponseHeaders(500, -1);
+            intercambio.close();
+        });
+        servidor.createContext("/lento", intercambio -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            intercambio.sendResponseHeaders(200, -1);
+            intercambio.close();
+        });
+        servidor.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        servidor.start();
+        urlBase = URI.create("http://127.0.0.1:" + servidor.getAddress().getPort());
+    }
+
+    @AfterEach
+    void detenerServidor() {
+        servidor.stop(0);
+    }
+
+    @Test
+    @DisplayName("Motor virtual - Muchos usuarios concurrentes con métricas en memoria y JTL compatible")
+    public void deberiaEjecutarPlanYEscribirJTLCompatible() throws Exception {
+        PlanCarga plan = new PlanCarga.Builder()
+                .nombre("Flujo Local")
+                .urlBase(urlBase)
+                .usuarios(200)
+                .duracion(Duration.ofSeconds(2))
+                .rampa(Duration.ofMillis(500))
+                .peticion(PeticionCarga.get("GET Products", "/products"))
+                .peticion(PeticionCarga.post("POST Create User", "/users/add", () -> "{\"firstName\":\"Ana, \\\"la\\\" primera\"}"))
+                .build();
+        Path jtl = directorioTemporal.resolve("flujo_local_200u.jtl");
+
+        ResultadoCarga resultado;
+        try (MotorCargaVirtual motor = new MotorCargaVirtual()) {
+            resultado = motor.ejecutar(plan, jtl);
+        }
+
+        AgregadorMetricasJTL general = resultado.general();
+        assertTrue(general.getTotalMuestras() >= plan.getUsuarios(), "Muestras: " + general.getTotalMuestras());
+        AgregadorMetricasJTL posts = resultado.desglose().getPorEtiqueta().get("POST Create User");
+        assertEquals(posts.getTotalMuestras(), posts.getTotalErrores(), "Todos los POST reciben 500");
+        assertEquals(0, resultado.desglose().getPorEtiqueta().get("GET Products").getTotalErrores());
+
+        // El JTL escrito se lee con el lector existente y coincide con las métricas en memoria
+        DesgloseMetricasJTL desdeJTL = new DesgloseMetricasJTL();
+        Set<String> hilos = new HashSet<>();
+        try (LectorJTL lector = LectorJTL.abrir(jtl)) {
+            assertTrue(lector.tieneCabecera());
+            int columnaHilo = lector.indiceColumna("threadName");
+            while (lector.siguiente()) {
+                assertTrue(desdeJTL.registrar(lector));
+                hilos.add(lector.campoTexto(columnaHilo));
+            }
+        }
+        assertEquals(plan.getUsuarios(), hilos.size(), "Cada usuario virtual aparece como un hilo en el JTL");
+        assertEquals(general.getTotalMuestras(), desdeJTL.getGeneral().getTotalMuestras());
+        assertEquals(general.getTotalErrores(), desdeJTL.getGeneral().getTotalErrores());
+        assertEquals(resultado.desglose().getPorEtiqueta().keySet(), desdeJTL.getPorEtiqueta().keySet());
+    }
+
+    @Test
+    @DisplayName("Motor virtual - Modelo abierto respeta la tasa y descarta llegadas sobre el tope en vuelo")
+    public void deberiaDescartarLlegadasSobreElTopeEnModeloAbierto() throws Exception {
+        // 100 req/s con respuestas de 200 ms necesitan ~20 en vuelo: con tope 10 se descarta la mitad
+        PlanCarga plan = new PlanCarga.Builder()
+                .nombre("Llegadas Local")
+                .urlBase(urlBase)
+                .modeloAbierto(PerfilLlegadas.constante(100, Duration.ofSeconds(1)), 10)
+                .peticion(PeticionCarga.get("GET Lento", "/lento"))
+                .build();
+
+        ResultadoCarga resultado;
+        try (MotorCargaVirtual motor = new MotorCargaVirtual()) {
+            resultado = motor.ejecutar(plan);
+        }
+
+        EstadisticasLlegadas llegadas = resultado.estadisticasLlegadas().orElseThrow();
+        assertEquals(100, llegadas.programadas(), "Las llegadas no dependen de los tiempos de respuesta");
+        assertEquals(llegadas.programadas(), llegadas.iniciadas() + llegadas.descartadas());
+        assertTrue(llegadas.descartadas() > 0, "Descartadas: " + llegadas.descartadas());
+        assertEquals(llegadas.iniciadas(), resultado.general().getTotalMuestras());
+        assertEquals(0, resultado.general().getTotalErrores());
+    }
+}
@@ -0,0 +1,50 @@
+package com.mediplus.pruebas.analisis.carga;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del perfil de llegadas del modelo abierto
+ */
+public class PruebasPerfilLlegadasTest {
+
+    @Test
+    @DisplayName("Perfil de llegadas - Tasa constante y rampa lineal programan la integral de la tasa")
+    public void deberiaProgramarLlegadasSegunLaTasa() {
+        PerfilLlegadas constante = PerfilLlegadas.constante(100, Duration.ofSeconds(2));
+        assertEquals(200, contar(constante.programa()));
+
+        // 0 → 100 req/s en 2 s: 100 llegadas, más densas al final
+        PerfilLlegadas rampa = PerfilLlegadas.desde(0).rampa(Duration.ofSeconds(2), 100);
+        PerfilLlegadas.Programa programa = rampa.programa();
+        long anterior = -1;
+        long enPrimerSegundo = 0;
+        int total = 0;
+        for (long instante = programa.siguienteNanos(); instante >= 0; instante = programa.siguienteNanos()) {
+            assertTrue(instante >= anterior, "Los instantes deben ser crecientes");
+            anterior = instante;
+            if (instante < 1_000_000_000L) enPrimerSegundo++;
+            total++;
+        }
+        assertEquals(rampa.getPeticionesEsperadas(), total, 1.0);
+        assertEquals(25, enPrimerSegundo, 1, "La integral de 0 a 1 s de la rampa es 25");
+
+        PerfilLlegadas compuesto = PerfilLlegadas.desde(0)
+                .rampa(Duration.ofSeconds(1), 50)
+                .sostener(Duration.ofSeconds(2));
+        assertEquals(Duration.ofSeconds(3), compuesto.getDuracion());
+        assertEquals(125, contar(compuesto.programa()), 1);
+    }
+
+    private static int contar(PerfilLlegadas.Programa programa) {
+        int total = 0;
+        while (programa.siguienteNanos() >= 0) {
+            total++;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,76 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias de los bocetos de métricas combinables entre generadores
+ */
+public class PruebasBocetoMetricasJTLTest {
+
+    private static final long INICIO = 1_700_000_000_000L;
+
+    @TempDir
+    Path directorioTemporal;
+
+    @Test
+    @DisplayName("Bocetos de varios nodos - Igual percentil que procesar todas las muestras juntas")
+    public void deberiaCombinarBocetosComoSiFueraUnSoloJTL() throws IOException {
+        Random aleatorio = new Random(11);
+        AgregadorMetricasJTL referencia = new AgregadorMetricasJTL();
+        List<Path> bocetos = new ArrayList<>();
+
+        for (int nodo = 1; nodo <= 3; nodo++) {
+            StringBuilder contenido = new StringBuilder("timeStamp,elapsed,label,responseCode,success\n");
+            for (int i = 0; i < 20_000; i++) {
+                long timeStamp = INICIO + i * 5L + nodo;
+                // Cada nodo con una distribución distinta para que el P95 global no sea el de ninguno
+                long elapsed = (long) (nodo * 40 + Math.abs(aleatorio.nextGaussian()) * 100 * nodo);
+                boolean exito = i % (10 * nodo) != 0;
+                contenido.append(timeStamp).append(',').append(elapsed).append(',')
+                        .append(i % 2 == 0 ? "GET Products" : "POST /products/add").append(',')
+                        .append(exito ? "200" : "500").append(',').append(exito).append('\n');
+                referencia.registrar(timeStamp, elapsed, exito);
+            }
+            Path jtl = directorioTemporal.resolve("carga_100u_nodo" + nodo + ".jtl");
+            Files.writeString(jtl, contenido, StandardCharsets.UTF_8);
+
+            Path boceto = directorioTemporal.resolve("carga_100u_nodo" + nodo + BocetoMetricasJTL.EXTENSION);
+            BocetoMetricasJTL.desdeJTL(jtl, "nodo-" + nodo).guardar(boceto);
+            assertTrue(Files.size(boceto) < 16 * 1024, "Boceto de " + Files.size(boceto) + " bytes");
+            bocetos.add(boceto);
+        }
+
+        BocetoMetricasJTL global = BocetoMetricasJTL.combinarArchivos(bocetos);
+
+        assertEquals(List.of("nodo-1", "nodo-2", "nodo-3"), global.getNodos());
+        assertEquals(referencia.getTotalMuestras(), global.getGeneral().getTotalMuestras());
+        assertEquals(referencia.getTotalErrores(), global.getGeneral().getTotalErrores());
+        assertEquals(referencia.getDuracionMs(), global.getGeneral().getDuracionMs());
+        for (double percentil : new double[]{50, 95, 99}) {
+            assertEquals(referencia.percentilMs(percentil), global.getGeneral().percentilMs(percentil),
+                    "Percentil " + percentil);
+        }
+        assertEquals(30_000, global.getPorEtiqueta().get("GET Products").getTotalMuestras());
+    }
+
+    @Test
+    @DisplayName("Boceto inválido - Rechazar archivos que no son bocetos")
+    public void deberiaRechazarArchivoAjeno() throws IOException {
+        Path archivo = directorioTemporal.resolve("otro.boceto");
+        Files.writeString(archivo, "timeStamp,elapsed\n", StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> BocetoMetricasJTL.cargar(archivo));
+    }
+}
@@ -0,0 +1,143 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del caché columnar de JTL
+ */
+public class PruebasCacheColumnarJTLTest {
+
+    private static final long INICIO = 1_700_000_000_000L;
+
+    @TempDir
+    Path directorioTemporal;
+
+    @Test
+    @DisplayName("Caché columnar - Reproducir las mismas filas que el texto y reutilizarse mientras el JTL no cambie")
+    public void deberiaReproducirFilasYReutilizarCache() throws IOException {
+        Path jtl = directorioTemporal.resolve("carga_media.jtl");
+        StringBuilder contenido = new StringBuilder("timeStamp,elapsed,label,responseCode,success,Latency\n");
+        int filas = CacheColumnarJTL.FILAS_POR_BLOQUE + 500; // fuerza más de un bloque
+        for (int i = 0; i < filas; i++) {
+            // Un salto de 30 días a mitad de archivo obliga a abrir un bloque por delta fuera de rango
+            long timeStamp = INICIO + i * 7L + (i >= 1000 ? 30L * 24 * 3600 * 1000 : 0);
+            contenido.append(String.format("%d,%d,%s,%s,%s,%d%n", timeStamp, 20 + i % 300,
+                    i % 3 == 0 ? "\"POST /auth, login\"" : "GET Products",
+                    i % 11 == 0 ? "500" : "200", i % 11 != 0, 5 + i % 40));
+        }
+        contenido.append("sin-fecha,12,GET Products,200,true,3\n");
+        Files.writeString(jtl, contenido, StandardCharsets.UTF_8);
+
+        CacheColumnarJTL cache = new CacheColumnarJTL(directorioTemporal.resolve("cache"));
+        CacheColumnarJTL.ArchivoColumnar columnas = cache.obtener(jtl);
+        assertEquals(filas, columnas.filas(), "La fila sin timeStamp no se guarda");
+        assertEquals(List.of("POST /auth, login", "GET Products"), columnas.etiquetas());
+
+        List<long[]> desdeCache = new ArrayList<>();
+        columnas.recorrer((ts, elapsed, latencia, exito, codigo) ->
+                desdeCache.add(new long[]{ts, elapsed, latencia, exito ? 1 : 0, codigo}));
+        List<long[]> desdeTexto = new ArrayList<>();
+        try (LectorJTL lector = LectorJTL.abrir(jtl)) {
+            DiccionarioEtiquetas diccionario = new DiccionarioEtiquetas();
+            while (lector.siguiente()) {
+                if (lector.timeStamp() == LectorJTL.VALOR_INVALIDO) continue;
+                desdeTexto.add(new long[]{lector.timeStamp(), lector.elapsed(), lector.latencia(),
+                        lector.exito() ? 1 : 0, lector.codigoLabel(diccionario)});
+            }
+        }
+        assertEquals(desdeTexto.size(), desdeCache.size());
+        for (int i = 0; i < desdeTexto.size(); i++) {
+            assertArrayEquals(desdeTexto.get(i), desdeCache.get(i), "Fila " + i);
+        }
+
+        // El mismo JTL sin cambios reutiliza el archivo de caché
+        Path archivoCache = cache.rutaCache(jtl);
+        FileTime creado = Files.getLastModifiedTime(archivoCache);
+        Files.setLastModifiedTime(archivoCache, FileTime.fromMillis(creado.toMillis() - 60_000));
+        cache.obtener(jtl);
+        assertEquals(creado.toMillis() - 60_000, Files.getLastModifiedTime(archivoCache).toMillis());
+
+        // Un JTL modificado escribe un caché nuevo aunque el anterior siga mapeado, y el anterior se borra
+        Files.writeString(jtl, "timeStamp,elapsed,label,responseCode,success\n" + INICIO + ",10,GET Otro,200,true\n",
+                StandardCharsets.UTF_8);
+        CacheColumnarJTL.ArchivoColumnar regenerado = cache.obtener(jtl);
+        assertEquals(1, regenerado.filas());
+        assertEquals(List.of("GET Otro"), regenerado.etiquetas());
+        assertNotEquals(archivoCache, cache.rutaCache(jtl));
+        assertFalse(Files.exists(archivoCache), "El caché obsoleto se descarta");
+        assertEquals(filas, columnas.filas());
+    }
+
+    @Test
+    @DisplayName("Caché columnar - Un caché mayor que un mapeo se parte en regiones de bloques completos")
+    public void deberiaMapearPorRegionesCacheMayorQueElLimite() throws IOException {
+        Path jtl = directorioTemporal.resolve("carga_larga.jtl");
+        StringBuilder contenido = new StringBuilder("timeStamp,elapsed,label,responseCode,success\n");
+        int filas = 2 * CacheColumnarJTL.FILAS_POR_BLOQUE + 100;
+        for (int i = 0; i < filas; i++) {
+            contenido.append(INICIO + i).append(',').append(10 + i % 97).append(",GET Products,200,")
+                    .append(i % 7 != 0).append('\n');
+        }
+        Files.writeString(jtl, contenido, StandardCharsets.UTF_8);
+
+        CacheColumnarJTL.ArchivoColumnar unMapeo = new CacheColumnarJTL(directorioTemporal.resolve("entero")).obtener(jtl);
+        // Límite menor que un bloque: cada bloque queda en su propia región en lugar de rechazar el caché
+        CacheColumnarJTL.ArchivoColumnar porRegiones =
+                new CacheColumnarJTL(directorioTemporal.resolve("regiones"), 1_000).obtener(jtl);
+
+        assertEquals(1, unMapeo.regiones());
+        assertEquals(3, porRegiones.regiones());
+        assertEquals(filas, porRegiones.filas());
+        List<long[]> esperadas = new ArrayList<>();
+        unMapeo.recorrer((ts, elapsed, latencia, exito, codigo) -> esperadas.add(new long[]{ts, elapsed, exito ? 1 : 0}));
+        List<long[]> leidas = new ArrayList<>();
+        porRegiones.recorrer((ts, elapsed, latencia, exito, codigo) -> leidas.add(new long[]{ts, elapsed, exito ? 1 : 0}));
+        assertEquals(filas, leidas.size());
+        for (int i = 0; i < filas; i++) {
+            assertArrayEquals(esperadas.get(i), leidas.get(i), "Fila " + i);
+        }
+    }
+
+    @Test
+    @DisplayName("Caché columnar - El desglose desde caché coincide con el desglose desde texto")
+    public void deberiaDesglosarIgualQueElTexto() throws IOException {
+        Path jtl = directorioTemporal.resolve("carga_alta.jtl");
+        StringBuilder contenido = new StringBuilder("timeStamp,elapsed,label,responseCode,success\n");
+        for (int i = 0; i < 5_000; i++) {
+            contenido.append(String.format("%d,%d,%s,200,%s%n", INICIO + i * 3L, 10 + i % 500,
+                    i % 2 == 0 ? "GET Products" : "PUT /products/1", i % 13 != 0));
+        }
+        Files.writeString(jtl, contenido, StandardCharsets.UTF_8);
+
+        DesgloseMetricasJTL desdeTexto = new DesgloseMetricasJTL();
+        try (LectorJTL lector = LectorJTL.abrir(jtl)) {
+            while (lector.siguiente()) {
+                desdeTexto.registrar(lector);
+            }
+        }
+        DesgloseMetricasJTL desdeCache = new DesgloseMetricasJTL();
+        desdeCache.registrar(new CacheColumnarJTL(directorioTemporal.resolve("cache")).obtener(jtl));
+
+        assertEquals(desdeTexto.getGeneral().getTotalMuestras(), desdeCache.getGeneral().getTotalMuestras());
+        assertEquals(desdeTexto.getGeneral().getTotalErrores(), desdeCache.getGeneral().getTotalErrores());
+        assertEquals(desdeTexto.getGeneral().percentilMs(95), desdeCache.getGeneral().percentilMs(95));
+        assertEquals(desdeTexto.getSerieTemporal().getVentanas(), desdeCache.getSerieTemporal().getVentanas());
+        for (Map.Entry<String, AgregadorMetricasJTL> entrada : desdeTexto.getPorMetodo().entrySet()) {
+            assertEquals(entrada.getValue().getTotalMuestras(),
+                    desdeCache.getPorMetodo().get(entrada.getKey()).getTotalMuestras(), entrada.getKey());
+        }
+    }
+}
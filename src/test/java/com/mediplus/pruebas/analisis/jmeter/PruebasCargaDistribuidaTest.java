@@ -0,0 +1,145 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import com.mediplus.pruebas.analisis.jmeter.EjecutorJMeterReal.ConfiguracionEscenario;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del coordinador de carga distribuida con trabajadores en procesos locales
+ */
+public class PruebasCargaDistribuidaTest {
+
+    @TempDir
+    Path directorioTemporal;
+
+    @Test
+    @DisplayName("Carga distribuida - Reparte usuarios entre procesos y consolida sus bocetos")
+    public void deberiaConsolidarResumenesDeTrabajadoresLocales() throws Exception {
+        AtomicLong peticiones = new AtomicLong();
+        HttpServer servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/", intercambio -> {
+            peticiones.incrementAndGet();
+            byte[] cuerpo = "{}".getBytes(StandardCharsets.UTF_8);
+            intercambio.sendResponseHeaders(200, cuerpo.length);
+            intercambio.getResponseBody().write(cuerpo);
+            intercambio.close();
+        });
+        servidor.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        servidor.start();
+
+        try (CoordinadorCargaDistribuida coordinador = new CoordinadorCargaDistribuida(0)) {
+            coordinador.lanzarTrabajadoresLocales(2);
+            coordinador.esperarTrabajadores(2, Duration.ofSeconds(60));
+
+            ConfiguracionEscenario escenario = new ConfiguracionEscenario("GET Distribuido", "GET", 7, 2,
+                    "Escenario repartido entre dos procesos");
+            CoordinadorCargaDistribuida.ResultadoDistribuido resultado = coordinador.ejecutar(escenario,
+                    URI.create("http://127.0.0.1:" + servidor.getAddress().getPort()));
+
+            assertTrue(resultado.errores().isEmpty(), "Errores: " + resultado.errores());
+            // Los trabajadores se registran en el orden en que terminan de arrancar
+            assertEquals(List.of("local-1", "local-2"), resultado.boceto().getNodos().stream().sorted().toList());
+            resultado.desfasesMs().values().forEach(desfase ->
+                    assertTrue(Math.abs(desfase) < 1_000, "Desfase en el mismo equipo: " + desfase));
+
+            // Cada petición que recibió el servidor está en el resumen consolidado, sin JTL de por medio
+            AgregadorMetricasJTL general = resultado.boceto().getGeneral();
+            assertTrue(general.getTotalMuestras() > 0);
+            assertEquals(peticiones.get(), general.getTotalMuestras());
+            assertEquals(0, general.getTotalErrores());
+            assertEquals(general.getTotalMuestras(), resultado.boceto().getPorEtiqueta().values().stream()
+                    .mapToLong(AgregadorMetricasJTL::getTotalMuestras).sum());
+
+            Path archivo = directorioTemporal.resolve("get_distribuido_7u" + BocetoMetricasJTL.EXTENSION);
+            resultado.guardar(archivo);
+            assertEquals(general.getTotalMuestras(), BocetoMetricasJTL.cargar(archivo).getGeneral().getTotalMuestras());
+        } finally {
+            servidor.stop(0);
+        }
+
+        List<ConfiguracionEscenario> porciones = CoordinadorCargaDistribuida.repartir(
+                new ConfiguracionEscenario("POST", "POST", 10, 60), 3);
+        assertEquals(List.of(4, 3, 3), porciones.stream().map(p -> p.usuariosConcurrentes).toList());
+    }
+
+    @Test
+    @DisplayName("Carga distribuida - Un trabajador que responde tarde se desconecta sin desincronizar el protocolo")
+    public void deberiaDescartarTrabajadorQueRespondeFueraDePlazo() throws Exception {
+        try (CoordinadorCargaDistribuida coordinador = new CoordinadorCargaDistribuida(0)) {
+            coordinador.setMargenArranque(Duration.ofMillis(100));
+            coordinador.setMargenResultado(Duration.ofMillis(300));
+            Thread puntual = trabajadorSimulado(coordinador.getPuerto(), "puntual", 0);
+            Thread tardio = trabajadorSimulado(coordinador.getPuerto(), "tardio", 3_000);
+            coordinador.esperarTrabajadores(2, Duration.ofSeconds(10));
+
+            ConfiguracionEscenario escenario = new ConfiguracionEscenario("GET Simulado", "GET", 4, 1);
+            CoordinadorCargaDistribuida.ResultadoDistribuido primero = coordinador.ejecutar(escenario, URI.create("http://127.0.0.1"));
+            assertEquals(List.of("puntual"), primero.boceto().getNodos());
+            assertEquals(1, primero.errores().size());
+            assertTrue(primero.errores().get(0).startsWith("tardio"), primero.errores().toString());
+            assertEquals(List.of("puntual"), coordinador.getNodos());
+
+            // El resumen tardío ya no puede leerse como respuesta del escenario siguiente
+            tardio.join(10_000);
+            CoordinadorCargaDistribuida.ResultadoDistribuido segundo = coordinador.ejecutar(escenario, URI.create("http://127.0.0.1"));
+            assertTrue(segundo.errores().isEmpty(), "Errores: " + segundo.errores());
+            assertEquals(1, segundo.boceto().getGeneral().getTotalMuestras());
+        }
+    }
+
+    /**
+     * Trabajador en un hilo que habla el protocolo y responde cada asignación con una muestra
+     * después de {@code demoraMs}
+     */
+    private static Thread trabajadorSimulado(int puerto, String nodo, long demoraMs) {
+        return Thread.ofVirtual().start(() -> {
+            try (Socket socket = new Socket("127.0.0.1", puerto)) {
+                DataInputStream entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                salida.writeByte(ProtocoloCargaDistribuida.REGISTRO);
+                salida.writeInt(ProtocoloCargaDistribuida.MAGIA);
+                salida.writeInt(ProtocoloCargaDistribuida.VERSION);
+                salida.writeUTF(nodo);
+                salida.flush();
+                while (true) {
+                    byte tipo = entrada.readByte();
+                    if (tipo == ProtocoloCargaDistribuida.RELOJ) {
+                        salida.writeByte(ProtocoloCargaDistribuida.RELOJ);
+                        salida.writeLong(System.currentTimeMillis());
+                    } else if (tipo == ProtocoloCargaDistribuida.ASIGNACION) {
+                        ProtocoloCargaDistribuida.Asignacion.leer(entrada);
+                        Thread.sleep(demoraMs);
+                        DesgloseMetricasJTL desglose = new DesgloseMetricasJTL();
+                        desglose.registrar("GET Products", System.currentTimeMillis(), 10, true);
+                        salida.writeByte(ProtocoloCargaDistribuida.RESUMEN);
+                        BocetoMetricasJTL.desdeDesglose(desglose, nodo).escribir(salida);
+                    } else {
+                        return;
+                    }
+                    salida.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                // El coordinador cerró la conexión
+            }
+        });
+    }
+}
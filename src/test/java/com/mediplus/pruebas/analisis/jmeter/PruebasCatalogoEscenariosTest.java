@@ -0,0 +1,136 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediplus.pruebas.analisis.carga.AlimentadorDatos;
+import com.mediplus.pruebas.analisis.carga.PlanCarga;
+import com.mediplus.pruebas.analisis.jmeter.EjecutorJMeterReal.ConfiguracionEscenario;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del catálogo declarativo de escenarios y de los planes que se compilan desde él
+ */
+public class PruebasCatalogoEscenariosTest {
+
+    @TempDir
+    Path directorioTemporal;
+
+    @Test
+    @DisplayName("Catálogo - El catálogo incluido reproduce los nueve escenarios estándar")
+    public void deberiaCargarCatalogoIncluido() throws Exception {
+        CatalogoEscenarios catalogo = CatalogoEscenarios.cargarRecurso(CatalogoEscenarios.RECURSO_PREDETERMINADO);
+
+        List<ConfiguracionEscenario> escenarios = catalogo.getEscenarios();
+        assertEquals(9, escenarios.size());
+        assertEquals(List.of(10, 25, 50, 10, 25, 50, 10, 25, 50),
+                escenarios.stream().map(e -> e.usuariosConcurrentes).toList());
+        escenarios.forEach(e -> assertEquals(e.tipoOperacion, e.grupoAislamiento, e.nombre));
+
+        PlanCarga mixto = PlanCarga.desdeEscenario(escenarios.get(6), catalogo.getUrlBase(), catalogo);
+        assertEquals(PlanCarga.Seleccion.ALEATORIA, mixto.getSeleccion());
+        assertEquals(Duration.ofSeconds(20), mixto.getRampa());
+        assertEquals(3, mixto.getPeticiones().size());
+
+        // Los usuarios salen de datos/pacientes.csv, en orden
+        String cuerpo = catalogo.plantilla("post").getPeticionesCarga().get(0).cuerpo().get();
+        assertEquals("{\"firstName\":\"María\",\"lastName\":\"González\",\"email\":\"maria.gonzalez@mediplus.cl\","
+                + "\"phone\":\"+56987654321\",\"age\":34}", cuerpo);
+        String producto = catalogo.plantilla("post").getPeticionesCarga().get(1).cuerpo().get();
+        assertFalse(producto.contains("${"), producto);
+    }
+
+    @Test
+    @DisplayName("Catálogo - Un archivo externo define pesos, pausas y endpoints nuevos")
+    public void deberiaCompilarCatalogoExterno() throws Exception {
+        Path archivo = directorioTemporal.resolve("catalogo.json");
+        Files.writeString(archivo, """
+                {
+                  "urlBase": "http://localhost:8089",
+                  "plantillas": {
+                    "BUSQUEDA": {
+                      "seleccion": "ALEATORIA", "rampaSegundos": 5, "pausaMs": 200, "pausaAleatoriaMs": 300,
+                      "peticiones": [
+                        { "etiqueta": "GET Search", "ruta": "/products/search?q=phone&limit=5", "peso": 6 },
+                        { "etiqueta": "POST Cart", "metodo": "post", "ruta": "/carts/add", "codigoEsperado": 201,
+                          "cuerpo": "{\\"userId\\":${__Random(1, 3)},\\"nota\\":\\"<ok>\\"}", "peso": 2 }
+                      ]
+                    }
+                  },
+                  "escenarios": [
+                    { "nombre": "Búsqueda Media", "plantilla": "BUSQUEDA", "usuarios": 25, "duracionSegundos": 60 }
+                  ]
+                }
+                """);
+
+        CatalogoEscenarios catalogo = CatalogoEscenarios.cargar(archivo);
+        ConfiguracionEscenario escenario = catalogo.getEscenarios().get(0);
+        assertEquals("BUSQUEDA", escenario.grupoAislamiento);
+
+        PlanCarga plan = PlanCarga.desdeEscenario(escenario, URI.create("http://localhost:8089"), catalogo);
+        // Pesos 6 y 2 se reducen a 3 y 1
+        assertEquals(List.of("GET Search", "GET Search", "GET Search", "POST Cart"),
+                plan.getPeticiones().stream().map(p -> p.etiqueta()).toList());
+        assertEquals(Duration.ofMillis(200), plan.getPausa());
+        assertEquals(Duration.ofMillis(300), plan.getPausaAleatoria());
+        String cuerpo = plan.getPeticiones().get(3).cuerpo().get();
+        assertTrue(cuerpo.matches("\\{\"userId\":[123],\"nota\":\"<ok>\"}"), cuerpo);
+
+        GeneradorScriptsJMX generador = new GeneradorScriptsJMX(catalogo);
+        String jmx = generador.generarContenido(escenario);
+        Document documento = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(jmx.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(4, documento.getElementsByTagName("HTTPSamplerProxy").getLength());
+        assertEquals(1, documento.getElementsByTagName("RandomController").getLength());
+        assertEquals(1, documento.getElementsByTagName("UniformRandomTimer").getLength());
+        assertTrue(jmx.contains("<stringProp name=\"HTTPSampler.domain\">localhost</stringProp>"));
+        assertTrue(jmx.contains("<stringProp name=\"HTTPSampler.port\">8089</stringProp>"));
+        assertTrue(jmx.contains("${__Random(1, 3)}"), "JMeter evalúa la función del cuerpo");
+        assertEquals(generador.generarContenido(escenario), jmx);
+    }
+
+    @Test
+    @DisplayName("Plantilla - Los valores del CSV se escapan como contenido de cadenas JSON")
+    public void deberiaEscaparValoresEnElCuerpo() throws Exception {
+        Path csv = directorioTemporal.resolve("pacientes.csv");
+        Files.writeString(csv, """
+                nombre,apellido,edad
+                Ana,"O""Brien \\ Silva",45
+                """);
+        AlimentadorDatos.Fila fila = AlimentadorDatos.desdeCsv(csv, AlimentadorDatos.Modo.SECUENCIAL).siguiente();
+
+        String cuerpo = CatalogoEscenarios.PlantillaCuerpo
+                .compilar("{\"nombre\":\"${nombre}\",\"apellido\":\"${apellido}\",\"edad\":${edad}}")
+                .generar(fila);
+
+        assertEquals("{\"nombre\":\"Ana\",\"apellido\":\"O\\\"Brien \\\\ Silva\",\"edad\":45}", cuerpo);
+        assertEquals("O\"Brien \\ Silva", new ObjectMapper().readTree(cuerpo).get("apellido").asText());
+    }
+
+    @Test
+    @DisplayName("Catálogo - Un escenario con plantilla desconocida se rechaza al cargar")
+    public void deberiaRechazarPlantillaDesconocida() throws Exception {
+        Path archivo = directorioTemporal.resolve("invalido.json");
+        Files.writeString(archivo, """
+                {
+                  "plantillas": { "GET": { "peticiones": [ { "etiqueta": "GET Products", "ruta": "/products" } ] } },
+                  "escenarios": [ { "nombre": "Borrado", "plantilla": "DELETE", "usuarios": 5, "duracionSegundos": 30 } ]
+                }
+                """);
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> CatalogoEscenarios.cargar(archivo));
+        assertTrue(error.getMessage().contains("DELETE"), error.getMessage());
+    }
+}
@@ -0,0 +1,172 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import com.mediplus.pruebas.analisis.AnalizadorMetricas;
+import com.mediplus.pruebas.analisis.modelo.MetricaRendimiento;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del desglose de métricas por sampler y por método HTTP
+ * Usa las etiquetas de los planes de jmeter_plans_mediplus sobre un JTL generado en disco
+ */
+public class PruebasDesgloseMetricasJTLTest {
+
+    private static final String[] ETIQUETAS = {"GET Products (paged)", "POST /products/add", "PUT /products/1", "GET Users (paged)"};
+    private static final long[] TIEMPOS_MS = {40, 900, 300, 60};
+
+    @TempDir
+    Path directorioTemporal;
+
+    @Test
+    @DisplayName("Diccionario - Misma etiqueta, mismo código sin importar el buffer de origen")
+    public void deberiaCodificarEtiquetasDeFormaEstable() {
+        DiccionarioEtiquetas diccionario = new DiccionarioEtiquetas();
+        byte[] fila = "1,GET Users,200".getBytes();
+
+        int codigoUsers = diccionario.codificar(fila, 2, 11);
+        assertEquals(0, codigoUsers);
+        assertEquals(1, diccionario.codificar("POST /products/add"));
+        assertEquals(codigoUsers, diccionario.codificar("GET Users"));
+        assertEquals("GET Users", diccionario.etiqueta(codigoUsers));
+
+        for (int i = 0; i < 500; i++) {
+            diccionario.codificar("Sampler " + i); // fuerza varios redimensionamientos
+        }
+        assertEquals(502, diccionario.tamano());
+        assertEquals(codigoUsers, diccionario.codificar("GET Users"));
+        assertEquals("Sampler 499", diccionario.etiqueta(diccionario.codificar("Sampler 499")));
+    }
+
+    @Test
+    @DisplayName("Desglose - Un sampler lento no queda oculto en el promedio general")
+    public void deberiaDesglosarPorEtiquetaYMetodo() throws IOException {
+        Path jtl = escribirJTL(4_000);
+
+        AnalizadorMetricas.ResultadoAnalisisJTL resultado =
+                new AnalizadorMetricas().procesarArchivoJTLConDesglose(jtl);
+
+        assertNotNull(resultado);
+        assertEquals(4, resultado.getPorEtiqueta().size());
+        for (int i = 0; i < ETIQUETAS.length; i++) {
+            MetricaRendimiento metrica = resultado.getPorEtiqueta().get(ETIQUETAS[i]);
+            assertEquals(TIEMPOS_MS[i], metrica.getTiempoPromedioMs(), 0.001, ETIQUETAS[i]);
+        }
+
+        Map<String, MetricaRendimiento> porMetodo = resultado.getPorMetodo();
+        assertEquals(Set.of("GET", "POST", "PUT"), porMetodo.keySet());
+        assertEquals(50.0, porMetodo.get("GET").getTiempoPromedioMs(), 0.001);
+
+        assertEquals(325.0, resultado.getGeneral().getTiempoPromedioMs(), 0.001);
+        assertEquals("POST /products/add", resultado.getEtiquetaMasLenta().orElseThrow().getNombreEscenario());
+    }
+
+    @Test
+    @DisplayName("Serie temporal - El análisis informa percentiles de latencia en cada ventana")
+    public void deberiaInformarPercentilesPorVentana() throws IOException {
+        Path jtl = escribirJTL(4_000); // 40 s; cada ventana de 1 s mezcla 40, 60, 300 y 900 ms
+
+        AnalizadorMetricas.ResultadoAnalisisJTL resultado = new AnalizadorMetricas().procesarArchivoJTLConDesglose(jtl);
+
+        List<SerieTemporalJTL.Ventana> ventanas = resultado.getSerieTemporal();
+        assertTrue(ventanas.size() >= 40, "Ventanas: " + ventanas.size());
+        for (SerieTemporalJTL.Ventana ventana : ventanas) {
+            if (ventana.muestras() < 100) continue; // la última ventana puede ser parcial
+            assertEquals(900, ventana.p90Ms(), 900 * 0.01, "P90 en " + ventana.inicioMs());
+            assertEquals(900, ventana.p99Ms(), 900 * 0.01, "P99 en " + ventana.inicioMs());
+            assertTrue(ventana.p50Ms() >= 60 && ventana.p50Ms() <= 303, "P50 en " + ventana.inicioMs());
+        }
+    }
+
+    @Test
+    @DisplayName("Combinación - Reconciliar etiquetas de bloques con diccionarios distintos")
+    public void deberiaCombinarDesglosesPorTexto() {
+        DesgloseMetricasJTL bloqueA = new DesgloseMetricasJTL();
+        DesgloseMetricasJTL bloqueB = new DesgloseMetricasJTL();
+        bloqueA.registrar("GET Users", 1_000, 50, true);
+        bloqueA.registrar("Login", 1_100, 70, true);
+        bloqueB.registrar("POST /products/add", 2_000, 800, false);
+        bloqueB.registrar("GET Users", 2_100, 150, true);
+
+        bloqueA.combinar(bloqueB);
+
+        assertEquals(4, bloqueA.getGeneral().getTotalMuestras());
+        assertEquals(2, bloqueA.getPorEtiqueta().get("GET Users").getTotalMuestras());
+        assertEquals(100.0, bloqueA.getPorEtiqueta().get("GET Users").getPromedioMs(), 0.001);
+        assertEquals(1, bloqueA.getPorMetodo().get("POST").getTotalErrores());
+        assertEquals(1, bloqueA.getPorMetodo().get(DesgloseMetricasJTL.METODO_OTRO).getTotalMuestras());
+    }
+
+    @Test
+    @DisplayName("Omisión coordinada - Solo se corrige con un intervalo conocido o derivado de usuarios / throughput")
+    public void deberiaDerivarIntervaloEsperadoDelThroughput() throws IOException {
+        Path jtl = escribirJTL(4_000); // 10 usuarios, 100 req/s en total y 25 req/s por etiqueta
+
+        assertFalse(new AnalizadorMetricas().procesarArchivoJTLConDesglose(jtl).getGeneral().tieneCorreccionOmision(),
+                "Sin intervalo configurado no se corrige");
+
+        AnalizadorMetricas.ResultadoAnalisisJTL resultado = new AnalizadorMetricas(SerieTemporalJTL.VENTANA_DEFAULT_MS,
+                true, AnalizadorMetricas.INTERVALO_ESPERADO_AUTOMATICO).procesarArchivoJTLConDesglose(jtl);
+        assertEquals(100, resultado.getGeneral().getIntervaloEsperadoMs(), 1);
+        assertEquals(400, resultado.getPorEtiqueta().get(ETIQUETAS[0]).getIntervaloEsperadoMs(), 1);
+
+        Path sinUsuarios = Files.move(jtl, directorioTemporal.resolve("mixto.jtl"));
+        assertFalse(new AnalizadorMetricas(SerieTemporalJTL.VENTANA_DEFAULT_MS, true,
+                        AnalizadorMetricas.INTERVALO_ESPERADO_AUTOMATICO).procesarArchivoJTLConDesglose(sinUsuarios)
+                .getGeneral().tieneCorreccionOmision(), "Sin usuarios en el nombre el intervalo no se conoce");
+    }
+
+    private Path escribirJTL(int filas) throws IOException {
+        Path jtl = directorioTemporal.resolve("mixto_10u.jtl");
+        try (BufferedWriter writer = Files.newBufferedWriter(jtl)) {
+            writer.write("timeStamp,elapsed,label,responseCode,responseMessage,threadName,dataType,success");
+            writer.newLine();
+            for (int i = 0; i < filas; i++) {
+                int sampler = i % ETIQUETAS.length;
+                writer.write(String.format("%d,%d,%s,200,OK,Grupo 1-1,text,true",
+                        1_700_000_000_000L + i * 10L, TIEMPOS_MS[sampler], ETIQUETAS[sampler]));
+                writer.newLine();
+            }
+        }
+        return jtl;
+    }
+
+    @Test
+    @DisplayName("Memoria acotada - Particiones de una ejecución de 24 h no crecen con la duración")
+    public void deberiaAcotarLaSerieDeParticionesLargas() {
+        // Como el motor de carga: una partición por núcleo x2, todas registrando toda la ejecución
+        DesgloseMetricasJTL[] particiones = new DesgloseMetricasJTL[32];
+        for (int i = 0; i < particiones.length; i++) {
+            particiones[i] = new DesgloseMetricasJTL();
+        }
+        long inicio = 1_700_000_000_000L;
+        long muestras = 0;
+        for (long ms = 0; ms < 24 * 3_600_000L; ms += 250) {
+            particiones[(int) (muestras % particiones.length)].registrar(ETIQUETAS[(int) (muestras % 4)], inicio + ms, 50, true);
+            muestras++;
+        }
+
+        DesgloseMetricasJTL total = new DesgloseMetricasJTL();
+        for (DesgloseMetricasJTL particion : particiones) {
+            SerieTemporalJTL serie = particion.getSerieTemporal();
+            assertTrue(serie.getNumeroVentanas() <= SerieTemporalJTL.MAXIMO_VENTANAS_DEFAULT, "Ventanas: " + serie.getNumeroVentanas());
+            assertFalse(serie.isPercentilesPorVentana(), "Sin histograma por ventana");
+            total.combinar(particion);
+        }
+        SerieTemporalJTL serie = total.getSerieTemporal();
+        assertTrue(serie.getNumeroVentanas() <= SerieTemporalJTL.MAXIMO_VENTANAS_DEFAULT);
+        assertEquals(muestras, total.getGeneral().getTotalMuestras());
+        assertEquals(muestras, serie.getVentanas().stream().mapToLong(SerieTemporalJTL.Ventana::muestras).sum());
+        assertEquals(4.0, serie.detectarRegimenEstable().orElseThrow().throughputReqSeg(), 0.01);
+    }
+}
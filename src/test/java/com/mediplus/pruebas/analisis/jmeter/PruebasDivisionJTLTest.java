@@ -0,0 +1,88 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import com.mediplus.pruebas.analisis.jmeter.EjecutorJMeterReal.ConfiguracionEscenario;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la ejecución en lote: plan con Thread Groups en serie y división del JTL por escenario
+ */
+public class PruebasDivisionJTLTest {
+
+    @TempDir
+    Path directorioTemporal;
+
+    @Test
+    @DisplayName("Lote - Un plan JMX con un Thread Group en serie por escenario")
+    public void deberiaCompilarPlanEnLote() throws Exception {
+        CatalogoEscenarios catalogo = CatalogoEscenarios.cargarRecurso(CatalogoEscenarios.RECURSO_PREDETERMINADO);
+        List<ConfiguracionEscenario> lote = catalogo.getEscenarios().subList(0, 3);
+        GeneradorScriptsJMX generador = new GeneradorScriptsJMX(catalogo);
+
+        String jmx = generador.generarContenidoLote("GET", lote);
+        Document documento = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(jmx.getBytes(StandardCharsets.UTF_8)));
+
+        NodeList threadGroups = documento.getElementsByTagName("ThreadGroup");
+        assertEquals(3, threadGroups.getLength());
+        for (int i = 0; i < lote.size(); i++) {
+            assertEquals(lote.get(i).nombre, threadGroups.item(i).getAttributes().getNamedItem("testname").getNodeValue());
+        }
+        assertTrue(jmx.contains("<boolProp name=\"TestPlan.serialize_threadgroups\">true</boolProp>"), jmx);
+        assertTrue(generador.generarContenido(lote.get(0))
+                .contains("<boolProp name=\"TestPlan.serialize_threadgroups\">false</boolProp>"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> generador.generarContenidoLote("GET", List.of(lote.get(0), lote.get(0))));
+    }
+
+    @Test
+    @DisplayName("Lote - Separar el JTL por prefijo de threadName aunque las etiquetas coincidan")
+    public void deberiaDividirPorGrupoHilos() throws IOException {
+        Path jtl = directorioTemporal.resolve("lote.jtl");
+        Files.writeString(jtl, """
+                timeStamp,elapsed,label,responseCode,threadName,success
+                1000,10,GET Products,200,GET Masivo 1-1,true
+                1001,11,GET Products,200,GET Masivo Ligero 1-1,true
+                1002,12,GET Products,500,GET Masivo 1-2,false
+                1003,13,"GET Users, paginado",200,GET Masivo Ligero 1-2,true
+                1004,14,GET Products,200,Hilo ajeno 1-1,true
+                """);
+        Map<String, Path> salidas = new LinkedHashMap<>();
+        salidas.put("GET Masivo Ligero", directorioTemporal.resolve("ligero.jtl"));
+        salidas.put("GET Masivo", directorioTemporal.resolve("masivo.jtl"));
+        salidas.put("GET Masivo Pesado", directorioTemporal.resolve("pesado.jtl"));
+
+        Map<String, Long> filas = DivisionJTL.dividirPorGrupoHilos(jtl, salidas);
+
+        assertEquals(List.of(2L, 2L, 0L), List.copyOf(filas.values()));
+        assertEquals(List.of(
+                "timeStamp,elapsed,label,responseCode,threadName,success",
+                "1001,11,GET Products,200,GET Masivo Ligero 1-1,true",
+                "1003,13,\"GET Users, paginado\",200,GET Masivo Ligero 1-2,true"),
+                Files.readAllLines(salidas.get("GET Masivo Ligero"), StandardCharsets.UTF_8));
+        assertEquals(List.of(
+                "timeStamp,elapsed,label,responseCode,threadName,success",
+                "1000,10,GET Products,200,GET Masivo 1-1,true",
+                "1002,12,GET Products,500,GET Masivo 1-2,false"),
+                Files.readAllLines(salidas.get("GET Masivo"), StandardCharsets.UTF_8));
+        assertEquals(List.of("timeStamp,elapsed,label,responseCode,threadName,success"),
+                Files.readAllLines(salidas.get("GET Masivo Pesado"), StandardCharsets.UTF_8),
+                "Un escenario sin muestras conserva la cabecera");
+    }
+}
@@ -0,0 +1,68 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias de la fusión k-way de archivos JTL
+ */
+public class PruebasFusionJTLTest {
+
+    @TempDir
+    Path directorioTemporal;
+
+    @Test
+    @DisplayName("Fusión de JTL - Ordenar filas por timeStamp y unificar columnas")
+    public void deberiaFusionarPorTimeStamp() throws IOException {
+        Path a = escribir("a.jtl", """
+                timeStamp,elapsed,label,responseCode,success
+                1000,10,GET A,200,true
+                1003,11,GET A,200,true
+                1006,12,"GET A, con coma",500,false
+                """);
+        // Columnas en otro orden y una fila sin timeStamp que debe descartarse
+        Path b = escribir("b.jtl", """
+                timeStamp,label,elapsed,success,responseCode
+                1001,GET B,20,true,200
+                ,GET B,21,true,200
+                1004,GET B,22,true,200
+                """);
+        Path c = escribir("c.jtl", """
+                timeStamp,elapsed,label,responseCode,success
+                1002,30,GET C,200,true
+                1003,31,GET C,200,true
+                """);
+        Path vacio = escribir("vacio.jtl", "");
+        Path salida = directorioTemporal.resolve("consolidado.jtl");
+
+        long filas = FusionJTL.fusionarPorTimeStamp(List.of(a, vacio, b, c), salida);
+
+        assertEquals(7, filas);
+        assertEquals(List.of(
+                "timeStamp,elapsed,label,responseCode,success",
+                "1000,10,GET A,200,true",
+                "1001,20,GET B,200,true",
+                "1002,30,GET C,200,true",
+                "1003,11,GET A,200,true",
+                "1003,31,GET C,200,true",
+                "1004,22,GET B,200,true",
+                "1006,12,\"GET A, con coma\",500,false"),
+                Files.readAllLines(salida, StandardCharsets.UTF_8),
+                "A igual timeStamp se conserva el orden de los archivos de entrada");
+    }
+
+    private Path escribir(String nombre, String contenido) throws IOException {
+        Path archivo = directorioTemporal.resolve(nombre);
+        Files.writeString(archivo, contenido, StandardCharsets.UTF_8);
+        return archivo;
+    }
+}
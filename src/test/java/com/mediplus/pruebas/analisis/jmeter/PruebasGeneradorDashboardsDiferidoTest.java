@@ -0,0 +1,73 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la generación diferida de dashboards con un sustituto de JMeter en shell
+ */
+@DisabledOnOs(OS.WINDOWS)
+public class PruebasGeneradorDashboardsDiferidoTest {
+
+    /** Recibe los mismos argumentos que JMeter: -g jtl -o carpeta ... */
+    private static final List<String> JMETER_SIMULADO = List.of("sh", "-c",
+            "sleep 0.3; mkdir -p \"$4\" && echo \"<html>$2</html>\" > \"$4/index.html\"", "jmeter");
+
+    @TempDir
+    Path directorioTemporal;
+
+    @Test
+    @DisplayName("Dashboards diferidos - Encolar no bloquea y los fallos no afectan al resto")
+    public void deberiaGenerarDashboardsEnSegundoPlano() throws Exception {
+        List<Path> carpetas = new ArrayList<>();
+        List<CompletableFuture<Path>> futuros = new ArrayList<>();
+        List<Path> generados;
+
+        try (GeneradorDashboardsDiferido generador = new GeneradorDashboardsDiferido(JMETER_SIMULADO, 2)) {
+            long inicio = System.nanoTime();
+            for (int i = 0; i < 4; i++) {
+                Path jtl = Files.writeString(directorioTemporal.resolve("escenario" + i + ".jtl"), "timeStamp\n");
+                Path carpeta = directorioTemporal.resolve("html" + i);
+                carpetas.add(carpeta);
+                futuros.add(generador.encolar(jtl, carpeta, null));
+            }
+            CompletableFuture<Path> fallido = generador.encolar(
+                    directorioTemporal.resolve("inexistente.jtl"), directorioTemporal.resolve("htmlX"), null);
+            assertTrue(System.nanoTime() - inicio < 250_000_000L, "Encolar debe volver sin esperar al render");
+
+            generados = generador.esperarPendientes();
+            assertInstanceOf(CompletionException.class, assertThrows(Exception.class, fallido::join));
+        }
+
+        assertEquals(carpetas, generados);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(carpetas.get(i), futuros.get(i).join());
+            assertTrue(Files.readString(carpetas.get(i).resolve("index.html")).contains("escenario" + i + ".jtl"));
+        }
+    }
+
+    @Test
+    @DisplayName("Dashboards diferidos - Un código de salida distinto de cero falla el futuro")
+    public void deberiaFallarSiJMeterTerminaConError() throws Exception {
+        Path jtl = Files.writeString(directorioTemporal.resolve("a.jtl"), "timeStamp\n");
+        try (GeneradorDashboardsDiferido generador = new GeneradorDashboardsDiferido(List.of("sh", "-c", "exit 3"), 1)) {
+            CompletableFuture<Path> futuro = generador.encolar(jtl, directorioTemporal.resolve("html"), null);
+
+            CompletionException error = assertThrows(CompletionException.class, futuro::join);
+            assertTrue(error.getMessage().contains("código 3"), error.getMessage());
+            assertTrue(generador.esperarPendientes().isEmpty());
+        }
+    }
+}
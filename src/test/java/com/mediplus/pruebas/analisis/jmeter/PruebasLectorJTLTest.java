@@ -0,0 +1,223 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del lector JTL en streaming y de su agregador de métricas
+ * No requieren JMeter ni conexión de red: trabajan sobre archivos JTL generados en disco
+ */
+public class PruebasLectorJTLTest {
+
+    private static final String CABECERA =
+            "timeStamp,elapsed,label,responseCode,responseMessage,threadName,dataType,success," +
+            "failureMessage,bytes,sentBytes,grpThreads,allThreads,URL,Latency,IdleTime,Connect";
+
+    @TempDir
+    Path directorioTemporal;
+
+    @Test
+    @DisplayName("JTL con cabecera - Resolver columnas y leer campos sin perder filas")
+    public void deberiaLeerJTLConCabecera() throws IOException {
+        Path jtl = escribirJTL(true, 10);
+
+        try (LectorJTL lector = LectorJTL.abrir(jtl)) {
+            assertTrue(lector.tieneCabecera(), "Debería detectar la cabecera");
+            assertEquals(14, lector.indiceColumna("latency"));
+
+            int filas = 0;
+            while (lector.siguiente()) {
+                assertEquals(1_700_000_000_000L + filas * 100L, lector.timeStamp());
+                assertEquals(filas + 1, lector.elapsed());
+                assertEquals(filas % 5 != 0, lector.exito());
+                assertEquals("GET Products", lector.label());
+                filas++;
+            }
+            assertEquals(10, filas);
+        }
+    }
+
+    @Test
+    @DisplayName("JTL sin cabecera - Usar el layout por defecto de JMeter")
+    public void deberiaLeerJTLSinCabecera() throws IOException {
+        Path jtl = escribirJTL(false, 3);
+
+        try (LectorJTL lector = LectorJTL.abrir(jtl)) {
+            assertFalse(lector.tieneCabecera());
+            assertTrue(lector.siguiente(), "La primera línea debe tratarse como dato");
+            assertEquals(1, lector.elapsed());
+            assertTrue(lector.siguiente());
+            assertTrue(lector.siguiente());
+            assertFalse(lector.siguiente());
+        }
+    }
+
+    @Test
+    @DisplayName("Buffer pequeño - Las líneas que cruzan bloques se reconstruyen correctamente")
+    public void deberiaReconstruirLineasEntreBloques() throws IOException {
+        Path jtl = escribirJTL(true, 5_000);
+
+        AgregadorMetricasJTL agregador = new AgregadorMetricasJTL();
+        try (LectorJTL lector = LectorJTL.abrir(jtl, 1024)) {
+            while (lector.siguiente()) {
+                assertTrue(agregador.registrar(lector), "Ninguna fila debería quedar corrupta");
+            }
+        }
+
+        assertEquals(5_000, agregador.getTotalMuestras());
+        assertEquals(1_000, agregador.getTotalErrores());
+        assertEquals(1, agregador.getMinimoMs());
+        assertEquals(5_000, agregador.getMaximoMs());
+        assertEquals(2_500.5, agregador.getPromedioMs(), 0.001);
+        double errorRelativo = agregador.getHistograma().getErrorRelativoMaximo();
+        assertEquals(4_500, agregador.percentilMs(90), 4_500 * errorRelativo);
+        assertEquals(4_750, agregador.percentilMs(95), 4_750 * errorRelativo);
+        assertEquals(4_999 * 100L, agregador.getDuracionMs());
+    }
+
+    @Test
+    @DisplayName("Filas defectuosas - Se ignoran sin interrumpir la lectura")
+    public void deberiaIgnorarFilasDefectuosas() throws IOException {
+        Path jtl = directorioTemporal.resolve("defectuoso.jtl");
+        Files.writeString(jtl, CABECERA + "\n" +
+                "1700000000000,120,GET Users,200,OK,t1,text,true\r\n" +
+                "\n" +
+                "no-numerico,abc,GET Users,500,Error,t1,text,false\n" +
+                "1700000000500,80,GET Users,200,OK,t1,text,TRUE");
+
+        AgregadorMetricasJTL agregador = new AgregadorMetricasJTL();
+        try (LectorJTL lector = LectorJTL.abrir(jtl)) {
+            while (lector.siguiente()) {
+                agregador.registrar(lector);
+            }
+        }
+
+        assertEquals(2, agregador.getTotalMuestras());
+        assertEquals(0, agregador.getTotalErrores());
+        assertEquals(100.0, agregador.getPromedioMs(), 0.001);
+    }
+
+    @Test
+    @DisplayName("CSV con comillas - Comas, saltos de línea y comillas dentro de un campo no corrompen la fila")
+    public void deberiaRespetarCamposEntreComillas() throws IOException {
+        Path jtl = directorioTemporal.resolve("comillas.jtl");
+        Files.writeString(jtl, "\uFEFF" + CABECERA + "\n" +
+                "1700000000000,120,\"GET Users, paged\",500,\"Error, \"\"timeout\"\"\nen backend\",t1,text,false,\"msg\",10,5,1,1,https://dummyjson.com/users,100,0,15\n" +
+                "1700000000100,80,GET Users,200,OK,t1,text,true,,10,5,1,1,https://dummyjson.com/users,70,0,10\n",
+                StandardCharsets.UTF_8);
+
+        try (LectorJTL lector = LectorJTL.abrir(jtl, 1024)) {
+            assertTrue(lector.tieneCabecera(), "El BOM no debe ocultar la cabecera");
+            assertTrue(lector.siguiente());
+            assertEquals("GET Users, paged", lector.label());
+            assertEquals("Error, \"timeout\"\nen backend", lector.campoTexto(lector.indiceColumna("responseMessage")));
+            assertFalse(lector.exito());
+            assertEquals(100, lector.latencia());
+
+            ByteArrayOutputStream salida = new ByteArrayOutputStream();
+            lector.escribirFilaCSV(salida, lector.mapearColumnas(List.of("label", "responseMessage", "elapsed")));
+            assertEquals("\"GET Users, paged\",\"Error, \"\"timeout\"\"\nen backend\",120\n",
+                    salida.toString(StandardCharsets.UTF_8));
+
+            assertTrue(lector.siguiente());
+            assertEquals(80, lector.elapsed());
+            assertTrue(lector.exito());
+            assertFalse(lector.siguiente());
+        }
+    }
+
+    @Test
+    @DisplayName("JTL XML - Leer muestras de primer nivel con los mismos nombres de columna")
+    public void deberiaLeerJTLEnXML() throws IOException {
+        Path jtl = directorioTemporal.resolve("resultado.xml.jtl");
+        Files.writeString(jtl, """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <testResults version="1.2">
+                <httpSample t="120" it="0" lt="100" ct="15" ts="1700000000000" s="true" lb="GET Products &amp; Users" rc="200" rm="OK" tn="Grupo 1-1" dt="text" by="1024" sby="120" ng="1" na="1">
+                  <httpSample t="60" lt="50" ts="1700000000010" s="true" lb="Redirección" rc="200" rm="OK"/>
+                  <responseData class="java.lang.String">{&quot;id&quot;: 1}</responseData>
+                </httpSample>
+                <sample t="300" lt="0" ts="1700000000500" s="false" lb="POST /products/add" rc="500" rm="Error &lt;interno&gt;"/>
+                </testResults>
+                """, StandardCharsets.UTF_8);
+
+        AgregadorMetricasJTL agregador = new AgregadorMetricasJTL();
+        try (LectorJTL lector = LectorJTL.abrir(jtl)) {
+            assertEquals(LectorJTL.Formato.XML, lector.formato());
+            assertTrue(lector.siguiente());
+            assertEquals("GET Products & Users", lector.label());
+            assertEquals(100, lector.latencia());
+            agregador.registrar(lector);
+
+            assertTrue(lector.siguiente(), "El sub-resultado anidado no debe contarse");
+            assertEquals("POST /products/add", lector.label());
+            assertEquals("Error <interno>", lector.campoTexto(lector.indiceColumna("responseMessage")));
+            agregador.registrar(lector);
+
+            assertFalse(lector.siguiente());
+        }
+        assertEquals(2, agregador.getTotalMuestras());
+        assertEquals(1, agregador.getTotalErrores());
+        assertEquals(500, agregador.getDuracionMs());
+    }
+
+    @Test
+    @DisplayName("Agregación paralela - Bloques alineados a líneas dan el mismo resultado que la secuencial")
+    public void deberiaAgregarEnParaleloIgualQueSecuencial() throws IOException {
+        Path jtl = escribirJTL(true, 20_000);
+
+        AgregadorMetricasJTL secuencial = new AgregadorMetricasJTL();
+        try (LectorJTL lector = LectorJTL.abrir(jtl)) {
+            while (lector.siguiente()) {
+                secuencial.registrar(lector);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // Bloques de 4 KB para forzar muchos cortes en mitad de línea
+            AgregadorMetricasJTL paralelo = AgregacionParalelaJTL.agregar(jtl, pool, 4 * 1024);
+
+            assertEquals(secuencial.getTotalMuestras(), paralelo.getTotalMuestras());
+            assertEquals(secuencial.getTotalErrores(), paralelo.getTotalErrores());
+            assertEquals(secuencial.getDuracionMs(), paralelo.getDuracionMs());
+            assertEquals(secuencial.getPromedioMs(), paralelo.getPromedioMs(), 0.0001);
+            for (double percentil : new double[]{50, 90, 95, 99, 99.9}) {
+                assertEquals(secuencial.percentilMs(percentil), paralelo.percentilMs(percentil));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Path escribirJTL(boolean conCabecera, int filas) throws IOException {
+        Path jtl = directorioTemporal.resolve("resultado_" + filas + ".jtl");
+        try (BufferedWriter writer = Files.newBufferedWriter(jtl)) {
+            if (conCabecera) {
+                writer.write(CABECERA);
+                writer.newLine();
+            }
+            for (int i = 0; i < filas; i++) {
+                boolean exito = i % 5 != 0;
+                writer.write(String.format("%d,%d,GET Products,%s,%s,Grupo 1-1,text,%s,,1024,120,1,1," +
+                                "https://dummyjson.com/products,%d,0,15",
+                        1_700_000_000_000L + i * 100L, i + 1,
+                        exito ? "200" : "500", exito ? "OK" : "Internal Server Error", exito, i / 2));
+                writer.newLine();
+            }
+        }
+        return jtl;
+    }
+}
@@ -0,0 +1,66 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del planificador de escenarios concurrentes
+ */
+public class PruebasPlanificadorEscenariosTest {
+
+    @Test
+    @DisplayName("Planificador - Paraleliza dentro del presupuesto y respeta los grupos de aislamiento")
+    public void deberiaParalelizarRespetandoPresupuestoYGrupos() throws InterruptedException {
+        AtomicInteger enCurso = new AtomicInteger();
+        AtomicInteger hilosEnUso = new AtomicInteger();
+        AtomicInteger maximoEnCurso = new AtomicInteger();
+        AtomicInteger maximoHilos = new AtomicInteger();
+        Map<String, AtomicInteger> porGrupo = new ConcurrentHashMap<>();
+
+        List<PlanificadorEscenarios.Tarea<String>> tareas = new ArrayList<>();
+        for (String grupo : List.of("GET", "POST", "MIXTO")) {
+            for (int usuarios : new int[]{10, 25, 50}) {
+                String nombre = grupo + " " + usuarios;
+                tareas.add(new PlanificadorEscenarios.Tarea<>(nombre, usuarios, grupo, () -> {
+                    maximoEnCurso.accumulateAndGet(enCurso.incrementAndGet(), Math::max);
+                    maximoHilos.accumulateAndGet(hilosEnUso.addAndGet(usuarios), Math::max);
+                    int mismoGrupo = porGrupo.computeIfAbsent(grupo, g -> new AtomicInteger()).incrementAndGet();
+                    assertEquals(1, mismoGrupo, "Dos escenarios del grupo " + grupo + " se solaparon");
+                    Thread.sleep(100);
+                    porGrupo.get(grupo).decrementAndGet();
+                    hilosEnUso.addAndGet(-usuarios);
+                    enCurso.decrementAndGet();
+                    return nombre;
+                }));
+            }
+        }
+        tareas.add(new PlanificadorEscenarios.Tarea<>("Falla", 1, null, () -> {
+            throw new IllegalStateException("JMeter no respondió");
+        }));
+
+        long inicio = System.nanoTime();
+        List<PlanificadorEscenarios.Resultado<String>> resultados = new PlanificadorEscenarios(3, 100).ejecutar(tareas);
+        long transcurridoMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        assertEquals(tareas.size(), resultados.size());
+        for (int i = 0; i < 9; i++) {
+            assertEquals(tareas.get(i).nombre(), resultados.get(i).valor(), "Resultados en el orden de las tareas");
+            assertNotNull(resultados.get(i).saturacion());
+        }
+        assertFalse(resultados.get(9).exitoso());
+        assertInstanceOf(IllegalStateException.class, resultados.get(9).error());
+
+        assertTrue(maximoEnCurso.get() > 1, "Debe haber escenarios en paralelo");
+        assertTrue(maximoEnCurso.get() <= 3);
+        assertTrue(maximoHilos.get() <= 100, "Hilos simultáneos: " + maximoHilos.get());
+        assertTrue(transcurridoMs < 9 * 100, "Tiempo total " + transcurridoMs + " ms, secuencial serían 900 ms");
+    }
+}
@@ -0,0 +1,96 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del seguimiento en vivo de un JTL en crecimiento
+ * Simula la escritura incremental de JMeter agregando bytes al archivo entre sondeos
+ */
+public class PruebasSeguidorJTLTest {
+
+    private static final String CABECERA = "timeStamp,elapsed,label,responseCode,responseMessage,threadName,dataType,success";
+    private static final long INICIO = 1_700_000_000_000L;
+
+    @TempDir
+    Path directorioTemporal;
+
+    @Test
+    @DisplayName("Archivo en crecimiento - Procesar solo filas completas y retomar la fila parcial")
+    public void deberiaSeguirArchivoEnCrecimiento() throws IOException {
+        Path jtl = directorioTemporal.resolve("flujo_completo.jtl");
+        List<SeguidorJTL.InstantaneaMetricas> publicadas = new ArrayList<>();
+
+        try (SeguidorJTL seguidor = new SeguidorJTL(jtl, 60_000, 10, publicadas::add)) {
+            assertEquals(0, seguidor.sondear(), "El archivo aún no existe");
+
+            agregar(jtl, CABECERA.substring(0, 20));
+            assertEquals(0, seguidor.sondear(), "La cabecera incompleta no debe resolverse");
+
+            agregar(jtl, CABECERA.substring(20) + "\n" + filas(0, 100) + "1700000009999,12,GET Us");
+            assertEquals(100, seguidor.sondear());
+
+            agregar(jtl, "ers,200,OK,t1,text,true\n" + filas(100, 250));
+            assertEquals(151, seguidor.sondear(), "La fila partida debe contarse una sola vez");
+            assertEquals(0, seguidor.sondear());
+
+            SeguidorJTL.InstantaneaMetricas instantanea = seguidor.instantanea();
+            assertEquals(251, instantanea.muestras());
+            assertEquals(25, instantanea.errores());
+            assertEquals(10.0, instantanea.throughputMovilReqSeg(), 0.5);
+            assertEquals(10.0, instantanea.tasaErrorMovilPorcentaje(), 1.0);
+            assertTrue(instantanea.p95MovilMs() >= 100);
+        }
+
+        assertEquals(1, publicadas.size(), "Al cerrar se publica la instantánea final");
+        assertEquals(251, publicadas.get(0).muestras());
+    }
+
+    @Test
+    @DisplayName("Archivo en crecimiento - Un responseMessage multilínea partido entre sondeos no corta la fila")
+    public void deberiaRespetarCamposMultilineaEntreSondeos() throws IOException {
+        Path jtl = directorioTemporal.resolve("flujo_multilinea.jtl");
+
+        try (SeguidorJTL seguidor = new SeguidorJTL(jtl, 60_000, 10, instantanea -> { })) {
+            agregar(jtl, CABECERA + "\n" + filas(0, 10)
+                    + INICIO + ",900,POST /auth,500,\"Error interno:\n\"\"token\"\" inválido\n");
+            assertEquals(10, seguidor.sondear(), "La fila con el mensaje abierto queda para el próximo sondeo");
+
+            agregar(jtl, "reintente\",t1,text,false\n" + filas(10, 20));
+            assertEquals(11, seguidor.sondear(), "La fila multilínea se cuenta entera y una sola vez");
+            assertEquals(0, seguidor.sondear());
+
+            SeguidorJTL.InstantaneaMetricas instantanea = seguidor.instantanea();
+            assertEquals(21, instantanea.muestras());
+            assertEquals(3, instantanea.errores());
+        }
+    }
+
+    /**
+     * Filas a 10 req/s con 1 de cada 10 fallida y latencias entre 50 y 149 ms
+     */
+    private static String filas(int desde, int hasta) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = desde; i < hasta; i++) {
+            sb.append(String.format("%d,%d,GET Products,%s,OK,t1,text,%s%n",
+                    INICIO + i * 100L, 50 + i % 100, i % 10 == 0 ? "500" : "200", i % 10 != 0));
+        }
+        return sb.toString();
+    }
+
+    private static void agregar(Path jtl, String contenido) throws IOException {
+        Files.writeString(jtl, contenido, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,163 @@
+package com.mediplus.pruebas.analisis.jmeter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias de la serie temporal por ventanas y la detección de régimen estable
+ * Simula una prueba con ramp-up de 10 s, meseta de 30 s a 100 req/s y drenaje de 5 s
+ */
+public class PruebasSerieTemporalJTLTest {
+
+    private static final long INICIO = 1_700_000_000_000L;
+
+    @Test
+    @DisplayName("Ventanas - Se agrupan por instante de fin (timeStamp + elapsed)")
+    public void deberiaAgruparPorInstanteDeFin() {
+        SerieTemporalJTL serie = new SerieTemporalJTL();
+        serie.registrar(INICIO + 900, 200, true);   // termina en el segundo 1
+        serie.registrar(INICIO + 100, 50, false);   // termina en el segundo 0
+        serie.registrar(INICIO + 3_000, 10, true);  // deja un hueco en el segundo 2
+
+        List<SerieTemporalJTL.Ventana> ventanas = serie.getVentanas();
+
+        assertEquals(4, ventanas.size());
+        assertEquals(INICIO, ventanas.get(0).inicioMs());
+        assertEquals(1, ventanas.get(0).errores());
+        assertEquals(200.0, ventanas.get(1).promedioMs(), 0.001);
+        assertEquals(0, ventanas.get(2).muestras());
+        assertEquals(1.0, ventanas.get(3).throughputReqSeg(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Régimen estable - Recortar ramp-up y drenaje de la métrica principal")
+    public void deberiaDetectarRegimenEstable() {
+        SerieTemporalJTL serie = simularPrueba();
+
+        SerieTemporalJTL.RegimenEstable regimen = serie.detectarRegimenEstable().orElseThrow();
+
+        long segundoInicio = (regimen.inicioMs() - INICIO) / 1000;
+        long segundoFin = (regimen.finMs() - INICIO) / 1000;
+        assertTrue(segundoInicio >= 7 && segundoInicio <= 10, "Inicio de meseta: " + segundoInicio);
+        assertTrue(segundoFin >= 40 && segundoFin <= 41, "Fin de meseta: " + segundoFin);
+        assertEquals(100.0, regimen.throughputReqSeg(), 5.0);
+        assertNull(regimen.histograma(), "Sin percentiles por ventana salvo que se pidan");
+
+        // La métrica de todo el archivo queda diluida por los transitorios
+        long totalMuestras = serie.getVentanas().stream().mapToLong(SerieTemporalJTL.Ventana::muestras).sum();
+        assertTrue(totalMuestras / 45.0 < 85.0);
+    }
+
+    @Test
+    @DisplayName("Serie corta - Sin ventanas suficientes no se informa régimen")
+    public void deberiaOmitirRegimenEnSeriesCortas() {
+        SerieTemporalJTL serie = new SerieTemporalJTL();
+        for (int i = 0; i < 300; i++) {
+            serie.registrar(INICIO + i * 10L, 20, true);
+        }
+
+        assertTrue(serie.detectarRegimenEstable().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Combinación - Unir series de bloques equivale a una sola serie")
+    public void deberiaCombinarSeries() {
+        SerieTemporalJTL completa = simularPrueba();
+        SerieTemporalJTL bloqueA = new SerieTemporalJTL();
+        SerieTemporalJTL bloqueB = new SerieTemporalJTL();
+        bloqueB.registrar(INICIO + 44_000, 100, true);   // bloque B empieza después que A
+        bloqueA.registrar(INICIO, 100, true);
+        completa.registrar(INICIO + 44_000, 100, true);
+        completa.registrar(INICIO, 100, true);
+
+        SerieTemporalJTL combinada = simularPrueba();
+        bloqueB.combinar(bloqueA);
+        combinada.combinar(bloqueB);
+
+        assertEquals(completa.getVentanas(), combinada.getVentanas());
+    }
+
+    @Test
+    @DisplayName("Memoria acotada - Una ejecución larga fusiona ventanas y conserva la meseta")
+    public void deberiaFusionarVentanasEnEjecucionesLargas() {
+        SerieTemporalJTL serie = new SerieTemporalJTL(1_000L, 1_024, SerieTemporalJTL.Desborde.FUSIONAR, false);
+        long total = 0;
+        // 3 horas a 10 req/s: 10.800 ventanas de 1 s no caben en 1.024
+        for (long ms = 0; ms < 3 * 3_600_000L; ms += 100) {
+            serie.registrar(INICIO + ms, 50, true);
+            total++;
+        }
+
+        assertTrue(serie.getNumeroVentanas() <= 1_024, "Ventanas: " + serie.getNumeroVentanas());
+        assertEquals(16_000L, serie.getVentanaMs());
+        assertEquals(total, serie.getVentanas().stream().mapToLong(SerieTemporalJTL.Ventana::muestras).sum());
+        assertEquals(10.0, serie.detectarRegimenEstable().orElseThrow().throughputReqSeg(), 0.01);
+
+        // Combinar con una serie sin fusionar la lleva a la misma resolución
+        SerieTemporalJTL corta = new SerieTemporalJTL(1_000L, 1_024, SerieTemporalJTL.Desborde.FUSIONAR, false);
+        corta.registrar(INICIO + 5_000, 10, false);
+        corta.combinar(serie);
+        assertEquals(16_000L, corta.getVentanaMs());
+        assertEquals(total + 1, corta.getVentanas().stream().mapToLong(SerieTemporalJTL.Ventana::muestras).sum());
+    }
+
+    @Test
+    @DisplayName("Ventanas móviles - Descartar las antiguas conserva solo el tramo reciente con percentiles")
+    public void deberiaDescartarVentanasAntiguas() {
+        SerieTemporalJTL serie = new SerieTemporalJTL(1_000L, 12, SerieTemporalJTL.Desborde.DESCARTAR_ANTIGUAS, true);
+        for (int segundo = 0; segundo < 600; segundo++) {
+            for (int i = 0; i < 10; i++) {
+                serie.registrar(INICIO + segundo * 1_000L + i * 100L, segundo < 590 ? 20 : 200, true);
+            }
+        }
+        serie.registrar(INICIO, 20, true); // llega tarde, anterior a lo conservado
+
+        assertEquals(12, serie.getNumeroVentanas());
+        assertEquals(INICIO + 589_000L, serie.getVentanas().get(0).inicioMs());
+        assertEquals(1, serie.getMuestrasDescartadas());
+        SerieTemporalJTL.RegimenEstable movil = serie.resumirUltimasVentanas(5).orElseThrow();
+        assertEquals(200, movil.histograma().getP95(), 2);
+        assertEquals(10.0, movil.throughputReqSeg(), 0.01);
+    }
+
+    @Test
+    @DisplayName("Valores atípicos - Un timeStamp corrupto se descarta sin estirar la serie")
+    public void deberiaDescartarTimeStampsFueraDeRango() {
+        SerieTemporalJTL serie = simularPrueba();
+        int ventanas = serie.getNumeroVentanas();
+
+        serie.registrar(0, 10, true);
+        serie.registrar(-5_000, 10, true);
+        serie.registrar(INICIO + 400L * 24 * 3600 * 1000, 10, true);
+        serie.registrar(Long.MAX_VALUE - 5, 10, true);
+
+        assertEquals(ventanas, serie.getNumeroVentanas());
+        assertEquals(4, serie.getMuestrasDescartadas());
+        assertEquals(SerieTemporalJTL.VENTANA_DEFAULT_MS, serie.getVentanaMs());
+    }
+
+    /**
+     * 10 s subiendo de 10 a 100 req/s, 30 s a 100 req/s y 5 s bajando; latencia fija de 100 ms
+     */
+    private SerieTemporalJTL simularPrueba() {
+        SerieTemporalJTL serie = new SerieTemporalJTL();
+        for (int segundo = 0; segundo < 45; segundo++) {
+            int tasa;
+            if (segundo < 10) {
+                tasa = 10 * (segundo + 1);
+            } else if (segundo < 40) {
+                tasa = 100;
+            } else {
+                tasa = 100 - 20 * (segundo - 39);
+            }
+            for (int i = 0; i < tasa; i++) {
+                serie.registrar(INICIO + segundo * 1_000L + i * (1_000L / tasa), 100, true);
+            }
+        }
+        return serie;
+    }
+}
@@ -0,0 +1,191 @@
+package com.mediplus.pruebas.analisis.modelo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del histograma log-lineal de latencias
+ * Compara los percentiles del histograma contra el cálculo exacto sobre datos ordenados
+ */
+public class PruebasHistogramaLatenciaTest {
+
+    @Test
+    @DisplayName("Percentiles - Error relativo acotado frente al cálculo exacto")
+    public void deberiaAcotarErrorRelativoDePercentiles() {
+        HistogramaLatencia histograma = new HistogramaLatencia();
+        Random aleatorio = new Random(42);
+        long[] valores = new long[100_000];
+        for (int i = 0; i < valores.length; i++) {
+            // Distribución de cola larga: la mayoría rápida y algunos lentos
+            valores[i] = (long) (50 + Math.abs(aleatorio.nextGaussian()) * 300 +
+                    (aleatorio.nextInt(100) == 0 ? aleatorio.nextInt(20_000) : 0));
+            histograma.registrar(valores[i]);
+        }
+        Arrays.sort(valores);
+
+        for (double percentil : new double[]{50, 90, 95, 99, 99.9}) {
+            long exacto = valores[(int) Math.ceil(percentil / 100.0 * valores.length) - 1];
+            assertEquals(exacto, histograma.percentil(percentil),
+                    Math.max(1, exacto * histograma.getErrorRelativoMaximo()),
+                    "Percentil " + percentil + " fuera del error permitido");
+        }
+        assertEquals(valores[valores.length - 1], histograma.getMaximo());
+        assertEquals(valores[0], histograma.getMinimo());
+    }
+
+    @Test
+    @DisplayName("Valores pequeños - Se registran con resolución exacta")
+    public void deberiaSerExactoParaValoresPequenos() {
+        HistogramaLatencia histograma = new HistogramaLatencia();
+        for (int i = 1; i <= 1_000; i++) {
+            histograma.registrar(i);
+        }
+
+        assertEquals(500, histograma.getP50());
+        assertEquals(900, histograma.getP90());
+        assertEquals(990, histograma.getP99());
+        assertEquals(500.5, histograma.getPromedio(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Combinación - Sumar histogramas equivale a registrar todo en uno")
+    public void deberiaCombinarSinPerdida() {
+        HistogramaLatencia completo = new HistogramaLatencia();
+        HistogramaLatencia parteA = new HistogramaLatencia();
+        HistogramaLatencia parteB = new HistogramaLatencia();
+        for (int i = 0; i < 50_000; i++) {
+            long valor = (i * 7919L) % 120_000;
+            completo.registrar(valor);
+            (i % 2 == 0 ? parteA : parteB).registrar(valor);
+        }
+
+        parteA.sumar(parteB);
+
+        assertEquals(completo.getTotal(), parteA.getTotal());
+        for (double percentil : new double[]{50, 90, 95, 99, 99.9, 100}) {
+            assertEquals(completo.percentil(percentil), parteA.percentil(percentil));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> parteA.sumar(new HistogramaLatencia(60_000, 2)));
+    }
+
+    @Test
+    @DisplayName("MetricaRendimiento - Expone p50/p99/p99.9 cuando trae histograma")
+    public void deberiaExponerPercentilesDesdeMetrica() {
+        HistogramaLatencia histograma = new HistogramaLatencia();
+        for (int i = 1; i <= 1_000; i++) {
+            histograma.registrar(i);
+        }
+
+        MetricaRendimiento metrica = new MetricaRendimiento.Builder()
+                .nombreEscenario("GET Masivo")
+                .usuariosConcurrentes(10)
+                .tiempoPromedioMs(histograma.getPromedio())
+                .percentil90Ms(histograma.getP90())
+                .percentil95Ms(histograma.getP95())
+                .duracionPruebaSegundos(60)
+                .histograma(histograma)
+                .build();
+
+        histograma.registrar(50_000); // la métrica conserva su propia copia
+
+        assertTrue(metrica.tieneHistograma());
+        assertEquals(500, metrica.getPercentil50Ms());
+        assertEquals(990, metrica.getPercentil99Ms());
+        assertEquals(999, metrica.getPercentil999Ms());
+        assertEquals(1_000, metrica.getHistograma().getTotal());
+    }
+
+    @Test
+    @DisplayName("Serialización - Escribir y leer conserva percentiles y ocupa pocos KB")
+    public void deberiaSerializarEnFormaCompacta() throws IOException {
+        HistogramaLatencia original = new HistogramaLatencia();
+        Random aleatorio = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            original.registrar((long) (20 + Math.abs(aleatorio.nextGaussian()) * 400));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        original.escribir(new DataOutputStream(bytes));
+        HistogramaLatencia leido = HistogramaLatencia.leer(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertTrue(bytes.size() < 8 * 1024, "Tamaño serializado: " + bytes.size());
+        assertEquals(original.getTotal(), leido.getTotal());
+        assertEquals(original.getPromedio(), leido.getPromedio(), 0.0);
+        for (double percentil : new double[]{50, 95, 99.9, 100}) {
+            assertEquals(original.percentil(percentil), leido.percentil(percentil));
+        }
+    }
+
+    @Test
+    @DisplayName("Omisión coordinada - Repone las muestras que un hilo bloqueado no envió")
+    public void deberiaCorregirOmisionCoordinada() {
+        // Un hilo que pide cada 10 ms y se queda 8 s esperando una respuesta
+        HistogramaLatencia medido = new HistogramaLatencia();
+        HistogramaLatencia enLinea = new HistogramaLatencia();
+        for (int i = 0; i < 999; i++) {
+            medido.registrar(10);
+            enLinea.registrarConIntervaloEsperado(10, 10);
+        }
+        medido.registrar(8_000);
+        enLinea.registrarConIntervaloEsperado(8_000, 10);
+
+        // Las 799 peticiones omitidas habrían esperado 7990, 7980, ..., 10 ms
+        assertEquals(1_000 + 799, enLinea.getTotal());
+        assertEquals(10, medido.getP99(), "Sin corregir, la pausa de 8 s no aparece en el P99");
+        assertEquals(7_830, enLinea.getP99(), 7_830 * enLinea.getErrorRelativoMaximo());
+
+        HistogramaLatencia corregido = medido.corregidoPorOmisionCoordinada(10);
+        assertEquals(enLinea.getTotal(), corregido.getTotal());
+        for (double percentil : new double[]{50, 90, 99, 99.9, 100}) {
+            assertEquals(enLinea.percentil(percentil), corregido.percentil(percentil));
+        }
+        assertEquals(1_000, medido.getTotal(), "La corrección no modifica el histograma medido");
+
+        MetricaRendimiento metrica = new MetricaRendimiento.Builder()
+                .nombreEscenario("GET Masivo")
+                .usuariosConcurrentes(1)
+                .tiempoPromedioMs(medido.getPromedio())
+                .duracionPruebaSegundos(18)
+                .histograma(medido)
+                .correccionOmision(corregido, 10)
+                .build();
+        assertTrue(metrica.tieneCorreccionOmision());
+        assertEquals(10, metrica.getPercentil99Ms());
+        assertEquals(enLinea.getP99(), metrica.getPercentil99CorregidoMs());
+        assertTrue(metrica.generarReporte().contains("omisión coordinada"));
+    }
+
+    @Test
+    @DisplayName("Omisión coordinada - Reponer por bucket equivale a reponer una a una y no depende de valor / intervalo")
+    public void deberiaAcotarLaReposicionPorBucket() {
+        // Una sola espera de 1 h con intervalo de 1 ms: 3.599.999 muestras omitidas
+        HistogramaLatencia porBucket = new HistogramaLatencia();
+        porBucket.registrarConIntervaloEsperado(3_600_000, 1);
+        HistogramaLatencia unaAUna = new HistogramaLatencia();
+        for (long faltante = 3_600_000; faltante >= 1; faltante--) {
+            unaAUna.registrar(faltante);
+        }
+        assertEquals(unaAUna.getTotal(), porBucket.getTotal());
+        assertEquals(unaAUna.getPromedio(), porBucket.getPromedio(), 0.0);
+        assertEquals(unaAUna.getMinimo(), porBucket.getMinimo());
+        for (double percentil : new double[]{1, 50, 99, 99.99, 100}) {
+            assertEquals(unaAUna.percentil(percentil), porBucket.percentil(percentil));
+        }
+
+        // Miles de buckets de hasta 1 h: una a una serían miles de millones de iteraciones
+        HistogramaLatencia medido = new HistogramaLatencia();
+        for (long valor = 1; valor <= 3_600_000; valor += 997) {
+            medido.registrar(valor);
+        }
+        HistogramaLatencia corregido = assertTimeoutPreemptively(java.time.Duration.ofSeconds(10),
+                () -> medido.corregidoPorOmisionCoordinada(1));
+        assertTrue(corregido.getTotal() > 1_000_000_000L, "Total corregido: " + corregido.getTotal());
+    }
+}
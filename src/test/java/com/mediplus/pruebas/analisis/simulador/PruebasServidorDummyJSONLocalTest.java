@@ -0,0 +1,125 @@
+package com.mediplus.pruebas.analisis.simulador;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del sustituto local de DummyJSON: contrato de endpoints, latencia, fallos y ancho de banda
+ */
+public class PruebasServidorDummyJSONLocalTest {
+
+    private static final ObjectMapper MAPEADOR = new ObjectMapper();
+    private final HttpClient cliente = HttpClient.newHttpClient();
+
+    @Test
+    @DisplayName("Servidor local - Listados, detalle, altas y autenticación con el formato de DummyJSON")
+    public void deberiaResponderComoDummyJSON() throws Exception {
+        try (ServidorDummyJSONLocal servidor = ServidorDummyJSONLocal.builder().iniciar()) {
+            URI base = servidor.getUrlBase();
+
+            JsonNode pagina = json(get(base, "/products?limit=5&skip=10"));
+            assertEquals(5, pagina.path("products").size());
+            assertEquals(11, pagina.path("products").get(0).path("id").asInt());
+            assertEquals(194, pagina.path("total").asInt());
+            assertEquals(10, pagina.path("skip").asInt());
+
+            JsonNode seleccion = json(get(base, "/users?limit=0&select=email"));
+            assertEquals(208, seleccion.path("users").size());
+            assertEquals(2, seleccion.path("users").get(0).size(), "Solo id y el campo pedido");
+
+            HttpResponse<String> inexistente = get(base, "/posts/9999");
+            assertEquals(404, inexistente.statusCode());
+            assertTrue(json(inexistente).path("message").asText().contains("not found"));
+
+            JsonNode delUsuario = json(get(base, "/posts/user/5"));
+            delUsuario.path("posts").forEach(post -> assertEquals(5, post.path("userId").asInt()));
+
+            HttpResponse<String> alta = enviar(base, "POST", "/users/add", "{\"firstName\":\"Juan\",\"email\":\"juan@mediplus.cl\"}", null);
+            assertEquals(201, alta.statusCode());
+            assertEquals(209, json(alta).path("id").asInt());
+            assertEquals("Juan", json(alta).path("firstName").asText());
+
+            HttpResponse<String> baja = enviar(base, "DELETE", "/products/3", null, null);
+            assertTrue(json(baja).path("isDeleted").asBoolean());
+
+            HttpResponse<String> login = enviar(base, "POST", "/auth/login",
+                    "{\"username\":\"emilys\",\"password\":\"emilyspass\",\"expiresInMins\":30}", null);
+            assertEquals(200, login.statusCode());
+            String token = json(login).path("accessToken").asText();
+            assertEquals(3, token.split("\\.").length, "Token con forma JWT");
+
+            HttpResponse<String> yo = enviar(base, "GET", "/auth/me", null, token);
+            assertEquals(200, yo.statusCode());
+            assertEquals("emilys", json(yo).path("username").asText());
+            assertEquals(401, enviar(base, "GET", "/auth/me", null, token + "x").statusCode());
+            assertEquals(400, enviar(base, "POST", "/auth/login",
+                    "{\"username\":\"emilys\",\"password\":\"otra\"}", null).statusCode());
+
+            HttpResponse<String> refresco = enviar(base, "POST", "/auth/refresh",
+                    "{\"refreshToken\":\"" + json(login).path("refreshToken").asText() + "\"}", null);
+            assertEquals(200, refresco.statusCode());
+            assertNotEquals(token, json(refresco).path("accessToken").asText());
+        }
+    }
+
+    @Test
+    @DisplayName("Servidor local - Latencia, fallos inyectados y tope de ancho de banda")
+    public void deberiaInyectarLatenciaFallosYAnchoBanda() throws Exception {
+        try (ServidorDummyJSONLocal servidor = ServidorDummyJSONLocal.builder()
+                .latencia(DistribucionLatencia.constante(Duration.ofMillis(50)))
+                .fallos(1.0, 503)
+                .iniciar()) {
+            long inicio = System.nanoTime();
+            HttpResponse<String> respuesta = get(servidor.getUrlBase(), "/users/1");
+            assertTrue(System.nanoTime() - inicio >= 50_000_000L);
+            assertEquals(503, respuesta.statusCode());
+            assertEquals(1, servidor.getFallosInyectados());
+        }
+
+        // ~50 KB a 100 KB/s: al menos ~0,5 s aunque el servidor sea local
+        try (ServidorDummyJSONLocal servidor = ServidorDummyJSONLocal.builder().anchoBanda(100_000).iniciar()) {
+            long inicio = System.nanoTime();
+            HttpResponse<String> respuesta = get(servidor.getUrlBase(), "/products?limit=0");
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            int bytes = respuesta.body().getBytes().length;
+            assertTrue(bytes > 40_000, "Respuesta de " + bytes + " bytes");
+            assertTrue(segundos >= bytes / 100_000.0 * 0.9, "Tardó " + segundos + " s para " + bytes + " bytes");
+        }
+
+        SplittableRandom aleatorio = new SplittableRandom(7);
+        DistribucionLatencia uniforme = DistribucionLatencia.uniforme(Duration.ofMillis(10), Duration.ofMillis(20));
+        for (int i = 0; i < 1000; i++) {
+            long nanos = uniforme.muestrearNanos(aleatorio);
+            assertTrue(nanos >= 10_000_000L && nanos <= 20_000_000L);
+        }
+    }
+
+    private HttpResponse<String> get(URI base, String ruta) throws Exception {
+        return enviar(base, "GET", ruta, null, null);
+    }
+
+    private HttpResponse<String> enviar(URI base, String metodo, String ruta, String cuerpo, String token) throws Exception {
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(base.resolve(ruta))
+                .method(metodo, cuerpo == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(cuerpo))
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            peticion.header("Authorization", "Bearer " + token);
+        }
+        return cliente.send(peticion.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static JsonNode json(HttpResponse<String> respuesta) throws Exception {
+        return MAPEADOR.readTree(respuesta.body());
+    }
+}
@@ -2,7 +2,6 @@ package com.mediplus.pruebas.casos;
 
 // ✅ Imports correctos JUnit 5
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import static org.junit.jupiter.api.Assertions.*;
@@ -10,7 +9,6 @@ import static org.junit.jupiter.api.Assertions.*;
 // ✅ Imports REST Assured
 import static io.restassured.RestAssured.*;
 import static org.hamcrest.Matchers.*;
-import io.restassured.RestAssured;
 import io.restassured.response.Response;
 
 // ✅ Configuración
@@ -23,11 +21,6 @@ import com.mediplus.pruebas.configuracion.ConfiguracionBase;
 @DisplayName("Pruebas del módulo Pacientes")
 class PruebasPacientesTest extends ConfiguracionBase {
 
-    @BeforeEach
-    void configurarPruebas() {
-        RestAssured.baseURI = "https://dummyjson.com";
-    }
-
     @Nested
     @DisplayName("Operaciones GET - Consultar pacientes")
     class PruebasConsultaPacientes {
@@ -36,6 +29,7 @@ class PruebasPacientesTest extends ConfiguracionBase {
         @DisplayName("Debe obtener lista de pacientes exitosamente")
         void debeObtenerListaPacientes() {
             given()
+                    .spec(especificacionPeticion)
                     .when()
                     .get("/users")
                     .then()
@@ -52,6 +46,7 @@ class PruebasPacientesTest extends ConfiguracionBase {
             int idPaciente = 1;
 
             Response response = given()
+                    .spec(especificacionPeticion)
                     .when()
                     .get("/users/{id}", idPaciente)
                     .then()
@@ -87,6 +82,7 @@ class PruebasPacientesTest extends ConfiguracionBase {
                     """;
 
             given()
+                    .spec(especificacionPeticion)
                     .contentType("application/json")
                     .body(pacienteJson)
                     .when()
@@ -110,6 +106,7 @@ class PruebasPacientesTest extends ConfiguracionBase {
                     """;
 
             given()
+                    .spec(especificacionPeticion)
                     .contentType("application/json")
                     .body(pacienteInvalido)
                     .when()
@@ -137,6 +134,7 @@ class PruebasPacientesTest extends ConfiguracionBase {
                     """;
 
             given()
+                    .spec(especificacionPeticion)
                     .contentType("application/json")
                     .body(pacienteActualizado)
                     .when()
@@ -160,6 +158,7 @@ class PruebasPacientesTest extends ConfiguracionBase {
             int idPaciente = 1;
 
             given()
+                    .spec(especificacionPeticion)
                     .when()
                     .delete("/users/{id}", idPaciente)
                     .then()
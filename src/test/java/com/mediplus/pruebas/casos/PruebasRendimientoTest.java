@@ -7,6 +7,8 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.TestMethodOrder;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
 
 import java.io.*;
 import java.nio.file.Files;
@@ -30,6 +32,7 @@ import static org.junit.jupiter.api.Assertions.*;
  * Autores: Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
  */
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@Execution(ExecutionMode.SAME_THREAD) // los pasos comparten estado y dependen del orden
 public class PruebasRendimientoTest extends ConfiguracionBase {
 
     private static final String DIRECTORIO_RESULTADOS = "resultados-jmeter/";
@@ -26,13 +26,14 @@ public class PruebasSeguridadTest extends ConfiguracionBase {
 
     /**
      * Método auxiliar para obtener un token válido para las pruebas
+     * Usa la caché compartida de tokens; las pruebas de login siguen llamando al endpoint directamente
      */
     private String obtenerTokenValidoParaPruebas() {
-        Response loginResponse = servicioAuth.realizarLogin(USUARIO_PRUEBA, PASSWORD_PRUEBA);
-        if (loginResponse.getStatusCode() == 200) {
-            return loginResponse.jsonPath().getString("accessToken");
+        try {
+            return obtenerTokenAutenticacion();
+        } catch (IllegalStateException e) {
+            return null;
         }
-        return null;
     }
 
     // ========== PRUEBAS CON TOKEN/API KEY CORRECTO ==========
@@ -1,81 +1,108 @@
 package com.mediplus.pruebas.configuracion;
 
-import io.restassured.RestAssured;
+import com.mediplus.pruebas.analisis.simulador.ServidorDummyJSONLocal;
+import com.mediplus.pruebas.servicios.ProveedorTokens;
+import com.mediplus.pruebas.servicios.ServicioAutenticacion;
 import io.restassured.builder.RequestSpecBuilder;
 import io.restassured.builder.ResponseSpecBuilder;
+import io.restassured.config.LogConfig;
+import io.restassured.config.RestAssuredConfig;
 import io.restassured.filter.log.LogDetail;
 import io.restassured.http.ContentType;
 import io.restassured.specification.RequestSpecification;
 import io.restassured.specification.ResponseSpecification;
-import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 
 /**
  * Configuración base para todas las pruebas REST Assured
  * Implementa principios de abstracción y configuración centralizada
+ *
+ * <p>Por defecto apunta a DummyJSON público. Con {@code -Dmediplus.backend.local=true} levanta una
+ * sola vez el {@link ServidorDummyJSONLocal} para toda la corrida (resultados reproducibles y sin
+ * internet), y {@code -Dmediplus.url.base=...} apunta a cualquier otra instancia.</p>
+ *
+ * <p>Las suites corren en paralelo por clase y por método (ver {@code configurationParameters} de
+ * Surefire). Por eso las especificaciones son inmutables y llevan su propia URL base y
+ * configuración: ninguna prueba debe tocar el estado global de {@code RestAssured}.</p>
  */
+@Execution(ExecutionMode.CONCURRENT)
 public class ConfiguracionBase {
 
-    protected static final String URL_BASE = "https://dummyjson.com";
+    protected static final String URL_BASE = resolverUrlBase();
     protected static final int TIMEOUT_RESPUESTA = 10000; // 10 segundos
     protected static final String USUARIO_PRUEBA = "emilys";
     protected static final String PASSWORD_PRUEBA = "emilyspass";
 
-    protected static RequestSpecification especificacionPeticion;
-    protected static ResponseSpecification especificacionRespuesta;
+    private static ServidorDummyJSONLocal servidorLocal;
 
-    @BeforeAll
-    public static void configuracionInicial() {
-        configurarRestAssured();
-        crearEspecificaciones();
-    }
+    /** Pool compartido por todas las suites; ver {@link ConfiguracionClienteHttp#desdePropiedades()} */
+    protected static final ConfiguracionClienteHttp CLIENTE_HTTP = ConfiguracionClienteHttp.desdePropiedades();
+    protected static final RequestSpecification especificacionPeticion = crearEspecificacionPeticion();
+    protected static final ResponseSpecification especificacionRespuesta = crearEspecificacionRespuesta();
+    protected static final ProveedorTokens PROVEEDOR_TOKENS =
+            new ProveedorTokens(new ServicioAutenticacion(especificacionPeticion));
 
-    /**
-     * Configuración global de REST Assured
-     */
-    private static void configurarRestAssured() {
-        RestAssured.baseURI = URL_BASE;
-        RestAssured.enableLoggingOfRequestAndResponseIfValidationFails(LogDetail.ALL);
+    private static synchronized String resolverUrlBase() {
+        if (!Boolean.getBoolean("mediplus.backend.local")) {
+            return System.getProperty("mediplus.url.base", "https://dummyjson.com");
+        }
+        if (servidorLocal == null) {
+            try {
+                servidorLocal = ServidorDummyJSONLocal.builder().iniciar();
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo iniciar el servidor DummyJSON local", e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(servidorLocal::close));
+        }
+        return servidorLocal.getUrlBase().toString();
     }
 
     /**
      * Crear especificaciones reutilizables para peticiones y respuestas
      * Aplica principio de DRY (Don't Repeat Yourself)
+     * La URL base y el log ante fallos van en la propia especificación en lugar de en
+     * {@code RestAssured.baseURI}, que es estático y compartido entre hilos
      */
-    private static void crearEspecificaciones() {
-        especificacionPeticion = new RequestSpecBuilder()
+    private static RequestSpecification crearEspecificacionPeticion() {
+        return new RequestSpecBuilder()
+                .setBaseUri(URL_BASE)
+                .setConfig(CLIENTE_HTTP.aplicarA(RestAssuredConfig.config().logConfig(
+                        LogConfig.logConfig().enableLoggingOfRequestAndResponseIfValidationFails(LogDetail.ALL))))
                 .setContentType(ContentType.JSON)
                 .setAccept(ContentType.JSON)
                 .log(LogDetail.METHOD)
                 .log(LogDetail.URI)
                 .build();
+    }
 
-        especificacionRespuesta = new ResponseSpecBuilder()
+    private static ResponseSpecification crearEspecificacionRespuesta() {
+        return new ResponseSpecBuilder()
                 .expectResponseTime(org.hamcrest.Matchers.lessThan((long) TIMEOUT_RESPUESTA))
                 .log(LogDetail.STATUS)
                 .log(LogDetail.BODY)
                 .build();
     }
 
+    /**
+     * Muestra las conexiones abiertas frente a las reutilizadas (acumulado de la JVM)
+     */
+    @AfterAll
+    public static void informarConexionesHttp() {
+        System.out.println("🔌 " + CLIENTE_HTTP.resumen());
+    }
+
     /**
      * Obtener token de autenticación para pruebas que lo requieran
+     * Sale de la caché compartida: todas las suites reutilizan el mismo token en lugar de hacer
+     * login en cada prueba
      */
     protected static String obtenerTokenAutenticacion() {
-        return RestAssured
-                .given()
-                .spec(especificacionPeticion)
-                .body(String.format("""
-                        {
-                            "username": "%s",
-                            "password": "%s",
-                            "expiresInMins": 30
-                        }
-                        """, USUARIO_PRUEBA, PASSWORD_PRUEBA))
-                .when()
-                .post("/auth/login")
-                .then()
-                .statusCode(200)
-                .extract()
-                .path("accessToken");
+        return PROVEEDOR_TOKENS.obtenerToken(USUARIO_PRUEBA, PASSWORD_PRUEBA);
     }
 }
\ No newline at end of file
@@ -0,0 +1,272 @@
+package com.mediplus.pruebas.configuracion;
+
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import org.apache.http.HttpHost;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.client.protocol.RequestAddCookies;
+import org.apache.http.client.protocol.ResponseProcessCookies;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.OperatedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.BasicClientConnectionManager;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cliente HTTP compartido por los servicios REST Assured, con pool de conexiones medido
+ *
+ * <p>Por defecto REST Assured crea un {@code DefaultHttpClient} nuevo por petición y lo cierra al
+ * terminar, así que cada llamada paga su propio handshake TCP (y TLS). En modo agrupado todas las
+ * peticiones que usan esta configuración comparten un único cliente con pool: keep-alive acotado,
+ * máximo global, máximo por ruta y topes para rutas concretas. Las sesiones TLS se reanudan porque
+ * todas las conexiones salen de la misma fábrica de sockets. En modo sin pool se mantiene el
+ * comportamiento original, con los mismos contadores, para comparar ambos a propósito.</p>
+ *
+ * <p>REST Assured 5 exige un {@code AbstractHttpClient}, por eso se usa la API clásica de HttpClient 4.
+ * Las cookies se desactivan: con un cliente compartido, la cookie de sesión de un login se colaría
+ * en las peticiones de otras pruebas.</p>
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+@SuppressWarnings("deprecation")
+public final class ConfiguracionClienteHttp implements AutoCloseable {
+
+    private static final Duration ESPERA_CONEXION = Duration.ofSeconds(30);
+
+    private final boolean agrupado;
+    private final Duration keepAlive;
+    private final PoolingClientConnectionManager pool;
+    private final DefaultHttpClient clienteCompartido;
+    private final HttpClientConfig httpClientConfig;
+
+    private final LongAdder peticiones = new LongAdder();
+    private final LongAdder conexionesAbiertas = new LongAdder();
+
+    private ConfiguracionClienteHttp(Builder builder) {
+        this.agrupado = builder.agrupado;
+        this.keepAlive = builder.keepAlive;
+        if (agrupado) {
+            pool = new PoolingClientConnectionManager(SchemeRegistryFactory.createDefault()) {
+                @Override
+                protected ClientConnectionOperator createConnectionOperator(SchemeRegistry registro) {
+                    return new OperadorContado(registro);
+                }
+            };
+            pool.setMaxTotal(builder.maximoConexiones);
+            pool.setDefaultMaxPerRoute(builder.maximoPorRuta);
+            builder.limitesPorRuta.forEach(pool::setMaxPerRoute);
+            clienteCompartido = crearCliente(pool);
+            // Instancia reutilizada: REST Assured no la cierra tras cada petición
+            httpClientConfig = HttpClientConfig.httpClientConfig()
+                    .httpClientFactory(() -> clienteCompartido)
+                    .reuseHttpClientInstance();
+        } else {
+            pool = null;
+            clienteCompartido = null;
+            httpClientConfig = HttpClientConfig.httpClientConfig()
+                    .httpClientFactory(() -> crearCliente(new BasicClientConnectionManager(SchemeRegistryFactory.createDefault()) {
+                        @Override
+                        protected ClientConnectionOperator createConnectionOperator(SchemeRegistry registro) {
+                            return new OperadorContado(registro);
+                        }
+                    }))
+                    .dontReuseHttpClientInstance();
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Configuración tomada de las propiedades de sistema:
+     * {@code mediplus.http.pool} (true), {@code mediplus.http.pool.maximo} (50),
+     * {@code mediplus.http.pool.porRuta} (20) y {@code mediplus.http.keepAlive.segundos} (30)
+     */
+    public static ConfiguracionClienteHttp desdePropiedades() {
+        return builder()
+                .agrupado(Boolean.parseBoolean(System.getProperty("mediplus.http.pool", "true")))
+                .maximoConexiones(Integer.getInteger("mediplus.http.pool.maximo", 50))
+                .maximoPorRuta(Integer.getInteger("mediplus.http.pool.porRuta", 20))
+                .keepAlive(Duration.ofSeconds(Integer.getInteger("mediplus.http.keepAlive.segundos", 30)))
+                .construir();
+    }
+
+    /**
+     * @return la configuración recibida con este cliente HTTP
+     */
+    public RestAssuredConfig aplicarA(RestAssuredConfig configuracion) {
+        return configuracion.httpClient(httpClientConfig);
+    }
+
+    private DefaultHttpClient crearCliente(ClientConnectionManager administrador) {
+        DefaultHttpClient cliente = new DefaultHttpClient(administrador);
+        // Con el pool lleno se espera un tiempo acotado en lugar de bloquear la prueba indefinidamente
+        cliente.getParams().setLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, ESPERA_CONEXION.toMillis());
+        cliente.removeRequestInterceptorByClass(RequestAddCookies.class);
+        cliente.removeResponseInterceptorByClass(ResponseProcessCookies.class);
+        cliente.addRequestInterceptor((peticion, contexto) -> peticiones.increment());
+        // REST Assured nunca devuelve la conexión al pool: el cuerpo se lee aquí completo y así el
+        // cliente la libera apenas llega la respuesta (REST Assured igual lo guarda entero en memoria)
+        cliente.addResponseInterceptor((respuesta, contexto) -> {
+            if (respuesta.getEntity() != null && respuesta.getEntity().isStreaming()) {
+                respuesta.setEntity(new BufferedHttpEntity(respuesta.getEntity()));
+            }
+        });
+        long maximoMs = keepAlive.toMillis();
+        cliente.setKeepAliveStrategy((respuesta, contexto) -> {
+            long servidorMs = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(respuesta, contexto);
+            return servidorMs > 0 ? Math.min(servidorMs, maximoMs) : maximoMs;
+        });
+        return cliente;
+    }
+
+    // ==================== MÉTRICAS ====================
+
+    public boolean isAgrupado() {
+        return agrupado;
+    }
+
+    public long getPeticiones() {
+        return peticiones.sum();
+    }
+
+    public long getConexionesAbiertas() {
+        return conexionesAbiertas.sum();
+    }
+
+    /**
+     * Peticiones que salieron por una conexión ya abierta
+     */
+    public long getConexionesReutilizadas() {
+        return Math.max(0, getPeticiones() - getConexionesAbiertas());
+    }
+
+    /**
+     * Estado actual del pool (alquiladas, en espera, disponibles, máximo); null sin pool
+     */
+    public PoolStats getEstadoPool() {
+        return pool == null ? null : pool.getTotalStats();
+    }
+
+    public String resumen() {
+        long total = getPeticiones();
+        return String.format("Cliente HTTP %s: %d peticiones, %d conexiones abiertas, %d reutilizadas (%.1f%%)",
+                agrupado ? "con pool" : "sin pool", total, getConexionesAbiertas(), getConexionesReutilizadas(),
+                total == 0 ? 0.0 : 100.0 * getConexionesReutilizadas() / total);
+    }
+
+    /**
+     * Cierra las conexiones del pool; las peticiones posteriores fallan
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Operador de conexiones que cuenta cada socket realmente abierto
+     */
+    private final class OperadorContado extends DefaultClientConnectionOperator {
+
+        OperadorContado(SchemeRegistry registro) {
+            super(registro);
+        }
+
+        @Override
+        public void openConnection(OperatedClientConnection conexion, HttpHost destino, InetAddress local,
+                                   HttpContext contexto, HttpParams parametros) throws IOException {
+            super.openConnection(conexion, destino, local, contexto, parametros);
+            conexionesAbiertas.increment();
+        }
+    }
+
+    // ==================== BUILDER ====================
+
+    public static final class Builder {
+        private boolean agrupado = true;
+        private int maximoConexiones = 50;
+        private int maximoPorRuta = 20;
+        private Duration keepAlive = Duration.ofSeconds(30);
+        private final Map<HttpRoute, Integer> limitesPorRuta = new LinkedHashMap<>();
+
+        private Builder() { }
+
+        /** false reproduce el comportamiento por defecto de REST Assured: una conexión por petición */
+        public Builder agrupado(boolean agrupado) {
+            this.agrupado = agrupado;
+            return this;
+        }
+
+        public Builder maximoConexiones(int maximoConexiones) {
+            if (maximoConexiones <= 0) {
+                throw new IllegalArgumentException("maximoConexiones debe ser positivo");
+            }
+            this.maximoConexiones = maximoConexiones;
+            return this;
+        }
+
+        /** Tope por host de destino cuando no hay uno específico para la ruta */
+        public Builder maximoPorRuta(int maximoPorRuta) {
+            if (maximoPorRuta <= 0) {
+                throw new IllegalArgumentException("maximoPorRuta debe ser positivo");
+            }
+            this.maximoPorRuta = maximoPorRuta;
+            return this;
+        }
+
+        /**
+         * Tope de conexiones hacia un backend concreto, p. ej. para no saturar un entorno compartido
+         */
+        public Builder limiteRuta(String urlBase, int maximo) {
+            if (maximo <= 0) {
+                throw new IllegalArgumentException("El límite de la ruta debe ser positivo");
+            }
+            URI uri = URI.create(urlBase);
+            boolean seguro = "https".equalsIgnoreCase(uri.getScheme());
+            int puerto = uri.getPort() > 0 ? uri.getPort() : (seguro ? 443 : 80);
+            limitesPorRuta.put(new HttpRoute(new HttpHost(uri.getHost(), puerto, uri.getScheme()), null, seguro), maximo);
+            if (uri.getPort() < 0) {
+                // Sin puerto explícito la ruta puede llegar sin él; se limita de ambas formas
+                limitesPorRuta.put(new HttpRoute(new HttpHost(uri.getHost(), -1, uri.getScheme()), null, seguro), maximo);
+            }
+            return this;
+        }
+
+        /** Tiempo máximo que una conexión ociosa se conserva, aunque el servidor anuncie más */
+        public Builder keepAlive(Duration keepAlive) {
+            if (keepAlive.isNegative() || keepAlive.isZero()) {
+                throw new IllegalArgumentException("keepAlive debe ser positivo");
+            }
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        public ConfiguracionClienteHttp construir() {
+            if (maximoPorRuta > maximoConexiones) {
+                maximoPorRuta = maximoConexiones;
+            }
+            return new ConfiguracionClienteHttp(this);
+        }
+    }
+}
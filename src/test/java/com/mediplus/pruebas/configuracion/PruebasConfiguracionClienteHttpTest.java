@@ -0,0 +1,88 @@
+package com.mediplus.pruebas.configuracion;
+
+import com.mediplus.pruebas.analisis.simulador.DistribucionLatencia;
+import com.mediplus.pruebas.analisis.simulador.ServidorDummyJSONLocal;
+import com.mediplus.pruebas.servicios.ServicioPacientes;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.http.ContentType;
+import io.restassured.specification.RequestSpecification;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del cliente HTTP compartido: reutilización de conexiones, modo sin pool y topes por ruta
+ */
+public class PruebasConfiguracionClienteHttpTest {
+
+    @Test
+    @DisplayName("Cliente HTTP - Con pool se reutiliza la conexión; sin pool se abre una por petición")
+    public void deberiaReutilizarConexionesSoloConPool() throws Exception {
+        try (ServidorDummyJSONLocal servidor = ServidorDummyJSONLocal.builder().iniciar();
+             ConfiguracionClienteHttp conPool = ConfiguracionClienteHttp.builder().construir();
+             ConfiguracionClienteHttp sinPool = ConfiguracionClienteHttp.builder().agrupado(false).construir()) {
+
+            for (ConfiguracionClienteHttp cliente : List.of(conPool, sinPool)) {
+                ServicioPacientes servicio = new ServicioPacientes(especificacion(servidor, cliente));
+                for (int id = 1; id <= 20; id++) {
+                    assertEquals(200, servicio.obtenerPacientePorId(id).getStatusCode());
+                }
+            }
+
+            assertEquals(20, conPool.getPeticiones());
+            assertEquals(1, conPool.getConexionesAbiertas(), conPool.resumen());
+            assertEquals(19, conPool.getConexionesReutilizadas());
+            assertEquals(1, conPool.getEstadoPool().getAvailable(), "La conexión vuelve al pool");
+
+            assertEquals(20, sinPool.getPeticiones());
+            assertEquals(20, sinPool.getConexionesAbiertas(), sinPool.resumen());
+            assertNull(sinPool.getEstadoPool());
+        }
+    }
+
+    @Test
+    @DisplayName("Cliente HTTP - El tope por ruta limita las conexiones concurrentes hacia un backend")
+    public void deberiaRespetarTopePorRuta() throws Exception {
+        try (ServidorDummyJSONLocal servidor = ServidorDummyJSONLocal.builder()
+                .latencia(DistribucionLatencia.constante(Duration.ofMillis(50)))
+                .iniciar();
+             ConfiguracionClienteHttp cliente = ConfiguracionClienteHttp.builder()
+                     .limiteRuta(servidor.getUrlBase().toString(), 3)
+                     .construir()) {
+            ServicioPacientes servicio = new ServicioPacientes(especificacion(servidor, cliente));
+
+            try (ExecutorService hilos = Executors.newFixedThreadPool(12)) {
+                List<Future<Integer>> tareas = new ArrayList<>();
+                for (int i = 0; i < 36; i++) {
+                    int id = 1 + i;
+                    tareas.add(hilos.submit(() -> servicio.obtenerPacientePorId(id).getStatusCode()));
+                }
+                for (Future<Integer> tarea : tareas) {
+                    assertEquals(200, tarea.get());
+                }
+            }
+
+            assertEquals(36, cliente.getPeticiones());
+            assertTrue(cliente.getConexionesAbiertas() <= 3, cliente.resumen());
+            assertTrue(cliente.getConexionesReutilizadas() >= 33, cliente.resumen());
+        }
+    }
+
+    private static RequestSpecification especificacion(ServidorDummyJSONLocal servidor, ConfiguracionClienteHttp cliente) {
+        return new RequestSpecBuilder()
+                .setBaseUri(servidor.getUrlBase().toString())
+                .setConfig(cliente.aplicarA(RestAssuredConfig.config()))
+                .setContentType(ContentType.JSON)
+                .setAccept(ContentType.JSON)
+                .build();
+    }
+}
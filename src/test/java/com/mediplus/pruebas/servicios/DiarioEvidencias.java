@@ -0,0 +1,234 @@
+package com.mediplus.pruebas.servicios;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Diario de evidencias de solo anexado, escrito por un hilo en segundo plano
+ * Las pruebas solo encolan la entrada; el escritor la agrupa en lotes, la anexa como una línea JSON
+ * al archivo del diario y hace fsync cada cierto intervalo. Así la captura de evidencias no toca el
+ * disco en el hilo de la petición y cada operación cuesta O(1) de E/S. Las vistas legibles (JSON por
+ * operación, índice Markdown) se generan a partir del diario al cerrar la sesión
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public final class DiarioEvidencias implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(DiarioEvidencias.class.getName());
+    private static final ObjectMapper MAPEADOR = new ObjectMapper();
+    private static final int TAMANO_LOTE = 256;
+
+    /**
+     * Una operación registrada, con lo necesario para regenerar sus vistas
+     */
+    public record Entrada(String operacion, int numero, String nombreArchivo, String marcaTiempo,
+                          List<String> parametros, int statusCode, String statusLine,
+                          Map<String, String> headers, long tiempoRespuesta, String cuerpo) {
+    }
+
+    /** Elementos de la cola del escritor: entradas o barreras de sincronización */
+    private sealed interface Registro permits RegistroEntrada, Barrera { }
+
+    private record RegistroEntrada(Entrada entrada) implements Registro { }
+
+    private record Barrera(CompletableFuture<Void> alcanzada, boolean detener) implements Registro { }
+
+    private final Path archivoDiario;
+    private final Duration intervaloFsync;
+    private final BlockingQueue<Registro> cola = new LinkedBlockingQueue<>();
+    private final Thread escritor;
+    private final LongAdder escritas = new LongAdder();
+    private volatile boolean cerrado;
+
+    public DiarioEvidencias(Path archivoDiario) {
+        this(archivoDiario, Duration.ofMillis(500));
+    }
+
+    /**
+     * @param intervaloFsync tiempo máximo que una entrada escrita puede quedar sin forzar a disco
+     */
+    public DiarioEvidencias(Path archivoDiario, Duration intervaloFsync) {
+        this.archivoDiario = archivoDiario;
+        this.intervaloFsync = intervaloFsync;
+        try {
+            Files.createDirectories(archivoDiario.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el directorio del diario: " + archivoDiario, e);
+        }
+        this.escritor = Thread.ofPlatform()
+                .name("diario-evidencias")
+                .daemon(true)
+                .start(this::escribir);
+    }
+
+    /**
+     * Encola la entrada y vuelve de inmediato
+     *
+     * @throws IllegalStateException si el diario ya se cerró
+     */
+    public void registrar(Entrada entrada) {
+        if (cerrado) {
+            throw new IllegalStateException("El diario de evidencias está cerrado: " + archivoDiario);
+        }
+        cola.add(new RegistroEntrada(entrada));
+    }
+
+    /**
+     * Espera a que todo lo registrado hasta ahora esté escrito y forzado a disco
+     */
+    public void vaciar() {
+        if (!cerrado) {
+            esperar(new Barrera(new CompletableFuture<>(), false));
+        }
+    }
+
+    /**
+     * Lee el diario completo en el orden en que se escribió
+     */
+    public List<Entrada> leer() throws IOException {
+        List<Entrada> entradas = new ArrayList<>();
+        if (!Files.exists(archivoDiario)) {
+            return entradas;
+        }
+        for (String linea : Files.readAllLines(archivoDiario, StandardCharsets.UTF_8)) {
+            if (!linea.isBlank()) {
+                entradas.add(MAPEADOR.readValue(linea, Entrada.class));
+            }
+        }
+        return entradas;
+    }
+
+    public Path getArchivoDiario() {
+        return archivoDiario;
+    }
+
+    public long getEntradasEscritas() {
+        return escritas.sum();
+    }
+
+    /**
+     * Escribe lo pendiente, hace fsync y detiene el escritor; llamadas repetidas no hacen nada
+     */
+    @Override
+    public synchronized void close() {
+        if (cerrado) {
+            return;
+        }
+        cerrado = true;
+        esperar(new Barrera(new CompletableFuture<>(), true));
+    }
+
+    private void esperar(Barrera barrera) {
+        cola.add(barrera);
+        try {
+            while (true) {
+                try {
+                    barrera.alcanzada().get(1, TimeUnit.SECONDS);
+                    return;
+                } catch (TimeoutException e) {
+                    if (!escritor.isAlive()) {
+                        throw new IllegalStateException("El escritor del diario terminó: " + archivoDiario);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error escribiendo el diario de evidencias: " + e.getCause().getMessage(), e);
+        }
+    }
+
+    // ==================== HILO ESCRITOR ====================
+
+    private void escribir() {
+        List<Registro> lote = new ArrayList<>(TAMANO_LOTE);
+        try (FileChannel canal = FileChannel.open(archivoDiario,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long ultimoFsync = System.nanoTime();
+            boolean sinForzar = false;
+
+            while (true) {
+                Registro primero = cola.poll(intervaloFsync.toMillis(), TimeUnit.MILLISECONDS);
+                if (primero != null) {
+                    lote.add(primero);
+                    cola.drainTo(lote, TAMANO_LOTE - 1);
+                }
+
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                List<Barrera> barreras = new ArrayList<>();
+                for (Registro registro : lote) {
+                    if (registro instanceof RegistroEntrada(Entrada entrada)) {
+                        buffer.write(MAPEADOR.writeValueAsBytes(entrada));
+                        buffer.write('\n');
+                    } else if (registro instanceof Barrera barrera) {
+                        barreras.add(barrera);
+                    }
+                }
+                if (buffer.size() > 0) {
+                    ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+                    while (bytes.hasRemaining()) {
+                        canal.write(bytes);
+                    }
+                    escritas.add(lote.size() - barreras.size());
+                    sinForzar = true;
+                }
+                lote.clear();
+
+                boolean vencido = System.nanoTime() - ultimoFsync >= intervaloFsync.toNanos();
+                if (sinForzar && (vencido || !barreras.isEmpty())) {
+                    canal.force(false);
+                    ultimoFsync = System.nanoTime();
+                    sinForzar = false;
+                }
+                boolean detener = false;
+                for (Barrera barrera : barreras) {
+                    barrera.alcanzada().complete(null);
+                    detener |= barrera.detener();
+                }
+                if (detener) {
+                    return;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "❌ Diario de evidencias detenido: " + archivoDiario, e);
+            fallarPendientes(lote, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Libera a quien espere una barrera; las entradas que queden ya no se pueden escribir
+     */
+    private void fallarPendientes(List<Registro> lote, Exception causa) {
+        cerrado = true;
+        cola.drainTo(lote);
+        for (Registro registro : lote) {
+            if (registro instanceof Barrera barrera) {
+                barrera.alcanzada().completeExceptionally(causa);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.mediplus.pruebas.servicios;
+
+import io.restassured.response.Response;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché compartida de tokens de autenticación, una entrada por usuario
+ * Guarda el access token y el refresh token con su vigencia ({@code expiresInMins}) y los
+ * renueva antes de que venzan con {@link ServicioAutenticacion#refrescarToken(String, int)};
+ * solo vuelve a hacer login si el refresco falla. Las renovaciones concurrentes del mismo usuario
+ * se colapsan en una sola petición: el primer hilo la hace y el resto espera su resultado, o sigue
+ * usando el token vigente si todavía no vence. Usuarios virtuales que comparten credenciales
+ * comparten token; con credenciales distintas cada usuario tiene su propia entrada.
+ *
+ * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
+ */
+public class ProveedorTokens {
+
+    /** Antelación con que se renueva un token antes de su vencimiento */
+    public static final Duration MARGEN_RENOVACION_PREDETERMINADO = Duration.ofMinutes(2);
+
+    private final ServicioAutenticacion servicioAutenticacion;
+    private final int expiracionMinutos;
+    private final Duration margenRenovacion;
+    private final Map<String, Credenciales> credencialesPorUsuario = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Credenciales>> renovacionesEnCurso = new ConcurrentHashMap<>();
+    private final LongAdder logins = new LongAdder();
+    private final LongAdder refrescos = new LongAdder();
+
+    public ProveedorTokens(ServicioAutenticacion servicioAutenticacion) {
+        this(servicioAutenticacion, ServicioAutenticacion.EXPIRACION_PREDETERMINADA_MINUTOS, MARGEN_RENOVACION_PREDETERMINADO);
+    }
+
+    /**
+     * @param expiracionMinutos vigencia que se pide al backend en cada login o refresco
+     * @param margenRenovacion  antelación con que se renueva; si supera la vigencia, cada uso renueva
+     */
+    public ProveedorTokens(ServicioAutenticacion servicioAutenticacion, int expiracionMinutos, Duration margenRenovacion) {
+        if (expiracionMinutos <= 0) {
+            throw new IllegalArgumentException("expiracionMinutos debe ser positivo");
+        }
+        if (margenRenovacion.isNegative()) {
+            throw new IllegalArgumentException("margenRenovacion no puede ser negativo");
+        }
+        this.servicioAutenticacion = servicioAutenticacion;
+        this.expiracionMinutos = expiracionMinutos;
+        this.margenRenovacion = margenRenovacion;
+    }
+
+    /**
+     * Token de acceso vigente del usuario; hace login o refresco solo cuando hace falta
+     *
+     * @throws IllegalStateException si el backend rechaza el login
+     */
+    public String obtenerToken(String usuario, String password) {
+        Credenciales actuales = credencialesPorUsuario.get(usuario);
+        Instant ahora = Instant.now();
+        if (actuales != null && ahora.isBefore(actuales.renovarDesde())) {
+            return actuales.accessToken();
+        }
+
+        CompletableFuture<Credenciales> propia = new CompletableFuture<>();
+        CompletableFuture<Credenciales> enCurso = renovacionesEnCurso.putIfAbsent(usuario, propia);
+        if (enCurso != null) {
+            // Otro hilo ya está renovando: mientras el token actual no venza no hace falta esperarlo
+            if (actuales != null && ahora.isBefore(actuales.expiraEn())) {
+                return actuales.accessToken();
+            }
+            return esperar(enCurso).accessToken();
+        }
+
+        try {
+            // Puede que otro hilo haya terminado de renovar entre la lectura y el putIfAbsent
+            Credenciales vigentes = credencialesPorUsuario.get(usuario);
+            Credenciales nuevas = vigentes != null && vigentes != actuales && Instant.now().isBefore(vigentes.renovarDesde())
+                    ? vigentes
+                    : renovar(usuario, password, vigentes);
+            credencialesPorUsuario.put(usuario, nuevas);
+            propia.complete(nuevas);
+            return nuevas.accessToken();
+        } catch (RuntimeException e) {
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            renovacionesEnCurso.remove(usuario, propia);
+        }
+    }
+
+    /**
+     * Descarta el token del usuario, p. ej. tras recibir un 401; el siguiente uso hará login
+     */
+    public void invalidar(String usuario) {
+        credencialesPorUsuario.remove(usuario);
+    }
+
+    public long getLogins() {
+        return logins.sum();
+    }
+
+    public long getRefrescos() {
+        return refrescos.sum();
+    }
+
+    private Credenciales renovar(String usuario, String password, Credenciales anteriores) {
+        if (anteriores != null && anteriores.refreshToken() != null) {
+            Instant inicio = Instant.now();
+            Response respuesta = servicioAutenticacion.refrescarToken(anteriores.refreshToken(), expiracionMinutos);
+            if (respuesta.getStatusCode() == 200) {
+                refrescos.increment();
+                return credenciales(respuesta, inicio);
+            }
+            // Refresh token vencido o revocado: se vuelve a hacer login
+        }
+
+        Instant inicio = Instant.now();
+        Response respuesta = servicioAutenticacion.realizarLogin(usuario, password, expiracionMinutos);
+        if (respuesta.getStatusCode() != 200) {
+            throw new IllegalStateException("Login rechazado para " + usuario + ": HTTP " + respuesta.getStatusCode());
+        }
+        logins.increment();
+        return credenciales(respuesta, inicio);
+    }
+
+    /**
+     * La vigencia se cuenta desde antes de enviar la petición, así el token nunca se cree más nuevo de lo que es
+     */
+    private Credenciales credenciales(Response respuesta, Instant inicio) {
+        Instant expiraEn = inicio.plus(Duration.ofMinutes(expiracionMinutos));
+        return new Credenciales(
+                respuesta.jsonPath().getString("accessToken"),
+                respuesta.jsonPath().getString("refreshToken"),
+                expiraEn.minus(margenRenovacion),
+                expiraEn);
+    }
+
+    private static Credenciales esperar(CompletableFuture<Credenciales> renovacion) {
+        try {
+            return renovacion.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private record Credenciales(String accessToken, String refreshToken, Instant renovarDesde, Instant expiraEn) {
+    }
+}
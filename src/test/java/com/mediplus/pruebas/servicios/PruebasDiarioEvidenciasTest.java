@@ -0,0 +1,82 @@
+package com.mediplus.pruebas.servicios;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del diario de evidencias: escritura concurrente, orden por hilo, cierre y anexado
+ */
+public class PruebasDiarioEvidenciasTest {
+
+    @TempDir
+    Path directorioTemporal;
+
+    @Test
+    @DisplayName("Diario de evidencias - Registros concurrentes quedan todos, en orden por hilo")
+    public void deberiaRegistrarEntradasConcurrentes() throws Exception {
+        Path archivo = directorioTemporal.resolve("diario.jsonl");
+        try (DiarioEvidencias diario = new DiarioEvidencias(archivo)) {
+            try (ExecutorService hilos = Executors.newFixedThreadPool(8)) {
+                for (int h = 0; h < 8; h++) {
+                    String operacion = "Operacion " + h;
+                    hilos.submit(() -> {
+                        for (int n = 1; n <= 500; n++) {
+                            diario.registrar(entrada(operacion, n));
+                        }
+                    });
+                }
+            }
+            diario.vaciar();
+
+            assertEquals(4000, diario.getEntradasEscritas());
+            List<DiarioEvidencias.Entrada> entradas = diario.leer();
+            assertEquals(4000, entradas.size());
+            Map<String, Integer> ultimoPorOperacion = new HashMap<>();
+            for (DiarioEvidencias.Entrada entrada : entradas) {
+                int anterior = ultimoPorOperacion.getOrDefault(entrada.operacion(), 0);
+                assertEquals(anterior + 1, entrada.numero(), "Orden de " + entrada.operacion());
+                ultimoPorOperacion.put(entrada.operacion(), entrada.numero());
+            }
+            assertEquals(Map.of("x-id", "7"), entradas.get(0).headers());
+            assertEquals(4000, Files.readAllLines(archivo).size(), "Una línea JSON por entrada");
+        }
+    }
+
+    @Test
+    @DisplayName("Diario de evidencias - El cierre escribe lo pendiente y un diario nuevo anexa al anterior")
+    public void deberiaCerrarYAnexar() throws Exception {
+        Path archivo = directorioTemporal.resolve("diario.jsonl");
+        DiarioEvidencias diario = new DiarioEvidencias(archivo);
+        diario.registrar(entrada("Obtener Reporte", 1));
+        diario.registrar(entrada("Obtener Reporte", 2));
+        diario.close();
+        diario.close();
+
+        assertThrows(IllegalStateException.class, () -> diario.registrar(entrada("Obtener Reporte", 3)));
+        assertEquals(2, diario.leer().size());
+
+        try (DiarioEvidencias continuacion = new DiarioEvidencias(archivo)) {
+            continuacion.registrar(entrada("Obtener Reporte", 3));
+        }
+        List<DiarioEvidencias.Entrada> entradas = diario.leer();
+        assertEquals(List.of(1, 2, 3), entradas.stream().map(DiarioEvidencias.Entrada::numero).toList());
+        assertEquals("{\"id\":1,\"title\":\"ñandú \\\"comillas\\\"\"}", entradas.get(2).cuerpo());
+    }
+
+    private static DiarioEvidencias.Entrada entrada(String operacion, int numero) {
+        return new DiarioEvidencias.Entrada(operacion, numero, operacion + "_" + numero + ".json", "17/10/2026 10:00:00",
+                List.of("id=" + numero), 200, "HTTP/1.1 200 OK", Map.of("x-id", "7"), 12,
+                "{\"id\":1,\"title\":\"ñandú \\\"comillas\\\"\"}");
+    }
+}
@@ -0,0 +1,98 @@
+package com.mediplus.pruebas.servicios;
+
+import com.mediplus.pruebas.analisis.simulador.DistribucionLatencia;
+import com.mediplus.pruebas.analisis.simulador.ServidorDummyJSONLocal;
+import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.http.ContentType;
+import io.restassured.specification.RequestSpecification;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la caché de tokens contra el servidor DummyJSON local: un solo login para muchos hilos,
+ * refresco anticipado y particionado por usuario
+ */
+public class PruebasProveedorTokensTest {
+
+    @Test
+    @DisplayName("Tokens - Muchos hilos a la vez provocan un solo login")
+    public void deberiaColapsarLoginsConcurrentes() throws Exception {
+        try (ServidorDummyJSONLocal servidor = ServidorDummyJSONLocal.builder()
+                .latencia(DistribucionLatencia.constante(Duration.ofMillis(100)))
+                .iniciar()) {
+            ProveedorTokens proveedor = new ProveedorTokens(new ServicioAutenticacion(especificacion(servidor)));
+            Set<String> tokens = ConcurrentHashMap.newKeySet();
+            CountDownLatch salida = new CountDownLatch(1);
+
+            try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> tareas = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    tareas.add(hilos.submit(() -> {
+                        salida.await();
+                        return tokens.add(proveedor.obtenerToken("emilys", "emilyspass"));
+                    }));
+                }
+                salida.countDown();
+                for (Future<?> tarea : tareas) {
+                    tarea.get();
+                }
+            }
+
+            assertEquals(1, tokens.size());
+            assertEquals(1, proveedor.getLogins());
+            assertEquals(1, servidor.getPeticionesAtendidas());
+        }
+    }
+
+    @Test
+    @DisplayName("Tokens - Refresco anticipado, particionado por usuario e invalidación")
+    public void deberiaRefrescarAntesDeVencerYSepararUsuarios() throws Exception {
+        try (ServidorDummyJSONLocal servidor = ServidorDummyJSONLocal.builder().iniciar()) {
+            ServicioAutenticacion servicio = new ServicioAutenticacion(especificacion(servidor));
+            // Margen mayor que la vigencia: cada uso cae en la ventana de renovación
+            ProveedorTokens proveedor = new ProveedorTokens(servicio, 1, Duration.ofMinutes(2));
+
+            String primero = proveedor.obtenerToken("emilys", "emilyspass");
+            String segundo = proveedor.obtenerToken("emilys", "emilyspass");
+            assertNotEquals(primero, segundo);
+            assertEquals(1, proveedor.getLogins());
+            assertEquals(1, proveedor.getRefrescos());
+            assertEquals(200, servicio.obtenerUsuarioAutenticado(segundo).getStatusCode());
+
+            String usuario2 = RestAssured.given().spec(especificacion(servidor))
+                    .get("/users/2").jsonPath().getString("username");
+            String otro = proveedor.obtenerToken(usuario2, usuario2 + "pass");
+            assertEquals(usuario2, servicio.obtenerUsuarioAutenticado(otro).jsonPath().getString("username"));
+            assertEquals(2, proveedor.getLogins());
+
+            proveedor.invalidar("emilys");
+            proveedor.obtenerToken("emilys", "emilyspass");
+            assertEquals(3, proveedor.getLogins());
+
+            // Sin refresh token en caché no queda otra que el login, que el backend rechaza
+            proveedor.invalidar("emilys");
+            assertThrows(IllegalStateException.class, () -> proveedor.obtenerToken("emilys", "incorrecta"));
+        }
+    }
+
+    private static RequestSpecification especificacion(ServidorDummyJSONLocal servidor) {
+        return new RequestSpecBuilder()
+                .setBaseUri(servidor.getUrlBase().toString())
+                .setContentType(ContentType.JSON)
+                .setAccept(ContentType.JSON)
+                .build();
+    }
+}
@@ -10,6 +10,9 @@ import io.restassured.specification.RequestSpecification;
  */
 public class ServicioAutenticacion {
 
+    /** Vigencia que se pide al backend para los tokens cuando no se indica otra */
+    public static final int EXPIRACION_PREDETERMINADA_MINUTOS = 30;
+
     private final RequestSpecification especificacionBase;
 
     public ServicioAutenticacion(RequestSpecification especificacionBase) {
@@ -20,6 +23,13 @@ public class ServicioAutenticacion {
      * Realizar login y obtener token JWT
      */
     public Response realizarLogin(String usuario, String password) {
+        return realizarLogin(usuario, password, EXPIRACION_PREDETERMINADA_MINUTOS);
+    }
+
+    /**
+     * Realizar login pidiendo una vigencia específica para el token
+     */
+    public Response realizarLogin(String usuario, String password, int expiracionMinutos) {
         return RestAssured
                 .given()
                 .spec(especificacionBase)
@@ -27,9 +37,9 @@ public class ServicioAutenticacion {
                         {
                             "username": "%s",
                             "password": "%s",
-                            "expiresInMins": 30
+                            "expiresInMins": %d
                         }
-                        """, usuario, password))
+                        """, usuario, password, expiracionMinutos))
                 .when()
                 .post("/auth/login")
                 .then()
@@ -56,15 +66,22 @@ public class ServicioAutenticacion {
      * Refrescar token de acceso
      */
     public Response refrescarToken(String refreshToken) {
+        return refrescarToken(refreshToken, EXPIRACION_PREDETERMINADA_MINUTOS);
+    }
+
+    /**
+     * Refrescar token de acceso pidiendo una vigencia específica
+     */
+    public Response refrescarToken(String refreshToken, int expiracionMinutos) {
         return RestAssured
                 .given()
                 .spec(especificacionBase)
                 .body(String.format("""
                         {
                             "refreshToken": "%s",
-                            "expiresInMins": 30
+                            "expiresInMins": %d
                         }
-                        """, refreshToken))
+                        """, refreshToken, expiracionMinutos))
                 .when()
                 .post("/auth/refresh")
                 .then()
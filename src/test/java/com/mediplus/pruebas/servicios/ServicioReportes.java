@@ -9,11 +9,18 @@ import java.nio.file.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Servicio para manejar operaciones de reportes de salud
  * Mapea operaciones de Products de DummyJSON a reportes médicos
  * MEJORADO: Ahora guarda automáticamente todos los reportes en archivos
+ *
+ * <p>La sesión de evidencias es una sola por JVM y la comparten todas las instancias, aunque las
+ * pruebas corran en paralelo. Cada operación solo se encola en un {@link DiarioEvidencias} de solo
+ * anexado; los archivos JSON por operación y el índice Markdown se generan una vez, a partir del
+ * diario, al cerrar la sesión (al terminar la JVM o con {@link #cerrarSesion()}).</p>
  * 
  * @author Antonio B. Arriagada LL., Dante Escalona Bustos, Roberto Rivas Lopez
  */
@@ -21,103 +28,73 @@ public class ServicioReportes {
 
     private static final DateTimeFormatter FORMATO_TIMESTAMP = 
         DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+    private static final DateTimeFormatter FORMATO_FECHA_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
     private static final String SEPARADOR = "=".repeat(80);
     
+    private static final Path DIRECTORIO_REPORTES = Paths.get("evidencias", "reportes-dummyjson");
+    private static final String TIMESTAMP_SESION = LocalDateTime.now().format(FORMATO_TIMESTAMP);
+    private static final String INICIO_SESION = LocalDateTime.now().format(FORMATO_FECHA_HORA);
+    private static final String NOMBRE_DIARIO = "DIARIO-SESION-" + TIMESTAMP_SESION + ".jsonl";
+    private static final Map<String, AtomicInteger> CONTADORES_OPERACIONES = new ConcurrentHashMap<>();
+    private static final Object CANDADO_SESION = new Object();
+    private static DiarioEvidencias diario;
+    private static boolean cierreRegistrado;
+
     private final RequestSpecification especificacionBase;
-    private final Path directorioReportes;
-    private final String timestampSesion;
-    private final Map<String, Integer> contadoresOperaciones;
 
     public ServicioReportes(RequestSpecification especificacionBase) {
         this.especificacionBase = especificacionBase;
-        this.timestampSesion = LocalDateTime.now().format(FORMATO_TIMESTAMP);
-        this.contadoresOperaciones = new HashMap<>();
-        
-        // Crear directorio de reportes si no existe
-        try {
-            this.directorioReportes = Paths.get("evidencias", "reportes-dummyjson");
-            Files.createDirectories(directorioReportes);
-            
-            // Crear archivo de índice de sesión
-            crearIndiceSession();
-            
-        } catch (IOException e) {
-            throw new RuntimeException("Error creando directorio de reportes: " + e.getMessage(), e);
-        }
+        iniciarSesion();
     }
 
-    private void crearIndiceSession() throws IOException {
-        Path archivoIndice = directorioReportes.resolve("INDICE-SESION-" + timestampSesion + ".md");
-        
-        try (BufferedWriter writer = Files.newBufferedWriter(archivoIndice)) {
-            writer.write("# 📊 Índice de Sesión - Reportes DummyJSON\n\n");
-            writer.write("**Iniciada:** " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")) + "\n");
-            writer.write("**Timestamp:** " + timestampSesion + "\n\n");
-            writer.write("## 📋 Operaciones Realizadas\n\n");
-            writer.write("Este archivo se actualiza automáticamente con cada operación.\n\n");
+    /**
+     * Abre el diario de la sesión la primera vez que se usa el servicio en la JVM
+     */
+    private static DiarioEvidencias iniciarSesion() {
+        synchronized (CANDADO_SESION) {
+            if (diario == null) {
+                // Tras un cierre explícito se sigue anexando al mismo diario de la sesión
+                diario = new DiarioEvidencias(DIRECTORIO_REPORTES.resolve(NOMBRE_DIARIO));
+                if (!cierreRegistrado) {
+                    Runtime.getRuntime().addShutdownHook(new Thread(ServicioReportes::cerrarSesion, "cierre-evidencias"));
+                    cierreRegistrado = true;
+                }
+            }
+            return diario;
         }
     }
 
     private void guardarReporte(String operacion, Response response, Object... parametros) {
-        try {
-            // Incrementar contador
-            contadoresOperaciones.merge(operacion, 1, Integer::sum);
-            int numeroOperacion = contadoresOperaciones.get(operacion);
-            
-            // Nombre del archivo
-            String nombreArchivo = String.format("%s_%02d_%s.json", 
-                operacion.toLowerCase().replace(" ", "_"), 
-                numeroOperacion, 
-                timestampSesion);
-            
-            Path archivoReporte = directorioReportes.resolve(nombreArchivo);
-            
-            // Guardar response completo en JSON
-            try (BufferedWriter writer = Files.newBufferedWriter(archivoReporte)) {
-                writer.write("{\n");
-                writer.write("  \"operacion\": \"" + operacion + "\",\n");
-                writer.write("  \"timestamp\": \"" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")) + "\",\n");
-                writer.write("  \"parametros\": " + Arrays.toString(parametros) + ",\n");
-                writer.write("  \"statusCode\": " + response.getStatusCode() + ",\n");
-                writer.write("  \"statusLine\": \"" + response.getStatusLine() + "\",\n");
-                writer.write("  \"headers\": {\n");
-                
-                // Guardar headers importantes
-                response.getHeaders().forEach(header -> {
-                    try {
-                        writer.write("    \"" + header.getName() + "\": \"" + header.getValue() + "\",\n");
-                    } catch (IOException e) {
-                        // Ignorar errores menores en headers
-                    }
-                });
-                
-                writer.write("  },\n");
-                writer.write("  \"responseTime\": " + response.getTime() + ",\n");
-                writer.write("  \"responseBody\": ");
-                
-                // Guardar body (si es JSON válido, formatearlo; si no, como string)
-                String body = response.getBody().asString();
-                if (esJsonValido(body)) {
-                    writer.write(body);
-                } else {
-                    writer.write("\"" + body.replace("\"", "\\\"") + "\"");
-                }
-                
-                writer.write("\n}");
-            }
-            
-            // Actualizar índice de sesión
-            actualizarIndiceSession(operacion, nombreArchivo, response.getStatusCode(), response.getTime());
-            
-            // Log en consola (opcional)
-            System.out.println("📁 Reporte guardado: " + nombreArchivo);
-            
-        } catch (IOException e) {
-            System.err.println("⚠️ Error guardando reporte de " + operacion + ": " + e.getMessage());
-        }
+        // Contador atómico: dos hilos nunca obtienen el mismo número ni el mismo archivo
+        int numeroOperacion = CONTADORES_OPERACIONES
+                .computeIfAbsent(operacion, clave -> new AtomicInteger())
+                .incrementAndGet();
+
+        String nombreArchivo = String.format("%s_%02d_%s.json",
+            operacion.toLowerCase().replace(" ", "_"),
+            numeroOperacion,
+            TIMESTAMP_SESION);
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        response.getHeaders().forEach(header -> headers.put(header.getName(), header.getValue()));
+
+        // Solo se encola: la escritura a disco ocurre en el hilo del diario
+        iniciarSesion().registrar(new DiarioEvidencias.Entrada(
+            operacion,
+            numeroOperacion,
+            nombreArchivo,
+            LocalDateTime.now().format(FORMATO_FECHA_HORA),
+            Arrays.stream(parametros).map(String::valueOf).toList(),
+            response.getStatusCode(),
+            response.getStatusLine(),
+            headers,
+            response.getTime(),
+            response.getBody().asString()));
+
+        System.out.println("📁 Reporte registrado: " + nombreArchivo);
     }
 
-    private boolean esJsonValido(String json) {
+    private static boolean esJsonValido(String json) {
         try {
             // Verificación simple de JSON válido
             return (json.trim().startsWith("{") && json.trim().endsWith("}")) ||
@@ -127,53 +104,84 @@ public class ServicioReportes {
         }
     }
 
-    private void actualizarIndiceSession(String operacion, String nombreArchivo, int statusCode, long tiempoRespuesta) {
+    // ============================================================================
+    // VISTAS DE LA SESIÓN (SE GENERAN DESDE EL DIARIO)
+    // ============================================================================
+
+    /**
+     * Cierra el diario y genera una sola vez los JSON por operación y el índice de la sesión
+     * Se llama sola al terminar la JVM; llamadas repetidas no hacen nada
+     */
+    public static void cerrarSesion() {
+        DiarioEvidencias abierto;
+        synchronized (CANDADO_SESION) {
+            abierto = diario;
+            diario = null;
+        }
+        if (abierto == null) {
+            return;
+        }
+        abierto.close();
+        renderizarVistas(abierto);
+    }
+
+    private static synchronized void renderizarVistas(DiarioEvidencias origen) {
         try {
-            Path archivoIndice = directorioReportes.resolve("INDICE-SESION-" + timestampSesion + ".md");
-            
-            // Leer contenido existente
-            List<String> lineas = Files.readAllLines(archivoIndice);
-            
-            // Buscar dónde insertar la nueva operación
-            boolean encontradoSeccion = false;
-            for (int i = 0; i < lineas.size(); i++) {
-                if (lineas.get(i).contains("## 📋 Operaciones Realizadas")) {
-                    encontradoSeccion = true;
-                    // Agregar nueva línea después de encontrar la sección
-                    String nuevaLinea = String.format("- `%s` - %s - Status: %d - Tiempo: %dms - [Ver archivo](%s)", 
-                        LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss")),
-                        operacion, 
-                        statusCode, 
-                        tiempoRespuesta, 
-                        nombreArchivo);
-                    
-                    // Insertar después de la línea en blanco que sigue a la sección
-                    if (i + 2 < lineas.size()) {
-                        lineas.add(i + 3, nuevaLinea);
-                    } else {
-                        lineas.add(nuevaLinea);
-                    }
-                    break;
-                }
-            }
-            
-            // Si no encontró la sección, agregar al final
-            if (!encontradoSeccion) {
-                lineas.add("");
-                lineas.add("## 📋 Operaciones Realizadas");
-                lineas.add("");
-                lineas.add(String.format("- `%s` - %s - Status: %d - [Ver archivo](%s)", 
-                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss")),
-                    operacion, 
-                    statusCode, 
-                    nombreArchivo));
+            List<DiarioEvidencias.Entrada> entradas = origen.leer();
+            for (DiarioEvidencias.Entrada entrada : entradas) {
+                escribirReporteJson(entrada);
             }
-            
-            // Escribir de vuelta al archivo
-            Files.write(archivoIndice, lineas);
-            
+            escribirIndiceSession(entradas);
         } catch (IOException e) {
-            System.err.println("⚠️ Error actualizando índice: " + e.getMessage());
+            System.err.println("⚠️ Error generando vistas de la sesión: " + e.getMessage());
+        }
+    }
+
+    private static void escribirReporteJson(DiarioEvidencias.Entrada entrada) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(DIRECTORIO_REPORTES.resolve(entrada.nombreArchivo()))) {
+            writer.write("{\n");
+            writer.write("  \"operacion\": \"" + entrada.operacion() + "\",\n");
+            writer.write("  \"timestamp\": \"" + entrada.marcaTiempo() + "\",\n");
+            writer.write("  \"parametros\": " + entrada.parametros() + ",\n");
+            writer.write("  \"statusCode\": " + entrada.statusCode() + ",\n");
+            writer.write("  \"statusLine\": \"" + entrada.statusLine() + "\",\n");
+            writer.write("  \"headers\": {\n");
+            for (Map.Entry<String, String> header : entrada.headers().entrySet()) {
+                writer.write("    \"" + header.getKey() + "\": \"" + header.getValue() + "\",\n");
+            }
+            writer.write("  },\n");
+            writer.write("  \"responseTime\": " + entrada.tiempoRespuesta() + ",\n");
+            writer.write("  \"responseBody\": ");
+
+            // Guardar body (si es JSON válido, tal cual; si no, como string)
+            String body = entrada.cuerpo();
+            if (esJsonValido(body)) {
+                writer.write(body);
+            } else {
+                writer.write("\"" + body.replace("\"", "\\\"") + "\"");
+            }
+
+            writer.write("\n}");
+        }
+    }
+
+    private static void escribirIndiceSession(List<DiarioEvidencias.Entrada> entradas) throws IOException {
+        Path archivoIndice = DIRECTORIO_REPORTES.resolve("INDICE-SESION-" + TIMESTAMP_SESION + ".md");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(archivoIndice)) {
+            writer.write("# 📊 Índice de Sesión - Reportes DummyJSON\n\n");
+            writer.write("**Iniciada:** " + INICIO_SESION + "\n");
+            writer.write("**Timestamp:** " + TIMESTAMP_SESION + "\n");
+            writer.write("**Diario:** `" + NOMBRE_DIARIO + "`\n\n");
+            writer.write("## 📋 Operaciones Realizadas\n\n");
+            for (DiarioEvidencias.Entrada entrada : entradas) {
+                writer.write(String.format("- `%s` - %s - Status: %d - Tiempo: %dms - [Ver archivo](%s)%n",
+                    entrada.marcaTiempo().substring(entrada.marcaTiempo().length() - 8),
+                    entrada.operacion(),
+                    entrada.statusCode(),
+                    entrada.tiempoRespuesta(),
+                    entrada.nombreArchivo()));
+            }
         }
     }
 
@@ -482,19 +490,27 @@ public class ServicioReportes {
      * Generar resumen de la sesión actual
      */
     public void generarResumenSesion() {
+        // Las vistas normalmente se generan al cerrar la sesión; el resumen necesita una foto actual
+        DiarioEvidencias actual = iniciarSesion();
+        actual.vaciar();
+        renderizarVistas(actual);
+
         try {
-            Path archivoResumen = directorioReportes.resolve("RESUMEN-SESION-" + timestampSesion + ".md");
+            Path archivoResumen = DIRECTORIO_REPORTES.resolve("RESUMEN-SESION-" + TIMESTAMP_SESION + ".md");
             
             try (BufferedWriter writer = Files.newBufferedWriter(archivoResumen)) {
                 writer.write("# 📊 Resumen de Sesión - Reportes DummyJSON\n\n");
                 writer.write("**Finalizada:** " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")) + "\n");
-                writer.write("**Timestamp:** " + timestampSesion + "\n\n");
+                writer.write("**Timestamp:** " + TIMESTAMP_SESION + "\n\n");
                 
                 writer.write("## 📈 Estadísticas de Operaciones\n\n");
                 writer.write("| Operación | Cantidad |\n");
                 writer.write("|-----------|----------|\n");
                 
-                contadoresOperaciones.entrySet().stream()
+                Map<String, Integer> conteos = new HashMap<>();
+                CONTADORES_OPERACIONES.forEach((operacion, contador) -> conteos.put(operacion, contador.get()));
+
+                conteos.entrySet().stream()
                     .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
                     .forEach(entry -> {
                         try {
@@ -504,14 +520,14 @@ public class ServicioReportes {
                         }
                     });
                 
-                writer.write("\n**Total de operaciones:** " + contadoresOperaciones.values().stream().mapToInt(Integer::intValue).sum() + "\n\n");
+                writer.write("\n**Total de operaciones:** " + conteos.values().stream().mapToInt(Integer::intValue).sum() + "\n\n");
                 
                 writer.write("## 📁 Archivos Generados\n\n");
                 writer.write("Todos los archivos están disponibles en: `evidencias/reportes-dummyjson/`\n\n");
                 
                 writer.write("### Archivos de esta sesión:\n");
-                Files.list(directorioReportes)
-                    .filter(path -> path.getFileName().toString().contains(timestampSesion))
+                Files.list(DIRECTORIO_REPORTES)
+                    .filter(path -> path.getFileName().toString().contains(TIMESTAMP_SESION))
                     .sorted()
                     .forEach(path -> {
                         try {
@@ -533,13 +549,13 @@ public class ServicioReportes {
      * Obtener directorio donde se guardan los reportes
      */
     public Path getDirectorioReportes() {
-        return directorioReportes;
+        return DIRECTORIO_REPORTES;
     }
 
     /**
      * Obtener timestamp de la sesión actual
      */
     public String getTimestampSesion() {
-        return timestampSesion;
+        return TIMESTAMP_SESION;
     }
 }
\ No newline at end of file